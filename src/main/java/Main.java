@@ -23,8 +23,12 @@ import semantic.SemanticAnalyzer;
 import semantic.QueryTree;
 import memory.buffer.BufferPoolManager;
 import memory.buffer.DefaultBufferPoolManager;
+import memory.control.ControlFile;
+import memory.control.Recovery;
+import memory.manager.CompressedPageFileManager;
 import memory.manager.HeapPageFileManager;
 import memory.manager.PageFileManager;
+import memory.manager.TempPageFileManager;
 import memory.model.BufferSlot;
 import memory.replacer.ClockReplacer;
 import memory.replacer.Replacer;
@@ -36,14 +40,40 @@ import java.util.List;
 
 public class Main {
 
+    // сколько страниц временных таблиц держать в памяти, прежде чем писать их на диск
+    private static final int TEMP_BUFFERS = 1024;
+
     public static void main(String[] args) throws Exception {
         var dbRoot = Path.of("data").toAbsolutePath();
 
-        PageFileManager pfm = new HeapPageFileManager();
+        // размер страницы задаётся только при создании базы: --page-size=16384 или --page-size=16k
+        Integer pageSize = null;
+        for (String arg : args) {
+            if (arg.startsWith("--page-size=")) {
+                pageSize = parsePageSize(arg.substring("--page-size=".length()));
+            }
+        }
+        ControlFile control = ControlFile.openOrCreate(dbRoot, pageSize);
+
+        Path tablesRoot = dbRoot.resolve("tables");
+        Recovery.removeTempRelations(tablesRoot);
+        boolean crashed = control.state() != ControlFile.State.SHUT_DOWN;
+        if (crashed) {
+            Recovery.resetUnloggedRelations(tablesRoot);
+        }
+        control.setState(ControlFile.State.IN_PRODUCTION);
+
+        PageFileManager pfm = new TempPageFileManager(
+                new CompressedPageFileManager(new HeapPageFileManager(control.pageSize())),
+                TEMP_BUFFERS
+        );
         Replacer replacer = new ClockReplacer();
         BufferPoolManager bpm = new DefaultBufferPoolManager(64, pfm, replacer);
 
         CatalogManager catalog = new DefaultCatalogManager(dbRoot.resolve("catalog"), bpm);
+        if (crashed) {
+            ((DefaultCatalogManager) catalog).resetUnloggedTables();
+        }
 
         IndexRegistry indexRegistry = new DefaultIndexRegistry();
 
@@ -52,9 +82,8 @@ public class Main {
                 catalog,
                 (DefaultCatalogManager) catalog,
                 bpm,
-                dbRoot.resolve("tables"),
-                indexRegistry,
-                pfm
+                tablesRoot,
+                indexRegistry
         );
 
         Lexer lexer = new DefaultLexer();
@@ -102,7 +131,27 @@ public class Main {
                 }
             }
         }
+
+        // штатная остановка: нелогируемые таблицы сбрасываются на диск и переживут рестарт
+        op.shutdown();
+        bpm.flushAllPages();
+        Recovery.removeTempRelations(tablesRoot);
+        control.setState(ControlFile.State.SHUT_DOWN);
     }
 
 
-}
\ No newline at end of file
+
+    private static int parsePageSize(String value) {
+        String v = value.trim().toLowerCase();
+        int multiplier = 1;
+        if (v.endsWith("k")) {
+            multiplier = 1024;
+            v = v.substring(0, v.length() - 1);
+        }
+        try {
+            return Integer.parseInt(v) * multiplier;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid --page-size: " + value);
+        }
+    }
+}
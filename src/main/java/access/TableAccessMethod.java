@@ -0,0 +1,97 @@
+package access;
+
+import catalog.model.ColumnDefinition;
+import catalog.model.TableDefinition;
+import catalog.operation.DictionaryFilter;
+import catalog.operation.OperationManager;
+import index.TID;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Метод доступа к таблице: как строки лежат на страницах.
+ * <p>
+ * Значения строк передаются списком в порядке колонок таблицы. Индексы метод
+ * доступа не обслуживает — это делает OperationManager по возвращённым TID.
+ */
+public interface TableAccessMethod {
+
+    /** Ключ параметра таблицы с именем метода доступа (CREATE TABLE ... USING name). */
+    String OPTION = "access_method";
+
+    String HEAP = "heap";
+    String COLUMNAR = "columnar";
+    String LSM = "lsm";
+    /** Индексно-организованная таблица: WITH (organization = index). */
+    String INDEX_ORGANIZED = "iot";
+
+    Set<String> BUILTIN = Set.of(HEAP, COLUMNAR, LSM, INDEX_ORGANIZED);
+
+    String name();
+
+    TID insert(TableDefinition table, List<Object> values);
+
+    /**
+     * Строки с запрошенными колонками и служебным ключом ctid.
+     */
+    List<Map<String, Object>> scan(TableDefinition table, List<ColumnDefinition> columns, List<DictionaryFilter> filters);
+
+    /**
+     * Скан только по страницам из pages ({@code null} — по всем): так BRIN
+     * отсекает диапазоны страниц. Поддерживают методы со страничными TID.
+     */
+    default List<Map<String, Object>> scan(TableDefinition table, List<ColumnDefinition> columns,
+                                           List<DictionaryFilter> filters, BitSet pages) {
+        if (pages != null) {
+            throw new UnsupportedOperationException("page-restricted scan is not supported by " + name());
+        }
+        return scan(table, columns, filters);
+    }
+
+    /**
+     * Значения строки по TID или {@code null}, если строки нет.
+     */
+    List<Object> fetch(TableDefinition table, TID tid);
+
+    /**
+     * Текущий адрес строки, прочитанной сканом, или {@code null}, если её уже нет.
+     * По умолчанию это её ctid; методы доступа, у которых строки переезжают
+     * при изменениях таблицы, находят строку заново.
+     */
+    default TID locate(TableDefinition table, Map<String, ?> row) {
+        if (row.get(OperationManager.CTID) instanceof TID tid) {
+            return tid;
+        }
+        throw new IllegalStateException("row has no " + OperationManager.CTID + ": " + row);
+    }
+
+    /**
+     * Удаляет строку и возвращает её значения или {@code null}, если строки нет.
+     */
+    List<Object> delete(TableDefinition table, TID tid);
+
+    /**
+     * Записывает новую версию строки.
+     *
+     * @param allowHeapOnly можно ли оставить индексы как есть (индексированные колонки не менялись)
+     * @return адрес новой версии или {@code null}, если строки нет
+     */
+    UpdateResult update(TableDefinition table, TID tid, List<Object> values, boolean allowHeapOnly);
+
+    TableStats stats(TableDefinition table);
+
+    /**
+     * Штатная остановка: дописать то, что метод доступа держит в памяти.
+     */
+    default void shutdown() {
+    }
+
+    /**
+     * @param tid      адрес, по которому строка теперь доступна
+     * @param heapOnly true — индексы по-прежнему верны и обновлять их не нужно
+     */
+    record UpdateResult(TID tid, boolean heapOnly) { }
+}
@@ -0,0 +1,78 @@
+package access;
+
+import index.TID;
+
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Выборка из таблицы (TABLESAMPLE).
+ * <p>
+ * SYSTEM берёт страницы целиком, каждую с вероятностью percent/100: невыбранные
+ * страницы скан пропускает и в буферный пул они не читаются. BERNOULLI читает
+ * все страницы, но оставляет каждую строку с той же вероятностью — выборка
+ * ровнее, а экономится только работа над строками.
+ * <p>
+ * Решение по странице или строке — хэш от seed и её адреса, поэтому с одним
+ * seed (REPEATABLE) выборка повторяется, пока таблица не меняется.
+ *
+ * @param seed {@code null} — новый seed при каждом выполнении ({@link #seeded()})
+ */
+public record TableSample(Method method, double percent, Long seed) {
+
+    public enum Method { SYSTEM, BERNOULLI }
+
+    public TableSample {
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("sample percentage must be between 0 and 100: " + percent);
+        }
+    }
+
+    /**
+     * Та же выборка с зафиксированным seed.
+     */
+    public TableSample seeded() {
+        return seed != null ? this : new TableSample(method, percent, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * SYSTEM: выбранные страницы из первых pageCount.
+     */
+    public BitSet pages(int pageCount) {
+        BitSet out = new BitSet(pageCount);
+        for (int pid = 0; pid < pageCount; pid++) {
+            if (hit(pid)) out.set(pid);
+        }
+        return out;
+    }
+
+    /**
+     * BERNOULLI: остаётся ли строка с этим адресом.
+     */
+    public boolean keeps(TID tid) {
+        return hit(((long) tid.pageId() << 16) ^ (tid.slotId() & 0xFFFF));
+    }
+
+    private boolean hit(long address) {
+        if (seed == null) throw new IllegalStateException("sample is not seeded");
+        long z = seed + (address + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-53 * 100 < percent;
+    }
+
+    @Override
+    public String toString() {
+        return method.name() + "(" + percent + ")" + (seed == null ? "" : " REPEATABLE(" + seed + ")");
+    }
+
+    public static Method methodOf(String name) {
+        try {
+            return Method.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown tablesample method: " + name);
+        }
+    }
+}
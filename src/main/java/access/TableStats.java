@@ -0,0 +1,15 @@
+package access;
+
+/**
+ * Статистика отношения, собранная методом доступа.
+ *
+ * @param pages      число страниц
+ * @param liveTuples число живых строк
+ * @param deadTuples число удалённых, но ещё не освобождённых строк
+ */
+public record TableStats(int pages, long liveTuples, long deadTuples) {
+
+    public double tuplesPerPage() {
+        return pages == 0 ? 0.0 : (double) liveTuples / pages;
+    }
+}
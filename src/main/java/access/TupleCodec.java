@@ -0,0 +1,187 @@
+package access;
+
+import catalog.model.ColumnDefinition;
+import catalog.model.TypeDefinition;
+import catalog.operation.DefaultOperationManager;
+import catalog.operation.DictionaryFilter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Формат полей строки, общий для всех методов доступа.
+ * <p>
+ * INT64 — 8 байт LE, VARCHAR — длина (1 байт) + UTF-8, колонка со словарём — 2-байтовый код LE.
+ * Строка целиком — конкатенация полей в порядке колонок.
+ */
+public class TupleCodec {
+
+    /** Ширина поля переменной длины для {@link #fixedWidth(ColumnDefinition)}. */
+    public static final int VARLEN = 0;
+
+    private final DefaultOperationManager.CatalogAccess catalogAccess;
+
+    public TupleCodec(DefaultOperationManager.CatalogAccess catalogAccess) {
+        if (catalogAccess == null) throw new IllegalArgumentException("catalogAccess is null");
+        this.catalogAccess = catalogAccess;
+    }
+
+    public byte[] serializeRow(List<ColumnDefinition> cols, List<Object> values) {
+        int total = 0;
+        byte[][] parts = new byte[cols.size()][];
+        for (int i = 0; i < cols.size(); i++) {
+            parts[i] = serializeField(cols.get(i), values.get(i));
+            total += parts[i].length;
+        }
+        byte[] buf = new byte[total];
+        int off = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, buf, off, part.length);
+            off += part.length;
+        }
+        return buf;
+    }
+
+    public Map<String, Object> deserializeRowToMap(List<ColumnDefinition> allCols, byte[] tuple) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        int off = 0;
+        for (ColumnDefinition c : allCols) {
+            out.put(c.name(), decodeField(c, tuple, off));
+            off += fieldWidth(c, tuple, off);
+        }
+        return out;
+    }
+
+    public List<Object> deserializeValues(List<ColumnDefinition> allCols, byte[] tuple) {
+        return new ArrayList<>(deserializeRowToMap(allCols, tuple).values());
+    }
+
+    public byte[] serializeField(ColumnDefinition c, Object v) {
+        if (c.isDictionaryEncoded()) {
+            if (!(v instanceof String s)) {
+                throw new IllegalArgumentException("expected String for column " + c.name());
+            }
+            int code = catalogAccess.encodeDictionaryValue(c, s);
+            return new byte[] { (byte) (code & 0xFF), (byte) ((code >>> 8) & 0xFF) };
+        }
+        TypeDefinition t = catalogAccess.getTypeByOid(c.typeOid());
+        if ("INT64".equalsIgnoreCase(t.name())) {
+            if (!(v instanceof Long l)) {
+                throw new IllegalArgumentException("expected Long for column " + c.name());
+            }
+            ByteBuffer bb = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            bb.putLong(l);
+            return bb.array();
+        } else if (t.name().startsWith("VARCHAR")) {
+            if (!(v instanceof String s)) {
+                throw new IllegalArgumentException("expected String for column " + c.name());
+            }
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            if (b.length > 255) throw new IllegalArgumentException("VARCHAR too long (>255 bytes)");
+            byte[] out = new byte[1 + b.length];
+            out[0] = (byte) (b.length & 0xFF);
+            System.arraycopy(b, 0, out, 1, b.length);
+            return out;
+        }
+        throw new IllegalArgumentException("unsupported type: " + t.name());
+    }
+
+    public Object decodeField(ColumnDefinition c, byte[] buf, int off) {
+        if (c.isDictionaryEncoded()) {
+            return catalogAccess.getDictionary(c).decode(leShort(buf, off));
+        }
+        TypeDefinition t = catalogAccess.getTypeByOid(c.typeOid());
+        if ("INT64".equalsIgnoreCase(t.name())) {
+            return leLong(buf, off);
+        } else if (t.name().startsWith("VARCHAR")) {
+            int len = buf[off] & 0xFF;
+            return new String(buf, off + 1, len, StandardCharsets.UTF_8);
+        }
+        throw new IllegalArgumentException("unsupported type: " + t.name());
+    }
+
+    public int fieldWidth(ColumnDefinition c, byte[] tuple, int off) {
+        int w = fixedWidth(c);
+        return w != VARLEN ? w : 1 + (tuple[off] & 0xFF);
+    }
+
+    /**
+     * Ширина поля колонки в байтах или {@link #VARLEN} для полей с префиксом длины.
+     */
+    public int fixedWidth(ColumnDefinition c) {
+        if (c.isDictionaryEncoded()) return 2;
+        TypeDefinition t = catalogAccess.getTypeByOid(c.typeOid());
+        if ("INT64".equalsIgnoreCase(t.name())) return 8;
+        if (t.name().startsWith("VARCHAR")) return VARLEN;
+        throw new IllegalArgumentException("unsupported type: " + t.name());
+    }
+
+    // ======= DICTIONARY FILTERS =======
+
+    public record CodeFilter(int position, BitSet codes) {
+        public boolean matches(byte[] buf, int off) {
+            return codes.get(leShort(buf, off));
+        }
+    }
+
+    /**
+     * Переводит строковые значения фильтров в множества кодов.
+     * Возвращает null, если какой-то фильтр заведомо ничего не пропустит.
+     */
+    public CodeFilter[] resolveDictionaryFilters(List<ColumnDefinition> allCols, List<DictionaryFilter> filters) {
+        if (filters == null || filters.isEmpty()) return new CodeFilter[0];
+
+        CodeFilter[] out = new CodeFilter[filters.size()];
+        for (int i = 0; i < filters.size(); i++) {
+            DictionaryFilter f = filters.get(i);
+            ColumnDefinition c = allCols.stream()
+                    .filter(col -> col.name().equals(f.columnName()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("unknown column: " + f.columnName()));
+            if (!c.isDictionaryEncoded()) {
+                throw new IllegalArgumentException("column is not dictionary-encoded: " + c.name());
+            }
+            BitSet codes = catalogAccess.getDictionary(c).codesOf(f.values());
+            if (codes.isEmpty()) return null;
+            out[i] = new CodeFilter(c.position(), codes);
+        }
+        return out;
+    }
+
+    public boolean matchesCodes(List<ColumnDefinition> allCols, byte[] tuple, CodeFilter[] filters) {
+        if (filters.length == 0) return true;
+
+        int off = 0;
+        for (ColumnDefinition c : allCols) {
+            int width = fieldWidth(c, tuple, off);
+            for (CodeFilter f : filters) {
+                if (f.position() == c.position() && !f.matches(tuple, off)) {
+                    return false;
+                }
+            }
+            off += width;
+        }
+        return true;
+    }
+
+    private static int leShort(byte[] a, int off) {
+        return (a[off] & 0xFF) | ((a[off + 1] & 0xFF) << 8);
+    }
+
+    private static long leLong(byte[] a, int off) {
+        return ((long) a[off] & 0xFF)
+                | (((long) a[off + 1] & 0xFF) << 8)
+                | (((long) a[off + 2] & 0xFF) << 16)
+                | (((long) a[off + 3] & 0xFF) << 24)
+                | (((long) a[off + 4] & 0xFF) << 32)
+                | (((long) a[off + 5] & 0xFF) << 40)
+                | (((long) a[off + 6] & 0xFF) << 48)
+                | (((long) a[off + 7] & 0xFF) << 56);
+    }
+}
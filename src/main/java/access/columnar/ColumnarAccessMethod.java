@@ -0,0 +1,267 @@
+package access.columnar;
+
+import access.TableAccessMethod;
+import access.TableStats;
+import access.TupleCodec;
+import catalog.model.ColumnDefinition;
+import catalog.model.TableDefinition;
+import catalog.operation.DefaultOperationManager;
+import catalog.operation.DictionaryFilter;
+import catalog.operation.OperationManager;
+import index.TID;
+import memory.buffer.BufferPoolManager;
+import memory.model.Persistence;
+import memory.page.Page;
+import memory.page.PaxPage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Колоночное хранение внутри страницы ({@link PaxPage}): строка по-прежнему
+ * целиком лежит на одной странице, но значения каждой колонки сгруппированы.
+ * Скан декодирует только запрошенные колонки и колонки словарных фильтров.
+ * <p>
+ * Строки только дописываются в конец; UPDATE — удаление + вставка, HOT нет.
+ */
+public class ColumnarAccessMethod implements TableAccessMethod {
+
+    private final BufferPoolManager bpm;
+    private final Path dataRoot;
+    private final DefaultOperationManager.CatalogAccess catalogAccess;
+    private final TupleCodec codec;
+
+    public ColumnarAccessMethod(BufferPoolManager bpm,
+                                Path dataRoot,
+                                DefaultOperationManager.CatalogAccess catalogAccess,
+                                TupleCodec codec) {
+        this.bpm = Objects.requireNonNull(bpm, "bpm");
+        this.dataRoot = Objects.requireNonNull(dataRoot, "dataRoot");
+        this.catalogAccess = Objects.requireNonNull(catalogAccess, "catalogAccess");
+        this.codec = Objects.requireNonNull(codec, "codec");
+    }
+
+    @Override
+    public String name() {
+        return COLUMNAR;
+    }
+
+    @Override
+    public TID insert(TableDefinition td, List<Object> values) {
+        List<ColumnDefinition> cols = catalogAccess.listColumnsSorted(td);
+        byte[] tuple = codec.serializeRow(cols, values);
+        ensureDir(dataRoot);
+        return append(td, cols, tuple);
+    }
+
+    @Override
+    public List<Map<String, Object>> scan(TableDefinition td, List<ColumnDefinition> needCols, List<DictionaryFilter> filters) {
+        return scan(td, needCols, filters, null);
+    }
+
+    @Override
+    public List<Map<String, Object>> scan(TableDefinition td, List<ColumnDefinition> needCols,
+                                          List<DictionaryFilter> filters, BitSet only) {
+        List<ColumnDefinition> allCols = catalogAccess.listColumnsSorted(td);
+        List<Map<String, Object>> out = new ArrayList<>();
+
+        TupleCodec.CodeFilter[] codeFilters = codec.resolveDictionaryFilters(allCols, filters);
+        if (codeFilters == null) {
+            return out;
+        }
+
+        int[] filterColumns = new int[codeFilters.length];
+        for (int f = 0; f < codeFilters.length; f++) {
+            filterColumns[f] = ordinalOfPosition(allCols, codeFilters[f].position());
+        }
+        int[] needOrdinals = new int[needCols.size()];
+        for (int k = 0; k < needCols.size(); k++) {
+            needOrdinals[k] = allCols.indexOf(needCols.get(k));
+        }
+
+        Path file = dataFile(td);
+        int pages = td.pagesCount();
+
+        for (int pid = only == null ? 0 : only.nextSetBit(0);
+             pid >= 0 && pid < pages;
+             pid = only == null ? pid + 1 : only.nextSetBit(pid + 1)) {
+            PaxPage p = paxPage(bpm.getPage(file, pid).getPage());
+            int rows = p.size();
+
+            boolean[] skip = new boolean[rows];
+            for (int r = 0; r < rows; r++) {
+                skip[r] = p.isDeleted(r);
+            }
+            for (int f = 0; f < codeFilters.length; f++) {
+                List<byte[]> column = p.readColumn(filterColumns[f]);
+                for (int r = 0; r < rows; r++) {
+                    if (!skip[r] && !codeFilters[f].matches(column.get(r), 0)) {
+                        skip[r] = true;
+                    }
+                }
+            }
+
+            List<List<byte[]>> columns = new ArrayList<>(needOrdinals.length);
+            for (int ordinal : needOrdinals) {
+                columns.add(p.readColumn(ordinal));
+            }
+
+            for (int r = 0; r < rows; r++) {
+                if (skip[r]) {
+                    continue;
+                }
+                Map<String, Object> projected = new LinkedHashMap<>();
+                for (int k = 0; k < needCols.size(); k++) {
+                    ColumnDefinition c = needCols.get(k);
+                    projected.put(c.name(), codec.decodeField(c, columns.get(k).get(r), 0));
+                }
+                projected.put(OperationManager.CTID, new TID(pid, r));
+                out.add(projected);
+            }
+        }
+
+        return out;
+    }
+
+    @Override
+    public List<Object> fetch(TableDefinition td, TID tid) {
+        PaxPage p = pageOf(td, tid);
+        if (p == null) {
+            return null;
+        }
+        byte[] tuple = p.read(tid.slotId());
+        if (tuple == null) {
+            return null;
+        }
+        return codec.deserializeValues(catalogAccess.listColumnsSorted(td), tuple);
+    }
+
+    @Override
+    public List<Object> delete(TableDefinition td, TID tid) {
+        PaxPage p = pageOf(td, tid);
+        if (p == null) return null;
+
+        byte[] tuple = p.read(tid.slotId());
+        if (tuple == null) return null;
+
+        List<Object> oldValues = codec.deserializeValues(catalogAccess.listColumnsSorted(td), tuple);
+
+        Path file = dataFile(td);
+        p.delete(tid.slotId());
+        bpm.updatePage(file, tid.pageId(), p);
+        flush(td, file, tid.pageId());
+        return oldValues;
+    }
+
+    @Override
+    public UpdateResult update(TableDefinition td, TID tid, List<Object> values, boolean allowHeapOnly) {
+        List<ColumnDefinition> cols = catalogAccess.listColumnsSorted(td);
+        byte[] tuple = codec.serializeRow(cols, values);
+
+        if (delete(td, tid) == null) {
+            return null;
+        }
+        return new UpdateResult(append(td, cols, tuple), false);
+    }
+
+    @Override
+    public TableStats stats(TableDefinition td) {
+        Path file = dataFile(td);
+        int pages = td.pagesCount();
+        long live = 0;
+        long dead = 0;
+
+        for (int pid = 0; pid < pages; pid++) {
+            PaxPage p = paxPage(bpm.getPage(file, pid).getPage());
+            for (int r = 0; r < p.size(); r++) {
+                if (p.isDeleted(r)) dead++;
+                else live++;
+            }
+        }
+        return new TableStats(pages, live, dead);
+    }
+
+    /**
+     * Дописывает строку на последнюю страницу, иначе заводит новую.
+     */
+    private TID append(TableDefinition td, List<ColumnDefinition> cols, byte[] tuple) {
+        Path file = dataFile(td);
+        int pages = td.pagesCount();
+
+        if (pages > 0) {
+            int last = pages - 1;
+            PaxPage p = paxPage(bpm.getPage(file, last).getPage());
+            if (p.freeSpace() >= tuple.length) {
+                int row = p.write(tuple);
+                bpm.updatePage(file, last, p);
+                flush(td, file, last);
+                return new TID(last, row);
+            }
+        }
+
+        int[] widths = new int[cols.size()];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = codec.fixedWidth(cols.get(i));
+        }
+        PaxPage np = new PaxPage(pages, bpm.getPageSize(), widths);
+        int row = np.write(tuple);
+
+        bpm.updatePage(file, pages, np);
+        flush(td, file, pages);
+
+        catalogAccess.updatePagesCount(td.getOid(), pages + 1);
+        return new TID(pages, row);
+    }
+
+    private PaxPage pageOf(TableDefinition td, TID tid) {
+        if (tid.pageId() < 0 || tid.pageId() >= td.pagesCount()) {
+            return null;
+        }
+        PaxPage p = paxPage(bpm.getPage(dataFile(td), tid.pageId()).getPage());
+        if (tid.slotId() < 0 || tid.slotId() >= p.size()) {
+            return null;
+        }
+        return p;
+    }
+
+    private static PaxPage paxPage(Page p) {
+        if (!(p instanceof PaxPage pax)) {
+            throw new IllegalStateException("page " + p.getPageId() + " is not a PAX page");
+        }
+        return pax;
+    }
+
+    private static int ordinalOfPosition(List<ColumnDefinition> cols, int position) {
+        for (int i = 0; i < cols.size(); i++) {
+            if (cols.get(i).position() == position) return i;
+        }
+        throw new IllegalArgumentException("unknown column position: " + position);
+    }
+
+    /**
+     * Постоянные таблицы сбрасываются сразу; нелогируемые и временные — только при вытеснении.
+     */
+    private void flush(TableDefinition td, Path file, int pageId) {
+        if (Persistence.of(td.options()).flushOnWrite()) {
+            bpm.flushPage(file, pageId);
+        }
+    }
+
+    private Path dataFile(TableDefinition td) {
+        return dataRoot.resolve(td.fileNode());
+    }
+
+    private static void ensureDir(Path dir) {
+        try {
+            Files.createDirectories(dir);
+        } catch (Exception e) {
+            throw new IllegalStateException("cannot create dir: " + dir, e);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package access.heap;
+
+import access.TableAccessMethod;
+import access.TableStats;
+import access.TupleCodec;
+import catalog.model.ColumnDefinition;
+import catalog.model.TableDefinition;
+import catalog.operation.DefaultOperationManager;
+import catalog.operation.DictionaryFilter;
+import catalog.operation.OperationManager;
+import index.TID;
+import memory.buffer.BufferPoolManager;
+import memory.model.Persistence;
+import memory.page.HeapPage;
+import memory.page.Page;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Строчное хранение в {@link HeapPage}: кортеж целиком в одном слоте.
+ * Поддерживает fillfactor и HOT-обновления.
+ */
+public class HeapAccessMethod implements TableAccessMethod {
+
+    public static final String FILLFACTOR_OPTION = "fillfactor";
+
+    /** Колонка, по которой таблица последний раз упорядочена CLUSTER. */
+    public static final String CLUSTER_ON_OPTION = "cluster_on";
+    /** Сколько страниц было в файле сразу после CLUSTER (все — в порядке ключа). */
+    public static final String CLUSTERED_PAGES_OPTION = "clustered_pages";
+
+    private final BufferPoolManager bpm;
+    private final Path dataRoot;
+    private final DefaultOperationManager.CatalogAccess catalogAccess;
+    private final TupleCodec codec;
+
+    public HeapAccessMethod(BufferPoolManager bpm,
+                            Path dataRoot,
+                            DefaultOperationManager.CatalogAccess catalogAccess,
+                            TupleCodec codec) {
+        this.bpm = Objects.requireNonNull(bpm, "bpm");
+        this.dataRoot = Objects.requireNonNull(dataRoot, "dataRoot");
+        this.catalogAccess = Objects.requireNonNull(catalogAccess, "catalogAccess");
+        this.codec = Objects.requireNonNull(codec, "codec");
+    }
+
+    @Override
+    public String name() {
+        return HEAP;
+    }
+
+    @Override
+    public TID insert(TableDefinition td, List<Object> values) {
+        List<ColumnDefinition> cols = catalogAccess.listColumnsSorted(td);
+        byte[] tuple = codec.serializeRow(cols, values);
+        ensureDir(dataRoot);
+        return placeTuple(td, tuple, fillfactorReserve(td));
+    }
+
+    @Override
+    public List<Map<String, Object>> scan(TableDefinition td, List<ColumnDefinition> needCols, List<DictionaryFilter> filters) {
+        return scan(td, needCols, filters, null);
+    }
+
+    @Override
+    public List<Map<String, Object>> scan(TableDefinition td, List<ColumnDefinition> needCols,
+                                          List<DictionaryFilter> filters, BitSet only) {
+        List<ColumnDefinition> allCols = catalogAccess.listColumnsSorted(td);
+        List<Map<String, Object>> out = new ArrayList<>();
+
+        TupleCodec.CodeFilter[] codeFilters = codec.resolveDictionaryFilters(allCols, filters);
+        if (codeFilters == null) {
+            return out;
+        }
+
+        Path file = dataFile(td);
+        int pages = td.pagesCount();
+
+        // по выбранным страницам — переходами к следующему биту, без проверки каждой
+        for (int pid = only == null ? 0 : only.nextSetBit(0);
+             pid >= 0 && pid < pages;
+             pid = only == null ? pid + 1 : only.nextSetBit(pid + 1)) {
+            Page p = bpm.getPage(file, pid).getPage();
+
+            boolean[] heapOnly = heapOnlySlots(p);
+            for (int i = 0; i < p.size(); i++) {
+                if (heapOnly != null && heapOnly[i]) {
+                    continue;
+                }
+                byte[] tuple = p.read(liveSlot(p, i));
+                if (tuple == null) {
+                    continue;
+                }
+
+                if (!codec.matchesCodes(allCols, tuple, codeFilters)) {
+                    continue;
+                }
+
+                Map<String, Object> fullRow = codec.deserializeRowToMap(allCols, tuple);
+
+                Map<String, Object> projected = new LinkedHashMap<>();
+                for (ColumnDefinition c : needCols) {
+                    projected.put(c.name(), fullRow.get(c.name()));
+                }
+                projected.put(OperationManager.CTID, new TID(pid, i));
+
+                out.add(projected);
+            }
+        }
+
+        return out;
+    }
+
+    @Override
+    public List<Object> fetch(TableDefinition td, TID tid) {
+        Page p = pageOf(td, tid);
+        if (p == null) {
+            return null;
+        }
+
+        byte[] tuple = p.read(liveSlot(p, tid.slotId()));
+        if (tuple == null) {
+            return null;
+        }
+        return codec.deserializeValues(catalogAccess.listColumnsSorted(td), tuple);
+    }
+
+    @Override
+    public List<Object> delete(TableDefinition td, TID tid) {
+        Path file = dataFile(td);
+
+        Page p = pageOf(td, tid);
+        if (p == null) return null;
+
+        int root = tid.slotId();
+        int current = liveSlot(p, root);
+        byte[] tuple = p.read(current);
+        if (tuple == null) return null;
+
+        List<Object> oldValues = codec.deserializeValues(catalogAccess.listColumnsSorted(td), tuple);
+
+        p.delete(current);
+        if (current != root) {
+            p.delete(root);
+        }
+        bpm.updatePage(file, tid.pageId(), p);
+        flush(td, file, tid.pageId());
+        return oldValues;
+    }
+
+    /**
+     * UPDATE = удаление старой версии + вставка новой. Новая версия сначала
+     * пробует ту же страницу: для этого fillfactor и оставляет запас.
+     * <p>
+     * HOT: если ни одна индексированная колонка не изменилась и новая версия
+     * помещается на ту же страницу, индексы не трогаются — новая версия
+     * ложится в свободный слот, корневой слот, на который ссылаются индексы,
+     * перенаправляется на неё. Цепочка не длиннее одного шага: прежняя
+     * heap-only версия удаляется, уплотнение освобождает её место. Новая
+     * версия пишется до изменения старой: при нехватке места страница
+     * остаётся прежней.
+     */
+    @Override
+    public UpdateResult update(TableDefinition td, TID tid, List<Object> values, boolean allowHeapOnly) {
+        byte[] tuple = codec.serializeRow(catalogAccess.listColumnsSorted(td), values);
+        Path file = dataFile(td);
+
+        Page p = pageOf(td, tid);
+        if (p == null) return null;
+
+        int root = tid.slotId();
+        int current = liveSlot(p, root);
+        if (p.read(current) == null) return null;
+
+        UpdateResult result = null;
+        if (allowHeapOnly && p instanceof HeapPage hp && hp.freeSpace() >= tuple.length) {
+            int slot = hp.write(tuple);
+            if (current != root) {
+                hp.delete(current);
+            }
+            hp.redirect(root, slot);
+            result = new UpdateResult(tid, true);
+        } else {
+            p.delete(current);
+            if (current != root) {
+                p.delete(root);
+            }
+            if (p.freeSpace() >= tuple.length) {
+                result = new UpdateResult(new TID(tid.pageId(), p.write(tuple)), false);
+            }
+        }
+        bpm.updatePage(file, tid.pageId(), p);
+        flush(td, file, tid.pageId());
+
+        if (result == null) {
+            result = new UpdateResult(placeTuple(td, tuple, fillfactorReserve(td)), false);
+        }
+        return result;
+    }
+
+    @Override
+    public TableStats stats(TableDefinition td) {
+        Path file = dataFile(td);
+        int pages = td.pagesCount();
+        long live = 0;
+        long dead = 0;
+
+        for (int pid = 0; pid < pages; pid++) {
+            Page p = bpm.getPage(file, pid).getPage();
+            if (!(p instanceof HeapPage hp)) continue;
+            for (int i = 0; i < hp.size(); i++) {
+                switch (hp.slotState(i)) {
+                    case HeapPage.LP_NORMAL -> live++;
+                    case HeapPage.LP_DEAD -> dead++;
+                    default -> { }
+                }
+            }
+        }
+        return new TableStats(pages, live, dead);
+    }
+
+    /**
+     * Записывает строки по порядку в новый пустой файл target (CLUSTER):
+     * страницы заполняются до fillfactor и пишутся каждая один раз, без поиска
+     * свободного места. Возвращает число записанных страниц.
+     */
+    public int bulkLoad(TableDefinition target, List<List<Object>> rows) {
+        List<ColumnDefinition> cols = catalogAccess.listColumnsSorted(target);
+        Path file = dataFile(target);
+        ensureDir(file.getParent());
+        int reserve = fillfactorReserve(target);
+
+        int pages = 0;
+        HeapPage page = null;
+        for (List<Object> values : rows) {
+            byte[] tuple = codec.serializeRow(cols, values);
+            if (page == null || (page.size() > 0 && page.freeSpace() - tuple.length < reserve)) {
+                if (page != null) {
+                    bpm.updatePage(file, page.getPageId(), page);
+                    flush(target, file, page.getPageId());
+                }
+                page = new HeapPage(pages++, bpm.getPageSize());
+            }
+            page.write(tuple);
+        }
+        if (page != null) {
+            bpm.updatePage(file, page.getPageId(), page);
+            flush(target, file, page.getPageId());
+        }
+        return pages;
+    }
+
+    /**
+     * Кладёт кортеж на первую страницу, где после вставки останется не меньше
+     * {@code reserve} байт, иначе — на новую страницу в конце файла.
+     */
+    private TID placeTuple(TableDefinition td, byte[] tuple, int reserve) {
+        Path file = dataFile(td);
+        int pages = td.pagesCount();
+
+        for (int pid = 0; pid < pages; pid++) {
+            Page p = bpm.getPage(file, pid).getPage();
+
+            if (p.freeSpace() - tuple.length < reserve) {
+                continue;
+            }
+
+            int slotId = p.write(tuple);
+            bpm.updatePage(file, pid, p);
+            flush(td, file, pid);
+            return new TID(pid, slotId);
+        }
+
+        HeapPage np = new HeapPage(pages, bpm.getPageSize());
+        int slotId = np.write(tuple);
+
+        bpm.updatePage(file, pages, np);
+        flush(td, file, pages);
+
+        catalogAccess.updatePagesCount(td.getOid(), pages + 1);
+        return new TID(pages, slotId);
+    }
+
+    /**
+     * Сколько байт страницы INSERT оставляет свободными под будущие UPDATE.
+     */
+    private int fillfactorReserve(TableDefinition td) {
+        int fillfactor = Integer.parseInt(td.option(FILLFACTOR_OPTION, "100"));
+        return bpm.getPageSize() * (100 - fillfactor) / 100;
+    }
+
+    private Page pageOf(TableDefinition td, TID tid) {
+        if (tid.pageId() < 0 || tid.pageId() >= td.pagesCount()) {
+            return null;
+        }
+        Page p = bpm.getPage(dataFile(td), tid.pageId()).getPage();
+        if (tid.slotId() < 0 || tid.slotId() >= p.size()) {
+            return null;
+        }
+        return p;
+    }
+
+    /**
+     * Слот с текущей версией строки: для перенаправленного корня HOT-цепочки — его цель.
+     */
+    private static int liveSlot(Page p, int slot) {
+        if (p instanceof HeapPage hp) {
+            int target = hp.redirectTarget(slot);
+            if (target >= 0) return target;
+        }
+        return slot;
+    }
+
+    /**
+     * Слоты страницы, хранящие heap-only версии (цели перенаправлений), или
+     * {@code null}, если перенаправлений нет. Скан отдаёт такие версии через
+     * корневой слот, чтобы TID строки совпадал с индексным.
+     */
+    private static boolean[] heapOnlySlots(Page p) {
+        if (!(p instanceof HeapPage hp)) return null;
+        boolean[] heapOnly = null;
+        for (int i = 0; i < hp.size(); i++) {
+            int target = hp.redirectTarget(i);
+            if (target < 0) continue;
+            if (heapOnly == null) heapOnly = new boolean[hp.size()];
+            heapOnly[target] = true;
+        }
+        return heapOnly;
+    }
+
+    /**
+     * Постоянные таблицы сбрасываются сразу; нелогируемые и временные — только при вытеснении.
+     */
+    private void flush(TableDefinition td, Path file, int pageId) {
+        if (Persistence.of(td.options()).flushOnWrite()) {
+            bpm.flushPage(file, pageId);
+        }
+    }
+
+    private Path dataFile(TableDefinition td) {
+        return dataRoot.resolve(td.fileNode());
+    }
+
+    private static void ensureDir(Path dir) {
+        try {
+            Files.createDirectories(dir);
+        } catch (Exception e) {
+            throw new IllegalStateException("cannot create dir: " + dir, e);
+        }
+    }
+}
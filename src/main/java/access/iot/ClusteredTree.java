@@ -0,0 +1,356 @@
+package access.iot;
+
+import index.TID;
+import memory.buffer.BufferPoolManager;
+import memory.page.BTreePage;
+import memory.page.Page;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * B+-дерево индексно-организованной таблицы в файле отношения.
+ * <p>
+ * Корень всегда на странице 0 — при разделении корня его содержимое уходит в
+ * две новые страницы, а сам он становится внутренним узлом. Число страниц
+ * файла хранится в заголовке корня, новые страницы берутся с конца.
+ * Листы связаны ссылками вправо и хранят кортежи целиком в порядке ключа,
+ * внутренние узлы — записи [дочерняя страница (int)][ключ]. Узлы делятся
+ * пополам по байтам; при удалении не сливаются.
+ * <p>
+ * Адрес строки (pageId листа, позиция) верен только до следующего изменения
+ * дерева: вставка может сдвинуть записи листа или перенести их в новый лист.
+ */
+final class ClusteredTree {
+
+    static final int ROOT = 0;
+
+    /** Обход листов: false — остановиться. */
+    interface Visitor {
+        boolean visit(TID tid, byte[] tuple);
+    }
+
+    private final BufferPoolManager bpm;
+    private final Path file;
+    private final KeyLayout keys;
+    private final boolean flushOnWrite;
+
+    ClusteredTree(BufferPoolManager bpm, Path file, KeyLayout keys, boolean flushOnWrite) {
+        this.bpm = bpm;
+        this.file = file;
+        this.keys = keys;
+        this.flushOnWrite = flushOnWrite;
+    }
+
+    /**
+     * Наибольший кортеж, для которого гарантировано деление узла: в странице
+     * должно помещаться не меньше трёх записей.
+     */
+    int maxTupleSize() {
+        return (bpm.getPageSize() - BTreePage.HEADER_SIZE) / 3 - BTreePage.entrySize(Integer.BYTES);
+    }
+
+    int pageCount() {
+        return root().pageCount();
+    }
+
+    /**
+     * @return адрес вставленной строки или {@code null}, если ключ уже есть
+     */
+    TID insert(byte[] tuple) {
+        if (tuple.length > maxTupleSize()) {
+            throw new IllegalArgumentException("row too large for index-organized table: "
+                    + tuple.length + " > " + maxTupleSize() + " bytes");
+        }
+        List<Object> key = keys.keyOfTuple(tuple);
+
+        Deque<BTreePage> path = new ArrayDeque<>();
+        BTreePage n = root();
+        while (!n.isLeaf()) {
+            path.push(n);
+            n = node(child(n, sep -> KeyLayout.compare(sep, key) <= 0));
+        }
+
+        int i = leafSearch(n, key);
+        if (i >= 0) return null;
+
+        int pos = -i - 1;
+        n.insert(pos, tuple);
+        if (!n.overflows()) {
+            save(n);
+            return new TID(n.getPageId(), (short) pos);
+        }
+        split(n, path);
+        return find(key);
+    }
+
+    TID find(List<Object> key) {
+        BTreePage n = root();
+        while (!n.isLeaf()) {
+            n = node(child(n, sep -> KeyLayout.compare(sep, key) <= 0));
+        }
+        int i = leafSearch(n, key);
+        return i >= 0 ? new TID(n.getPageId(), (short) i) : null;
+    }
+
+    /**
+     * Кортеж по адресу или {@code null}, если там нет записи листа.
+     */
+    byte[] read(TID tid) {
+        BTreePage leaf = leafAt(tid);
+        return leaf == null ? null : leaf.read(tid.slotId());
+    }
+
+    byte[] delete(TID tid) {
+        BTreePage leaf = leafAt(tid);
+        if (leaf == null) return null;
+        byte[] tuple = leaf.read(tid.slotId());
+        leaf.delete(tid.slotId());
+        save(leaf);
+        return tuple;
+    }
+
+    /**
+     * Заменяет кортеж на месте, если ключ тот же и лист не переполнится.
+     */
+    boolean replaceInPlace(TID tid, byte[] tuple) {
+        BTreePage leaf = leafAt(tid);
+        if (leaf == null) return false;
+        byte[] old = leaf.read(tid.slotId());
+        if (KeyLayout.compare(keys.keyOfTuple(old), keys.keyOfTuple(tuple)) != 0) return false;
+        if (tuple.length - old.length > leaf.freeSpace()) return false;
+        leaf.set(tid.slotId(), tuple);
+        save(leaf);
+        return true;
+    }
+
+    /**
+     * Обходит листы по возрастанию ключа начиная с первой строки, у которой
+     * ведущая колонка ключа не меньше from ({@code null} — с начала).
+     */
+    void scan(Object from, Visitor visitor) {
+        BTreePage n = root();
+        while (!n.isLeaf()) {
+            n = node(from == null
+                    ? n.leftmostChild()
+                    : child(n, sep -> KeyLayout.compareValues(sep.get(0), from) < 0));
+        }
+        while (true) {
+            for (int i = 0; i < n.size(); i++) {
+                byte[] tuple = n.read(i);
+                if (from != null && KeyLayout.compareValues(keys.leadingOfTuple(tuple), from) < 0) {
+                    continue;
+                }
+                if (!visitor.visit(new TID(n.getPageId(), (short) i), tuple)) {
+                    return;
+                }
+            }
+            if (n.rightLink() == BTreePage.NO_PAGE) return;
+            n = node(n.rightLink());
+        }
+    }
+
+    // ======= NODES =======
+
+    private BTreePage root() {
+        Page p = bpm.getPage(file, ROOT).getPage();
+        if (p instanceof BTreePage b) return b;
+
+        // пустой файл: дерево из одного листа
+        BTreePage root = new BTreePage(ROOT, bpm.getPageSize(), true);
+        root.setPageCount(1);
+        save(root);
+        return root;
+    }
+
+    private BTreePage node(int pageId) {
+        Page p = bpm.getPage(file, pageId).getPage();
+        if (!(p instanceof BTreePage b)) {
+            throw new IllegalStateException("not a b-tree page: " + file + " #" + pageId);
+        }
+        return b;
+    }
+
+    private BTreePage leafAt(TID tid) {
+        if (tid.pageId() < 0 || tid.pageId() >= pageCount()) return null;
+        Page p = bpm.getPage(file, tid.pageId()).getPage();
+        if (!(p instanceof BTreePage leaf) || !leaf.isLeaf()) return null;
+        if (tid.slotId() < 0 || tid.slotId() >= leaf.size()) return null;
+        return leaf;
+    }
+
+    private BTreePage allocate(BTreePage root, boolean leaf) {
+        int pageId = root.pageCount();
+        root.setPageCount(pageId + 1);
+        return new BTreePage(pageId, bpm.getPageSize(), leaf);
+    }
+
+    private void save(BTreePage p) {
+        bpm.updatePage(file, p.getPageId(), p);
+        if (flushOnWrite) {
+            bpm.flushPage(file, p.getPageId());
+        }
+    }
+
+    // ======= SEARCH =======
+
+    /**
+     * Дочерняя страница для спуска: правее всех разделителей, для которых
+     * goRight истинно (предикат монотонен по порядку разделителей).
+     */
+    private int child(BTreePage n, Predicate<List<Object>> goRight) {
+        int lo = 0;
+        int hi = n.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (goRight.test(separator(n.read(mid)))) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo == 0 ? n.leftmostChild() : childOf(n.read(lo - 1));
+    }
+
+    /**
+     * Позиция ключа в листе или -(точка вставки) - 1.
+     */
+    private int leafSearch(BTreePage leaf, List<Object> key) {
+        int lo = 0;
+        int hi = leaf.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = KeyLayout.compare(keys.keyOfTuple(leaf.read(mid)), key);
+            if (c < 0) {
+                lo = mid + 1;
+            } else if (c > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    // ======= SPLIT =======
+
+    /**
+     * Делит переполненный узел n; path — предки n, ближайший сверху.
+     */
+    private void split(BTreePage n, Deque<BTreePage> path) {
+        BTreePage root = path.isEmpty() ? n : path.peekLast();
+
+        if (n.getPageId() == ROOT) {
+            splitRoot(n);
+            return;
+        }
+
+        BTreePage right = allocate(root, n.isLeaf());
+        byte[] separator = moveUpperHalf(n, right);
+        if (n.isLeaf()) {
+            right.setRightLink(n.rightLink());
+            n.setRightLink(right.getPageId());
+        }
+        save(n);
+        save(right);
+
+        BTreePage parent = path.pop();
+        List<Object> sepKey = keys.decodeKey(separator, 0);
+        int pos = 0;
+        while (pos < parent.size() && KeyLayout.compare(separator(parent.read(pos)), sepKey) < 0) {
+            pos++;
+        }
+        parent.insert(pos, internalEntry(right.getPageId(), separator));
+
+        if (parent.overflows()) {
+            split(parent, path);
+        } else {
+            save(parent);
+        }
+        save(root);
+    }
+
+    private void splitRoot(BTreePage root) {
+        BTreePage left = allocate(root, root.isLeaf());
+        BTreePage right = allocate(root, root.isLeaf());
+
+        left.setLeftmostChild(root.leftmostChild());
+        byte[] separator = moveUpperHalf(root, right);
+        for (byte[] e : root.truncate(0)) {
+            left.write(e);
+        }
+        if (root.isLeaf()) {
+            left.setRightLink(right.getPageId());
+        }
+
+        root.reset(false);
+        root.setLeftmostChild(left.getPageId());
+        root.write(internalEntry(right.getPageId(), separator));
+
+        save(left);
+        save(right);
+        save(root);
+    }
+
+    /**
+     * Переносит верхнюю половину записей n (по байтам) в пустой узел right и
+     * возвращает ключ-разделитель. Во внутреннем узле средняя запись уходит
+     * наверх: её потомок становится крайним левым в right.
+     */
+    private byte[] moveUpperHalf(BTreePage n, BTreePage right) {
+        int total = 0;
+        for (int i = 0; i < n.size(); i++) {
+            total += BTreePage.entrySize(n.read(i).length);
+        }
+        int mid = 0;
+        int acc = 0;
+        while (mid < n.size() - 1 && acc + BTreePage.entrySize(n.read(mid).length) <= total / 2) {
+            acc += BTreePage.entrySize(n.read(mid).length);
+            mid++;
+        }
+        mid = Math.max(mid, 1);
+
+        List<byte[]> upper = n.truncate(mid);
+        if (n.isLeaf()) {
+            for (byte[] e : upper) {
+                right.write(e);
+            }
+            return keys.encodeKey(keys.keyOfTuple(upper.get(0)));
+        }
+
+        byte[] middle = upper.get(0);
+        right.setLeftmostChild(childOf(middle));
+        for (int i = 1; i < upper.size(); i++) {
+            right.write(upper.get(i));
+        }
+        return separatorBytes(middle);
+    }
+
+    // ======= INTERNAL ENTRIES =======
+
+    private static byte[] internalEntry(int child, byte[] key) {
+        ByteBuffer bb = ByteBuffer.allocate(Integer.BYTES + key.length).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(child);
+        bb.put(key);
+        return bb.array();
+    }
+
+    private static int childOf(byte[] entry) {
+        return ByteBuffer.wrap(entry).order(ByteOrder.LITTLE_ENDIAN).getInt(0);
+    }
+
+    private static byte[] separatorBytes(byte[] entry) {
+        byte[] key = new byte[entry.length - Integer.BYTES];
+        System.arraycopy(entry, Integer.BYTES, key, 0, key.length);
+        return key;
+    }
+
+    private List<Object> separator(byte[] entry) {
+        return keys.decodeKey(entry, Integer.BYTES);
+    }
+}
@@ -0,0 +1,241 @@
+package access.iot;
+
+import access.TableAccessMethod;
+import access.TableStats;
+import access.TupleCodec;
+import catalog.model.ColumnDefinition;
+import catalog.model.TableDefinition;
+import catalog.operation.DefaultOperationManager;
+import catalog.operation.DictionaryFilter;
+import catalog.operation.OperationManager;
+import index.TID;
+import memory.buffer.BufferPoolManager;
+import memory.model.Persistence;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Индексно-организованная таблица (WITH (organization = index)): строки лежат
+ * в листах B+-дерева по первичному ключу ({@link ClusteredTree}), поэтому
+ * поиск и диапазон по ключу читают только дерево, без второго похода в heap.
+ * <p>
+ * Строки переезжают между листами при разделении узлов, так что TID здесь —
+ * текущее положение строки и живёт до следующего изменения таблицы. DML
+ * находит строку заново по ключу ({@link #locate}), а вторичные индексы
+ * на такие таблицы не строятся.
+ */
+public class IndexOrganizedAccessMethod implements TableAccessMethod {
+
+    /** Организация таблицы: heap (по умолчанию) или index. */
+    public static final String ORGANIZATION_OPTION = "organization";
+    public static final String ORGANIZATION_INDEX = "index";
+    public static final String ORGANIZATION_HEAP = "heap";
+
+    /** Колонки первичного ключа через запятую (из PRIMARY KEY (...)). */
+    public static final String PRIMARY_KEY_OPTION = "primary_key";
+
+    private final BufferPoolManager bpm;
+    private final Path dataRoot;
+    private final DefaultOperationManager.CatalogAccess catalogAccess;
+    private final TupleCodec codec;
+
+    public IndexOrganizedAccessMethod(BufferPoolManager bpm,
+                                      Path dataRoot,
+                                      DefaultOperationManager.CatalogAccess catalogAccess,
+                                      TupleCodec codec) {
+        this.bpm = Objects.requireNonNull(bpm, "bpm");
+        this.dataRoot = Objects.requireNonNull(dataRoot, "dataRoot");
+        this.catalogAccess = Objects.requireNonNull(catalogAccess, "catalogAccess");
+        this.codec = Objects.requireNonNull(codec, "codec");
+    }
+
+    public static List<String> primaryKey(TableDefinition td) {
+        String pk = td.option(PRIMARY_KEY_OPTION, "");
+        if (pk.isEmpty()) {
+            throw new IllegalStateException("index-organized table without primary key: " + td.getName());
+        }
+        return Arrays.asList(pk.split(","));
+    }
+
+    @Override
+    public String name() {
+        return INDEX_ORGANIZED;
+    }
+
+    @Override
+    public TID insert(TableDefinition td, List<Object> values) {
+        List<ColumnDefinition> cols = catalogAccess.listColumnsSorted(td);
+        byte[] tuple = codec.serializeRow(cols, values);
+        ensureDir(dataRoot);
+
+        ClusteredTree tree = tree(td, cols);
+        TID tid = tree.insert(tuple);
+        if (tid == null) {
+            throw new IllegalArgumentException("duplicate primary key " + keys(td, cols).keyOfValues(values)
+                    + " in table " + td.getName());
+        }
+        syncPagesCount(td, tree);
+        return tid;
+    }
+
+    @Override
+    public List<Map<String, Object>> scan(TableDefinition td, List<ColumnDefinition> needCols, List<DictionaryFilter> filters) {
+        return scanRange(td, needCols, filters, null, null, true, true);
+    }
+
+    /**
+     * Строки, у которых ведущая колонка первичного ключа лежит в [from, to]
+     * (границы null — без ограничения), в порядке ключа. Спуск по дереву к
+     * первому листу и обход листов по правым ссылкам до выхода за to.
+     */
+    public List<Map<String, Object>> scanRange(TableDefinition td,
+                                               List<ColumnDefinition> needCols,
+                                               List<DictionaryFilter> filters,
+                                               Object from,
+                                               Object to,
+                                               boolean includeFrom,
+                                               boolean includeTo) {
+        List<ColumnDefinition> allCols = catalogAccess.listColumnsSorted(td);
+        List<Map<String, Object>> out = new ArrayList<>();
+
+        TupleCodec.CodeFilter[] codeFilters = codec.resolveDictionaryFilters(allCols, filters);
+        if (codeFilters == null) {
+            return out;
+        }
+
+        KeyLayout keys = keys(td, allCols);
+        tree(td, allCols).scan(from, (tid, tuple) -> {
+            if (from != null || to != null) {
+                Object lead = keys.leadingOfTuple(tuple);
+                if (from != null && !includeFrom && KeyLayout.compareValues(lead, from) == 0) {
+                    return true;
+                }
+                if (to != null) {
+                    int c = KeyLayout.compareValues(lead, to);
+                    if (c > 0 || (c == 0 && !includeTo)) {
+                        return false;
+                    }
+                }
+            }
+            if (!codec.matchesCodes(allCols, tuple, codeFilters)) {
+                return true;
+            }
+
+            Map<String, Object> fullRow = codec.deserializeRowToMap(allCols, tuple);
+            Map<String, Object> projected = new LinkedHashMap<>();
+            for (ColumnDefinition c : needCols) {
+                projected.put(c.name(), fullRow.get(c.name()));
+            }
+            projected.put(OperationManager.CTID, tid);
+            out.add(projected);
+            return true;
+        });
+        return out;
+    }
+
+    @Override
+    public List<Object> fetch(TableDefinition td, TID tid) {
+        List<ColumnDefinition> cols = catalogAccess.listColumnsSorted(td);
+        byte[] tuple = tree(td, cols).read(tid);
+        if (tuple == null) {
+            return null;
+        }
+        return codec.deserializeValues(cols, tuple);
+    }
+
+    /**
+     * Текущее положение строки с ключом из row или {@code null}, если её уже нет.
+     */
+    @Override
+    public TID locate(TableDefinition td, Map<String, ?> row) {
+        List<ColumnDefinition> cols = catalogAccess.listColumnsSorted(td);
+        return tree(td, cols).find(keys(td, cols).keyOfRow(row));
+    }
+
+    @Override
+    public List<Object> delete(TableDefinition td, TID tid) {
+        List<ColumnDefinition> cols = catalogAccess.listColumnsSorted(td);
+        byte[] old = tree(td, cols).delete(tid);
+        if (old == null) return null;
+        return codec.deserializeValues(cols, old);
+    }
+
+    /**
+     * Тот же ключ — кортеж заменяется в листе на месте, если помещается;
+     * иначе старая запись удаляется и новая вставляется по своему ключу
+     * (при смене ключа он должен быть свободен).
+     */
+    @Override
+    public UpdateResult update(TableDefinition td, TID tid, List<Object> values, boolean allowHeapOnly) {
+        List<ColumnDefinition> cols = catalogAccess.listColumnsSorted(td);
+        KeyLayout keys = keys(td, cols);
+        ClusteredTree tree = tree(td, cols);
+
+        byte[] old = tree.read(tid);
+        if (old == null) return null;
+
+        byte[] tuple = codec.serializeRow(cols, values);
+        if (tree.replaceInPlace(tid, tuple)) {
+            return new UpdateResult(tid, allowHeapOnly);
+        }
+
+        List<Object> newKey = keys.keyOfValues(values);
+        if (KeyLayout.compare(keys.keyOfTuple(old), newKey) != 0 && tree.find(newKey) != null) {
+            throw new IllegalArgumentException("duplicate primary key " + newKey + " in table " + td.getName());
+        }
+        if (tuple.length > tree.maxTupleSize()) {
+            throw new IllegalArgumentException("row too large for index-organized table: "
+                    + tuple.length + " > " + tree.maxTupleSize() + " bytes");
+        }
+        tree.delete(tid);
+        TID moved = tree.insert(tuple);
+        syncPagesCount(td, tree);
+        return new UpdateResult(moved, false);
+    }
+
+    @Override
+    public TableStats stats(TableDefinition td) {
+        ClusteredTree tree = tree(td, catalogAccess.listColumnsSorted(td));
+        long[] live = new long[1];
+        tree.scan(null, (tid, tuple) -> {
+            live[0]++;
+            return true;
+        });
+        return new TableStats(tree.pageCount(), live[0], 0);
+    }
+
+    private ClusteredTree tree(TableDefinition td, List<ColumnDefinition> cols) {
+        return new ClusteredTree(bpm, dataRoot.resolve(td.fileNode()), keys(td, cols),
+                Persistence.of(td.options()).flushOnWrite());
+    }
+
+    private KeyLayout keys(TableDefinition td, List<ColumnDefinition> cols) {
+        return new KeyLayout(codec, cols, primaryKey(td));
+    }
+
+    /**
+     * Число страниц в каталоге нужно только оценкам стоимости: дерево
+     * ведёт его само в заголовке корня.
+     */
+    private void syncPagesCount(TableDefinition td, ClusteredTree tree) {
+        int pages = tree.pageCount();
+        if (pages != td.pagesCount()) {
+            catalogAccess.updatePagesCount(td.getOid(), pages);
+        }
+    }
+
+    private static void ensureDir(Path dir) {
+        try {
+            Files.createDirectories(dir);
+        } catch (Exception e) {
+            throw new IllegalStateException("cannot create dir: " + dir, e);
+        }
+    }
+}
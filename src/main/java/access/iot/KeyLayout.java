@@ -0,0 +1,131 @@
+package access.iot;
+
+import access.TupleCodec;
+import catalog.model.ColumnDefinition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Первичный ключ индексно-организованной таблицы: какие колонки кортежа его
+ * образуют и как ключи сравниваются. Ключ — список значений колонок в порядке
+ * PRIMARY KEY, сравнение лексикографическое.
+ * <p>
+ * Во внутренних узлах дерева ключ хранится отдельно от кортежа — как
+ * конкатенация полей ключевых колонок в формате {@link TupleCodec}.
+ */
+final class KeyLayout {
+
+    private final TupleCodec codec;
+    private final List<ColumnDefinition> columns;
+    private final List<ColumnDefinition> keyColumns;
+    /** Для каждой колонки кортежа — её номер в ключе или -1. */
+    private final int[] keyIndex;
+    /** Позиции ключевых колонок в кортеже. */
+    private final int[] keyPositions;
+    private final int lastKeyColumn;
+
+    KeyLayout(TupleCodec codec, List<ColumnDefinition> columns, List<String> primaryKey) {
+        this.codec = codec;
+        this.columns = columns;
+        this.keyColumns = new ArrayList<>(primaryKey.size());
+        this.keyIndex = new int[columns.size()];
+        this.keyPositions = new int[primaryKey.size()];
+        Arrays.fill(keyIndex, -1);
+
+        int last = -1;
+        for (String name : primaryKey) {
+            int pos = -1;
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).name().equals(name)) {
+                    pos = i;
+                    break;
+                }
+            }
+            if (pos < 0) throw new IllegalStateException("primary key column not found: " + name);
+            keyIndex[pos] = keyColumns.size();
+            keyPositions[keyColumns.size()] = pos;
+            keyColumns.add(columns.get(pos));
+            last = Math.max(last, pos);
+        }
+        this.lastKeyColumn = last;
+    }
+
+    List<ColumnDefinition> keyColumns() {
+        return keyColumns;
+    }
+
+    List<Object> keyOfValues(List<Object> values) {
+        List<Object> key = new ArrayList<>(keyColumns.size());
+        for (int pos : keyPositions) {
+            key.add(values.get(pos));
+        }
+        return key;
+    }
+
+    /**
+     * Ключ строки скана; колонки ключа должны в ней быть.
+     */
+    List<Object> keyOfRow(Map<String, ?> row) {
+        List<Object> key = new ArrayList<>(keyColumns.size());
+        for (ColumnDefinition c : keyColumns) {
+            if (!row.containsKey(c.name())) {
+                throw new IllegalStateException("row has no primary key column " + c.name() + ": " + row);
+            }
+            key.add(row.get(c.name()));
+        }
+        return key;
+    }
+
+    /**
+     * Ключ кортежа из листа: декодирует только поля до последней ключевой колонки.
+     */
+    List<Object> keyOfTuple(byte[] tuple) {
+        Object[] key = new Object[keyColumns.size()];
+        int off = 0;
+        for (int i = 0; i <= lastKeyColumn; i++) {
+            ColumnDefinition c = columns.get(i);
+            if (keyIndex[i] >= 0) {
+                key[keyIndex[i]] = codec.decodeField(c, tuple, off);
+            }
+            off += codec.fieldWidth(c, tuple, off);
+        }
+        return List.of(key);
+    }
+
+    /**
+     * Значение ведущей колонки ключа в кортеже.
+     */
+    Object leadingOfTuple(byte[] tuple) {
+        return keyOfTuple(tuple).get(0);
+    }
+
+    byte[] encodeKey(List<Object> key) {
+        return codec.serializeRow(keyColumns, key);
+    }
+
+    List<Object> decodeKey(byte[] buf, int off) {
+        Object[] key = new Object[keyColumns.size()];
+        for (int i = 0; i < keyColumns.size(); i++) {
+            ColumnDefinition c = keyColumns.get(i);
+            key[i] = codec.decodeField(c, buf, off);
+            off += codec.fieldWidth(c, buf, off);
+        }
+        return List.of(key);
+    }
+
+    static int compare(List<Object> a, List<Object> b) {
+        for (int i = 0; i < a.size(); i++) {
+            int c = compareValues(a.get(i), b.get(i));
+            if (c != 0) return c;
+        }
+        return 0;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    static int compareValues(Object a, Object b) {
+        return ((Comparable) a).compareTo(b);
+    }
+}
@@ -0,0 +1,70 @@
+package access.lsm;
+
+/**
+ * Фильтр Блума по ключам прогона: отсекает прогоны, где ключа заведомо нет,
+ * чтобы точечный поиск не читал их блоки.
+ */
+final class BloomFilter {
+
+    private static final int BITS_PER_KEY = 10;
+    // ~ln2 * BITS_PER_KEY — минимум ложных срабатываний (~1%)
+    private static final int HASHES = 7;
+
+    private final long[] words;
+    private final int hashes;
+
+    BloomFilter(long[] words, int hashes) {
+        if (words.length == 0) throw new IllegalArgumentException("empty bloom filter");
+        if (hashes <= 0) throw new IllegalArgumentException("hashes must be > 0");
+        this.words = words;
+        this.hashes = hashes;
+    }
+
+    static BloomFilter forKeys(long[] keys, int count) {
+        long bits = Math.max(64L, (long) count * BITS_PER_KEY);
+        BloomFilter f = new BloomFilter(new long[(int) ((bits + 63) / 64)], HASHES);
+        for (int i = 0; i < count; i++) {
+            f.add(keys[i]);
+        }
+        return f;
+    }
+
+    void add(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        long bits = (long) words.length * 64;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        long bits = (long) words.length * 64;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    int hashes() {
+        return hashes;
+    }
+
+    // финализатор MurmurHash3
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,230 @@
+package access.lsm;
+
+import access.TableAccessMethod;
+import access.TableStats;
+import access.TupleCodec;
+import catalog.model.ColumnDefinition;
+import catalog.model.TableDefinition;
+import catalog.operation.DefaultOperationManager;
+import catalog.operation.DictionaryFilter;
+import catalog.operation.OperationManager;
+import index.TID;
+import memory.model.Persistence;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Хранение в LSM-дереве ({@link LsmTree}) для таблиц с потоковой вставкой и
+ * точечным чтением: запись — последовательная дозапись журнала и memtable,
+ * на диск данные попадают только целыми отсортированными прогонами.
+ * <p>
+ * Ключ — первая колонка (INT64, уникальная). Строки переезжают между прогонами
+ * при уплотнении, поэтому TID здесь логический: это сам ключ, разложенный на
+ * (pageId, slotId). Отсюда ограничение ключа 48 битами со знаком. Индексы по
+ * таким TID делают точечный поиск в дереве.
+ */
+public class LsmAccessMethod implements TableAccessMethod {
+
+    /** Размер memtable в килобайтах: после него memtable сбрасывается в прогон. */
+    public static final String MEMTABLE_SIZE_OPTION = "memtable_size";
+    public static final int DEFAULT_MEMTABLE_KB = 4096;
+    public static final int MIN_MEMTABLE_KB = 64;
+
+    public static final String FILE_SUFFIX = ".lsm";
+
+    public static final long MIN_KEY = -(1L << 47);
+    public static final long MAX_KEY = (1L << 47) - 1;
+
+    private final Path dataRoot;
+    private final DefaultOperationManager.CatalogAccess catalogAccess;
+    private final TupleCodec codec;
+    private final int blockSize;
+
+    private final Map<Integer, LsmTree> trees = new HashMap<>();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "lsm-compaction");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public LsmAccessMethod(Path dataRoot,
+                           DefaultOperationManager.CatalogAccess catalogAccess,
+                           TupleCodec codec,
+                           int blockSize) {
+        this.dataRoot = Objects.requireNonNull(dataRoot, "dataRoot");
+        this.catalogAccess = Objects.requireNonNull(catalogAccess, "catalogAccess");
+        this.codec = Objects.requireNonNull(codec, "codec");
+        if (blockSize <= 0) throw new IllegalArgumentException("blockSize must be > 0");
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public String name() {
+        return LSM;
+    }
+
+    @Override
+    public TID insert(TableDefinition td, List<Object> values) {
+        long key = keyOf(values);
+        byte[] tuple = codec.serializeRow(catalogAccess.listColumnsSorted(td), values);
+
+        LsmTree tree = tree(td);
+        if (!tree.insert(key, tuple)) {
+            throw new IllegalArgumentException("duplicate key " + key + " in table " + td.getName());
+        }
+        syncPagesCount(td, tree);
+        return tidOf(key);
+    }
+
+    @Override
+    public List<Map<String, Object>> scan(TableDefinition td, List<ColumnDefinition> needCols, List<DictionaryFilter> filters) {
+        List<ColumnDefinition> allCols = catalogAccess.listColumnsSorted(td);
+        List<Map<String, Object>> out = new ArrayList<>();
+
+        TupleCodec.CodeFilter[] codeFilters = codec.resolveDictionaryFilters(allCols, filters);
+        if (codeFilters == null) {
+            return out;
+        }
+
+        tree(td).forEach((key, tuple) -> {
+            if (!codec.matchesCodes(allCols, tuple, codeFilters)) {
+                return;
+            }
+            Map<String, Object> fullRow = codec.deserializeRowToMap(allCols, tuple);
+
+            Map<String, Object> projected = new LinkedHashMap<>();
+            for (ColumnDefinition c : needCols) {
+                projected.put(c.name(), fullRow.get(c.name()));
+            }
+            projected.put(OperationManager.CTID, tidOf(key));
+            out.add(projected);
+        });
+        return out;
+    }
+
+    @Override
+    public List<Object> fetch(TableDefinition td, TID tid) {
+        byte[] tuple = tree(td).get(keyOf(tid));
+        if (tuple == null) {
+            return null;
+        }
+        return codec.deserializeValues(catalogAccess.listColumnsSorted(td), tuple);
+    }
+
+    @Override
+    public List<Object> delete(TableDefinition td, TID tid) {
+        LsmTree tree = tree(td);
+        byte[] old = tree.remove(keyOf(tid));
+        if (old == null) return null;
+        syncPagesCount(td, tree);
+        return codec.deserializeValues(catalogAccess.listColumnsSorted(td), old);
+    }
+
+    /**
+     * Без смены ключа строка остаётся по тому же логическому TID; со сменой —
+     * старый ключ удаляется, новый вставляется (и должен быть свободен).
+     */
+    @Override
+    public UpdateResult update(TableDefinition td, TID tid, List<Object> values, boolean allowHeapOnly) {
+        long oldKey = keyOf(tid);
+        long newKey = keyOf(values);
+        byte[] tuple = codec.serializeRow(catalogAccess.listColumnsSorted(td), values);
+        LsmTree tree = tree(td);
+
+        UpdateResult result;
+        synchronized (tree) {
+            if (oldKey == newKey) {
+                if (tree.replace(oldKey, tuple) == null) return null;
+                result = new UpdateResult(tid, allowHeapOnly);
+            } else {
+                if (tree.get(oldKey) == null) return null;
+                if (!tree.insert(newKey, tuple)) {
+                    throw new IllegalArgumentException("duplicate key " + newKey + " in table " + td.getName());
+                }
+                tree.remove(oldKey);
+                result = new UpdateResult(tidOf(newKey), false);
+            }
+        }
+        syncPagesCount(td, tree);
+        return result;
+    }
+
+    @Override
+    public TableStats stats(TableDefinition td) {
+        LsmTree tree = tree(td);
+        long[] live = new long[1];
+        tree.forEach((key, tuple) -> live[0]++);
+        int pages = pagesOf(tree);
+        return new TableStats(pages, live[0], tree.storedEntries() - live[0]);
+    }
+
+    /**
+     * Сбрасывает memtable всех деревьев и дожидается фонового уплотнения.
+     */
+    @Override
+    public synchronized void shutdown() {
+        for (LsmTree tree : trees.values()) {
+            tree.close();
+        }
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (LsmTree tree : trees.values()) {
+            tree.closeRuns();
+        }
+        trees.clear();
+    }
+
+    public static TID tidOf(long key) {
+        return new TID((int) (key >> 16), (short) key);
+    }
+
+    public static long keyOf(TID tid) {
+        return ((long) tid.pageId() << 16) | (tid.slotId() & 0xFFFF);
+    }
+
+    private static long keyOf(List<Object> values) {
+        if (values.isEmpty() || !(values.get(0) instanceof Long key)) {
+            throw new IllegalArgumentException("LSM key (first column) must be INT64");
+        }
+        if (key < MIN_KEY || key > MAX_KEY) {
+            throw new IllegalArgumentException("LSM key out of range [" + MIN_KEY + ", " + MAX_KEY + "]: " + key);
+        }
+        return key;
+    }
+
+    private synchronized LsmTree tree(TableDefinition td) {
+        return trees.computeIfAbsent(td.getOid(), oid -> {
+            long kb = Long.parseLong(td.option(MEMTABLE_SIZE_OPTION, Integer.toString(DEFAULT_MEMTABLE_KB)));
+            // журнал — это и есть "сброс на каждую запись" для LSM; нелогируемым он не нужен
+            boolean logged = Persistence.of(td.options()).flushOnWrite();
+            return LsmTree.open(dataRoot.resolve(td.fileNode()), kb * 1024, blockSize, logged, compactor);
+        });
+    }
+
+    /**
+     * pagesCount LSM-таблицы — объём прогонов в страницах; им пользуется оценка стоимости.
+     */
+    private void syncPagesCount(TableDefinition td, LsmTree tree) {
+        int pages = pagesOf(tree);
+        if (pages != td.pagesCount()) {
+            catalogAccess.updatePagesCount(td.getOid(), pages);
+        }
+    }
+
+    private int pagesOf(LsmTree tree) {
+        return (int) ((tree.diskBytes() + blockSize - 1) / blockSize);
+    }
+}
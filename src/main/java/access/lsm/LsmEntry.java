@@ -0,0 +1,16 @@
+package access.lsm;
+
+/**
+ * Запись LSM-дерева: ключ и кортеж; {@code value == null} — tombstone (удаление).
+ */
+record LsmEntry(long key, byte[] value) {
+
+    boolean isTombstone() {
+        return value == null;
+    }
+
+    /** Размер записи в файле прогона: ключ, длина, данные. */
+    int encodedSize() {
+        return 12 + (value == null ? 0 : value.length);
+    }
+}
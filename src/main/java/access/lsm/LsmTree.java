@@ -0,0 +1,595 @@
+package access.lsm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * LSM-дерево одного отношения: ключ INT64 -> кортеж.
+ * <p>
+ * Запись попадает в журнал (последовательная дозапись) и в memtable. Заполненная
+ * memtable целиком сбрасывается в новый прогон уровня 0, после чего журнал
+ * обнуляется. Фоновое выравнивающее (leveled) уплотнение сливает прогоны L0 с
+ * пересекающимися прогонами L1, а переполненный уровень Ln — по одному прогону в
+ * Ln+1; начиная с L1 прогоны уровня не пересекаются по ключам. Состав уровней
+ * хранится в файле MANIFEST, который заменяется атомарно.
+ * <p>
+ * Читатели берут снимок {@link Version} под read-lock; уплотнение закрывает и
+ * удаляет старые прогоны под write-lock, когда их никто не читает.
+ */
+final class LsmTree {
+
+    static final String MANIFEST = "MANIFEST";
+    static final String WAL = "wal";
+
+    private static final int L0_COMPACTION_TRIGGER = 4;
+    private static final int LEVEL_SIZE_MULTIPLIER = 10;
+    /** Пока уплотнение сбоит, запись отказывает, когда в L0 набирается столько прогонов. */
+    private static final int L0_STOP_WRITES_TRIGGER = 5 * L0_COMPACTION_TRIGGER;
+
+    // повтор неудавшегося уплотнения: пауза удваивается от меньшей к большей
+    private static final long RETRY_MIN_MS = 100;
+    private static final long RETRY_MAX_MS = 30_000;
+
+    private static final byte WAL_PUT = 1;
+    private static final byte WAL_DELETE = 2;
+
+    // в ConcurrentSkipListMap нельзя хранить null — tombstone memtable
+    private static final byte[] TOMBSTONE = new byte[0];
+
+    /** Уровни: L0 — от новых к старым, дальше — по возрастанию minKey. */
+    private record Version(List<List<SortedRun>> levels) {
+        List<SortedRun> level(int i) {
+            return i < levels.size() ? levels.get(i) : List.of();
+        }
+    }
+
+    private final Path dir;
+    private final long memtableLimit;
+    private final int blockSize;
+    private final boolean logged;
+    private final Executor compactor;
+
+    private final ReentrantReadWriteLock filesLock = new ReentrantReadWriteLock();
+
+    private volatile ConcurrentSkipListMap<Long, byte[]> memtable = new ConcurrentSkipListMap<>();
+    private long memtableBytes;
+    private volatile Version version;
+    private long nextRunId;
+    private FileChannel wal;
+    private boolean compactionScheduled;
+    /** Ошибка последнего уплотнения, {@code null} — последнее прошло успешно. */
+    private Throwable compactionFailure;
+    private long retryDelayMs;
+    private volatile boolean closed;
+
+    private LsmTree(Path dir, long memtableLimit, int blockSize, boolean logged, Executor compactor) {
+        this.dir = dir;
+        this.memtableLimit = memtableLimit;
+        this.blockSize = blockSize;
+        this.logged = logged;
+        this.compactor = compactor;
+    }
+
+    /**
+     * @param logged писать ли журнал; без него содержимое memtable живёт до {@link #close()}
+     */
+    static LsmTree open(Path dir, long memtableLimit, int blockSize, boolean logged, Executor compactor) {
+        LsmTree t = new LsmTree(dir, memtableLimit, blockSize, logged, compactor);
+        try {
+            Files.createDirectories(dir);
+            t.loadManifest();
+            if (logged) {
+                t.replayWal();
+                t.wal = FileChannel.open(dir.resolve(WAL),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot open LSM tree " + dir, e);
+        }
+        t.scheduleCompaction();
+        return t;
+    }
+
+    // ======= WRITE PATH =======
+
+    /**
+     * Вставка нового ключа; false, если живая запись с таким ключом уже есть.
+     * Проверка для отсутствующих ключей обычно обходится фильтрами Блума.
+     */
+    synchronized boolean insert(long key, byte[] value) {
+        if (get(key) != null) return false;
+        apply(key, value);
+        return true;
+    }
+
+    /**
+     * Заменяет значение существующего ключа; возвращает старое или {@code null}.
+     */
+    synchronized byte[] replace(long key, byte[] value) {
+        byte[] old = get(key);
+        if (old != null) apply(key, value);
+        return old;
+    }
+
+    /**
+     * Удаляет ключ; возвращает старое значение или {@code null}.
+     */
+    synchronized byte[] remove(long key) {
+        byte[] old = get(key);
+        if (old != null) apply(key, null);
+        return old;
+    }
+
+    private void apply(long key, byte[] value) {
+        if (closed) throw new IllegalStateException("LSM tree is closed: " + dir);
+        if (compactionFailure != null && version.level(0).size() >= L0_STOP_WRITES_TRIGGER) {
+            throw new IllegalStateException("LSM compaction keeps failing in " + dir + ", writes are stopped",
+                    compactionFailure);
+        }
+        if (logged) appendWal(key, value);
+
+        byte[] prev = memtable.put(key, value == null ? TOMBSTONE : value);
+        memtableBytes += 16 + (value == null ? 0 : value.length);
+        if (prev != null) memtableBytes -= 16 + prev.length;
+
+        if (memtableBytes >= memtableLimit) {
+            flushMemtable();
+        }
+    }
+
+    /**
+     * Сбрасывает memtable в новый прогон L0. Новая версия устанавливается до
+     * подмены memtable, поэтому читатель всегда видит запись хотя бы в одном месте.
+     */
+    synchronized void flushMemtable() {
+        ConcurrentSkipListMap<Long, byte[]> mt = memtable;
+        if (mt.isEmpty()) return;
+
+        SortedRun run = SortedRun.write(dir, nextRunId++, memtableIterator(mt), 0, blockSize);
+
+        List<List<SortedRun>> levels = copyLevels(version);
+        levels.get(0).add(0, run);
+        installVersion(new Version(levels));
+
+        memtable = new ConcurrentSkipListMap<>();
+        memtableBytes = 0;
+        if (logged) truncateWal();
+        scheduleCompaction();
+    }
+
+    // ======= READ PATH =======
+
+    /**
+     * Живое значение ключа или {@code null}.
+     */
+    byte[] get(long key) {
+        byte[] v = memtable.get(key);
+        if (v != null) return v == TOMBSTONE ? null : v;
+
+        filesLock.readLock().lock();
+        try {
+            Version ver = version;
+            for (SortedRun r : ver.level(0)) {
+                LsmEntry e = r.get(key);
+                if (e != null) return e.value();
+            }
+            for (int lvl = 1; lvl < ver.levels().size(); lvl++) {
+                SortedRun r = findRun(ver.level(lvl), key);
+                if (r == null) continue;
+                LsmEntry e = r.get(key);
+                if (e != null) return e.value();
+            }
+            return null;
+        } finally {
+            filesLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Все живые записи по возрастанию ключа.
+     */
+    void forEach(BiConsumer<Long, byte[]> consumer) {
+        ConcurrentSkipListMap<Long, byte[]> mt = memtable;
+        filesLock.readLock().lock();
+        try {
+            Iterator<LsmEntry> it = new MergingIterator(sources(mt, version));
+            while (it.hasNext()) {
+                LsmEntry e = it.next();
+                if (!e.isTombstone()) consumer.accept(e.key(), e.value());
+            }
+        } finally {
+            filesLock.readLock().unlock();
+        }
+    }
+
+    long diskBytes() {
+        long total = 0;
+        for (List<SortedRun> level : version.levels()) {
+            for (SortedRun r : level) total += r.sizeBytes();
+        }
+        return total;
+    }
+
+    /**
+     * Число записей в memtable и прогонах, включая перекрытые версии и tombstone.
+     */
+    long storedEntries() {
+        long total = memtable.size();
+        for (List<SortedRun> level : version.levels()) {
+            for (SortedRun r : level) total += r.entries();
+        }
+        return total;
+    }
+
+    int[] runsPerLevel() {
+        Version v = version;
+        int[] out = new int[v.levels().size()];
+        for (int i = 0; i < out.length; i++) out[i] = v.level(i).size();
+        return out;
+    }
+
+    private static List<Iterator<LsmEntry>> sources(ConcurrentSkipListMap<Long, byte[]> mt, Version ver) {
+        List<Iterator<LsmEntry>> out = new ArrayList<>();
+        out.add(memtableIterator(mt));
+        // прогоны L0 пересекаются — каждый отдельный источник; уровень ниже — один
+        for (SortedRun r : ver.level(0)) out.add(r.iterator());
+        for (int lvl = 1; lvl < ver.levels().size(); lvl++) out.add(concat(ver.level(lvl)));
+        return out;
+    }
+
+    private static SortedRun findRun(List<SortedRun> sortedLevel, long key) {
+        int lo = 0, hi = sortedLevel.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            SortedRun r = sortedLevel.get(mid);
+            if (key < r.minKey()) hi = mid - 1;
+            else if (key > r.maxKey()) lo = mid + 1;
+            else return r;
+        }
+        return null;
+    }
+
+    // ======= COMPACTION =======
+
+    private synchronized void scheduleCompaction() {
+        if (compactionScheduled || closed || pickCompaction(version) == null) return;
+        compactionScheduled = true;
+        compactor.execute(this::runCompactions);
+    }
+
+    /**
+     * Уплотняет, пока есть работа. Сбой запоминается и уплотнение повторяется
+     * через растущую паузу: без этого L0 рос бы до следующего сброса memtable.
+     */
+    private void runCompactions() {
+        Throwable failure = null;
+        try {
+            while (!closed && compactOnce()) {
+                // пока есть работа
+            }
+        } catch (Throwable t) {
+            failure = t;
+        }
+        synchronized (this) {
+            compactionScheduled = false;
+            compactionFailure = failure;
+            if (failure == null) {
+                retryDelayMs = 0;
+                return;
+            }
+            if (closed) return;
+            retryDelayMs = retryDelayMs == 0 ? RETRY_MIN_MS : Math.min(RETRY_MAX_MS, retryDelayMs * 2);
+            compactionScheduled = true;
+            CompletableFuture.delayedExecutor(retryDelayMs, TimeUnit.MILLISECONDS, compactor)
+                    .execute(this::runCompactions);
+        }
+    }
+
+    private record Compaction(List<SortedRun> upper, List<SortedRun> lower, int outputLevel) { }
+
+    private Compaction pickCompaction(Version v) {
+        List<SortedRun> l0 = v.level(0);
+        if (l0.size() >= L0_COMPACTION_TRIGGER) {
+            long from = Long.MAX_VALUE, to = Long.MIN_VALUE;
+            for (SortedRun r : l0) {
+                from = Math.min(from, r.minKey());
+                to = Math.max(to, r.maxKey());
+            }
+            return new Compaction(l0, overlapping(v.level(1), from, to), 1);
+        }
+
+        for (int lvl = 1; lvl < v.levels().size(); lvl++) {
+            List<SortedRun> level = v.level(lvl);
+            long bytes = 0;
+            for (SortedRun r : level) bytes += r.sizeBytes();
+            if (bytes <= maxBytesForLevel(lvl)) continue;
+
+            // самый большой прогон уровня освобождает больше всего места
+            SortedRun victim = level.stream().max(Comparator.comparingLong(SortedRun::sizeBytes)).orElseThrow();
+            return new Compaction(List.of(victim),
+                    overlapping(v.level(lvl + 1), victim.minKey(), victim.maxKey()), lvl + 1);
+        }
+        return null;
+    }
+
+    private long maxBytesForLevel(int level) {
+        long bytes = memtableLimit * L0_COMPACTION_TRIGGER;
+        for (int i = 1; i < level; i++) bytes *= LEVEL_SIZE_MULTIPLIER;
+        return bytes;
+    }
+
+    private boolean compactOnce() {
+        Version v = version;
+        Compaction c = pickCompaction(v);
+        if (c == null) return false;
+
+        List<Iterator<LsmEntry>> inputs = new ArrayList<>();
+        for (SortedRun r : c.upper()) inputs.add(r.iterator());
+        inputs.add(concat(c.lower()));
+
+        // tombstone можно выбросить, только если ниже выходного уровня старых версий нет
+        boolean bottom = true;
+        for (int lvl = c.outputLevel() + 1; lvl < v.levels().size(); lvl++) {
+            if (!v.level(lvl).isEmpty()) bottom = false;
+        }
+        Iterator<LsmEntry> merged = new MergingIterator(inputs);
+        Iterator<LsmEntry> it = bottom ? dropTombstones(merged) : merged;
+
+        List<SortedRun> outputs = new ArrayList<>();
+        while (it.hasNext()) {
+            long id;
+            synchronized (this) {
+                id = nextRunId++;
+            }
+            outputs.add(SortedRun.write(dir, id, it, memtableLimit, blockSize));
+        }
+
+        Set<SortedRun> obsolete = new HashSet<>(c.upper());
+        obsolete.addAll(c.lower());
+
+        synchronized (this) {
+            List<List<SortedRun>> levels = copyLevels(version);
+            for (List<SortedRun> level : levels) level.removeIf(obsolete::contains);
+            while (levels.size() <= c.outputLevel()) levels.add(new ArrayList<>());
+            levels.get(c.outputLevel()).addAll(outputs);
+            levels.get(c.outputLevel()).sort(Comparator.comparingLong(SortedRun::minKey));
+            installVersion(new Version(levels));
+        }
+
+        filesLock.writeLock().lock();
+        try {
+            for (SortedRun r : obsolete) r.delete();
+        } finally {
+            filesLock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    private static List<SortedRun> overlapping(List<SortedRun> level, long from, long to) {
+        List<SortedRun> out = new ArrayList<>();
+        for (SortedRun r : level) {
+            if (r.overlaps(from, to)) out.add(r);
+        }
+        return out;
+    }
+
+    // ======= MANIFEST / WAL =======
+
+    private void installVersion(Version v) {
+        writeManifest(v);
+        version = v;
+    }
+
+    private void writeManifest(Version v) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("next_run ").append(nextRunId).append('\n');
+        for (int lvl = 0; lvl < v.levels().size(); lvl++) {
+            for (SortedRun r : v.level(lvl)) {
+                sb.append("run ").append(lvl).append(' ').append(r.id()).append('\n');
+            }
+        }
+        Path tmp = dir.resolve(MANIFEST + ".tmp");
+        try {
+            Files.writeString(tmp, sb.toString(), StandardCharsets.UTF_8);
+            Files.move(tmp, dir.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot write manifest in " + dir, e);
+        }
+    }
+
+    private void loadManifest() throws IOException {
+        List<List<SortedRun>> levels = new ArrayList<>();
+        levels.add(new ArrayList<>());
+        Set<Long> live = new HashSet<>();
+
+        Path manifest = dir.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                String[] parts = line.trim().split(" ");
+                if (parts[0].equals("next_run")) {
+                    nextRunId = Long.parseLong(parts[1]);
+                } else if (parts[0].equals("run")) {
+                    int lvl = Integer.parseInt(parts[1]);
+                    long id = Long.parseLong(parts[2]);
+                    while (levels.size() <= lvl) levels.add(new ArrayList<>());
+                    levels.get(lvl).add(SortedRun.open(id, SortedRun.fileOf(dir, id)));
+                    live.add(id);
+                } else if (!line.isBlank()) {
+                    throw new IllegalStateException("corrupted manifest in " + dir + ": " + line);
+                }
+            }
+        }
+        version = new Version(levels);
+
+        // прогоны, не попавшие в MANIFEST, — результат прерванного уплотнения
+        try (var files = Files.list(dir)) {
+            for (Path p : files.toList()) {
+                String name = p.getFileName().toString();
+                if (!name.endsWith(SortedRun.FILE_SUFFIX)) continue;
+                long id = Long.parseLong(name.substring(0, name.length() - SortedRun.FILE_SUFFIX.length()));
+                if (!live.contains(id)) Files.delete(p);
+            }
+        }
+    }
+
+    private void appendWal(long key, byte[] value) {
+        int len = value == null ? 0 : value.length;
+        ByteBuffer b = ByteBuffer.allocate(1 + 8 + 4 + len).order(ByteOrder.LITTLE_ENDIAN);
+        b.put(value == null ? WAL_DELETE : WAL_PUT);
+        b.putLong(key);
+        b.putInt(len);
+        if (value != null) b.put(value);
+        b.flip();
+        try {
+            while (b.hasRemaining()) wal.write(b);
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot append to LSM log in " + dir, e);
+        }
+    }
+
+    private void replayWal() throws IOException {
+        Path file = dir.resolve(WAL);
+        if (!Files.exists(file)) return;
+
+        ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.remaining() >= 13) {
+            byte op = b.get();
+            long key = b.getLong();
+            int len = b.getInt();
+            if (len < 0 || b.remaining() < len) break; // недописанная последняя запись
+            byte[] value = null;
+            if (op == WAL_PUT) {
+                value = new byte[len];
+                b.get(value);
+            }
+            memtable.put(key, value == null ? TOMBSTONE : value);
+            memtableBytes += 16 + len;
+        }
+    }
+
+    private void truncateWal() {
+        try {
+            wal.truncate(0);
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot truncate LSM log in " + dir, e);
+        }
+    }
+
+    /**
+     * Штатное закрытие: memtable сбрасывается в прогон, так что журнал
+     * (или его отсутствие у нелогируемых таблиц) больше не нужен.
+     */
+    synchronized void close() {
+        if (closed) return;
+        flushMemtable();
+        closed = true;
+        try {
+            if (wal != null) wal.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Закрывает файлы прогонов; вызывается после остановки фонового уплотнения.
+     */
+    void closeRuns() {
+        filesLock.writeLock().lock();
+        try {
+            for (List<SortedRun> level : version.levels()) {
+                for (SortedRun r : level) r.close();
+            }
+        } finally {
+            filesLock.writeLock().unlock();
+        }
+    }
+
+    // ======= HELPERS =======
+
+    private static List<List<SortedRun>> copyLevels(Version v) {
+        List<List<SortedRun>> out = new ArrayList<>();
+        for (List<SortedRun> level : v.levels()) out.add(new ArrayList<>(level));
+        if (out.isEmpty()) out.add(new ArrayList<>());
+        return out;
+    }
+
+    private static Iterator<LsmEntry> memtableIterator(ConcurrentSkipListMap<Long, byte[]> mt) {
+        Iterator<Map.Entry<Long, byte[]>> it = mt.entrySet().iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public LsmEntry next() {
+                Map.Entry<Long, byte[]> e = it.next();
+                return new LsmEntry(e.getKey(), e.getValue() == TOMBSTONE ? null : e.getValue());
+            }
+        };
+    }
+
+    private static Iterator<LsmEntry> concat(List<SortedRun> runs) {
+        return new Iterator<>() {
+            private int next = 0;
+            private Iterator<LsmEntry> current = List.<LsmEntry>of().iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && next < runs.size()) {
+                    current = runs.get(next++).iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public LsmEntry next() {
+                hasNext();
+                return current.next();
+            }
+        };
+    }
+
+    private static Iterator<LsmEntry> dropTombstones(Iterator<LsmEntry> it) {
+        return new Iterator<>() {
+            private LsmEntry pending;
+
+            @Override
+            public boolean hasNext() {
+                while (pending == null && it.hasNext()) {
+                    LsmEntry e = it.next();
+                    if (!e.isTombstone()) pending = e;
+                }
+                return pending != null;
+            }
+
+            @Override
+            public LsmEntry next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                LsmEntry e = pending;
+                pending = null;
+                return e;
+            }
+        };
+    }
+}
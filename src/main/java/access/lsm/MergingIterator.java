@@ -0,0 +1,50 @@
+package access.lsm;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * K-путевое слияние отсортированных источников. Источники перечислены от
+ * новых к старым: при совпадении ключей остаётся запись самого нового.
+ * Tombstone-записи не отбрасываются — это решает вызывающий.
+ */
+final class MergingIterator implements Iterator<LsmEntry> {
+
+    private record Head(LsmEntry entry, int rank, Iterator<LsmEntry> source) { }
+
+    private final PriorityQueue<Head> heads = new PriorityQueue<>(
+            Comparator.comparingLong((Head h) -> h.entry.key()).thenComparingInt(Head::rank));
+
+    MergingIterator(List<Iterator<LsmEntry>> newestFirst) {
+        for (int i = 0; i < newestFirst.size(); i++) {
+            advance(newestFirst.get(i), i);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public LsmEntry next() {
+        Head h = heads.poll();
+        if (h == null) throw new NoSuchElementException();
+        advance(h.source, h.rank);
+
+        while (!heads.isEmpty() && heads.peek().entry.key() == h.entry.key()) {
+            Head older = heads.poll();
+            advance(older.source, older.rank);
+        }
+        return h.entry;
+    }
+
+    private void advance(Iterator<LsmEntry> source, int rank) {
+        if (source.hasNext()) {
+            heads.add(new Head(source.next(), rank, source));
+        }
+    }
+}
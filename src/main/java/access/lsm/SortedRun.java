@@ -0,0 +1,337 @@
+package access.lsm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Неизменяемый отсортированный прогон LSM-дерева.
+ * <p>
+ * Файл пишется один раз последовательно и дальше только читается:
+ * <pre>
+ * записи     : key(8) len(4, -1 — tombstone) data(len) ... по возрастанию ключа
+ * индекс     : firstKey(8) offset(8) — по записи на блок данных
+ * фильтр     : слова фильтра Блума (8 байт)
+ * трейлер    : entries(8) dataEnd(8) indexCount(4) bloomWords(4) bloomHashes(4)
+ *              minKey(8) maxKey(8) magic(4)
+ * </pre>
+ * Точечный поиск проверяет диапазон ключей и фильтр, затем бинарным поиском
+ * по разреженному индексу находит и читает единственный блок.
+ */
+final class SortedRun {
+
+    static final String FILE_SUFFIX = ".run";
+
+    private static final int MAGIC = 0x00DB15A1;
+    private static final int TRAILER_SIZE = 48;
+    private static final int TOMBSTONE_LEN = -1;
+    private static final int IO_CHUNK = 64 * 1024;
+
+    private final long id;
+    private final Path file;
+    private final FileChannel ch;
+    private final long entries;
+    private final long dataEnd;
+    private final long[] indexKeys;
+    private final long[] indexOffsets;
+    private final BloomFilter bloom;
+    private final long minKey;
+    private final long maxKey;
+    private final long sizeBytes;
+
+    private SortedRun(long id, Path file, FileChannel ch, long entries, long dataEnd,
+                      long[] indexKeys, long[] indexOffsets, BloomFilter bloom,
+                      long minKey, long maxKey, long sizeBytes) {
+        this.id = id;
+        this.file = file;
+        this.ch = ch;
+        this.entries = entries;
+        this.dataEnd = dataEnd;
+        this.indexKeys = indexKeys;
+        this.indexOffsets = indexOffsets;
+        this.bloom = bloom;
+        this.minKey = minKey;
+        this.maxKey = maxKey;
+        this.sizeBytes = sizeBytes;
+    }
+
+    long id() { return id; }
+    long entries() { return entries; }
+    long minKey() { return minKey; }
+    long maxKey() { return maxKey; }
+    long sizeBytes() { return sizeBytes; }
+
+    boolean overlaps(long from, long to) {
+        return minKey <= to && maxKey >= from;
+    }
+
+    static Path fileOf(Path dir, long id) {
+        return dir.resolve(id + FILE_SUFFIX);
+    }
+
+    // ======= WRITE =======
+
+    /**
+     * Последовательно пишет записи из {@code source}, пока файл не превысит
+     * {@code maxBytes} (0 — без ограничения). Записи должны идти по возрастанию ключа.
+     */
+    static SortedRun write(Path dir, long id, Iterator<LsmEntry> source, long maxBytes, int blockSize) {
+        if (!source.hasNext()) throw new IllegalArgumentException("empty run");
+
+        Path file = fileOf(dir, id);
+        try (FileChannel out = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+
+            ByteBuffer buf = ByteBuffer.allocate(IO_CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+            long pos = 0;
+            long blockStart = -blockSize;
+
+            long[] keys = new long[1024];
+            int count = 0;
+            long[] idxKeys = new long[64];
+            long[] idxOffsets = new long[64];
+            int idxCount = 0;
+
+            while (source.hasNext() && (maxBytes <= 0 || pos < maxBytes)) {
+                LsmEntry e = source.next();
+                if (count > 0 && e.key() <= keys[count - 1]) {
+                    throw new IllegalStateException("run keys are not strictly ascending");
+                }
+
+                if (pos - blockStart >= blockSize) {
+                    if (idxCount == idxKeys.length) {
+                        idxKeys = Arrays.copyOf(idxKeys, idxCount * 2);
+                        idxOffsets = Arrays.copyOf(idxOffsets, idxCount * 2);
+                    }
+                    idxKeys[idxCount] = e.key();
+                    idxOffsets[idxCount] = pos;
+                    idxCount++;
+                    blockStart = pos;
+                }
+                if (count == keys.length) keys = Arrays.copyOf(keys, count * 2);
+                keys[count++] = e.key();
+
+                buf = ensure(out, buf, e.encodedSize());
+                buf.putLong(e.key());
+                if (e.isTombstone()) {
+                    buf.putInt(TOMBSTONE_LEN);
+                } else {
+                    buf.putInt(e.value().length);
+                    buf.put(e.value());
+                }
+                pos += e.encodedSize();
+            }
+
+            long dataEnd = pos;
+            for (int i = 0; i < idxCount; i++) {
+                buf = ensure(out, buf, 16);
+                buf.putLong(idxKeys[i]);
+                buf.putLong(idxOffsets[i]);
+            }
+
+            BloomFilter bloom = BloomFilter.forKeys(keys, count);
+            for (long w : bloom.words()) {
+                buf = ensure(out, buf, 8);
+                buf.putLong(w);
+            }
+
+            buf = ensure(out, buf, TRAILER_SIZE);
+            buf.putLong(count);
+            buf.putLong(dataEnd);
+            buf.putInt(idxCount);
+            buf.putInt(bloom.words().length);
+            buf.putInt(bloom.hashes());
+            buf.putLong(keys[0]);
+            buf.putLong(keys[count - 1]);
+            buf.putInt(MAGIC);
+            drain(out, buf);
+            out.force(true);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error while writing run " + file, e);
+        }
+        return open(id, file);
+    }
+
+    private static ByteBuffer ensure(FileChannel out, ByteBuffer buf, int need) throws IOException {
+        if (buf.remaining() >= need) return buf;
+        drain(out, buf);
+        if (buf.capacity() < need) {
+            return ByteBuffer.allocate(need).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return buf;
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+
+    // ======= READ =======
+
+    static SortedRun open(long id, Path file) {
+        try {
+            FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+            long size = ch.size();
+            if (size < TRAILER_SIZE) {
+                ch.close();
+                throw new IllegalStateException("truncated run file: " + file);
+            }
+
+            ByteBuffer t = readAt(ch, size - TRAILER_SIZE, TRAILER_SIZE);
+            long entries = t.getLong();
+            long dataEnd = t.getLong();
+            int idxCount = t.getInt();
+            int bloomWords = t.getInt();
+            int bloomHashes = t.getInt();
+            long minKey = t.getLong();
+            long maxKey = t.getLong();
+            if (t.getInt() != MAGIC) {
+                ch.close();
+                throw new IllegalStateException("invalid run file magic: " + file);
+            }
+
+            ByteBuffer meta = readAt(ch, dataEnd, idxCount * 16 + bloomWords * 8);
+            long[] keys = new long[idxCount];
+            long[] offsets = new long[idxCount];
+            for (int i = 0; i < idxCount; i++) {
+                keys[i] = meta.getLong();
+                offsets[i] = meta.getLong();
+            }
+            long[] words = new long[bloomWords];
+            for (int i = 0; i < bloomWords; i++) {
+                words[i] = meta.getLong();
+            }
+
+            return new SortedRun(id, file, ch, entries, dataEnd, keys, offsets,
+                    new BloomFilter(words, bloomHashes), minKey, maxKey, size);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error while opening run " + file, e);
+        }
+    }
+
+    /**
+     * Запись по ключу (в т.ч. tombstone) или {@code null}, если ключа в прогоне нет.
+     */
+    LsmEntry get(long key) {
+        if (key < minKey || key > maxKey || !bloom.mightContain(key)) {
+            return null;
+        }
+
+        int block = Arrays.binarySearch(indexKeys, key);
+        if (block < 0) block = -block - 2;
+        if (block < 0) return null;
+
+        long from = indexOffsets[block];
+        long to = block + 1 < indexOffsets.length ? indexOffsets[block + 1] : dataEnd;
+        try {
+            ByteBuffer b = readAt(ch, from, (int) (to - from));
+            while (b.hasRemaining()) {
+                long k = b.getLong();
+                int len = b.getInt();
+                if (k == key) {
+                    if (len == TOMBSTONE_LEN) return new LsmEntry(k, null);
+                    byte[] v = new byte[len];
+                    b.get(v);
+                    return new LsmEntry(k, v);
+                }
+                if (k > key) return null;
+                if (len != TOMBSTONE_LEN) b.position(b.position() + len);
+            }
+            return null;
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error while reading run " + file, e);
+        }
+    }
+
+    /**
+     * Последовательный проход по всем записям прогона.
+     */
+    Iterator<LsmEntry> iterator() {
+        return new Iterator<>() {
+            private final ByteBuffer buf = ByteBuffer.allocate(IO_CHUNK).order(ByteOrder.LITTLE_ENDIAN).limit(0);
+            private long filePos = 0;
+            private long returned = 0;
+
+            @Override
+            public boolean hasNext() {
+                return returned < entries;
+            }
+
+            @Override
+            public LsmEntry next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                try {
+                    fill(12);
+                    long key = buf.getLong();
+                    int len = buf.getInt();
+                    byte[] value = null;
+                    if (len != TOMBSTONE_LEN) {
+                        value = new byte[len];
+                        int copied = 0;
+                        while (copied < len) {
+                            fill(1);
+                            int n = Math.min(len - copied, buf.remaining());
+                            buf.get(value, copied, n);
+                            copied += n;
+                        }
+                    }
+                    returned++;
+                    return new LsmEntry(key, value);
+                } catch (IOException e) {
+                    throw new IllegalStateException("I/O error while scanning run " + file, e);
+                }
+            }
+
+            private void fill(int need) throws IOException {
+                if (buf.remaining() >= need) return;
+                buf.compact();
+                while (buf.position() < need && filePos < dataEnd) {
+                    int max = (int) Math.min(buf.remaining(), dataEnd - filePos);
+                    ByteBuffer slice = buf.slice().limit(max);
+                    int n = ch.read(slice, filePos);
+                    if (n <= 0) throw new IllegalStateException("unexpected end of run " + file);
+                    buf.position(buf.position() + n);
+                    filePos += n;
+                }
+                buf.flip();
+                if (buf.remaining() < need) throw new IllegalStateException("unexpected end of run " + file);
+            }
+        };
+    }
+
+    void close() {
+        try {
+            ch.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    void delete() {
+        close();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot delete run " + file, e);
+        }
+    }
+
+    private static ByteBuffer readAt(FileChannel ch, long pos, int len) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.hasRemaining()) {
+            int n = ch.read(b, pos + b.position());
+            if (n < 0) throw new IOException("unexpected end of file");
+        }
+        b.flip();
+        return b;
+    }
+}
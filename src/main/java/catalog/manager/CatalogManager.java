@@ -5,11 +5,14 @@ import catalog.model.TableDefinition;
 import catalog.model.TypeDefinition;
 
 import java.util.List;
+import java.util.Map;
 
 public interface CatalogManager {
 
     TableDefinition createTable(String name, List<ColumnDefinition> columns);
 
+    TableDefinition createTable(String name, List<ColumnDefinition> columns, Map<String, String> options);
+
     TableDefinition getTable(String tableName);
 
     ColumnDefinition getColumn(TableDefinition table, String columnName);
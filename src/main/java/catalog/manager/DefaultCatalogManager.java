@@ -1,11 +1,21 @@
 package catalog.manager;
 
+import access.TableAccessMethod;
+import access.heap.HeapAccessMethod;
+import access.lsm.LsmAccessMethod;
 import catalog.model.ColumnDefinition;
+import catalog.model.ColumnDictionary;
+import catalog.model.DictionaryEntry;
+import catalog.model.IndexDefinition;
 import catalog.model.TableDefinition;
 import catalog.model.TypeDefinition;
 import catalog.operation.DefaultOperationManager;
+import catalog.partition.Partitioning;
+import index.IndexType;
+import memory.manager.CompressedPageFileManager;
 import memory.buffer.BufferPoolManager;
 import memory.model.BufferSlot;
+import memory.model.Persistence;
 import memory.page.HeapPage;
 import memory.page.Page;
 
@@ -18,12 +28,17 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class DefaultCatalogManager implements CatalogManager, DefaultOperationManager.CatalogAccess {
 
-    final int PAGE_SIZE = 8192;
-    private enum Kind { TABLE, COLUMN, TYPE }
+    final int PAGE_SIZE;
+    private enum Kind { TABLE, COLUMN, TYPE, DICTIONARY, INDEX }
 
     private static final String TABLES_FILE  = "table_definitions.dat";
     private static final String COLUMNS_FILE = "column_definitions.dat";
     private static final String TYPES_FILE   = "types_definitions.dat";
+    private static final String DICTIONARY_FILE = "column_dictionaries.dat";
+    private static final String INDEXES_FILE = "index_definitions.dat";
+
+    /** Расширение файла B+-дерева индекса. */
+    private static final String INDEX_FILE_SUFFIX = ".idx";
 
     private final Path root;
     private final BufferPoolManager bpm;
@@ -33,14 +48,18 @@ public class DefaultCatalogManager implements CatalogManager, DefaultOperationMa
     private final Map<Integer, List<ColumnDefinition>> columnsByTableOid = new HashMap<>();
     private final Map<Integer, TypeDefinition>  typesByOid = new HashMap<>();
     private final Map<String,  TypeDefinition>  typesByName = new HashMap<>();
+    private final Map<Integer, ColumnDictionary> dictionariesByColumnOid = new HashMap<>();
+    private final Map<Integer, IndexDefinition> indexesByOid = new LinkedHashMap<>();
 
     private final AtomicInteger nextTableOid  = new AtomicInteger(1);
     private final AtomicInteger nextColumnOid = new AtomicInteger(1);
     private final AtomicInteger nextTypeOid   = new AtomicInteger(1);
+    private final AtomicInteger nextIndexOid  = new AtomicInteger(1);
 
     public DefaultCatalogManager(Path root, BufferPoolManager bpm) throws IOException {
         this.root = Objects.requireNonNull(root, "root");
         this.bpm  = Objects.requireNonNull(bpm, "bpm");
+        this.PAGE_SIZE = bpm.getPageSize();
         Files.createDirectories(root);
 
         ensureCatalogFiles();
@@ -53,10 +72,18 @@ public class DefaultCatalogManager implements CatalogManager, DefaultOperationMa
 
         loadDefinitions(TABLES_FILE, Kind.TABLE);
         loadDefinitions(COLUMNS_FILE, Kind.COLUMN);
+        loadDefinitions(DICTIONARY_FILE, Kind.DICTIONARY);
+        loadDefinitions(INDEXES_FILE, Kind.INDEX);
     }
 
     @Override
     public synchronized TableDefinition createTable(String name, List<ColumnDefinition> columns) {
+        return createTable(name, columns, Map.of());
+    }
+
+    @Override
+    public synchronized TableDefinition createTable(String name, List<ColumnDefinition> columns,
+                                                    Map<String, String> options) {
         if (name == null || name.isBlank())
             throw new IllegalArgumentException("table getName is empty");
         if (tablesByName.containsKey(name))
@@ -66,14 +93,27 @@ public class DefaultCatalogManager implements CatalogManager, DefaultOperationMa
             throw new IllegalArgumentException("table must have at least one column");
 
         int tableOid = nextTableOid.getAndIncrement();
-        String fileNode = tableOid + ".dat";
+        Objects.requireNonNull(options, "options");
+        // сжатые отношения отличаются расширением файла — по нему их узнаёт CompressedPageFileManager
+        boolean compressed = CompressedPageFileManager.CODEC_LZ.equals(options.get(CompressedPageFileManager.OPTION));
+        String fileNode = tableOid + (compressed ? CompressedPageFileManager.FILE_SUFFIX : ".dat");
+        // LSM-таблица — каталог с прогонами, журналом и MANIFEST
+        if (TableAccessMethod.LSM.equals(options.get(TableAccessMethod.OPTION))) {
+            fileNode = tableOid + LsmAccessMethod.FILE_SUFFIX;
+        }
+        // нелогируемые и временные отношения лежат в своих подкаталогах — см. Persistence
+        Persistence persistence = Persistence.of(options);
+        if (persistence.directory() != null) {
+            fileNode = persistence.directory() + "/" + fileNode;
+        }
 
         TableDefinition td = new TableDefinition(
                 tableOid,
                 name,
                 "TABLE",
                 fileNode,
-                0
+                0,
+                options
         );
 
         List<ColumnDefinition> cols = new ArrayList<>(columns.size());
@@ -85,23 +125,28 @@ public class DefaultCatalogManager implements CatalogManager, DefaultOperationMa
                     tableOid,
                     c0.typeOid(),
                     c0.name(),
-                    i
+                    i,
+                    c0.encoding()
             );
             cols.add(c);
         }
 
-        appendRecord(root.resolve(TABLES_FILE),  td.toBytes());
-        for (ColumnDefinition c : cols) {
-            appendRecord(root.resolve(COLUMNS_FILE), c.toBytes());
-        }
+        // временная таблица видна только текущей сессии и в файлы каталога не попадает
+        if (persistence != Persistence.TEMP) {
+            appendRecord(root.resolve(TABLES_FILE),  td.toBytes());
+            for (ColumnDefinition c : cols) {
+                appendRecord(root.resolve(COLUMNS_FILE), c.toBytes());
+            }
 
-        Path dataFile = root.resolve(fileNode);
-        try {
-            if (!Files.exists(dataFile)) {
-                Files.createFile(dataFile);
+            Path dataFile = root.resolve(fileNode);
+            try {
+                if (!Files.exists(dataFile)) {
+                    Files.createDirectories(dataFile.getParent());
+                    Files.createFile(dataFile);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("failed to create data file: " + dataFile, e);
             }
-        } catch (IOException e) {
-            throw new RuntimeException("failed to create data file: " + dataFile, e);
         }
 
         tablesByOid.put(td.getOid(), td);
@@ -151,7 +196,7 @@ public class DefaultCatalogManager implements CatalogManager, DefaultOperationMa
     }
 
     private void ensureCatalogFiles() throws IOException {
-        for (String f : List.of(TABLES_FILE, COLUMNS_FILE, TYPES_FILE)) {
+        for (String f : List.of(TABLES_FILE, COLUMNS_FILE, TYPES_FILE, DICTIONARY_FILE, INDEXES_FILE)) {
             Path p = root.resolve(f);
             if (!Files.exists(p)) Files.createFile(p);
         }
@@ -191,11 +236,11 @@ public class DefaultCatalogManager implements CatalogManager, DefaultOperationMa
 
         int pages = (int) (size / PAGE_SIZE);
 
-        int maxTable = 0, maxColumn = 0, maxType = 0;
+        int maxTable = 0, maxColumn = 0, maxType = 0, maxIndex = 0;
 
         for (int pid = 0; pid < pages; pid++) {
 
-            BufferSlot slot = bpm.getPage(pid);
+            BufferSlot slot = bpm.getPage(file, pid);
             Page p = slot.getPage();
 
             if (!p.isValid()) {
@@ -227,6 +272,17 @@ public class DefaultCatalogManager implements CatalogManager, DefaultOperationMa
                         typesByName.put(ty.name(), ty);
                         if (ty.getOid() > maxType) maxType = ty.getOid();
                     }
+                    case DICTIONARY -> {
+                        DictionaryEntry de = DictionaryEntry.fromBytes(rec);
+                        dictionariesByColumnOid
+                                .computeIfAbsent(de.columnOid(), ColumnDictionary::new)
+                                .restore(de.code(), de.value());
+                    }
+                    case INDEX -> {
+                        IndexDefinition id = IndexDefinition.fromBytes(rec);
+                        putIndex(id);
+                        if (id.getOid() > maxIndex) maxIndex = id.getOid();
+                    }
                 }
             }
         }
@@ -235,6 +291,8 @@ public class DefaultCatalogManager implements CatalogManager, DefaultOperationMa
             case TABLE  -> nextTableOid.set(maxTable + 1);
             case COLUMN -> nextColumnOid.set(maxColumn + 1);
             case TYPE   -> nextTypeOid.set(maxType + 1);
+            case INDEX  -> nextIndexOid.set(maxIndex + 1);
+            case DICTIONARY -> { }
         }
 
         if (kind == Kind.COLUMN) {
@@ -256,44 +314,44 @@ public class DefaultCatalogManager implements CatalogManager, DefaultOperationMa
             int lastPageId = (fileSize == 0) ? -1 : (int) (fileSize / PAGE_SIZE) - 1;
 
             if (lastPageId < 0) {
-                HeapPage page = new HeapPage(0);
+                HeapPage page = new HeapPage(0, PAGE_SIZE);
                 if (!tryWrite(page, rec)) {
                     throw new IllegalArgumentException(
                             "record too large for empty page: " + rec.length
                     );
                 }
-                bpm.updatePage(0, page);
-                bpm.flushPage(0);
+                bpm.updatePage(file, 0, page);
+                bpm.flushPage(file, 0);
                 return;
             }
 
-            BufferSlot tailSlot = bpm.getPage(lastPageId);
+            BufferSlot tailSlot = bpm.getPage(file, lastPageId);
             Page tail = tailSlot.getPage();
 
             if (!(tail instanceof HeapPage hp)) {
-                HeapPage newPage = new HeapPage(lastPageId + 1);
+                HeapPage newPage = new HeapPage(lastPageId + 1, PAGE_SIZE);
                 if (!tryWrite(newPage, rec)) {
                     throw new IllegalArgumentException(
                             "record too large (" + rec.length + " bytes)"
                     );
                 }
-                bpm.updatePage(lastPageId + 1, newPage);
-                bpm.flushPage(lastPageId + 1);
+                bpm.updatePage(file, lastPageId + 1, newPage);
+                bpm.flushPage(file, lastPageId + 1);
                 return;
             }
 
             if (tryWrite(hp, rec)) {
-                bpm.updatePage(lastPageId, hp);
-                bpm.flushPage(lastPageId);
+                bpm.updatePage(file, lastPageId, hp);
+                bpm.flushPage(file, lastPageId);
             } else {
-                HeapPage newPage = new HeapPage(lastPageId + 1);
+                HeapPage newPage = new HeapPage(lastPageId + 1, PAGE_SIZE);
                 if (!tryWrite(newPage, rec)) {
                     throw new IllegalArgumentException(
                             "record too large for page (" + rec.length + " bytes)"
                     );
                 }
-                bpm.updatePage(lastPageId + 1, newPage);
-                bpm.flushPage(lastPageId + 1);
+                bpm.updatePage(file, lastPageId + 1, newPage);
+                bpm.flushPage(file, lastPageId + 1);
             }
 
         } catch (IOException e) {
@@ -328,6 +386,75 @@ public class DefaultCatalogManager implements CatalogManager, DefaultOperationMa
         return t;
     }
 
+    @Override
+    public synchronized ColumnDictionary getDictionary(ColumnDefinition column) {
+        if (!column.isDictionaryEncoded()) {
+            throw new IllegalArgumentException("column is not dictionary-encoded: " + column.name());
+        }
+        return dictionariesByColumnOid.computeIfAbsent(column.oid(), ColumnDictionary::new);
+    }
+
+    @Override
+    public synchronized int encodeDictionaryValue(ColumnDefinition column, String value) {
+        ColumnDictionary dict = getDictionary(column);
+        int code = dict.lookup(value);
+        if (code >= 0) return code;
+
+        code = dict.add(value);
+        TableDefinition td = tablesByOid.get(column.tableOid());
+        if (td != null && Persistence.of(td.options()) == Persistence.TEMP) {
+            return code;
+        }
+        appendRecord(root.resolve(DICTIONARY_FILE), new DictionaryEntry(column.oid(), code, value).toBytes());
+        return code;
+    }
+
+    /**
+     * 12.dat -> 12_1.dat -> 12_2.dat: каталог персистентности и расширение
+     * (по нему узнаются сжатые отношения) сохраняются, номер поколения растёт,
+     * так что имя удалённого файла больше не используется.
+     */
+    @Override
+    public synchronized String newFileNode(TableDefinition table) {
+        String fileNode = table.fileNode();
+        int slash = fileNode.lastIndexOf('/');
+        String dir = fileNode.substring(0, slash + 1);
+        String name = fileNode.substring(slash + 1);
+
+        int dot = name.indexOf('.');
+        String base = dot < 0 ? name : name.substring(0, dot);
+        String suffix = dot < 0 ? "" : name.substring(dot);
+
+        int underscore = base.indexOf('_');
+        int generation = underscore < 0 ? 0 : Integer.parseInt(base.substring(underscore + 1));
+        return dir + table.getOid() + "_" + (generation + 1) + suffix;
+    }
+
+    @Override
+    public synchronized TableDefinition swapFileNode(int tableOid, String fileNode, int pagesCount,
+                                                     Map<String, String> options) {
+        TableDefinition old = tablesByOid.get(tableOid);
+        if (old == null) {
+            throw new IllegalArgumentException("No table with oid " + tableOid);
+        }
+
+        TableDefinition updated = new TableDefinition(
+                old.getOid(),
+                old.getName(),
+                old.type(),
+                fileNode,
+                pagesCount,
+                options
+        );
+        // при загрузке каталога последняя запись с тем же oid перекрывает предыдущие
+        if (Persistence.of(options) != Persistence.TEMP) {
+            appendRecord(root.resolve(TABLES_FILE), updated.toBytes());
+        }
+        tablesByOid.put(tableOid, updated);
+        tablesByName.put(updated.getName(), updated);
+        return updated;
+    }
+
     @Override
     public void updatePagesCount(int tableOid, int newPagesCount) {
         TableDefinition old = tablesByOid.get(tableOid);
@@ -340,10 +467,66 @@ public class DefaultCatalogManager implements CatalogManager, DefaultOperationMa
                 old.getName(),
                 old.type(),
                 old.fileNode(),
-                newPagesCount
+                newPagesCount,
+                old.options()
         );
+        // без этой записи после рестарта страницы за прежним концом файла
+        // перезаписывались бы, а TID в индексах указывали бы на чужие строки
+        if (Persistence.of(old.options()) != Persistence.TEMP) {
+            appendRecord(root.resolve(TABLES_FILE), updated.toBytes());
+        }
 
         tablesByOid.put(tableOid, updated);
         tablesByName.put(updated.getName(), updated);
     }
-}
\ No newline at end of file
+
+    /**
+     * После аварийной остановки файлы нелогируемых таблиц удалены
+     * ({@link memory.control.Recovery#resetUnloggedRelations}): такие таблицы
+     * становятся пустыми, число страниц и отметка CLUSTER сбрасываются. Вызывается
+     * до открытия методов доступа и индексов — те заново начнут с пустых файлов.
+     */
+    public synchronized void resetUnloggedTables() {
+        for (TableDefinition td : List.copyOf(tablesByOid.values())) {
+            if (Persistence.of(td.options()) != Persistence.UNLOGGED) continue;
+            Map<String, String> options = new LinkedHashMap<>(td.options());
+            options.remove(HeapAccessMethod.CLUSTERED_PAGES_OPTION);
+            swapFileNode(td.getOid(), td.fileNode(), 0, options);
+        }
+    }
+
+    /**
+     * Индекс того же типа на тех же колонках заменяется — как в {@link index.registry.IndexRegistry};
+     * при загрузке каталога это же правило отбрасывает заменённые записи.
+     */
+    @Override
+    public synchronized IndexDefinition createIndex(TableDefinition table, String name, List<String> columnNames,
+                                                    IndexType type, Map<String, String> options) {
+        int oid = nextIndexOid.getAndIncrement();
+        String fileNode = "";
+        // у секционированного родителя индекс только описан: файлы есть у секций
+        if ((type == IndexType.BTREE || type == IndexType.HASH) && !Partitioning.isPartitioned(table)) {
+            Persistence persistence = Persistence.of(table.options());
+            fileNode = (persistence.directory() != null ? persistence.directory() + "/" : "")
+                    + oid + INDEX_FILE_SUFFIX;
+        }
+        IndexDefinition id = new IndexDefinition(oid, name, table.getOid(), columnNames, type, fileNode, options);
+        if (Persistence.of(table.options()) != Persistence.TEMP) {
+            appendRecord(root.resolve(INDEXES_FILE), id.toBytes());
+        }
+        putIndex(id);
+        return id;
+    }
+
+    @Override
+    public synchronized List<IndexDefinition> listIndexes() {
+        return new ArrayList<>(indexesByOid.values());
+    }
+
+    private void putIndex(IndexDefinition id) {
+        indexesByOid.values().removeIf(old -> old.tableOid() == id.tableOid()
+                && old.type() == id.type()
+                && String.join(",", old.columnNames()).equalsIgnoreCase(String.join(",", id.columnNames())));
+        indexesByOid.put(id.getOid(), id);
+    }
+}
@@ -12,14 +12,20 @@ public class ColumnDefinition {
     private final int typeOid;
     private final String name;
     private final int position;
+    private final ColumnEncoding encoding;
 
     // Используется при загрузке из каталога
     public ColumnDefinition(int oid, int tableOid, int typeOid, String name, int position) {
+        this(oid, tableOid, typeOid, name, position, ColumnEncoding.PLAIN);
+    }
+
+    public ColumnDefinition(int oid, int tableOid, int typeOid, String name, int position, ColumnEncoding encoding) {
         this.oid = oid;
         this.tableOid = tableOid;
         this.typeOid = typeOid;
         this.name = Objects.requireNonNull(name, "getName");
         this.position = position;
+        this.encoding = Objects.requireNonNull(encoding, "encoding");
     }
 
     // Используется при CREATE TABLE (без getOid и tableOid)
@@ -29,6 +35,7 @@ public class ColumnDefinition {
         this.typeOid = typeOid;
         this.name = Objects.requireNonNull(name, "getName");
         this.position = position;
+        this.encoding = ColumnEncoding.PLAIN;
     }
 
     // ======= GETTERS =======
@@ -53,6 +60,14 @@ public class ColumnDefinition {
         return position;
     }
 
+    public ColumnEncoding encoding() {
+        return encoding;
+    }
+
+    public boolean isDictionaryEncoded() {
+        return encoding == ColumnEncoding.DICTIONARY;
+    }
+
     // ======= SERIALIZATION =======
 
     public byte[] toBytes() {
@@ -62,7 +77,8 @@ public class ColumnDefinition {
                 + 4            // tableOid
                 + 4            // typeOid
                 + 2 + n.length // getName
-                + 4;           // position
+                + 4            // position
+                + 1;           // encoding
 
         ByteBuffer bb = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
         bb.putInt(oid);
@@ -70,6 +86,7 @@ public class ColumnDefinition {
         bb.putInt(typeOid);
         putStr(bb, n);
         bb.putInt(position);
+        bb.put((byte) encoding.ordinal());
         return bb.array();
     }
 
@@ -80,7 +97,11 @@ public class ColumnDefinition {
         int typeOid = bb.getInt();
         String name = getStr(bb);
         int position = bb.getInt();
-        return new ColumnDefinition(oid, tableOid, typeOid, name, position);
+        // старые записи каталога были без байта кодировки
+        ColumnEncoding encoding = bb.hasRemaining()
+                ? ColumnEncoding.fromCode(bb.get())
+                : ColumnEncoding.PLAIN;
+        return new ColumnDefinition(oid, tableOid, typeOid, name, position, encoding);
     }
 
     // ======= INTERNAL UTILS =======
@@ -0,0 +1,91 @@
+package catalog.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runtime-словарь DICTIONARY-колонки.
+ * В heap лежит только 2-байтовый код, строки живут здесь в единственном
+ * (интернированном) экземпляре — декодирование строки не аллоцирует.
+ */
+public class ColumnDictionary {
+
+    public static final int MAX_CODES = 0xFFFF;
+
+    private final int columnOid;
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    public ColumnDictionary(int columnOid) {
+        this.columnOid = columnOid;
+    }
+
+    public int columnOid() {
+        return columnOid;
+    }
+
+    /**
+     * Код значения или -1, если значения в словаре нет.
+     */
+    public synchronized int lookup(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public synchronized String decode(int code) {
+        if (code < 0 || code >= values.size()) {
+            throw new IllegalArgumentException("unknown dictionary code " + code + " for column oid " + columnOid);
+        }
+        return values.get(code);
+    }
+
+    /**
+     * Добавляет новое значение и возвращает его код.
+     * Вызывающий отвечает за то, чтобы значения ещё не было в словаре.
+     */
+    public synchronized int add(String value) {
+        if (codes.containsKey(value)) {
+            throw new IllegalArgumentException("value already in dictionary: " + value);
+        }
+        if (values.size() >= MAX_CODES) {
+            throw new IllegalStateException("dictionary overflow for column oid " + columnOid
+                    + " (more than " + MAX_CODES + " distinct values)");
+        }
+        int code = values.size();
+        String interned = value.intern();
+        values.add(interned);
+        codes.put(interned, code);
+        return code;
+    }
+
+    /**
+     * Восстановление записи при загрузке каталога.
+     */
+    public synchronized void restore(int code, String value) {
+        while (values.size() <= code) values.add(null);
+        String interned = value.intern();
+        values.set(code, interned);
+        codes.put(interned, code);
+    }
+
+    /**
+     * Множество кодов для набора строк (для IN / = по кодам).
+     * Значения, которых нет в словаре, ни с одной строкой совпасть не могут.
+     */
+    public synchronized BitSet codesOf(Collection<String> strings) {
+        BitSet out = new BitSet();
+        for (String s : strings) {
+            Integer code = codes.get(s);
+            if (code != null) out.set(code);
+        }
+        return out;
+    }
+
+    public synchronized int size() {
+        return values.size();
+    }
+}
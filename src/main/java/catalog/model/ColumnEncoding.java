@@ -0,0 +1,17 @@
+package catalog.model;
+
+/**
+ * Способ хранения значения колонки внутри кортежа.
+ */
+public enum ColumnEncoding {
+    PLAIN,      // значение целиком (VARCHAR: 1 байт длины + UTF-8)
+    DICTIONARY; // 2-байтовый код из словаря колонки (только VARCHAR)
+
+    public static ColumnEncoding fromCode(int code) {
+        ColumnEncoding[] all = values();
+        if (code < 0 || code >= all.length) {
+            throw new IllegalArgumentException("unknown column encoding: " + code);
+        }
+        return all[code];
+    }
+}
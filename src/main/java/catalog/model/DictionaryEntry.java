@@ -0,0 +1,65 @@
+package catalog.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Запись словаря колонки: code -> строка.
+ * Хранится в каталоге, по одной записи на каждое новое значение.
+ */
+public class DictionaryEntry {
+
+    private final int columnOid;
+    private final int code;
+    private final String value;
+
+    public DictionaryEntry(int columnOid, int code, String value) {
+        this.columnOid = columnOid;
+        this.code = code;
+        this.value = Objects.requireNonNull(value, "value");
+    }
+
+    public int columnOid() {
+        return columnOid;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public String value() {
+        return value;
+    }
+
+    // ======= SERIALIZATION =======
+
+    public byte[] toBytes() {
+        byte[] v = value.getBytes(StandardCharsets.UTF_8);
+        if (v.length > 0xFFFF) {
+            throw new IllegalArgumentException("string too long: " + v.length);
+        }
+
+        int size = 4           // columnOid
+                + 4            // code
+                + 2 + v.length;
+
+        ByteBuffer bb = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(columnOid);
+        bb.putInt(code);
+        bb.putShort((short) (v.length & 0xFFFF));
+        bb.put(v);
+        return bb.array();
+    }
+
+    public static DictionaryEntry fromBytes(byte[] bytes) {
+        ByteBuffer bb = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int columnOid = bb.getInt();
+        int code = bb.getInt();
+        int len = bb.getShort() & 0xFFFF;
+        byte[] v = new byte[len];
+        bb.get(v);
+        return new DictionaryEntry(columnOid, code, new String(v, StandardCharsets.UTF_8));
+    }
+}
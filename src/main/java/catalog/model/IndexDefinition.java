@@ -0,0 +1,148 @@
+package catalog.model;
+
+import index.IndexType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Определение индекса в каталоге: по нему индекс заново открывается при
+ * запуске. B+-дерево лежит в файле fileNode рядом с файлами таблиц, BRIN
+ * файла не имеет и сводится сканом таблицы. У составного B+-дерева несколько
+ * колонок ключа; columnName — ведущая из них.
+ */
+public class IndexDefinition {
+
+    private final int oid;
+    private final String name;
+    private final int tableOid;
+    private final String columnName;
+    private final List<String> columnNames;
+    private final IndexType type;
+    private final String fileNode;
+    /** Параметры из CREATE INDEX ... WITH (k = v, ...). */
+    private final Map<String, String> options;
+
+    public IndexDefinition(int oid, String name, int tableOid, String columnName, IndexType type,
+                           String fileNode, Map<String, String> options) {
+        this(oid, name, tableOid, List.of(columnName), type, fileNode, options);
+    }
+
+    public IndexDefinition(int oid, String name, int tableOid, List<String> columnNames, IndexType type,
+                           String fileNode, Map<String, String> options) {
+        this.oid = oid;
+        this.name = Objects.requireNonNull(name, "name");
+        this.tableOid = tableOid;
+        this.columnNames = List.copyOf(Objects.requireNonNull(columnNames, "columnNames"));
+        if (this.columnNames.isEmpty()) throw new IllegalArgumentException("index has no columns: " + name);
+        this.columnName = this.columnNames.get(0);
+        this.type = Objects.requireNonNull(type, "type");
+        this.fileNode = Objects.requireNonNull(fileNode, "fileNode");
+        this.options = Collections.unmodifiableMap(new LinkedHashMap<>(Objects.requireNonNull(options, "options")));
+    }
+
+    public int getOid() {
+        return oid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int tableOid() {
+        return tableOid;
+    }
+
+    public String columnName() {
+        return columnName;
+    }
+
+    /** Колонки ключа в порядке сравнения. */
+    public List<String> columnNames() {
+        return columnNames;
+    }
+
+    public IndexType type() {
+        return type;
+    }
+
+    public String fileNode() {
+        return fileNode;
+    }
+
+    public Map<String, String> options() {
+        return options;
+    }
+
+    // ======= SERIALIZATION =======
+
+    public byte[] toBytes() {
+        byte[] n = utf8(name);
+        byte[] c = utf8(columnName);
+        byte[] t = utf8(type.name());
+        byte[] fn = utf8(fileNode);
+        byte[] opts = utf8(TableDefinition.encodeOptions(options));
+        byte[] cols = utf8(String.join(",", columnNames));
+
+        int size = 4           // oid
+                + 2 + n.length
+                + 4            // tableOid
+                + 2 + c.length
+                + 2 + t.length
+                + 2 + fn.length
+                + 2 + opts.length
+                + 2 + cols.length;
+
+        ByteBuffer bb = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(oid);
+        putStr(bb, n);
+        bb.putInt(tableOid);
+        putStr(bb, c);
+        putStr(bb, t);
+        putStr(bb, fn);
+        putStr(bb, opts);
+        putStr(bb, cols);
+        return bb.array();
+    }
+
+    public static IndexDefinition fromBytes(byte[] bytes) {
+        ByteBuffer bb = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int oid = bb.getInt();
+        String name = getStr(bb);
+        int tableOid = bb.getInt();
+        String columnName = getStr(bb);
+        IndexType type = IndexType.valueOf(getStr(bb));
+        String fileNode = getStr(bb);
+        Map<String, String> options = TableDefinition.decodeOptions(getStr(bb));
+        // записи до составных индексов заканчиваются параметрами
+        List<String> columnNames = bb.hasRemaining() ? List.of(getStr(bb).split(",")) : List.of(columnName);
+        return new IndexDefinition(oid, name, tableOid, columnNames, type, fileNode, options);
+    }
+
+    // ======= INTERNAL UTILS =======
+
+    private static byte[] utf8(String s) {
+        if (s == null) throw new IllegalArgumentException("string is null");
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        if (b.length > 0xFFFF) throw new IllegalArgumentException("string too long");
+        return b;
+    }
+
+    private static void putStr(ByteBuffer bb, byte[] b) {
+        bb.putShort((short) (b.length & 0xFFFF));
+        bb.put(b);
+    }
+
+    private static String getStr(ByteBuffer bb) {
+        int len = bb.getShort() & 0xFFFF;
+        byte[] b = new byte[len];
+        bb.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
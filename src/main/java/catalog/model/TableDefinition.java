@@ -5,7 +5,9 @@ import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 public class TableDefinition {
@@ -17,6 +19,8 @@ public class TableDefinition {
     private final String type;
     private final String fileNode;
     private int pagesCount;
+    /** Параметры хранения из CREATE TABLE ... WITH (k = v, ...). */
+    private final Map<String, String> options;
 
     // ======= RUNTIME FIELDS (NOT persisted) =======
 
@@ -25,11 +29,17 @@ public class TableDefinition {
     // ======= CONSTRUCTORS =======
 
     public TableDefinition(int oid, String name, String type, String fileNode, int pagesCount) {
+        this(oid, name, type, fileNode, pagesCount, Map.of());
+    }
+
+    public TableDefinition(int oid, String name, String type, String fileNode, int pagesCount,
+                           Map<String, String> options) {
         this.oid = oid;
         this.name = Objects.requireNonNull(name, "getName");
         this.type = Objects.requireNonNull(type, "type");
         this.fileNode = Objects.requireNonNull(fileNode, "fileNode");
         this.pagesCount = pagesCount;
+        this.options = Collections.unmodifiableMap(new LinkedHashMap<>(Objects.requireNonNull(options, "options")));
     }
 
     // ======= GETTERS / SETTERS =======
@@ -58,6 +68,14 @@ public class TableDefinition {
         this.pagesCount = pagesCount;
     }
 
+    public Map<String, String> options() {
+        return options;
+    }
+
+    public String option(String key, String defaultValue) {
+        return options.getOrDefault(key, defaultValue);
+    }
+
     public List<ColumnDefinition> getColumns() {
         return Collections.unmodifiableList(columns);
     }
@@ -77,12 +95,14 @@ public class TableDefinition {
         byte[] n = utf8(name);
         byte[] t = utf8(type);
         byte[] fn = utf8(fileNode);
+        byte[] opts = utf8(encodeOptions(options));
 
         int size = 4           // getOid
                 + 2 + n.length
                 + 2 + t.length
                 + 2 + fn.length
-                + 4;           // pagesCount
+                + 4            // pagesCount
+                + 2 + opts.length;
 
         ByteBuffer bb = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
         bb.putInt(oid);
@@ -90,6 +110,7 @@ public class TableDefinition {
         putStr(bb, t);
         putStr(bb, fn);
         bb.putInt(pagesCount);
+        putStr(bb, opts);
         return bb.array();
     }
 
@@ -100,7 +121,32 @@ public class TableDefinition {
         String type = getStr(bb);
         String fileNode = getStr(bb);
         int pagesCount = bb.getInt();
-        return new TableDefinition(oid, name, type, fileNode, pagesCount);
+        // записи старого формата заканчиваются на pagesCount
+        Map<String, String> options = bb.hasRemaining() ? decodeOptions(getStr(bb)) : Map.of();
+        return new TableDefinition(oid, name, type, fileNode, pagesCount, options);
+    }
+
+    static String encodeOptions(Map<String, String> options) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> e : options.entrySet()) {
+            if (e.getKey().indexOf('=') >= 0 || e.getKey().indexOf(';') >= 0 || e.getValue().indexOf(';') >= 0) {
+                throw new IllegalArgumentException("invalid table option: " + e.getKey() + "=" + e.getValue());
+            }
+            if (sb.length() > 0) sb.append(';');
+            sb.append(e.getKey()).append('=').append(e.getValue());
+        }
+        return sb.toString();
+    }
+
+    static Map<String, String> decodeOptions(String s) {
+        Map<String, String> options = new LinkedHashMap<>();
+        if (s.isEmpty()) return options;
+        for (String kv : s.split(";")) {
+            int eq = kv.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("corrupted table options: " + s);
+            options.put(kv.substring(0, eq), kv.substring(eq + 1));
+        }
+        return options;
     }
 
     // ======= INTERNAL UTILS =======
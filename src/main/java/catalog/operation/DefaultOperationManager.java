@@ -1,24 +1,39 @@
 package catalog.operation;
 
+import access.TableAccessMethod;
+import access.TableStats;
+import access.TupleCodec;
+import access.columnar.ColumnarAccessMethod;
+import access.heap.HeapAccessMethod;
+import access.iot.IndexOrganizedAccessMethod;
+import access.lsm.LsmAccessMethod;
 import catalog.manager.CatalogManager;
 import catalog.model.ColumnDefinition;
+import catalog.model.ColumnDictionary;
+import catalog.model.IndexDefinition;
 import catalog.model.TableDefinition;
 import catalog.model.TypeDefinition;
+import catalog.partition.Partitioning;
+import index.Index;
+import index.IndexType;
 import index.TID;
+import index.art.ArtIndex;
+import index.brin.BrinIndex;
 import index.btree.BPlusTreeIndex;
 import index.btree.BPlusTreeIndexImpl;
+import index.btree.CompositeKey;
+import index.hash.HashIndex;
+import index.btree.IndexBuilder;
+import index.btree.Int64BPlusTreeIndex;
+import index.btree.KeyType;
 import memory.buffer.BufferPoolManager;
-import memory.manager.PageFileManager;
-import memory.model.BufferSlot;
-import memory.page.HeapPage;
-import memory.page.Page;
-
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
+import memory.model.Persistence;
+
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import index.registry.IndexRegistry;
@@ -26,12 +41,31 @@ import index.registry.IndexRegistry;
 
 public class DefaultOperationManager implements OperationManager {
 
+    /** Страниц таблицы за один скан при построении индекса. */
+    private static final int BUILD_SCAN_PAGES = 1024;
+
     public interface CatalogAccess {
         List<ColumnDefinition> listColumnsSorted(TableDefinition table);
 
         TypeDefinition getTypeByOid(int typeOid);
 
         void updatePagesCount(int tableOid, int newPagesCount);
+
+        ColumnDictionary getDictionary(ColumnDefinition column);
+
+        int encodeDictionaryValue(ColumnDefinition column, String value);
+
+        /** Имя файла для перезаписи отношения целиком (CLUSTER): следующее поколение рядом со старым. */
+        String newFileNode(TableDefinition table);
+
+        /** Переключает таблицу на перезаписанный файл и сохраняет определение. */
+        TableDefinition swapFileNode(int tableOid, String fileNode, int pagesCount, Map<String, String> options);
+
+        /** Сохраняет определение индекса; индекс того же типа на тех же колонках заменяется. */
+        IndexDefinition createIndex(TableDefinition table, String name, List<String> columnNames,
+                                    IndexType type, Map<String, String> options);
+
+        List<IndexDefinition> listIndexes();
     }
 
     private final CatalogManager catalog;
@@ -40,22 +74,58 @@ public class DefaultOperationManager implements OperationManager {
     private final Path dataRoot;
     private final IndexRegistry indexRegistry;
 
-    private final PageFileManager pageManagerForIndexes;
+    private final Map<String, TableAccessMethod> accessMethods;
 
     public DefaultOperationManager(CatalogManager catalog,
                                    CatalogAccess catalogAccess,
                                    BufferPoolManager bpm,
                                    Path dataRoot,
-                                   IndexRegistry indexRegistry,
-                                   PageFileManager pageManagerForIndexes) {
+                                   IndexRegistry indexRegistry) {
         this.catalog = Objects.requireNonNull(catalog, "catalog");
         this.catalogAccess = Objects.requireNonNull(catalogAccess, "catalogAccess");
         this.bpm = Objects.requireNonNull(bpm, "bpm");
         this.dataRoot = Objects.requireNonNull(dataRoot, "dataRoot");
         this.indexRegistry = indexRegistry;
-        this.pageManagerForIndexes = pageManagerForIndexes;
+
+        TupleCodec codec = new TupleCodec(catalogAccess);
+        this.accessMethods = Map.of(
+                TableAccessMethod.HEAP, new HeapAccessMethod(bpm, dataRoot, catalogAccess, codec),
+                TableAccessMethod.COLUMNAR, new ColumnarAccessMethod(bpm, dataRoot, catalogAccess, codec),
+                TableAccessMethod.LSM, new LsmAccessMethod(dataRoot, catalogAccess, codec, bpm.getPageSize()),
+                TableAccessMethod.INDEX_ORGANIZED, new IndexOrganizedAccessMethod(bpm, dataRoot, catalogAccess, codec)
+        );
+        if (indexRegistry != null) {
+            restoreIndexes();
+        }
     }
 
+    /**
+     * Индексы из каталога: B+-деревья открываются на своих файлах,
+     * BRIN и ART заполняются заново сканом таблицы.
+     */
+    private void restoreIndexes() {
+        Map<Integer, TableDefinition> tables = new HashMap<>();
+        for (TableDefinition td : catalog.listTables()) {
+            tables.put(td.getOid(), td);
+        }
+        for (IndexDefinition def : catalogAccess.listIndexes()) {
+            TableDefinition td = tables.get(def.tableOid());
+            // индекс родителя — только образец для секций
+            if (td == null || Partitioning.isPartitioned(td)) continue;
+            Index index = openIndex(td, def);
+            indexRegistry.register(td.getName(), index);
+            if (index instanceof BrinIndex brin) {
+                summarize(td, catalog.getColumn(td, def.columnName()), brin);
+            } else if (index instanceof ArtIndex art) {
+                load(td, catalog.getColumn(td, def.columnName()), art);
+            }
+        }
+    }
+
+    /**
+     * Вставка в секционированную таблицу уходит в секцию по значению ключа;
+     * вставка прямо в секцию проверяет её границу.
+     */
     @Override
     public TID insert(String tableName, List<Object> values) {
         TableDefinition td = requireTable(tableName);
@@ -64,49 +134,129 @@ public class DefaultOperationManager implements OperationManager {
         if (values == null || values.size() != cols.size()) {
             throw new IllegalArgumentException("values size mismatch: expected " + cols.size());
         }
+        if (Partitioning.isPartitioned(td)) {
+            return insert(Partitioning.route(catalog, td, partitionKey(td, cols, values)).getName(), values);
+        }
+        if (Partitioning.isPartition(td) && !fitsPartition(td, cols, values)) {
+            throw new IllegalArgumentException("row does not satisfy the bound of partition " + tableName);
+        }
+
+        TID tid = accessMethod(td).insert(td, values);
+        if (indexRegistry != null) {
+            indexRegistry.onInsert(tableName, cols, values, tid);
+        }
+        return tid;
+    }
 
-        byte[] tuple = serializeRow(cols, values);
-        ensureDir(dataRoot);
+    @Override
+    public boolean delete(String tableName, TID tid) {
+        if (tid == null) throw new IllegalArgumentException("tid is null");
 
-        int pages = td.pagesCount();
+        TableDefinition td = requireTable(tableName);
+        List<ColumnDefinition> cols = catalogAccess.listColumnsSorted(td);
 
-        for (int pid = 0; pid < pages; pid++) {
-            BufferSlot slot = bpm.getPage(pid);
-            Page p = slot.getPage();
+        List<Object> oldValues = accessMethod(td).delete(td, tid);
+        if (oldValues == null) return false;
 
-            try {
-                int slotId = p.size();
-                p.write(tuple);
-                bpm.updatePage(pid, p);
-                bpm.flushPage(pid);
-
-                TID tid = new TID(pid, slotId);
-                if (indexRegistry != null) {
-                    indexRegistry.onInsert(tableName, cols, values, tid);
-                }
-                return tid;
-            } catch (IllegalArgumentException ignored) {
-            }
+        if (indexRegistry != null) {
+            indexRegistry.onDelete(tableName, cols, oldValues, tid);
+        }
+        return true;
+    }
+
+    /**
+     * Если индексированные колонки не менялись, метод доступа может оставить
+     * строку по прежнему адресу (HOT в heap) — тогда индексы не трогаются.
+     *
+     * @param tid адрес строки в том виде, как его отдают скан и индекс
+     * @return TID новой версии или {@code null}, если строки по tid уже нет
+     */
+    @Override
+    public TID update(String tableName, TID tid, List<Object> values) {
+        if (tid == null) throw new IllegalArgumentException("tid is null");
+
+        TableDefinition td = requireTable(tableName);
+        List<ColumnDefinition> cols = catalogAccess.listColumnsSorted(td);
+        if (values == null || values.size() != cols.size()) {
+            throw new IllegalArgumentException("values size mismatch: expected " + cols.size());
         }
 
-        HeapPage np = new HeapPage(pages);
-        int slotId = np.size();
-        np.write(tuple);
+        TableAccessMethod am = accessMethod(td);
+        List<Object> oldValues = am.fetch(td, tid);
+        if (oldValues == null) return null;
 
-        bpm.updatePage(pages, np);
-        bpm.flushPage(pages);
+        // новый ключ вне границы секции: строка переезжает в другую секцию
+        if (Partitioning.isPartition(td) && !fitsPartition(td, cols, values)) {
+            TableDefinition parent = Partitioning.parentOf(catalog, td);
+            TableDefinition target = Partitioning.route(catalog, parent, partitionKey(parent, cols, values));
+            delete(tableName, tid);
+            return insert(target.getName(), values);
+        }
 
-        catalogAccess.updatePagesCount(td.getOid(), pages + 1);
+        boolean indexedChanged = indexedColumnChanged(tableName, cols, oldValues, values);
+        TableAccessMethod.UpdateResult result = am.update(td, tid, values, !indexedChanged);
+        if (result == null) return null;
 
-        TID tid = new TID(pages, slotId);
-        if (indexRegistry != null) {
-            indexRegistry.onInsert(tableName, cols, values, tid);
+        if (!result.heapOnly() && indexRegistry != null) {
+            indexRegistry.onDelete(tableName, cols, oldValues, tid);
+            indexRegistry.onInsert(tableName, cols, values, result.tid());
         }
-        return tid;
+        return result.tid();
+    }
+
+    private boolean fitsPartition(TableDefinition partition, List<ColumnDefinition> cols, List<Object> values) {
+        TableDefinition parent = Partitioning.parentOf(catalog, partition);
+        return Partitioning.bound(catalog, partition).contains(partitionKey(parent, cols, values));
+    }
+
+    /**
+     * Значение ключа разбиения родителя; колонки секции совпадают с колонками родителя.
+     */
+    private static Object partitionKey(TableDefinition parent, List<ColumnDefinition> cols, List<Object> values) {
+        String key = Partitioning.key(parent);
+        for (int i = 0; i < cols.size(); i++) {
+            if (cols.get(i).name().equals(key)) return values.get(i);
+        }
+        throw new IllegalStateException("partition key column not found: " + key);
+    }
+
+    private boolean indexedColumnChanged(String tableName, List<ColumnDefinition> cols,
+                                         List<Object> oldValues, List<Object> newValues) {
+        if (indexRegistry == null) return false;
+        Set<String> indexed = new HashSet<>();
+        for (Index index : indexRegistry.indexesOf(tableName)) {
+            for (String c : index.getColumnNames()) {
+                indexed.add(c.toLowerCase(Locale.ROOT));
+            }
+            // значения INCLUDE лежат в листьях и тоже устаревают
+            if (index instanceof BPlusTreeIndex tree) {
+                for (String c : tree.includedColumns()) {
+                    indexed.add(c.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        for (int i = 0; i < cols.size(); i++) {
+            if (indexed.contains(cols.get(i).name().toLowerCase(Locale.ROOT))
+                    && !Objects.equals(oldValues.get(i), newValues.get(i))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
     public List<Object> select(String tableName, List<String> columnNames) {
+        return select(tableName, columnNames, List.of());
+    }
+
+    @Override
+    public List<Object> select(String tableName, List<String> columnNames, List<DictionaryFilter> filters) {
+        return select(tableName, columnNames, filters, null);
+    }
+
+    @Override
+    public List<Object> select(String tableName, List<String> columnNames, List<DictionaryFilter> filters,
+                               BitSet pages) {
         TableDefinition td = requireTable(tableName);
 
         List<ColumnDefinition> allCols = catalogAccess.listColumnsSorted(td);
@@ -115,71 +265,394 @@ public class DefaultOperationManager implements OperationManager {
                         ? allCols
                         : mapByNames(allCols, columnNames);
 
-        List<Object> out = new ArrayList<>();
-        int pages = td.pagesCount();
-
-        for (int pid = 0; pid < pages; pid++) {
-            BufferSlot slot = bpm.getPage(pid);
-            Page p = slot.getPage();
+        return new ArrayList<>(accessMethod(td).scan(td, needCols, filters, pages));
+    }
 
-            for (int i = 0; i < p.size(); i++) {
-                byte[] tuple = p.read(i);
 
-                Map<String, Object> fullRow = deserializeRowToMap(allCols, tuple);
+    @Override
+    public Object selectByTid(String tableName, TID tid) {
+        if (tid == null) throw new IllegalArgumentException("tid is null");
 
-                Map<String, Object> projected = new LinkedHashMap<>();
-                for (ColumnDefinition c : needCols) {
-                    projected.put(c.name(), fullRow.get(c.name()));
-                }
+        TableDefinition td = requireTable(tableName);
+        List<ColumnDefinition> allCols = catalogAccess.listColumnsSorted(td);
 
-                out.add(projected);
-            }
+        List<Object> values = accessMethod(td).fetch(td, tid);
+        if (values == null) {
+            return null;
         }
-
-        return out;
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < allCols.size(); i++) {
+            row.put(allCols.get(i).name(), values.get(i));
+        }
+        row.put(CTID, tid);
+        return row;
     }
 
+    @Override
+    public List<Object> selectKeyRange(String tableName, Comparable<?> from, Comparable<?> to,
+                                       boolean includeFrom, boolean includeTo) {
+        TableDefinition td = requireTable(tableName);
+        if (!(accessMethod(td) instanceof IndexOrganizedAccessMethod iot)) {
+            throw new IllegalStateException("table is not index-organized: " + tableName);
+        }
+        List<ColumnDefinition> allCols = catalogAccess.listColumnsSorted(td);
+        return new ArrayList<>(iot.scanRange(td, allCols, List.of(), from, to, includeFrom, includeTo));
+    }
 
     @Override
-    public Object selectByTid(String tableName, TID tid) {
-        if (tid == null) throw new IllegalArgumentException("tid is null");
+    public TID locate(String tableName, Map<String, ?> row) {
+        if (row == null) throw new IllegalArgumentException("row is null");
 
         TableDefinition td = requireTable(tableName);
-        List<ColumnDefinition> allCols = catalogAccess.listColumnsSorted(td);
+        return accessMethod(td).locate(td, row);
+    }
 
-        int pageId = tid.pageId();
-        int slotId = tid.slotId();
+    @Override
+    public TableStats stats(String tableName) {
+        TableDefinition td = requireTable(tableName);
+        return accessMethod(td).stats(td);
+    }
 
-        if (pageId < 0 || pageId >= td.pagesCount()) {
-            return null;
+    @Override
+    public void shutdown() {
+        for (TableAccessMethod am : accessMethods.values()) {
+            am.shutdown();
         }
+    }
 
-        BufferSlot slot = bpm.getPage(pageId);
-        Page p = slot.getPage();
+    /**
+     * Индексы родителя проверяются до создания секции: индекс, который в ней
+     * не построить, не должен оставить секцию без него.
+     */
+    @Override
+    public void createPartition(String tableName, List<ColumnDefinition> columns, Map<String, String> options) {
+        TableDefinition parent = requireTable(options.get(Partitioning.OF_OPTION));
+        List<IndexDefinition> inherited = new ArrayList<>();
+        for (IndexDefinition def : catalogAccess.listIndexes()) {
+            if (def.tableOid() == parent.getOid()) inherited.add(def);
+        }
+        inherited.sort(Comparator.comparingInt(IndexDefinition::getOid));
 
-        if (slotId < 0 || slotId >= p.size()) {
-            return null;
+        String am = options.getOrDefault(TableAccessMethod.OPTION, TableAccessMethod.HEAP);
+        for (IndexDefinition def : inherited) {
+            if (TableAccessMethod.INDEX_ORGANIZED.equals(am)) {
+                throw new IllegalArgumentException("partition " + tableName + " cannot inherit index " + def.getName()
+                        + ": secondary indexes on index-organized tables are not supported");
+            }
+            if (def.type() == IndexType.BRIN && !TableAccessMethod.HEAP.equals(am) && !TableAccessMethod.COLUMNAR.equals(am)) {
+                throw new IllegalArgumentException("partition " + tableName + " cannot inherit index " + def.getName()
+                        + ": BRIN indexes need a paged table, not " + am);
+            }
         }
 
-        byte[] tuple = p.read(slotId);
-        return deserializeRowToMap(allCols, tuple);
+        catalog.createTable(tableName, columns, options);
+        for (IndexDefinition def : inherited) {
+            createIndex(def.getName() + "_" + tableName, tableName, def.columnNames(), def.type(), def.options());
+        }
     }
 
     @Override
     public void createIndex(String indexName, String tableName, String columnName) {
+        createIndex(indexName, tableName, List.of(columnName), IndexType.BTREE, Map.of());
+    }
+
+    /**
+     * Индекс сразу строится по строкам таблицы: B+-дерево — сортировкой и
+     * сборкой снизу вверх, BRIN — сводкой всех диапазонов, хеш-индекс и ART —
+     * вставками.
+     */
+    @Override
+    public void createIndex(String indexName, String tableName, List<String> columnNames,
+                            IndexType type, Map<String, String> options) {
         var table = catalog.getTable(tableName);
-        var col = catalog.getColumn(table, columnName);
+        if (Partitioning.isPartitioned(table)) {
+            // у родителя строк нет — индекс строится в каждой секции под своим именем;
+            // определение остаётся у родителя, по нему строятся индексы будущих секций
+            List<String> names = new ArrayList<>(columnNames.size());
+            for (String name : columnNames) {
+                names.add(catalog.getColumn(table, name).name());
+            }
+            catalogAccess.createIndex(table, indexName, names, type, options);
+            for (TableDefinition partition : Partitioning.partitionsOf(catalog, table)) {
+                createIndex(indexName + "_" + partition.getName(), partition.getName(), columnNames, type, options);
+            }
+            return;
+        }
+        List<String> names = new ArrayList<>(columnNames.size());
+        for (String name : columnNames) {
+            names.add(catalog.getColumn(table, name).name());
+        }
+        var col = catalog.getColumn(table, names.get(0));
+        Index replaced = switch (type) {
+            case BTREE -> indexRegistry.get(table.getName(), names);
+            case BRIN -> indexRegistry.getBrin(table.getName(), col.name());
+            case HASH -> indexRegistry.getHash(table.getName(), col.name());
+            case ART -> indexRegistry.getArt(table.getName(), col.name());
+        };
+
+        IndexDefinition def = catalogAccess.createIndex(table, indexName, names, type, options);
+        Index index = openIndex(table, def);
+        if (index instanceof BPlusTreeIndex tree) {
+            build(table, tree, fillFactor(def));
+        } else if (index instanceof HashIndex hash) {
+            fill(table, col, hash);
+        } else if (index instanceof ArtIndex art) {
+            load(table, col, art);
+        }
+        indexRegistry.register(table.getName(), index);
 
-        int order = 16;
+        Path oldFile = replaced instanceof BPlusTreeIndex old ? old.file()
+                : replaced instanceof HashIndex old ? old.file() : null;
+        if (oldFile != null) {
+            // файл заменённого индекса удаляется: ни одна его грязная страница не должна записаться потом
+            bpm.flushAllPages();
+            try {
+                Files.deleteIfExists(oldFile);
+            } catch (IOException e) {
+                throw new IllegalStateException("cannot remove old index file: " + oldFile, e);
+            }
+        }
+        if (index instanceof BrinIndex brin) {
+            summarize(table, col, brin);
+        }
+    }
 
-        BPlusTreeIndex index = new BPlusTreeIndexImpl(
-                indexName,
-                col.name(),
-                order,
-                pageManagerForIndexes
-        );
+    private void summarize(TableDefinition td, ColumnDefinition col, BrinIndex brin) {
+        forEachRow(td, List.of(col), row -> brin.insert((Comparable) row.get(col.name()), (TID) row.get(CTID)));
+    }
+
+    /**
+     * Хеш-индекс заполняется вставками: корзины делятся по одной по мере роста.
+     */
+    private void fill(TableDefinition td, ColumnDefinition col, HashIndex hash) {
+        try (HashIndex.Loader loader = hash.loader()) {
+            forEachRow(td, List.of(col), row -> {
+                if (!(row.get(col.name()) instanceof Comparable<?> key)) {
+                    throw new IllegalArgumentException("index key is not Comparable for column: " + col.name());
+                }
+                loader.add(key, (TID) row.get(CTID));
+            });
+        }
+    }
+
+    private void load(TableDefinition td, ColumnDefinition col, ArtIndex art) {
+        forEachRow(td, List.of(col), row -> {
+            if (!(row.get(col.name()) instanceof Comparable<?> key)) {
+                throw new IllegalArgumentException("index key is not Comparable for column: " + col.name());
+            }
+            art.insert(key, (TID) row.get(CTID));
+        });
+    }
+
+    /**
+     * B+-дерево заново по строкам таблицы: внешняя сортировка пар (ключ, TID)
+     * и сборка снизу вверх вместо вставок по одной. Скан читает только колонки
+     * ключа и INCLUDE.
+     */
+    private void build(TableDefinition td, BPlusTreeIndex tree, int fillFactor) {
+        int keyColumns = tree.getColumnNames().size();
+        List<ColumnDefinition> cols = new ArrayList<>();
+        for (String name : tree.getColumnNames()) {
+            cols.add(catalog.getColumn(td, name));
+        }
+        for (String name : tree.includedColumns()) {
+            cols.add(catalog.getColumn(td, name));
+        }
+        try (IndexBuilder builder = tree.builder(fillFactor)) {
+            forEachRow(td, cols, row -> {
+                List<Comparable<?>> key = new ArrayList<>(keyColumns);
+                for (int i = 0; i < keyColumns; i++) {
+                    if (!(row.get(cols.get(i).name()) instanceof Comparable<?> part)) {
+                        throw new IllegalArgumentException("index key is not Comparable for column: " + cols.get(i).name());
+                    }
+                    key.add(part);
+                }
+                List<Object> included = new ArrayList<>(cols.size() - keyColumns);
+                for (int i = keyColumns; i < cols.size(); i++) {
+                    included.add(row.get(cols.get(i).name()));
+                }
+                builder.add(keyColumns == 1 ? key.get(0) : new CompositeKey(key), (TID) row.get(CTID), included);
+            });
+            builder.finish();
+        }
+    }
+
+    /**
+     * Скан для построения индексов. Методы доступа со страничным сканом
+     * читаются порциями по {@link #BUILD_SCAN_PAGES} страниц, чтобы не
+     * держать в памяти всю таблицу; остальные — одним сканом.
+     */
+    private void forEachRow(TableDefinition td, List<ColumnDefinition> cols, Consumer<Map<String, Object>> action) {
+        TableAccessMethod am = accessMethod(td);
+        if (!TableAccessMethod.HEAP.equals(am.name()) && !TableAccessMethod.COLUMNAR.equals(am.name())) {
+            am.scan(td, cols, List.of()).forEach(action);
+            return;
+        }
+        int pages = td.pagesCount();
+        for (int from = 0; from < pages; from += BUILD_SCAN_PAGES) {
+            BitSet chunk = new BitSet();
+            chunk.set(from, Math.min(pages, from + BUILD_SCAN_PAGES));
+            am.scan(td, cols, List.of(), chunk).forEach(action);
+        }
+    }
+
+    private static List<String> includedColumns(IndexDefinition def) {
+        String v = def.options().get(BPlusTreeIndex.INCLUDE_OPTION);
+        return v == null || v.isEmpty() ? List.of() : List.of(v.split(","));
+    }
+
+    private static int fillFactor(IndexDefinition def) {
+        return Integer.parseInt(def.options().getOrDefault(
+                BPlusTreeIndex.FILLFACTOR_OPTION, Integer.toString(BPlusTreeIndex.DEFAULT_FILLFACTOR)));
+    }
 
-        indexRegistry.register(table.getName(), col.name(), index);
+    /**
+     * Строки берутся сканом и сортируются, а не обходом индекса: индекс может
+     * покрывать не все строки. Новый файл пишется целиком ({@link HeapAccessMethod#bulkLoad}),
+     * затем каталог переключается на него, старый удаляется, а индексы
+     * таблицы строятся заново по новым TID. В параметрах таблицы остаются
+     * колонка и число упорядоченных страниц — по ним оптимизатор оценивает корреляцию.
+     */
+    @Override
+    public void cluster(String tableName, String indexName) {
+        TableDefinition td = requireTable(tableName);
+        if (!(accessMethod(td) instanceof HeapAccessMethod heap)) {
+            throw new IllegalArgumentException("CLUSTER is supported only for heap tables: " + tableName);
+        }
+        Index index = indexRegistry == null ? null : indexRegistry.indexesOf(tableName).stream()
+                .filter(i -> i.getName().equalsIgnoreCase(indexName))
+                .findFirst()
+                .orElse(null);
+        if (index == null) {
+            throw new IllegalArgumentException("index " + indexName + " not found on table " + tableName);
+        }
+        if (index.getType() != IndexType.BTREE) {
+            throw new IllegalArgumentException("cannot cluster on " + index.getType() + " index " + indexName);
+        }
+
+        List<ColumnDefinition> cols = catalogAccess.listColumnsSorted(td);
+        int[] keyPos = new int[index.getColumnNames().size()];
+        for (int k = 0; k < keyPos.length; k++) {
+            String name = index.getColumnNames().get(k);
+            keyPos[k] = -1;
+            for (int i = 0; i < cols.size(); i++) {
+                if (cols.get(i).name().equalsIgnoreCase(name)) keyPos[k] = i;
+            }
+            if (keyPos[k] < 0) {
+                throw new IllegalStateException("index column not found: " + name);
+            }
+        }
+
+        List<List<Object>> rows = new ArrayList<>();
+        for (Map<String, Object> row : heap.scan(td, cols, List.of())) {
+            rows.add(valuesOf(row, cols));
+        }
+        rows.sort((a, b) -> {
+            for (int pos : keyPos) {
+                int c = compareKeys(a.get(pos), b.get(pos));
+                if (c != 0) return c;
+            }
+            return 0;
+        });
+
+        Map<String, String> options = new LinkedHashMap<>(td.options());
+        TableDefinition target = new TableDefinition(
+                td.getOid(), td.getName(), td.type(), catalogAccess.newFileNode(td), 0, options);
+        int pages = heap.bulkLoad(target, rows);
+
+        // корреляция оценивается по ведущей колонке
+        options.put(HeapAccessMethod.CLUSTER_ON_OPTION, cols.get(keyPos[0]).name());
+        options.put(HeapAccessMethod.CLUSTERED_PAGES_OPTION, Integer.toString(pages));
+
+        // старый файл удаляется: ни одна его грязная страница не должна записаться потом
+        bpm.flushAllPages();
+        TableDefinition clustered = catalogAccess.swapFileNode(td.getOid(), target.fileNode(), pages, options);
+        try {
+            Files.deleteIfExists(dataRoot.resolve(td.fileNode()));
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot remove old data file: " + td.fileNode(), e);
+        }
+        rebuildIndexes(clustered);
+    }
+
+    /**
+     * Деревья и хеш-индексы строятся заново на месте своих файлов, BRIN сводится заново,
+     * ART заполняется заново.
+     * Временные индексы в каталоге не хранятся — для них заполнение по умолчанию.
+     */
+    private void rebuildIndexes(TableDefinition td) {
+        Map<String, IndexDefinition> defs = new HashMap<>();
+        for (IndexDefinition def : catalogAccess.listIndexes()) {
+            if (def.tableOid() == td.getOid()) defs.put(def.getName(), def);
+        }
+        for (Index old : indexRegistry.indexesOf(td.getName())) {
+            if (old instanceof BPlusTreeIndex tree) {
+                IndexDefinition def = defs.get(tree.getName());
+                build(td, tree, def == null ? BPlusTreeIndex.DEFAULT_FILLFACTOR : fillFactor(def));
+            } else if (old instanceof HashIndex hash) {
+                hash.truncate();
+                fill(td, catalog.getColumn(td, hash.getColumnName()), hash);
+            } else if (old instanceof ArtIndex art) {
+                art.truncate();
+                load(td, catalog.getColumn(td, art.getColumnName()), art);
+            } else if (old instanceof BrinIndex brin) {
+                BrinIndex fresh = new BrinIndex(brin.getName(), brin.getColumnName(), brin.getPagesPerRange());
+                summarize(td, catalog.getColumn(td, old.getColumnName()), fresh);
+                indexRegistry.register(td.getName(), fresh);
+            }
+        }
+    }
+
+    private Index openIndex(TableDefinition td, IndexDefinition def) {
+        return switch (def.type()) {
+            case BTREE -> {
+                ColumnDefinition col = catalog.getColumn(td, def.columnName());
+                KeyType keyType = keyType(td, col.name());
+                Path file = dataRoot.resolve(def.fileNode());
+                boolean flushOnWrite = Persistence.of(td.options()).flushOnWrite();
+                List<String> included = includedColumns(def);
+                if (def.columnNames().size() > 1 || !included.isEmpty()) {
+                    // в узлах на примитивных массивах места нет ни под составной ключ, ни под значения INCLUDE
+                    List<KeyType> keyTypes = def.columnNames().stream().map(c -> keyType(td, c)).toList();
+                    List<KeyType> types = included.stream().map(c -> keyType(td, c)).toList();
+                    yield new BPlusTreeIndexImpl(def.getName(), def.columnNames(), keyTypes, included, types,
+                            bpm, file, flushOnWrite);
+                }
+                // целые ключи — в узлах на примитивных массивах
+                yield keyType == KeyType.INT64
+                        ? new Int64BPlusTreeIndex(def.getName(), col.name(), bpm, file, flushOnWrite)
+                        : new BPlusTreeIndexImpl(def.getName(), col.name(), keyType, bpm, file, flushOnWrite);
+            }
+            case HASH -> {
+                ColumnDefinition col = catalog.getColumn(td, def.columnName());
+                yield new HashIndex(def.getName(), col.name(), keyType(td, col.name()), bpm,
+                        dataRoot.resolve(def.fileNode()), Persistence.of(td.options()).flushOnWrite());
+            }
+            case ART -> {
+                ColumnDefinition col = catalog.getColumn(td, def.columnName());
+                yield new ArtIndex(def.getName(), col.name(), keyType(td, col.name()));
+            }
+            case BRIN -> new BrinIndex(def.getName(), def.columnName(), Integer.parseInt(def.options().getOrDefault(
+                    BrinIndex.PAGES_PER_RANGE_OPTION, Integer.toString(BrinIndex.DEFAULT_PAGES_PER_RANGE))));
+        };
+    }
+
+    private KeyType keyType(TableDefinition td, String columnName) {
+        ColumnDefinition c = catalog.getColumn(td, columnName);
+        return KeyType.of(catalogAccess.getTypeByOid(c.typeOid()).name(), c.isDictionaryEncoded());
+    }
+
+    private static List<Object> valuesOf(Map<String, Object> row, List<ColumnDefinition> cols) {
+        List<Object> values = new ArrayList<>(cols.size());
+        for (ColumnDefinition c : cols) {
+            values.add(row.get(c.name()));
+        }
+        return values;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static int compareKeys(Object a, Object b) {
+        return ((Comparable) a).compareTo(b);
     }
 
     private TableDefinition requireTable(String name) {
@@ -188,12 +661,11 @@ public class DefaultOperationManager implements OperationManager {
         return td;
     }
 
-    private static void ensureDir(Path dir) {
-        try {
-            Files.createDirectories(dir);
-        } catch (Exception e) {
-            throw new IllegalStateException("cannot create dir: " + dir, e);
-        }
+    private TableAccessMethod accessMethod(TableDefinition td) {
+        String name = td.option(TableAccessMethod.OPTION, TableAccessMethod.HEAP);
+        TableAccessMethod am = accessMethods.get(name);
+        if (am == null) throw new IllegalStateException("unknown access method: " + name);
+        return am;
     }
 
     private List<ColumnDefinition> mapByNames(List<ColumnDefinition> all, List<String> names) {
@@ -207,76 +679,4 @@ public class DefaultOperationManager implements OperationManager {
         }
         return out;
     }
-
-    private byte[] serializeRow(List<ColumnDefinition> cols, List<Object> values) {
-        int total = 0;
-        byte[][] parts = new byte[cols.size()][];
-        for (int i = 0; i < cols.size(); i++) {
-            parts[i] = serializeField(cols.get(i), values.get(i));
-            total += parts[i].length;
-        }
-        byte[] buf = new byte[total];
-        int off = 0;
-        for (byte[] part : parts) {
-            System.arraycopy(part, 0, buf, off, part.length);
-            off += part.length;
-        }
-        return buf;
-    }
-
-    private Map<String, Object> deserializeRowToMap(List<ColumnDefinition> allCols, byte[] tuple) {
-        Map<String, Object> out = new LinkedHashMap<>();
-        int off = 0;
-        for (ColumnDefinition c : allCols) {
-            TypeDefinition t = catalogAccess.getTypeByOid(c.typeOid());
-            if ("INT64".equalsIgnoreCase(t.name())) {
-                long v = leLong(tuple, off);
-                off += 8;
-                out.put(c.name(), v);
-            } else if (t.name().startsWith("VARCHAR")) {
-                int len = tuple[off] & 0xFF;
-                off += 1;
-                String s = new String(tuple, off, len, StandardCharsets.UTF_8);
-                off += len;
-                out.put(c.name(), s);
-            } else {
-                throw new IllegalArgumentException("unsupported type: " + t.name());
-            }
-        }
-        return out;
-    }
-
-    private byte[] serializeField(ColumnDefinition c, Object v) {
-        TypeDefinition t = catalogAccess.getTypeByOid(c.typeOid());
-        if ("INT64".equalsIgnoreCase(t.name())) {
-            if (!(v instanceof Long l)) {
-                throw new IllegalArgumentException("expected Long for column " + c.name());
-            }
-            ByteBuffer bb = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
-            bb.putLong(l);
-            return bb.array();
-        } else if (t.name().startsWith("VARCHAR")) {
-            if (!(v instanceof String s)) {
-                throw new IllegalArgumentException("expected String for column " + c.name());
-            }
-            byte[] b = s.getBytes(StandardCharsets.UTF_8);
-            if (b.length > 255) throw new IllegalArgumentException("VARCHAR too long (>255 bytes)");
-            byte[] out = new byte[1 + b.length];
-            out[0] = (byte) (b.length & 0xFF);
-            System.arraycopy(b, 0, out, 1, b.length);
-            return out;
-        }
-        throw new IllegalArgumentException("unsupported type: " + t.name());
-    }
-
-    private static long leLong(byte[] a, int off) {
-        return ((long) a[off] & 0xFF)
-                | (((long) a[off + 1] & 0xFF) << 8)
-                | (((long) a[off + 2] & 0xFF) << 16)
-                | (((long) a[off + 3] & 0xFF) << 24)
-                | (((long) a[off + 4] & 0xFF) << 32)
-                | (((long) a[off + 5] & 0xFF) << 40)
-                | (((long) a[off + 6] & 0xFF) << 48)
-                | (((long) a[off + 7] & 0xFF) << 56);
-    }
-}
\ No newline at end of file
+}
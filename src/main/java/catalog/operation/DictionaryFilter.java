@@ -0,0 +1,14 @@
+package catalog.operation;
+
+import java.util.Set;
+
+/**
+ * Предикат "column IN (values)" по DICTIONARY-колонке, проталкиваемый в скан.
+ * Сравнение идёт по 2-байтовым кодам прямо в байтах кортежа, без декодирования строк.
+ */
+public record DictionaryFilter(String columnName, Set<String> values) {
+    @Override
+    public String toString() {
+        return columnName + " IN " + values;
+    }
+}
@@ -1,11 +1,46 @@
 package catalog.operation;
 
+import access.TableStats;
+import catalog.model.ColumnDefinition;
+import index.IndexType;
 import index.TID;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
 
 public interface OperationManager {
+    /** Служебный ключ строки скана с её физическим адресом (TID). */
+    String CTID = "ctid";
+    /** Служебный ключ строки скана секционированной таблицы: имя секции, из которой она прочитана. */
+    String RELNAME = "relname";
+
     TID insert(String tableName, List<Object> values);
     List<Object> select(String tableName, List<String> columnNames);
+    List<Object> select(String tableName, List<String> columnNames, List<DictionaryFilter> filters);
+    /** @param pages страницы, которые нужно читать (отсечение по BRIN), или {@code null} — все */
+    List<Object> select(String tableName, List<String> columnNames, List<DictionaryFilter> filters, BitSet pages);
     Object selectByTid(String tableName, TID tid);
+    /**
+     * Строки индексно-организованной таблицы, у которых ведущая колонка первичного
+     * ключа лежит между from и to (null — без границы), прямо из листов дерева.
+     */
+    List<Object> selectKeyRange(String tableName, Comparable<?> from, Comparable<?> to,
+                                boolean includeFrom, boolean includeTo);
+    /** Текущий адрес строки, прочитанной сканом этой таблицы, или {@code null}, если её нет. */
+    TID locate(String tableName, Map<String, ?> row);
+    boolean delete(String tableName, TID tid);
+    TID update(String tableName, TID tid, List<Object> values);
+    TableStats stats(String tableName);
+    /**
+     * CREATE TABLE ... PARTITION OF: секция создаётся вместе с индексами,
+     * объявленными на родителе.
+     */
+    void createPartition(String tableName, List<ColumnDefinition> columns, Map<String, String> options);
     void createIndex(String indexName, String tableName, String columnName);
+    /** Индекс по нескольким колонкам сравнивает ключи лексикографически в порядке columnNames. */
+    void createIndex(String indexName, String tableName, List<String> columnNames, IndexType type, Map<String, String> options);
+    /** CLUSTER: переписывает таблицу в порядке колонок индекса и перестраивает её индексы. */
+    void cluster(String tableName, String indexName);
+    /** Штатная остановка: методы доступа сбрасывают данные, которые держат в памяти. */
+    void shutdown();
 }
\ No newline at end of file
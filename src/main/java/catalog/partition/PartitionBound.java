@@ -0,0 +1,192 @@
+package catalog.partition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Граница секции: какие значения ключа разбиения в неё попадают.
+ * <p>
+ * В параметрах таблицы граница хранится текстом: числа как есть, строки в
+ * одинарных кавычках, MINVALUE/MAXVALUE — словами; значения списка через
+ * запятую. Поэтому строковые значения границ не могут содержать кавычку,
+ * запятую и точку с запятой.
+ */
+public final class PartitionBound {
+
+    public static final String MINVALUE = "minvalue";
+    public static final String MAXVALUE = "maxvalue";
+
+    private final PartitionStrategy strategy;
+    /** RANGE: null — без границы (MINVALUE / MAXVALUE). */
+    private final Comparable<?> from;
+    private final Comparable<?> to;
+    /** LIST */
+    private final List<Comparable<?>> values;
+    /** HASH */
+    private final int modulus;
+    private final int remainder;
+
+    private PartitionBound(PartitionStrategy strategy, Comparable<?> from, Comparable<?> to,
+                           List<Comparable<?>> values, int modulus, int remainder) {
+        this.strategy = strategy;
+        this.from = from;
+        this.to = to;
+        this.values = values;
+        this.modulus = modulus;
+        this.remainder = remainder;
+    }
+
+    /**
+     * Разбирает границу из параметров секции.
+     *
+     * @param numericKey ключ разбиения INT64 (иначе VARCHAR)
+     */
+    public static PartitionBound of(PartitionStrategy strategy, Map<String, String> options, boolean numericKey) {
+        switch (strategy) {
+            case RANGE -> {
+                Comparable<?> from = literal(require(options, Partitioning.FROM_OPTION), numericKey, MINVALUE);
+                Comparable<?> to = literal(require(options, Partitioning.TO_OPTION), numericKey, MAXVALUE);
+                if (from != null && to != null && compare(from, to) >= 0) {
+                    throw new IllegalArgumentException("empty range bound: FROM (" + from + ") TO (" + to + ")");
+                }
+                return new PartitionBound(strategy, from, to, List.of(), 0, 0);
+            }
+            case LIST -> {
+                List<Comparable<?>> values = new ArrayList<>();
+                for (String s : require(options, Partitioning.IN_OPTION).split(",")) {
+                    Comparable<?> v = literal(s, numericKey, null);
+                    if (values.stream().noneMatch(x -> compare(x, v) == 0)) values.add(v);
+                }
+                return new PartitionBound(strategy, null, null, List.copyOf(values), 0, 0);
+            }
+            case HASH -> {
+                int modulus = Integer.parseInt(require(options, Partitioning.MODULUS_OPTION));
+                int remainder = Integer.parseInt(require(options, Partitioning.REMAINDER_OPTION));
+                if (modulus <= 0) {
+                    throw new IllegalArgumentException("modulus must be positive: " + modulus);
+                }
+                if (remainder < 0 || remainder >= modulus) {
+                    throw new IllegalArgumentException("remainder must be in [0, " + modulus + "): " + remainder);
+                }
+                return new PartitionBound(strategy, null, null, List.of(), modulus, remainder);
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    public PartitionStrategy strategy() {
+        return strategy;
+    }
+
+    /**
+     * Попадает ли строка с этим значением ключа в секцию. NULL не попадает никуда.
+     */
+    public boolean contains(Object key) {
+        if (!(key instanceof Comparable<?> k)) return false;
+        return switch (strategy) {
+            case RANGE -> (from == null || compare(k, from) >= 0) && (to == null || compare(k, to) < 0);
+            case LIST -> values.stream().anyMatch(v -> compare(v, k) == 0);
+            case HASH -> Math.floorMod(hash(k), modulus) == remainder;
+        };
+    }
+
+    /**
+     * Может ли секция содержать значения из интервала запроса (null — без
+     * границы). Для HASH отсечение возможно только по точному значению.
+     */
+    public boolean mayContain(Comparable<?> lo, Comparable<?> hi, boolean includeLo, boolean includeHi) {
+        return switch (strategy) {
+            case RANGE -> (lo == null || to == null || compare(lo, to) < 0)
+                    && (hi == null || from == null || compare(from, hi) < 0 || (compare(from, hi) == 0 && includeHi));
+            case LIST -> values.stream().anyMatch(v -> within(v, lo, hi, includeLo, includeHi));
+            case HASH -> lo == null || hi == null || compare(lo, hi) != 0 || !includeLo || !includeHi || contains(lo);
+        };
+    }
+
+    /**
+     * Пересекаются ли две секции одного родителя.
+     */
+    public boolean overlaps(PartitionBound other) {
+        if (strategy != other.strategy) return true;
+        return switch (strategy) {
+            case RANGE -> (from == null || other.to == null || compare(from, other.to) < 0)
+                    && (other.from == null || to == null || compare(other.from, to) < 0);
+            case LIST -> values.stream().anyMatch(other::contains);
+            // остатки по модулям m и m' ловят общие значения, если совпадают по модулю НОД(m, m')
+            case HASH -> {
+                int g = gcd(modulus, other.modulus);
+                yield remainder % g == other.remainder % g;
+            }
+        };
+    }
+
+    /**
+     * Хэш значения ключа для HASH-разбиения; не зависит от запуска.
+     */
+    static int hash(Object key) {
+        if (key instanceof Long l) return Long.hashCode(l * 0x9E3779B97F4A7C15L);
+        return Objects.hashCode(key) * 0x9E3779B9;
+    }
+
+    @Override
+    public String toString() {
+        return switch (strategy) {
+            case RANGE -> "FROM (" + text(from, MINVALUE) + ") TO (" + text(to, MAXVALUE) + ")";
+            case LIST -> "IN (" + String.join(", ", values.stream().map(v -> text(v, null)).toList()) + ")";
+            case HASH -> "WITH (MODULUS " + modulus + ", REMAINDER " + remainder + ")";
+        };
+    }
+
+    private static String require(Map<String, String> options, String key) {
+        String v = options.get(key);
+        if (v == null) throw new IllegalArgumentException("missing partition option: " + key);
+        return v;
+    }
+
+    /**
+     * Значение границы из текста параметра; unbounded — допустимое слово
+     * без значения (MINVALUE/MAXVALUE) или null, если такого нет.
+     */
+    private static Comparable<?> literal(String s, boolean numericKey, String unbounded) {
+        if (unbounded != null && unbounded.equalsIgnoreCase(s)) return null;
+        if (s.length() >= 2 && s.startsWith("'") && s.endsWith("'")) {
+            if (numericKey) throw new IllegalArgumentException("INT64 partition bound expected: " + s);
+            return s.substring(1, s.length() - 1);
+        }
+        if (!numericKey) throw new IllegalArgumentException("VARCHAR partition bound expected: " + s);
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid partition bound: " + s);
+        }
+    }
+
+    private static String text(Comparable<?> v, String unbounded) {
+        if (v == null) return unbounded.toUpperCase(Locale.ROOT);
+        return v instanceof String ? "'" + v + "'" : v.toString();
+    }
+
+    private static boolean within(Comparable<?> v, Comparable<?> lo, Comparable<?> hi, boolean includeLo, boolean includeHi) {
+        if (lo != null) {
+            int c = compare(v, lo);
+            if (c < 0 || (c == 0 && !includeLo)) return false;
+        }
+        if (hi != null) {
+            int c = compare(v, hi);
+            if (c > 0 || (c == 0 && !includeHi)) return false;
+        }
+        return true;
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static int compare(Comparable a, Comparable b) {
+        return a.compareTo(b);
+    }
+}
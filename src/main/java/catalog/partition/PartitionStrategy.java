@@ -0,0 +1,23 @@
+package catalog.partition;
+
+import java.util.Locale;
+
+/**
+ * Способ разбиения таблицы на секции (PARTITION BY ...).
+ */
+public enum PartitionStrategy {
+    RANGE,  // FOR VALUES FROM (a) TO (b): a включительно, b исключительно
+    LIST,   // FOR VALUES IN (a, b, ...)
+    HASH;   // FOR VALUES WITH (MODULUS m, REMAINDER r)
+
+    public String keyword() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static PartitionStrategy fromKeyword(String s) {
+        for (PartitionStrategy p : values()) {
+            if (p.keyword().equalsIgnoreCase(s)) return p;
+        }
+        throw new IllegalArgumentException("unknown partition strategy: " + s);
+    }
+}
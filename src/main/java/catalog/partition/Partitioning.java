@@ -0,0 +1,106 @@
+package catalog.partition;
+
+import catalog.manager.CatalogManager;
+import catalog.model.ColumnDefinition;
+import catalog.model.TableDefinition;
+import catalog.model.TypeDefinition;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Секционированные таблицы: родитель (PARTITION BY) сам строк не хранит,
+ * они лежат в секциях (PARTITION OF) — обычных таблицах со своим методом
+ * доступа, файлом и индексами. Связь родителя и секций, ключ и границы
+ * хранятся в параметрах таблиц, так что каталог о секциях не знает.
+ */
+public final class Partitioning {
+
+    /** У родителя: стратегия (range, list, hash) и колонка ключа. */
+    public static final String BY_OPTION = "partition_by";
+    public static final String KEY_OPTION = "partition_key";
+
+    /** У секции: имя родителя и граница (см. {@link PartitionBound}). */
+    public static final String OF_OPTION = "partition_of";
+    public static final String FROM_OPTION = "partition_from";
+    public static final String TO_OPTION = "partition_to";
+    public static final String IN_OPTION = "partition_in";
+    public static final String MODULUS_OPTION = "partition_modulus";
+    public static final String REMAINDER_OPTION = "partition_remainder";
+
+    public static final Set<String> OPTIONS = Set.of(BY_OPTION, KEY_OPTION, OF_OPTION,
+            FROM_OPTION, TO_OPTION, IN_OPTION, MODULUS_OPTION, REMAINDER_OPTION);
+
+    private Partitioning() {
+    }
+
+    public static boolean isPartitioned(TableDefinition td) {
+        return td.options().containsKey(BY_OPTION);
+    }
+
+    public static boolean isPartition(TableDefinition td) {
+        return td.options().containsKey(OF_OPTION);
+    }
+
+    public static PartitionStrategy strategy(TableDefinition parent) {
+        return PartitionStrategy.fromKeyword(parent.option(BY_OPTION, ""));
+    }
+
+    public static String key(TableDefinition parent) {
+        return parent.option(KEY_OPTION, "");
+    }
+
+    /**
+     * Секции родителя в порядке создания.
+     */
+    public static List<TableDefinition> partitionsOf(CatalogManager catalog, TableDefinition parent) {
+        List<TableDefinition> out = new ArrayList<>();
+        for (TableDefinition td : catalog.listTables()) {
+            if (parent.getName().equalsIgnoreCase(td.option(OF_OPTION, null))) {
+                out.add(td);
+            }
+        }
+        out.sort(Comparator.comparingInt(TableDefinition::getOid));
+        return out;
+    }
+
+    public static TableDefinition parentOf(CatalogManager catalog, TableDefinition partition) {
+        TableDefinition parent = catalog.getTable(partition.option(OF_OPTION, ""));
+        if (parent == null) {
+            throw new IllegalStateException("parent of partition " + partition.getName() + " not found");
+        }
+        return parent;
+    }
+
+    public static PartitionBound bound(CatalogManager catalog, TableDefinition partition) {
+        TableDefinition parent = parentOf(catalog, partition);
+        return PartitionBound.of(strategy(parent), partition.options(), numericKey(catalog, parent));
+    }
+
+    /**
+     * Секция, в которую попадает строка со значением ключа key.
+     */
+    public static TableDefinition route(CatalogManager catalog, TableDefinition parent, Object key) {
+        boolean numeric = numericKey(catalog, parent);
+        PartitionStrategy strategy = strategy(parent);
+        for (TableDefinition p : partitionsOf(catalog, parent)) {
+            if (PartitionBound.of(strategy, p.options(), numeric).contains(key)) {
+                return p;
+            }
+        }
+        throw new IllegalArgumentException("no partition of table " + parent.getName()
+                + " found for " + key(parent) + " = " + key);
+    }
+
+    /**
+     * Ключ разбиения INT64 (иначе VARCHAR — других ключей нет).
+     */
+    public static boolean numericKey(CatalogManager catalog, TableDefinition parent) {
+        ColumnDefinition col = catalog.getColumn(parent, key(parent));
+        TypeDefinition type = catalog.getTypeByOid(col.typeOid());
+        return type != null && "INT64".equals(type.name().toUpperCase(Locale.ROOT));
+    }
+}
@@ -1,11 +1,18 @@
 package execution;
 
 import catalog.manager.CatalogManager;
+import catalog.model.ColumnDefinition;
 import catalog.operation.OperationManager;
 import execution.executors.*;
 import optimizer.node.*;
 import optimizer.node.PhysicalIndexScanNode;
+import optimizer.node.PhysicalHashIndexScanNode;
+import optimizer.node.PhysicalPrimaryKeyScanNode;
 import execution.executors.BTreeIndexScanExecutor;
+import execution.executors.HashIndexScanExecutor;
+import execution.executors.PrimaryKeyScanExecutor;
+
+import java.util.List;
 
 public class ExecutorFactoryImpl implements ExecutorFactory {
 
@@ -20,16 +27,36 @@ public class ExecutorFactoryImpl implements ExecutorFactory {
     @Override
     public Executor createExecutor(PhysicalPlanNode plan) {
         if (plan instanceof PhysicalCreateNode n) {
-            return new CreateTableExecutor(catalogManager, n.getTableDefinition());
+            return new CreateTableExecutor(catalogManager, operationManager, n.getTableDefinition());
         }
         if (plan instanceof PhysicalInsertNode n) {
             return new InsertExecutor(operationManager, n.getTableDefinition(), n.getValues());
         }
+        if (plan instanceof PhysicalDeleteNode n) {
+            return new DeleteExecutor(operationManager, n.getTableDefinition(), createExecutor(n.getInput()));
+        }
+        if (plan instanceof PhysicalUpdateNode n) {
+            List<String> tableColumns = catalogManager.listColumnsSorted(n.getTableDefinition()).stream()
+                    .map(ColumnDefinition::name)
+                    .toList();
+            return new UpdateExecutor(
+                    operationManager,
+                    n.getTableDefinition(),
+                    tableColumns,
+                    n.getColumns(),
+                    n.getValues(),
+                    createExecutor(n.getInput())
+            );
+        }
         if (plan instanceof PhysicalSeqScanNode n) {
             return new SeqScanExecutor(
                     operationManager,
                     n.getTable().getName(),
-                    n.getColumns()
+                    n.getColumns(),
+                    n.getDictionaryFilters(),
+                    n.getBrin(),
+                    n.getSample(),
+                    n.getTable().pagesCount()
             );
         }
         if (plan instanceof PhysicalCreateIndexNode n) {
@@ -37,9 +64,14 @@ public class ExecutorFactoryImpl implements ExecutorFactory {
                     operationManager,
                     n.indexName(),
                     n.tableName(),
-                    n.columnName()
+                    n.columnNames(),
+                    n.indexType(),
+                    n.options()
             );
         }
+        if (plan instanceof PhysicalAppendNode n) {
+            return new AppendExecutor(n.getPartitions(), n.getInputs().stream().map(this::createExecutor).toList());
+        }
         if (plan instanceof PhysicalFilterNode n) {
             Executor child = createExecutor(n.getInput());
             return new FilterExecutor(child, n.getPredicate());
@@ -59,6 +91,69 @@ public class ExecutorFactoryImpl implements ExecutorFactory {
                     n.isIncludeTo()
             );
         }
+        if (plan instanceof PhysicalArtIndexScanNode n) {
+            return new ArtIndexScanExecutor(
+                    operationManager,
+                    n.getTable().getName(),
+                    n.getIndex(),
+                    n.getFrom(),
+                    n.getTo(),
+                    n.isIncludeFrom(),
+                    n.isIncludeTo()
+            );
+        }
+        if (plan instanceof PhysicalHashIndexScanNode n) {
+            return new HashIndexScanExecutor(
+                    operationManager,
+                    n.getTable().getName(),
+                    n.getIndex(),
+                    n.getKey()
+            );
+        }
+        if (plan instanceof PhysicalBitmapHeapScanNode n) {
+            return new BitmapHeapScanExecutor(operationManager, n.getTable().getName(), createBitmapSource(n.getBitmap()));
+        }
+        if (plan instanceof PhysicalIndexOnlyScanNode n) {
+            return new IndexOnlyScanExecutor(
+                    n.getIndex(),
+                    n.getFrom(),
+                    n.getTo(),
+                    n.isIncludeFrom(),
+                    n.isIncludeTo()
+            );
+        }
+        if (plan instanceof PhysicalClusterNode n) {
+            return new ClusterExecutor(operationManager, n.tableName(), n.indexName());
+        }
+        if (plan instanceof PhysicalPrimaryKeyScanNode n) {
+            return new PrimaryKeyScanExecutor(
+                    operationManager,
+                    n.getTable().getName(),
+                    n.getFrom(),
+                    n.getTo(),
+                    n.isIncludeFrom(),
+                    n.isIncludeTo()
+            );
+        }
         throw new UnsupportedOperationException("Unsupported physical plan node: " + plan.getClass().getSimpleName());
     }
+
+    private BitmapSource createBitmapSource(PhysicalPlanNode plan) {
+        if (plan instanceof PhysicalBitmapIndexScanNode n) {
+            return new BitmapIndexScanExecutor(
+                    n.getIndex(),
+                    n.getFrom(),
+                    n.getTo(),
+                    n.isIncludeFrom(),
+                    n.isIncludeTo()
+            );
+        }
+        if (plan instanceof PhysicalBitmapOpNode n) {
+            return new BitmapOpExecutor(
+                    n.getOp() == PhysicalBitmapOpNode.Op.AND,
+                    n.getInputs().stream().map(this::createBitmapSource).toList()
+            );
+        }
+        throw new UnsupportedOperationException("Unsupported bitmap plan node: " + plan.getClass().getSimpleName());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package execution.executors;
+
+import catalog.operation.OperationManager;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Строки секций подряд. Каждая строка помечается именем своей секции
+ * ({@link OperationManager#RELNAME}): DELETE и UPDATE по родителю так
+ * узнают, в какой таблице лежит её TID.
+ */
+public class AppendExecutor implements Executor {
+
+    private final List<String> partitions;
+    private final List<Executor> inputs;
+
+    private int current;
+
+    public AppendExecutor(List<String> partitions, List<Executor> inputs) {
+        this.partitions = partitions;
+        this.inputs = inputs;
+    }
+
+    @Override
+    public void open() {
+        current = 0;
+        if (!inputs.isEmpty()) {
+            inputs.get(0).open();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object next() {
+        while (current < inputs.size()) {
+            Object row = inputs.get(current).next();
+            if (row != null) {
+                if (row instanceof Map<?, ?> map) {
+                    ((Map<String, Object>) map).put(OperationManager.RELNAME, partitions.get(current));
+                }
+                return row;
+            }
+            inputs.get(current).close();
+            current++;
+            if (current < inputs.size()) {
+                inputs.get(current).open();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        if (current < inputs.size()) {
+            inputs.get(current).close();
+            current = inputs.size();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package execution.executors;
+
+import catalog.operation.OperationManager;
+import index.TID;
+import index.art.ArtIndex;
+import index.btree.IndexCursor;
+
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Строки по ART: равенство берёт TID одного листа при открытии, диапазон
+ * обходит дерево курсором по мере вызовов {@link #next()}.
+ */
+public class ArtIndexScanExecutor implements Executor {
+
+    private final OperationManager op;
+    private final String tableName;
+    private final ArtIndex index;
+
+    private final Comparable<?> from;
+    private final Comparable<?> to;
+    private final boolean includeFrom;
+    private final boolean includeTo;
+
+    private Iterator<TID> point;
+    private IndexCursor cursor;
+
+    public ArtIndexScanExecutor(OperationManager op,
+                                String tableName,
+                                ArtIndex index,
+                                Comparable<?> from,
+                                Comparable<?> to,
+                                boolean includeFrom,
+                                boolean includeTo) {
+        this.op = Objects.requireNonNull(op, "op");
+        this.tableName = Objects.requireNonNull(tableName, "tableName");
+        this.index = Objects.requireNonNull(index, "index");
+        this.from = from;
+        this.to = to;
+        this.includeFrom = includeFrom;
+        this.includeTo = includeTo;
+    }
+
+    @Override
+    public void open() {
+        if (from != null && from.equals(to) && includeFrom && includeTo) {
+            this.point = index.search(from).iterator();
+        } else {
+            this.cursor = index.cursor(from, includeFrom, to, includeTo);
+        }
+    }
+
+    @Override
+    public Object next() {
+        while (true) {
+            TID tid;
+            if (point != null) {
+                tid = point.hasNext() ? point.next() : null;
+            } else if (cursor != null) {
+                tid = cursor.next();
+            } else {
+                return null;
+            }
+            if (tid == null) {
+                close();
+                return null;
+            }
+            Object row = op.selectByTid(tableName, tid);
+            if (row != null) return row;
+        }
+    }
+
+    @Override
+    public void close() {
+        point = null;
+        cursor = null;
+    }
+}
@@ -3,9 +3,8 @@ package execution.executors;
 import catalog.operation.OperationManager;
 import index.TID;
 import index.btree.BPlusTreeIndex;
+import index.btree.IndexCursor;
 
-import java.util.Iterator;
-import java.util.List;
 import java.util.Objects;
 
 public class BTreeIndexScanExecutor implements Executor {
@@ -19,7 +18,7 @@ public class BTreeIndexScanExecutor implements Executor {
     private final boolean includeFrom;
     private final boolean includeTo;
 
-    private Iterator<TID> it;
+    private IndexCursor cursor;
 
     public BTreeIndexScanExecutor(OperationManager op,
                                   String tableName,
@@ -37,68 +36,31 @@ public class BTreeIndexScanExecutor implements Executor {
         this.includeTo = includeTo;
     }
 
+    /**
+     * Курсор читает листья по мере вызовов {@link #next()}: потребитель,
+     * переставший тянуть строки, не заставляет обходить остаток диапазона.
+     */
     @Override
     public void open() {
-        List<TID> tids;
-
-        if (from == null && to == null) {
-            tids = index.scanAll();
-        } else if (from != null && to != null && includeFrom && includeTo && Objects.equals(from, to)) {
-            tids = index.search(from);
-        } else if (from != null && to == null) {
-            tids = index.searchGreaterThan(from, includeFrom);
-        } else if (from == null) {
-            tids = index.searchLessThan(to, includeTo);
-        } else {
-            if (!includeFrom || !includeTo) {
-                tids = index.rangeSearch(from, to, true);
-                tids = filterExclusiveBounds(tids);
-            } else {
-                tids = index.rangeSearch(from, to, true);
-            }
-        }
-
-        this.it = tids.iterator();
+        this.cursor = index.cursor(from, includeFrom, to, includeTo, false);
     }
 
     @Override
     public Object next() {
-        if (it == null || !it.hasNext()) return null;
-        TID tid = it.next();
-        return op.selectByTid(tableName, tid);
+        while (cursor != null) {
+            TID tid = cursor.next();
+            if (tid == null) {
+                cursor = null;
+                return null;
+            }
+            Object row = op.selectByTid(tableName, tid);
+            if (row != null) return row;
+        }
+        return null;
     }
 
     @Override
     public void close() {
-        it = null;
-    }
-
-    private List<TID> filterExclusiveBounds(List<TID> tids) {
-        if (from == null && to == null) return tids;
-
-        return tids.stream().filter(tid -> {
-            Object rowObj = op.selectByTid(tableName, tid);
-            if (!(rowObj instanceof java.util.Map<?, ?> row)) return false;
-
-            Object v = row.get(index.getColumnName());
-            if (!(v instanceof Comparable<?> c)) return false;
-
-            if (from != null) {
-                int cmp = cmp((Comparable) c, (Comparable) from);
-                if (cmp < 0) return false;
-                if (!includeFrom && cmp == 0) return false;
-            }
-            if (to != null) {
-                int cmp = cmp((Comparable) c, (Comparable) to);
-                if (cmp > 0) return false;
-                if (!includeTo && cmp == 0) return false;
-            }
-            return true;
-        }).toList();
-    }
-
-    @SuppressWarnings({ "rawtypes", "unchecked" })
-    private static int cmp(Comparable a, Comparable b) {
-        return a.compareTo(b);
+        cursor = null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package execution.executors;
+
+import catalog.operation.OperationManager;
+import index.TID;
+import index.TidBitmap;
+
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Строки по битовой карте: карта строится при открытии, TID идут по
+ * возрастанию страниц, так что соседние строки одной страницы берутся из
+ * уже прочитанной страницы, а сами страницы — в физическом порядке.
+ */
+public class BitmapHeapScanExecutor implements Executor {
+
+    private final OperationManager op;
+    private final String tableName;
+    private final BitmapSource bitmap;
+
+    private Iterator<TID> tids;
+
+    public BitmapHeapScanExecutor(OperationManager op, String tableName, BitmapSource bitmap) {
+        this.op = Objects.requireNonNull(op, "op");
+        this.tableName = Objects.requireNonNull(tableName, "tableName");
+        this.bitmap = Objects.requireNonNull(bitmap, "bitmap");
+    }
+
+    @Override
+    public void open() {
+        TidBitmap built = bitmap.build();
+        this.tids = built.iterator();
+    }
+
+    @Override
+    public Object next() {
+        while (tids != null && tids.hasNext()) {
+            Object row = op.selectByTid(tableName, tids.next());
+            if (row != null) return row;
+        }
+        tids = null;
+        return null;
+    }
+
+    @Override
+    public void close() {
+        tids = null;
+    }
+}
@@ -0,0 +1,59 @@
+package execution.executors;
+
+import index.Index;
+import index.TID;
+import index.TidBitmap;
+import index.art.ArtIndex;
+import index.btree.BPlusTreeIndex;
+import index.btree.IndexCursor;
+import index.hash.HashIndex;
+
+import java.util.Objects;
+
+/**
+ * TID диапазона B+-дерева или ART либо корзины хеш-индекса в битовую карту.
+ */
+public class BitmapIndexScanExecutor implements BitmapSource {
+
+    private final Index index;
+
+    private final Comparable<?> from;
+    private final Comparable<?> to;
+    private final boolean includeFrom;
+    private final boolean includeTo;
+
+    public BitmapIndexScanExecutor(Index index,
+                                   Comparable<?> from,
+                                   Comparable<?> to,
+                                   boolean includeFrom,
+                                   boolean includeTo) {
+        this.index = Objects.requireNonNull(index, "index");
+        this.from = from;
+        this.to = to;
+        this.includeFrom = includeFrom;
+        this.includeTo = includeTo;
+    }
+
+    @Override
+    public TidBitmap build() {
+        TidBitmap out = new TidBitmap();
+        if (index instanceof HashIndex hash) {
+            for (TID tid : hash.search(from)) {
+                out.add(tid);
+            }
+            return out;
+        }
+        IndexCursor cursor;
+        if (index instanceof BPlusTreeIndex tree) {
+            cursor = tree.cursor(from, includeFrom, to, includeTo, false);
+        } else if (index instanceof ArtIndex art) {
+            cursor = art.cursor(from, includeFrom, to, includeTo);
+        } else {
+            throw new IllegalStateException("unsupported index for bitmap scan: " + index.getName());
+        }
+        for (TID tid = cursor.next(); tid != null; tid = cursor.next()) {
+            out.add(tid);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,32 @@
+package execution.executors;
+
+import index.TidBitmap;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * AND или OR карт входов. Пересечение останавливается на первой пустой карте:
+ * остальные индексы тогда не читаются.
+ */
+public class BitmapOpExecutor implements BitmapSource {
+
+    private final boolean and;
+    private final List<BitmapSource> inputs;
+
+    public BitmapOpExecutor(boolean and, List<BitmapSource> inputs) {
+        this.and = and;
+        this.inputs = Objects.requireNonNull(inputs, "inputs");
+    }
+
+    @Override
+    public TidBitmap build() {
+        TidBitmap out = inputs.get(0).build();
+        for (int i = 1; i < inputs.size(); i++) {
+            if (and && out.isEmpty()) break;
+            TidBitmap next = inputs.get(i).build();
+            out = and ? out.and(next) : out.or(next);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,10 @@
+package execution.executors;
+
+import index.TidBitmap;
+
+/**
+ * Узел битовой карты в исполнении: строит множество TID целиком, строк не отдаёт.
+ */
+public interface BitmapSource {
+    TidBitmap build();
+}
@@ -0,0 +1,41 @@
+package execution.executors;
+
+import catalog.operation.OperationManager;
+
+/**
+ * Исполнитель CLUSTER.
+ * Переписывает таблицу в порядке ключа индекса через
+ * {@link OperationManager#cluster}; выполняется один раз, строк не возвращает.
+ */
+public final class ClusterExecutor implements Executor {
+
+    private final OperationManager op;
+    private final String tableName;
+    private final String indexName;
+
+    private boolean done;
+
+    public ClusterExecutor(OperationManager op, String tableName, String indexName) {
+        this.op = op;
+        this.tableName = tableName;
+        this.indexName = indexName;
+    }
+
+    @Override
+    public void open() {
+        done = false;
+    }
+
+    @Override
+    public Object next() {
+        if (done) return null;
+        done = true;
+
+        op.cluster(tableName, indexName);
+        return null;
+    }
+
+    @Override
+    public void close() {
+    }
+}
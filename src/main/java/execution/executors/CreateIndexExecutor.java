@@ -1,21 +1,30 @@
 package execution.executors;
 
 import catalog.operation.OperationManager;
+import index.IndexType;
+
+import java.util.List;
+import java.util.Map;
 
 public final class CreateIndexExecutor implements Executor {
 
     private final OperationManager op;
     private final String indexName;
     private final String tableName;
-    private final String columnName;
+    private final List<String> columnNames;
+    private final IndexType indexType;
+    private final Map<String, String> options;
 
     private boolean done;
 
-    public CreateIndexExecutor(OperationManager op, String indexName, String tableName, String columnName) {
+    public CreateIndexExecutor(OperationManager op, String indexName, String tableName, List<String> columnNames,
+                               IndexType indexType, Map<String, String> options) {
         this.op = op;
         this.indexName = indexName;
         this.tableName = tableName;
-        this.columnName = columnName;
+        this.columnNames = columnNames;
+        this.indexType = indexType;
+        this.options = options;
     }
 
     @Override
@@ -28,7 +37,7 @@ public final class CreateIndexExecutor implements Executor {
         if (done) return null;
         done = true;
 
-        op.createIndex(indexName, tableName, columnName);
+        op.createIndex(indexName, tableName, columnNames, indexType, options);
         return null;
     }
 
@@ -3,18 +3,24 @@ package execution.executors;
 
 import catalog.manager.CatalogManager;
 import catalog.model.TableDefinition;
+import catalog.operation.OperationManager;
+import catalog.partition.Partitioning;
 
 /**
  * Исполнитель CREATE TABLE.
- * Просто вызывает CatalogManager.createTable() с готовой таблицей.
+ * Просто вызывает CatalogManager.createTable() с готовой таблицей; секция
+ * создаётся через OperationManager — вместе с индексами родителя.
  */
 public class CreateTableExecutor implements Executor {
 
     private final CatalogManager catalogManager;
+    private final OperationManager operationManager;
     private final TableDefinition tableDefinition;
 
-    public CreateTableExecutor(CatalogManager catalogManager, TableDefinition tableDefinition) {
+    public CreateTableExecutor(CatalogManager catalogManager, OperationManager operationManager,
+                               TableDefinition tableDefinition) {
         this.catalogManager = catalogManager;
+        this.operationManager = operationManager;
         this.tableDefinition = tableDefinition;
     }
 
@@ -23,9 +29,18 @@ public class CreateTableExecutor implements Executor {
 
     @Override
     public Object next() {
+        if (Partitioning.isPartition(tableDefinition)) {
+            operationManager.createPartition(
+                    tableDefinition.getName(),
+                    tableDefinition.getColumns(),
+                    tableDefinition.options()
+            );
+            return null;
+        }
         catalogManager.createTable(
                 tableDefinition.getName(),
-                tableDefinition.getColumns()
+                tableDefinition.getColumns(),
+                tableDefinition.options()
         );
         return null;
     }
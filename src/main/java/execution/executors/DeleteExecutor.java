@@ -0,0 +1,80 @@
+package execution.executors;
+
+import catalog.model.TableDefinition;
+import catalog.operation.OperationManager;
+import index.TID;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Исполнитель DELETE.
+ * Сначала собирает все подходящие строки и только потом удаляет их,
+ * чтобы изменения не влияли на идущий скан. Адрес каждой строки берётся
+ * через {@link OperationManager#locate} непосредственно перед удалением:
+ * в индексно-организованной таблице строки переезжают при изменениях.
+ * Возвращает число удалённых строк.
+ */
+public class DeleteExecutor implements Executor {
+
+    private final OperationManager operationManager;
+    private final TableDefinition tableDefinition;
+    private final Executor input;
+
+    private boolean done;
+
+    public DeleteExecutor(OperationManager operationManager, TableDefinition tableDefinition, Executor input) {
+        this.operationManager = operationManager;
+        this.tableDefinition = tableDefinition;
+        this.input = input;
+    }
+
+    @Override
+    public void open() {
+        done = false;
+        input.open();
+    }
+
+    @Override
+    public Object next() {
+        if (done) return null;
+        done = true;
+
+        List<Map<String, ?>> rows = new ArrayList<>();
+        Object row;
+        while ((row = input.next()) != null) {
+            rows.add(rowOf(row));
+        }
+
+        int deleted = 0;
+        for (Map<String, ?> r : rows) {
+            String table = tableOf(r, tableDefinition);
+            TID tid = operationManager.locate(table, r);
+            if (tid != null && operationManager.delete(table, tid)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public void close() {
+        input.close();
+    }
+
+    /**
+     * Таблица, из которой прочитана строка: секция, если скан шёл по секционированной таблице.
+     */
+    static String tableOf(Map<String, ?> row, TableDefinition table) {
+        return row.get(OperationManager.RELNAME) instanceof String partition ? partition : table.getName();
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, ?> rowOf(Object row) {
+        if (row instanceof Map<?, ?> map) {
+            return (Map<String, ?>) map;
+        }
+        throw new IllegalStateException("expected row as Map<String,Object>: " + row);
+    }
+}
@@ -0,0 +1,115 @@
+package execution.executors;
+
+import semantic.QueryTree;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Вычисление выражений QueryTree над строкой-картой (колонка -> значение).
+ * Общий код для Filter и UPDATE.
+ */
+final class ExpressionEvaluator {
+
+    private ExpressionEvaluator() { }
+
+    static boolean test(QueryTree.QTExpr expr, Object row) {
+        if (!(row instanceof Map<?, ?> map)) {
+            throw new IllegalStateException("Filter expects row as Map<String,Object>");
+        }
+
+        if (expr instanceof QueryTree.QTBoolExpr b) {
+            String op = b.boolop.toUpperCase(Locale.ROOT);
+            return switch (op) {
+                case "AND" -> b.args.stream().allMatch(e -> test(e, row));
+                case "OR" -> b.args.stream().anyMatch(e -> test(e, row));
+                case "NOT" -> {
+                    if (b.args.size() != 1) {
+                        throw new IllegalStateException("NOT expects exactly 1 argument, got: " + b.args.size());
+                    }
+                    yield !test(b.args.get(0), row);
+                }
+                default -> throw new UnsupportedOperationException("Unsupported boolean operator: " + b.boolop);
+            };
+        }
+
+        if (expr instanceof QueryTree.QTAExpr a) {
+            Object left = eval(a.left, map);
+            Object right = eval(a.right, map);
+
+            return switch (a.op) {
+                case "=" -> equalsNormalized(left, right);
+                case "<>", "!=" -> !equalsNormalized(left, right);
+                case ">" -> compare(left, right) > 0;
+                case "<" -> compare(left, right) < 0;
+                case ">=" -> compare(left, right) >= 0;
+                case "<=" -> compare(left, right) <= 0;
+                default -> throw new UnsupportedOperationException("Unsupported operator: " + a.op);
+            };
+        }
+
+        throw new UnsupportedOperationException("Unsupported predicate: " + expr);
+    }
+
+    static Object eval(QueryTree.QTExpr expr, Map<?, ?> row) {
+        if (expr instanceof QueryTree.QTConst c) {
+            return c.value;
+        }
+        if (expr instanceof QueryTree.QTColumn c) {
+            return row.get(c.column.name());
+        }
+        if (expr instanceof QueryTree.QTAExpr a) {
+            Object l = eval(a.left, row);
+            Object r = eval(a.right, row);
+
+            return switch (a.op) {
+                case "+" -> toLong(l) + toLong(r);
+                case "-" -> toLong(l) - toLong(r);
+                case "*" -> toLong(l) * toLong(r);
+                case "/" -> {
+                    long div = toLong(r);
+                    if (div == 0) throw new IllegalArgumentException("division by zero");
+                    yield toLong(l) / div;
+                }
+                default -> throw new UnsupportedOperationException("Unsupported expression operator: " + a.op);
+            };
+        }
+
+        throw new UnsupportedOperationException("Unsupported expression: " + expr);
+    }
+
+    private static boolean equalsNormalized(Object a, Object b) {
+        if (a == null || b == null) return a == b;
+        if (a instanceof Number && b instanceof Number) {
+            return ((Number) a).longValue() == ((Number) b).longValue();
+        }
+        return Objects.equals(a, b);
+    }
+
+    private static long toLong(Object v) {
+        if (v == null) throw new IllegalArgumentException("NULL in numeric expression");
+        if (v instanceof Long x) return x;
+        if (v instanceof Integer x) return x.longValue();
+        if (v instanceof Short x) return x.longValue();
+        if (v instanceof Byte x) return x.longValue();
+        if (v instanceof Number x) return x.longValue();
+        throw new IllegalArgumentException("Expected numeric value, got: " + v.getClass().getSimpleName() + " (" + v + ")");
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static int compare(Object a, Object b) {
+        if (a == null || b == null) {
+            throw new IllegalArgumentException("Cannot compare NULL values: " + a + ", " + b);
+        }
+        if (a instanceof Number && b instanceof Number) {
+            long la = ((Number) a).longValue();
+            long lb = ((Number) b).longValue();
+            return Long.compare(la, lb);
+        }
+        if (a instanceof Comparable ca && b instanceof Comparable cb) {
+            return ca.compareTo(cb);
+        }
+        throw new IllegalArgumentException("Values are not comparable: " + a + ", " + b);
+    }
+}
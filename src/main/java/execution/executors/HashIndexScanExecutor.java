@@ -0,0 +1,52 @@
+package execution.executors;
+
+import catalog.operation.OperationManager;
+import index.TID;
+import index.hash.HashIndex;
+
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Строки с одним значением ключа: TID берутся из одной корзины хеш-индекса
+ * при открытии, строки читаются из таблицы по мере вызовов {@link #next()}.
+ */
+public class HashIndexScanExecutor implements Executor {
+
+    private final OperationManager op;
+    private final String tableName;
+    private final HashIndex index;
+    private final Comparable<?> key;
+
+    private Iterator<TID> tids;
+
+    public HashIndexScanExecutor(OperationManager op,
+                                 String tableName,
+                                 HashIndex index,
+                                 Comparable<?> key) {
+        this.op = Objects.requireNonNull(op, "op");
+        this.tableName = Objects.requireNonNull(tableName, "tableName");
+        this.index = Objects.requireNonNull(index, "index");
+        this.key = Objects.requireNonNull(key, "key");
+    }
+
+    @Override
+    public void open() {
+        this.tids = index.search(key).iterator();
+    }
+
+    @Override
+    public Object next() {
+        while (tids != null && tids.hasNext()) {
+            Object row = op.selectByTid(tableName, tids.next());
+            if (row != null) return row;
+        }
+        tids = null;
+        return null;
+    }
+
+    @Override
+    public void close() {
+        tids = null;
+    }
+}
@@ -0,0 +1,76 @@
+package execution.executors;
+
+import catalog.operation.OperationManager;
+import index.TID;
+import index.btree.BPlusTreeIndex;
+import index.btree.CompositeKey;
+import index.btree.IndexCursor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Строки собираются из записей покрывающего индекса: ключ (все его части,
+ * если он составной), колонки INCLUDE и TID. Индексы обновляются вместе с таблицей, так что запись в листе всегда
+ * описывает живую строку и проверять её по таблице не нужно.
+ */
+public class IndexOnlyScanExecutor implements Executor {
+
+    private final BPlusTreeIndex index;
+
+    private final Comparable<?> from;
+    private final Comparable<?> to;
+    private final boolean includeFrom;
+    private final boolean includeTo;
+
+    private IndexCursor cursor;
+
+    public IndexOnlyScanExecutor(BPlusTreeIndex index,
+                                 Comparable<?> from,
+                                 Comparable<?> to,
+                                 boolean includeFrom,
+                                 boolean includeTo) {
+        this.index = Objects.requireNonNull(index, "index");
+        this.from = from;
+        this.to = to;
+        this.includeFrom = includeFrom;
+        this.includeTo = includeTo;
+    }
+
+    @Override
+    public void open() {
+        this.cursor = index.cursor(from, includeFrom, to, includeTo, false);
+    }
+
+    @Override
+    public Object next() {
+        if (cursor == null) return null;
+        TID tid = cursor.next();
+        if (tid == null) {
+            cursor = null;
+            return null;
+        }
+        List<String> columns = index.includedColumns();
+        List<Object> values = cursor.included();
+        Map<String, Object> row = new LinkedHashMap<>();
+        if (cursor.key() instanceof CompositeKey key) {
+            for (int i = 0; i < key.size(); i++) {
+                row.put(index.getColumnNames().get(i), key.get(i));
+            }
+        } else {
+            row.put(index.getColumnName(), cursor.key());
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            row.put(columns.get(i), values.get(i));
+        }
+        row.put(OperationManager.CTID, tid);
+        return row;
+    }
+
+    @Override
+    public void close() {
+        cursor = null;
+    }
+}
@@ -0,0 +1,52 @@
+package execution.executors;
+
+import catalog.operation.OperationManager;
+
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Диапазонный скан индексно-организованной таблицы по ведущей колонке
+ * первичного ключа: строки приходят из листов дерева, без выборки по TID.
+ */
+public class PrimaryKeyScanExecutor implements Executor {
+
+    private final OperationManager op;
+    private final String tableName;
+
+    private final Comparable<?> from;
+    private final Comparable<?> to;
+    private final boolean includeFrom;
+    private final boolean includeTo;
+
+    private Iterator<Object> it;
+
+    public PrimaryKeyScanExecutor(OperationManager op,
+                                  String tableName,
+                                  Comparable<?> from,
+                                  Comparable<?> to,
+                                  boolean includeFrom,
+                                  boolean includeTo) {
+        this.op = Objects.requireNonNull(op, "op");
+        this.tableName = Objects.requireNonNull(tableName, "tableName");
+        this.from = from;
+        this.to = to;
+        this.includeFrom = includeFrom;
+        this.includeTo = includeTo;
+    }
+
+    @Override
+    public void open() {
+        it = op.selectKeyRange(tableName, from, to, includeFrom, includeTo).iterator();
+    }
+
+    @Override
+    public Object next() {
+        return it != null && it.hasNext() ? it.next() : null;
+    }
+
+    @Override
+    public void close() {
+        it = null;
+    }
+}
@@ -1,28 +1,78 @@
 package execution.executors;
 
+import access.TableSample;
+import catalog.operation.DictionaryFilter;
 import catalog.operation.OperationManager;
+import index.TID;
+import optimizer.node.PhysicalSeqScanNode.BrinKey;
+
+import java.util.BitSet;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public final class SeqScanExecutor implements Executor {
 
     private final OperationManager op;
     private final String tableName;
     private final List<String> columns;
+    private final List<DictionaryFilter> dictionaryFilters;
+    private final BrinKey brin;
+    private final TableSample sample;
+    /** Страниц в таблице при планировании: столько решений принимает SYSTEM. */
+    private final int pageCount;
 
     private java.util.Iterator<Object> it;
 
     public SeqScanExecutor(OperationManager op, String tableName, List<String> columns) {
+        this(op, tableName, columns, List.of());
+    }
+
+    public SeqScanExecutor(OperationManager op,
+                           String tableName,
+                           List<String> columns,
+                           List<DictionaryFilter> dictionaryFilters) {
+        this(op, tableName, columns, dictionaryFilters, null, null, 0);
+    }
+
+    public SeqScanExecutor(OperationManager op,
+                           String tableName,
+                           List<String> columns,
+                           List<DictionaryFilter> dictionaryFilters,
+                           BrinKey brin,
+                           TableSample sample,
+                           int pageCount) {
         this.op = op;
         this.tableName = tableName;
         this.columns = columns;
+        this.dictionaryFilters = dictionaryFilters;
+        this.brin = brin;
+        this.sample = sample;
+        this.pageCount = pageCount;
     }
 
     @Override
     public void open() {
         List<String> cols = normalize(columns);
-        List<Object> rows = op.select(tableName, cols);
+        // страницы считаются при открытии: сводка могла расшириться после планирования
+        BitSet pages = brin == null ? null
+                : brin.index().pages(brin.from(), brin.to(), brin.includeFrom(), brin.includeTo());
+        // без REPEATABLE каждое выполнение берёт свою выборку
+        TableSample s = sample == null ? null : sample.seeded();
+        if (s != null && s.method() == TableSample.Method.SYSTEM) {
+            BitSet sampled = s.pages(pageCount);
+            if (pages == null) {
+                pages = sampled;
+            } else {
+                pages.and(sampled);
+            }
+        }
+        List<Object> rows = op.select(tableName, cols, dictionaryFilters, pages);
+        if (s != null && s.method() == TableSample.Method.BERNOULLI) {
+            rows.removeIf(r -> !(r instanceof Map<?, ?> m
+                    && m.get(OperationManager.CTID) instanceof TID tid && s.keeps(tid)));
+        }
         this.it = rows.iterator();
     }
 
@@ -0,0 +1,84 @@
+package execution.executors;
+
+import catalog.model.ColumnDefinition;
+import catalog.model.TableDefinition;
+import catalog.operation.OperationManager;
+import index.TID;
+import semantic.QueryTree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Исполнитель UPDATE.
+ * Как и DELETE, сначала материализует подходящие строки, затем для каждой
+ * вычисляет новые значения и пишет новую версию. Возвращает число изменённых строк.
+ */
+public class UpdateExecutor implements Executor {
+
+    private final OperationManager operationManager;
+    private final TableDefinition tableDefinition;
+    private final List<String> tableColumns;
+    private final List<ColumnDefinition> columns;
+    private final List<QueryTree.QTExpr> values;
+    private final Executor input;
+
+    private boolean done;
+
+    public UpdateExecutor(OperationManager operationManager,
+                          TableDefinition tableDefinition,
+                          List<String> tableColumns,
+                          List<ColumnDefinition> columns,
+                          List<QueryTree.QTExpr> values,
+                          Executor input) {
+        this.operationManager = operationManager;
+        this.tableDefinition = tableDefinition;
+        this.tableColumns = tableColumns;
+        this.columns = columns;
+        this.values = values;
+        this.input = input;
+    }
+
+    @Override
+    public void open() {
+        done = false;
+        input.open();
+    }
+
+    @Override
+    public Object next() {
+        if (done) return null;
+        done = true;
+
+        List<Map<String, ?>> rows = new ArrayList<>();
+        Object row;
+        while ((row = input.next()) != null) {
+            rows.add(DeleteExecutor.rowOf(row));
+        }
+
+        int updated = 0;
+        for (Map<String, ?> r : rows) {
+            List<Object> newValues = new ArrayList<>(tableColumns.size());
+            for (String c : tableColumns) {
+                newValues.add(r.get(c));
+            }
+            for (int i = 0; i < columns.size(); i++) {
+                int pos = tableColumns.indexOf(columns.get(i).name());
+                newValues.set(pos, ExpressionEvaluator.eval(values.get(i), r));
+            }
+
+            String table = DeleteExecutor.tableOf(r, tableDefinition);
+            TID tid = operationManager.locate(table, r);
+            if (tid != null && operationManager.update(table, tid, newValues) != null) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public void close() {
+        input.close();
+    }
+}
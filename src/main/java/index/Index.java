@@ -1,8 +1,17 @@
 package index;
 
+import java.util.List;
+
 public interface Index {
     void insert(Comparable key, TID tid);
+    boolean delete(Comparable key, TID tid);
     String getName();
     IndexType getType();
+    /** Ведущая колонка ключа. */
     String getColumnName();
-}
\ No newline at end of file
+
+    /** Колонки ключа в порядке сравнения; у составного индекса их несколько. */
+    default List<String> getColumnNames() {
+        return List.of(getColumnName());
+    }
+}
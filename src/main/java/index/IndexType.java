@@ -4,5 +4,8 @@ package index;
  * Тип индекса.
  */
 public enum IndexType {
-    BTREE     // B+-Tree индекс (O(log n) + range support)
+    BTREE,    // B+-Tree индекс (O(log n) + range support)
+    BRIN,     // min/max по диапазонам страниц (отсечение страниц при SeqScan)
+    HASH,     // линейное хеширование: только равенство, одна корзина на поиск
+    ART       // префиксное дерево в памяти: равенство и диапазоны без чтения страниц
 }
@@ -0,0 +1,122 @@
+package index;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * Множество TID, разложенное по страницам: у каждой страницы таблицы —
+ * битовая карта её слотов. Обход идёт в физическом порядке (по номеру
+ * страницы, затем слота), так что каждая страница таблицы читается один раз.
+ * Пересечение и объединение сводятся к AND/OR карт одинаковых страниц.
+ */
+public final class TidBitmap implements Iterable<TID> {
+
+    private final TreeMap<Integer, long[]> pages = new TreeMap<>();
+
+    public void add(TID tid) {
+        int slot = tid.slotId() & 0xFFFF;
+        long[] bits = pages.get(tid.pageId());
+        if (bits == null || bits.length <= slot >>> 6) {
+            long[] grown = new long[(slot >>> 6) + 1];
+            if (bits != null) {
+                System.arraycopy(bits, 0, grown, 0, bits.length);
+            }
+            bits = grown;
+            pages.put(tid.pageId(), bits);
+        }
+        bits[slot >>> 6] |= 1L << slot;
+    }
+
+    /**
+     * Оставляет только TID, которые есть и в other.
+     */
+    public TidBitmap and(TidBitmap other) {
+        pages.entrySet().removeIf(e -> {
+            long[] bits = e.getValue();
+            long[] o = other.pages.get(e.getKey());
+            boolean empty = true;
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] &= o != null && i < o.length ? o[i] : 0;
+                empty &= bits[i] == 0;
+            }
+            return empty;
+        });
+        return this;
+    }
+
+    /**
+     * Добавляет все TID из other.
+     */
+    public TidBitmap or(TidBitmap other) {
+        for (Map.Entry<Integer, long[]> e : other.pages.entrySet()) {
+            long[] o = e.getValue();
+            long[] bits = pages.get(e.getKey());
+            if (bits == null || bits.length < o.length) {
+                long[] grown = o.clone();
+                if (bits != null) {
+                    for (int i = 0; i < bits.length; i++) grown[i] |= bits[i];
+                }
+                pages.put(e.getKey(), grown);
+            } else {
+                for (int i = 0; i < o.length; i++) bits[i] |= o[i];
+            }
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return pages.isEmpty();
+    }
+
+    /** Число страниц таблицы, на которых есть TID. */
+    public int pageCount() {
+        return pages.size();
+    }
+
+    public long size() {
+        long n = 0;
+        for (long[] bits : pages.values()) {
+            for (long w : bits) n += Long.bitCount(w);
+        }
+        return n;
+    }
+
+    @Override
+    public Iterator<TID> iterator() {
+        Iterator<Map.Entry<Integer, long[]>> it = pages.entrySet().iterator();
+        return new Iterator<>() {
+            private int pageId;
+            private long[] bits = new long[0];
+            private int word;
+            private long rest;
+
+            @Override
+            public boolean hasNext() {
+                while (rest == 0) {
+                    if (++word < bits.length) {
+                        rest = bits[word];
+                    } else if (it.hasNext()) {
+                        Map.Entry<Integer, long[]> e = it.next();
+                        pageId = e.getKey();
+                        bits = e.getValue();
+                        word = 0;
+                        rest = bits[0];
+                    } else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public TID next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int bit = Long.numberOfTrailingZeros(rest);
+                rest &= rest - 1;
+                return new TID(pageId, (word << 6) + bit);
+            }
+        };
+    }
+}
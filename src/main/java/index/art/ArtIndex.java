@@ -0,0 +1,780 @@
+package index.art;
+
+import index.Index;
+import index.IndexType;
+import index.TID;
+import index.btree.IndexCursor;
+import index.btree.KeyType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Адаптивное префиксное дерево (ART, Leis и др., 2013) в памяти. Ключ
+ * переводится в байты, порядок которых совпадает с порядком значений, и
+ * дерево ветвится по одному байту на уровень — поиск не сравнивает ключи, а
+ * идёт по байтам, один раз сверяя ключ в листе.
+ * <p>
+ * Внутренний узел выбирает вид по числу детей: до 4 и до 16 — упорядоченные
+ * массивы байтов, до 48 — таблица байт → слот, больше — прямой массив на 256
+ * детей; при удалениях узел сжимается обратно. Участок пути без ветвлений
+ * хранится в узле (сжатие путей), так что узел с одним ребёнком не возникает.
+ * <p>
+ * Лист хранит ключ целиком и TID строк с этим ключом по возрастанию. Строка,
+ * которая является префиксом другой ('ab' и 'abc'), кончается во внутреннем
+ * узле — её лист лежит в поле end узла и в обходе идёт раньше детей.
+ * <p>
+ * Страниц у индекса нет: он заполняется сканом таблицы при создании и при
+ * открытии базы и дальше получает каждую вставку и удаление.
+ */
+public class ArtIndex implements Index {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final String name;
+    private final String columnName;
+    private final KeyType keyType;
+
+    private Node root;
+    private long size;
+
+    public ArtIndex(String name, String columnName, KeyType keyType) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.columnName = Objects.requireNonNull(columnName, "columnName");
+        this.keyType = Objects.requireNonNull(keyType, "keyType");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public IndexType getType() {
+        return IndexType.ART;
+    }
+
+    @Override
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public KeyType getKeyType() {
+        return keyType;
+    }
+
+    /** Число пар (ключ, TID) в индексе. */
+    public synchronized long size() {
+        return size;
+    }
+
+    /** Очищает индекс перед перестроением. */
+    public synchronized void truncate() {
+        root = null;
+        size = 0;
+    }
+
+    @Override
+    public synchronized void insert(Comparable key, TID tid) {
+        if (key == null) throw new IllegalArgumentException("key is null");
+        Objects.requireNonNull(tid, "tid");
+        Comparable<?> value = keyType.normalize(key);
+        byte[] bytes = bytes(value);
+        long packed = pack(tid);
+
+        Node n = root;
+        Inner parent = null;
+        int parentByte = -1;
+        int depth = 0;
+        while (true) {
+            if (n == null) {
+                replace(parent, parentByte, new Leaf(bytes, value, packed));
+                break;
+            }
+            if (n instanceof Leaf leaf) {
+                if (Arrays.equals(leaf.key, bytes)) {
+                    if (!leaf.add(packed)) return;
+                    break;
+                }
+                // два ключа расходятся: общий участок пути уходит в новый узел
+                int common = Arrays.mismatch(leaf.key, depth, leaf.key.length, bytes, depth, bytes.length);
+                Node4 split = new Node4();
+                split.prefix = Arrays.copyOfRange(bytes, depth, depth + common);
+                attach(split, leaf, depth + common);
+                attach(split, new Leaf(bytes, value, packed), depth + common);
+                replace(parent, parentByte, split);
+                break;
+            }
+            Inner in = (Inner) n;
+            int matched = matchPrefix(in, bytes, depth);
+            if (matched < in.prefix.length) {
+                Node4 split = new Node4();
+                split.prefix = Arrays.copyOf(in.prefix, matched);
+                split.put(in.prefix[matched] & 0xFF, in);
+                in.prefix = Arrays.copyOfRange(in.prefix, matched + 1, in.prefix.length);
+                attach(split, new Leaf(bytes, value, packed), depth + matched);
+                replace(parent, parentByte, split);
+                break;
+            }
+            depth += matched;
+            if (depth == bytes.length) {
+                if (in.end == null) {
+                    in.end = new Leaf(bytes, value, packed);
+                } else if (!in.end.add(packed)) {
+                    return;
+                }
+                break;
+            }
+            int b = bytes[depth] & 0xFF;
+            Node child = in.child(b);
+            if (child == null) {
+                if (in.full()) {
+                    Inner grown = in.grow();
+                    replace(parent, parentByte, grown);
+                    in = grown;
+                }
+                in.put(b, new Leaf(bytes, value, packed));
+                break;
+            }
+            parent = in;
+            parentByte = b;
+            n = child;
+            depth++;
+        }
+        size++;
+    }
+
+    @Override
+    public synchronized boolean delete(Comparable key, TID tid) {
+        if (key == null || tid == null) return false;
+        byte[] bytes = bytes(keyType.normalize(key));
+        Removal r = new Removal();
+        root = delete(root, bytes, 0, pack(tid), r);
+        if (r.removed) size--;
+        return r.removed;
+    }
+
+    /**
+     * TID строк с ключом key по возрастанию.
+     */
+    public synchronized List<TID> search(Comparable key) {
+        if (key == null) throw new IllegalArgumentException("key is null");
+        byte[] bytes = bytes(keyType.normalize(key));
+
+        // пути узлов не сверяются: лист хранит ключ целиком и проверяется в конце
+        Node n = root;
+        int depth = 0;
+        while (n instanceof Inner in) {
+            depth += in.prefix.length;
+            if (depth > bytes.length) return List.of();
+            if (depth == bytes.length) {
+                n = in.end;
+                break;
+            }
+            n = in.child(bytes[depth++] & 0xFF);
+        }
+        if (!(n instanceof Leaf leaf) || !Arrays.equals(leaf.key, bytes)) {
+            return List.of();
+        }
+        long[] tids = leaf.tids;
+        List<TID> out = new ArrayList<>(leaf.count);
+        for (int i = 0; i < leaf.count; i++) {
+            out.add(unpack(tids[i]));
+        }
+        return out;
+    }
+
+    /**
+     * Курсор по ключам между from и to (null — без границы) по возрастанию,
+     * каждая граница включается или нет независимо.
+     */
+    public synchronized IndexCursor cursor(Comparable from, boolean includeFrom, Comparable to, boolean includeTo) {
+        byte[] lo = from == null ? null : bytes(keyType.normalize(from));
+        byte[] hi = to == null ? null : bytes(keyType.normalize(to));
+        return new Cursor(lo, includeFrom, key -> {
+            if (hi == null) return false;
+            int c = Arrays.compareUnsigned(key, hi);
+            return c > 0 || (c == 0 && !includeTo);
+        });
+    }
+
+    /**
+     * Курсор по строкам, начинающимся с prefix, по возрастанию: ключи с общим
+     * началом лежат в одном поддереве, обход кончается на выходе из него.
+     */
+    public synchronized IndexCursor prefixCursor(String prefix) {
+        if (keyType != KeyType.VARCHAR) {
+            throw new IllegalArgumentException("prefix search needs a VARCHAR index: " + name);
+        }
+        byte[] p = bytes(Objects.requireNonNull(prefix, "prefix"));
+        return new Cursor(p, true, key -> key.length < p.length || !Arrays.equals(key, 0, p.length, p, 0, p.length));
+    }
+
+    // ======= КЛЮЧИ =======
+
+    /**
+     * Байты, порядок которых (без знака, слева направо) совпадает с compareTo
+     * значений. INT64 — big-endian с инвертированным знаковым битом. VARCHAR —
+     * UTF-8, где ведущие байты символов U+E000..U+FFFF (0xEE, 0xEF) заменены
+     * на 0xF5, 0xF6, которых в UTF-8 нет: String сравнивает по UTF-16, и эти
+     * символы идут после символов вне BMP.
+     */
+    private byte[] bytes(Comparable<?> key) {
+        if (keyType == KeyType.INT64) {
+            if (!(key instanceof Number n)) {
+                throw new IllegalArgumentException("expected INT64 index key, got: " + key);
+            }
+            long v = n.longValue() ^ Long.MIN_VALUE;
+            byte[] out = new byte[8];
+            for (int i = 7; i >= 0; i--) {
+                out[i] = (byte) v;
+                v >>>= 8;
+            }
+            return out;
+        }
+        if (!(key instanceof String s)) {
+            throw new IllegalArgumentException("expected VARCHAR index key, got: " + key);
+        }
+        byte[] out = s.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < out.length; i++) {
+            if (out[i] == (byte) 0xEE || out[i] == (byte) 0xEF) {
+                out[i] += 7;
+            }
+        }
+        return out;
+    }
+
+    private static long pack(TID tid) {
+        return ((long) tid.pageId() << 16) | (tid.slotId() & 0xFFFF);
+    }
+
+    private static TID unpack(long packed) {
+        return new TID((int) (packed >>> 16), (short) packed);
+    }
+
+    // ======= ИЗМЕНЕНИЕ =======
+
+    private void replace(Inner parent, int b, Node node) {
+        if (parent == null) {
+            root = node;
+        } else {
+            parent.put(b, node);
+        }
+    }
+
+    /** Лист под узлом, путь которого кончается на depth. */
+    private static void attach(Inner node, Leaf leaf, int depth) {
+        if (depth == leaf.key.length) {
+            node.end = leaf;
+        } else {
+            node.put(leaf.key[depth] & 0xFF, leaf);
+        }
+    }
+
+    /** Сколько байтов сжатого пути узла совпадает с ключом начиная с depth. */
+    private static int matchPrefix(Inner in, byte[] key, int depth) {
+        int n = Math.min(in.prefix.length, key.length - depth);
+        int i = Arrays.mismatch(in.prefix, 0, n, key, depth, depth + n);
+        return i < 0 ? n : i;
+    }
+
+    private static final class Removal {
+        boolean removed;
+    }
+
+    /**
+     * Удаляет TID и возвращает то, что встаёт на место узла: его самого,
+     * сжатый узел, единственного оставшегося потомка или {@code null}.
+     */
+    private static Node delete(Node n, byte[] key, int depth, long tid, Removal r) {
+        if (n == null) return null;
+        if (n instanceof Leaf leaf) {
+            if (!Arrays.equals(leaf.key, key)) return leaf;
+            r.removed = leaf.remove(tid);
+            return leaf.count == 0 ? null : leaf;
+        }
+        Inner in = (Inner) n;
+        int plen = in.prefix.length;
+        if (key.length - depth < plen || !Arrays.equals(in.prefix, 0, plen, key, depth, depth + plen)) {
+            return in;
+        }
+        depth += plen;
+        if (depth == key.length) {
+            if (in.end == null) return in;
+            in.end = (Leaf) delete(in.end, key, depth, tid, r);
+        } else {
+            int b = key[depth] & 0xFF;
+            Node child = in.child(b);
+            if (child == null) return in;
+            Node rest = delete(child, key, depth + 1, tid, r);
+            if (rest == child) return in;
+            if (rest == null) {
+                in.remove(b);
+            } else {
+                in.put(b, rest);
+            }
+        }
+        return compact(in);
+    }
+
+    /**
+     * Узел без детей заменяется своим листом end, узел с одним ребёнком —
+     * этим ребёнком (путь узла и байт ребёнка уходят в путь ребёнка),
+     * недогруженный — узлом меньшего вида.
+     */
+    private static Node compact(Inner in) {
+        if (in.count == 0) return in.end;
+        if (in.count == 1 && in.end == null) {
+            int b = in.next(0);
+            Node child = in.child(b);
+            if (child instanceof Inner c) {
+                byte[] path = new byte[in.prefix.length + 1 + c.prefix.length];
+                System.arraycopy(in.prefix, 0, path, 0, in.prefix.length);
+                path[in.prefix.length] = (byte) b;
+                System.arraycopy(c.prefix, 0, path, in.prefix.length + 1, c.prefix.length);
+                c.prefix = path;
+            }
+            return child;
+        }
+        return in.shrink();
+    }
+
+    // ======= ОБХОД =======
+
+    private interface Limit {
+        /** Ключ за верхней границей обхода. */
+        boolean beyond(byte[] key);
+    }
+
+    /** Позиция обхода в узле: следующий байт и не пройден ли ещё лист end. */
+    private static final class Frame {
+        final Inner node;
+        int next;
+        boolean end;
+
+        Frame(Inner node, int next, boolean end) {
+            this.node = node;
+            this.next = next;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Обход в порядке ключей со стеком узлов от корня. Каждый вызов
+     * {@link #next()} берёт монитор индекса; узел, заменённый в дереве между
+     * вызовами, дочитывается в том виде, в каком курсор его застал.
+     */
+    private final class Cursor implements IndexCursor {
+        private final Deque<Frame> stack = new ArrayDeque<>();
+        private final Limit limit;
+
+        /** Первый лист, найденный при спуске к нижней границе. */
+        private Leaf pending;
+        private Leaf leaf;
+        private long[] tids;
+        private int count;
+        private int at;
+        private boolean done;
+
+        Cursor(byte[] from, boolean includeFrom, Limit limit) {
+            this.limit = limit;
+            seek(from, includeFrom);
+        }
+
+        /**
+         * Спуск по байтам нижней границы: поддеревья левее неё пропускаются,
+         * правее — обходятся целиком.
+         */
+        private void seek(byte[] from, boolean includeFrom) {
+            Node n = root;
+            int depth = 0;
+            while (n != null) {
+                if (n instanceof Leaf l) {
+                    int c = from == null ? 1 : Arrays.compareUnsigned(l.key, from);
+                    if (c > 0 || (c == 0 && includeFrom)) pending = l;
+                    return;
+                }
+                Inner in = (Inner) n;
+                if (from == null) {
+                    stack.push(new Frame(in, 0, true));
+                    return;
+                }
+                int plen = in.prefix.length;
+                int rest = Math.min(plen, from.length - depth);
+                int c = Arrays.compareUnsigned(in.prefix, 0, rest, from, depth, depth + rest);
+                if (c < 0) return;
+                if (c > 0 || rest < plen) {
+                    // путь узла больше границы или длиннее её
+                    stack.push(new Frame(in, 0, true));
+                    return;
+                }
+                depth += plen;
+                if (depth == from.length) {
+                    stack.push(new Frame(in, 0, includeFrom));
+                    return;
+                }
+                int b = from[depth++] & 0xFF;
+                stack.push(new Frame(in, b + 1, false));
+                n = in.child(b);
+            }
+        }
+
+        @Override
+        public TID next() {
+            synchronized (ArtIndex.this) {
+                while (!done) {
+                    if (at < count) {
+                        return unpack(tids[at++]);
+                    }
+                    Leaf l = nextLeaf();
+                    if (l == null || limit.beyond(l.key)) {
+                        done = true;
+                        stack.clear();
+                        break;
+                    }
+                    leaf = l;
+                    tids = l.tids;
+                    count = l.count;
+                    at = 0;
+                }
+                return null;
+            }
+        }
+
+        private Leaf nextLeaf() {
+            if (pending != null) {
+                Leaf l = pending;
+                pending = null;
+                return l;
+            }
+            while (!stack.isEmpty()) {
+                Frame f = stack.peek();
+                if (f.end) {
+                    f.end = false;
+                    if (f.node.end != null) return f.node.end;
+                }
+                int b = f.next > 255 ? -1 : f.node.next(f.next);
+                if (b < 0) {
+                    stack.pop();
+                    continue;
+                }
+                f.next = b + 1;
+                Node child = f.node.child(b);
+                if (child instanceof Leaf l) return l;
+                stack.push(new Frame((Inner) child, 0, true));
+            }
+            return null;
+        }
+
+        @Override
+        public Comparable<?> key() {
+            return leaf == null ? null : leaf.value;
+        }
+    }
+
+    // ======= УЗЛЫ =======
+
+    private abstract static class Node {
+    }
+
+    /**
+     * Ключ и TID его строк по возрастанию. Занятая часть массива TID на месте
+     * не меняется — вставка в середину и удаление делают новый массив, — так
+     * что курсор дочитывает тот, что застал.
+     */
+    private static final class Leaf extends Node {
+        final byte[] key;
+        final Comparable<?> value;
+        long[] tids;
+        int count;
+
+        Leaf(byte[] key, Comparable<?> value, long tid) {
+            this.key = key;
+            this.value = value;
+            this.tids = new long[]{tid};
+            this.count = 1;
+        }
+
+        /** false — такой TID уже есть. */
+        boolean add(long tid) {
+            int i = Arrays.binarySearch(tids, 0, count, tid);
+            if (i >= 0) return false;
+            i = -i - 1;
+            if (i == count && count < tids.length) {
+                // дописывание за концом не трогает то, что видит курсор
+                tids[count++] = tid;
+                return true;
+            }
+            long[] grown = new long[i == count ? count * 2 : Math.max(tids.length, count + 1)];
+            System.arraycopy(tids, 0, grown, 0, i);
+            System.arraycopy(tids, i, grown, i + 1, count - i);
+            grown[i] = tid;
+            tids = grown;
+            count++;
+            return true;
+        }
+
+        boolean remove(long tid) {
+            int i = Arrays.binarySearch(tids, 0, count, tid);
+            if (i < 0) return false;
+            long[] rest = new long[Math.max(1, count - 1)];
+            System.arraycopy(tids, 0, rest, 0, i);
+            System.arraycopy(tids, i + 1, rest, i, count - i - 1);
+            tids = rest;
+            count--;
+            return true;
+        }
+    }
+
+    private abstract static class Inner extends Node {
+        /** Байты пути после байта, по которому к узлу пришли из родителя. */
+        byte[] prefix = EMPTY;
+        /** Лист ключа, который кончается в этом узле. */
+        Leaf end;
+        int count;
+
+        abstract Node child(int b);
+
+        /** Наименьший байт не меньше b, под которым есть ребёнок, или -1. */
+        abstract int next(int b);
+
+        /** Добавляет ребёнка под байтом b или заменяет прежнего; место должно быть. */
+        abstract void put(int b, Node child);
+
+        abstract void remove(int b);
+
+        abstract boolean full();
+
+        /** Узел следующего вида с теми же детьми. */
+        abstract Inner grow();
+
+        /** Узел меньшего вида, если дети в него помещаются с запасом, иначе этот же. */
+        abstract Inner shrink();
+
+        <T extends Inner> T copyHeader(T to) {
+            to.prefix = prefix;
+            to.end = end;
+            return to;
+        }
+
+        void copyChildren(Inner to) {
+            for (int b = next(0); b >= 0; b = b == 255 ? -1 : next(b + 1)) {
+                to.put(b, child(b));
+            }
+        }
+    }
+
+    /** Упорядоченные байты и дети по тем же позициям: Node4 и Node16. */
+    private abstract static class Sorted extends Inner {
+        final byte[] keys;
+        final Node[] children;
+
+        Sorted(int capacity) {
+            keys = new byte[capacity];
+            children = new Node[capacity];
+        }
+
+        @Override
+        Node child(int b) {
+            for (int i = 0; i < count; i++) {
+                if ((keys[i] & 0xFF) == b) return children[i];
+            }
+            return null;
+        }
+
+        @Override
+        int next(int b) {
+            for (int i = 0; i < count; i++) {
+                if ((keys[i] & 0xFF) >= b) return keys[i] & 0xFF;
+            }
+            return -1;
+        }
+
+        @Override
+        void put(int b, Node child) {
+            int i = 0;
+            while (i < count && (keys[i] & 0xFF) < b) i++;
+            if (i < count && (keys[i] & 0xFF) == b) {
+                children[i] = child;
+                return;
+            }
+            System.arraycopy(keys, i, keys, i + 1, count - i);
+            System.arraycopy(children, i, children, i + 1, count - i);
+            keys[i] = (byte) b;
+            children[i] = child;
+            count++;
+        }
+
+        @Override
+        void remove(int b) {
+            for (int i = 0; i < count; i++) {
+                if ((keys[i] & 0xFF) == b) {
+                    System.arraycopy(keys, i + 1, keys, i, count - i - 1);
+                    System.arraycopy(children, i + 1, children, i, count - i - 1);
+                    children[--count] = null;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        boolean full() {
+            return count == keys.length;
+        }
+    }
+
+    private static final class Node4 extends Sorted {
+        Node4() {
+            super(4);
+        }
+
+        @Override
+        Inner grow() {
+            Node16 n = copyHeader(new Node16());
+            copyChildren(n);
+            return n;
+        }
+
+        @Override
+        Inner shrink() {
+            return this;
+        }
+    }
+
+    private static final class Node16 extends Sorted {
+        Node16() {
+            super(16);
+        }
+
+        @Override
+        Inner grow() {
+            Node48 n = copyHeader(new Node48());
+            copyChildren(n);
+            return n;
+        }
+
+        @Override
+        Inner shrink() {
+            if (count > 3) return this;
+            Node4 n = copyHeader(new Node4());
+            copyChildren(n);
+            return n;
+        }
+    }
+
+    /** Таблица байт → номер слота + 1 и 48 слотов под детей. */
+    private static final class Node48 extends Inner {
+        final byte[] index = new byte[256];
+        final Node[] children = new Node[48];
+
+        @Override
+        Node child(int b) {
+            int slot = index[b];
+            return slot == 0 ? null : children[slot - 1];
+        }
+
+        @Override
+        int next(int b) {
+            for (int i = b; i < 256; i++) {
+                if (index[i] != 0) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        void put(int b, Node child) {
+            int slot = index[b];
+            if (slot != 0) {
+                children[slot - 1] = child;
+                return;
+            }
+            int free = 0;
+            while (children[free] != null) free++;
+            children[free] = child;
+            index[b] = (byte) (free + 1);
+            count++;
+        }
+
+        @Override
+        void remove(int b) {
+            int slot = index[b];
+            if (slot == 0) return;
+            children[slot - 1] = null;
+            index[b] = 0;
+            count--;
+        }
+
+        @Override
+        boolean full() {
+            return count == children.length;
+        }
+
+        @Override
+        Inner grow() {
+            Node256 n = copyHeader(new Node256());
+            copyChildren(n);
+            return n;
+        }
+
+        @Override
+        Inner shrink() {
+            if (count > 12) return this;
+            Node16 n = copyHeader(new Node16());
+            copyChildren(n);
+            return n;
+        }
+    }
+
+    private static final class Node256 extends Inner {
+        final Node[] children = new Node[256];
+
+        @Override
+        Node child(int b) {
+            return children[b];
+        }
+
+        @Override
+        int next(int b) {
+            for (int i = b; i < 256; i++) {
+                if (children[i] != null) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        void put(int b, Node child) {
+            if (children[b] == null) count++;
+            children[b] = child;
+        }
+
+        @Override
+        void remove(int b) {
+            if (children[b] == null) return;
+            children[b] = null;
+            count--;
+        }
+
+        @Override
+        boolean full() {
+            return false;
+        }
+
+        @Override
+        Inner grow() {
+            return this;
+        }
+
+        @Override
+        Inner shrink() {
+            if (count > 40) return this;
+            Node48 n = copyHeader(new Node48());
+            copyChildren(n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package index.brin;
+
+import index.Index;
+import index.IndexType;
+import index.TID;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * BRIN: для каждого диапазона из pagesPerRange страниц таблицы хранится
+ * минимум и максимум значений колонки. Индекс не знает, где лежит конкретная
+ * строка, — он лишь говорит, какие диапазоны страниц могут содержать значения
+ * из заданного интервала, и этим сокращает SeqScan.
+ * <p>
+ * Вставка расширяет интервал своего диапазона; удаление его не сужает, так что
+ * сводка может быть шире фактических данных, но никогда не уже. Диапазон без
+ * сводки строк не содержит: индекс заполняется сканом таблицы при создании и
+ * дальше получает каждую вставку.
+ */
+public class BrinIndex implements Index {
+
+    /** Параметр индекса: сколько страниц таблицы покрывает одна сводка. */
+    public static final String PAGES_PER_RANGE_OPTION = "pages_per_range";
+    public static final int DEFAULT_PAGES_PER_RANGE = 128;
+
+    private final String name;
+    private final String columnName;
+    private final int pagesPerRange;
+
+    private final List<Comparable<?>> mins = new ArrayList<>();
+    private final List<Comparable<?>> maxs = new ArrayList<>();
+
+    public BrinIndex(String name, String columnName, int pagesPerRange) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.columnName = Objects.requireNonNull(columnName, "columnName");
+        if (pagesPerRange <= 0) throw new IllegalArgumentException("pagesPerRange must be > 0");
+        this.pagesPerRange = pagesPerRange;
+    }
+
+    // сырой Comparable задан интерфейсом Index
+    @SuppressWarnings("rawtypes")
+    @Override
+    public synchronized void insert(Comparable key, TID tid) {
+        if (key == null || tid == null) return;
+        int range = tid.pageId() / pagesPerRange;
+        while (mins.size() <= range) {
+            mins.add(null);
+            maxs.add(null);
+        }
+        Comparable<?> min = mins.get(range);
+        if (min == null || compare(key, min) < 0) mins.set(range, key);
+        Comparable<?> max = maxs.get(range);
+        if (max == null || compare(key, max) > 0) maxs.set(range, key);
+    }
+
+    /**
+     * Сводка не сужается: удалённое значение могло быть её границей.
+     */
+    @SuppressWarnings("rawtypes")
+    @Override
+    public boolean delete(Comparable key, TID tid) {
+        return false;
+    }
+
+    /**
+     * Страницы диапазонов, чей интервал [min, max] пересекается с [from, to]
+     * (null — без границы).
+     */
+    public synchronized BitSet pages(Comparable<?> from, Comparable<?> to, boolean includeFrom, boolean includeTo) {
+        BitSet out = new BitSet();
+        for (int r = 0; r < mins.size(); r++) {
+            Comparable<?> min = mins.get(r);
+            if (min == null) continue;
+            Comparable<?> max = maxs.get(r);
+
+            if (from != null) {
+                int c = compare(max, from);
+                if (c < 0 || (c == 0 && !includeFrom)) continue;
+            }
+            if (to != null) {
+                int c = compare(min, to);
+                if (c > 0 || (c == 0 && !includeTo)) continue;
+            }
+            out.set(r * pagesPerRange, (r + 1) * pagesPerRange);
+        }
+        return out;
+    }
+
+    public int getPagesPerRange() {
+        return pagesPerRange;
+    }
+
+    public synchronized int summarizedRanges() {
+        return (int) mins.stream().filter(Objects::nonNull).count();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public IndexType getType() {
+        return IndexType.BRIN;
+    }
+
+    @Override
+    public String getColumnName() {
+        return columnName;
+    }
+
+    /** Значения одной колонки сравнимы друг с другом. */
+    @SuppressWarnings("unchecked")
+    private static int compare(Comparable<?> a, Comparable<?> b) {
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+}
@@ -3,14 +3,88 @@ package index.btree;
 import index.Index;
 import index.TID;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 public interface BPlusTreeIndex extends Index {
-    List<TID> search(Comparable key);
-    List<TID> rangeSearch(Comparable from, Comparable to, boolean inclusive);
-    List<TID> searchGreaterThan(Comparable value, boolean inclusive);
-    List<TID> searchLessThan(Comparable value, boolean inclusive);
-    List<TID> scanAll();
+    /** Параметр индекса: заполнение листов при построении, в процентах. */
+    String FILLFACTOR_OPTION = "fillfactor";
+    int DEFAULT_FILLFACTOR = 90;
+    /** Внутренние узлы строятся с запасом под разделения при последующих вставках. */
+    int NONLEAF_FILLFACTOR = 70;
+    /** Параметр индекса: колонки INCLUDE через запятую, их значения лежат в листьях. */
+    String INCLUDE_OPTION = "include";
+    /**
+     * Наибольшая суммарная ширина колонок ключа и INCLUDE в записи листа, байт:
+     * при разделении по байтам обе половины узла должны поместиться в страницу 4 КБ.
+     */
+    int MAX_ENTRY_WIDTH = 1280;
+
+    /**
+     * Курсор по записям с ключом между from и to (null — без границы), каждая
+     * граница включается или нет независимо. backward — по убыванию ключа.
+     */
+    IndexCursor cursor(Comparable from, boolean includeFrom, Comparable to, boolean includeTo, boolean backward);
+
+    default List<TID> search(Comparable key) {
+        if (key == null) throw new IllegalArgumentException("key is null");
+        return drain(cursor(key, true, key, true, false));
+    }
+
+    default List<TID> rangeSearch(Comparable from, Comparable to, boolean inclusive) {
+        return drain(cursor(from, inclusive, to, inclusive, false));
+    }
+
+    default List<TID> searchGreaterThan(Comparable value, boolean inclusive) {
+        if (value == null) throw new IllegalArgumentException("value is null");
+        return drain(cursor(value, inclusive, null, false, false));
+    }
+
+    default List<TID> searchLessThan(Comparable value, boolean inclusive) {
+        if (value == null) throw new IllegalArgumentException("value is null");
+        return drain(cursor(null, false, value, inclusive, false));
+    }
+
+    default List<TID> scanAll() {
+        return drain(cursor(null, false, null, false, false));
+    }
+
+    /**
+     * Колонки INCLUDE в порядке хранения; пусто, если индекс не покрывающий.
+     */
+    default List<String> includedColumns() {
+        return List.of();
+    }
+
+    /**
+     * Вставка в покрывающий индекс: included — значения колонок
+     * {@link #includedColumns()} в том же порядке.
+     */
+    default void insert(Comparable key, TID tid, List<?> included) {
+        if (!included.isEmpty()) {
+            throw new IllegalArgumentException("index " + getName() + " has no INCLUDE columns");
+        }
+        insert(key, tid);
+    }
+
     int getHeight();
     int getOrder();
-}
\ No newline at end of file
+    /** Файл дерева. */
+    Path file();
+    /** Очищает индекс перед перестроением. */
+    void truncate();
+    /**
+     * Построение с нуля: внешняя сортировка пар (ключ, TID) и сборка дерева
+     * снизу вверх, листы заполняются до fillFactor процентов.
+     */
+    IndexBuilder builder(int fillFactor);
+
+    private static List<TID> drain(IndexCursor cursor) {
+        List<TID> out = new ArrayList<>();
+        for (TID tid = cursor.next(); tid != null; tid = cursor.next()) {
+            out.add(tid);
+        }
+        return out;
+    }
+}
@@ -2,402 +2,1214 @@ package index.btree;
 
 import index.IndexType;
 import index.TID;
-import memory.manager.PageFileManager;
-
+import memory.buffer.BufferPoolManager;
+import memory.page.BTreePage;
+import memory.page.Page;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
+
+/**
+ * B+-дерево индекса в собственном файле, страницы {@link BTreePage} читаются
+ * и пишутся через {@link BufferPoolManager}, поэтому индекс переживает рестарт.
+ * <p>
+ * Устройство файла то же, что у дерева индексно-организованной таблицы: корень
+ * всегда на странице 0 и хранит число страниц файла, листы связаны ссылками
+ * вправо, узлы делятся пополам по байтам и при удалении не сливаются.
+ * Ключ составного индекса — значения колонок подряд ({@link CompositeKey}).
+ * Запись листа — [ключ][TID][значения INCLUDE], внутреннего узла — [дочерняя
+ * страница (int)][ключ][TID]: значения INCLUDE в порядке не участвуют и наверх
+ * не поднимаются. Пара (ключ, TID) уникальна и задаёт порядок записей, так что
+ * дубликаты ключа лежат по возрастанию TID, а удаление спускается прямо к нужной записи.
+ * Поиск сравнивает записанные ключи по байтам ({@link KeyType#compare}), не
+ * декодируя их. Разделитель листьев укорачивается до кратчайшего ключа между
+ * соседними записями, а при строковой ведущей колонке узлы хранят общее
+ * начало строк один раз — в узел помещается больше записей, дерево ниже.
+ * <p>
+ * В индексе без INCLUDE дубликаты ключа сливаются в список TID (posting list):
+ * запись листа — [ключ][первый TID][разности следующих TID, varint], место в
+ * порядке ей задаёт первый TID. Запись с одним TID — обычная запись, так что
+ * файлы без списков читаются как есть. Списки одного ключа не пересекаются по
+ * TID и не выходят за границы своего листа; список длиннее
+ * {@link #postingLimit} байт делится на два.
+ * <p>
+ * Одновременные вставки и чтения устроены как в {@link Int64BPlusTreeIndex}:
+ * опубликованные страницы не меняются, читатели спускаются по версиям узлов
+ * ({@link NodeLatches}), писатель захватывает лист и предков, которые могут
+ * получить разделитель.
+ */
 public class BPlusTreeIndexImpl implements BPlusTreeIndex {
 
-    private final String indexName;
-    private final String columnName;
-    private final int order;
-    private final PageFileManager pageManager;
+    static final int ROOT = 0;
+
+    /** pageId (int) + slotId (short). */
+    private static final int TID_BYTES = Integer.BYTES + Short.BYTES;
 
-    private int rootPageId;
-    private int height;
+    /** Меньше и больше любого настоящего TID: края диапазона записей одного ключа. */
+    private static final TID MIN_TID = new TID(Integer.MIN_VALUE, Short.MIN_VALUE);
+    private static final TID MAX_TID = new TID(Integer.MAX_VALUE, Short.MAX_VALUE);
 
-    private final Map<Integer, BPlusTreeNode> nodes = new HashMap<>();
-    private int nextPageId = 0;
+    private static final byte[] NO_PAYLOAD = new byte[0];
+
+    private final String indexName;
+    private final List<String> columnNames;
+    private final List<KeyType> keyTypes;
+    private final int maxKeyWidth;
+    private final List<String> includedColumns;
+    /** Значения INCLUDE пишутся так же, как ключи своего типа. */
+    private final List<KeyType> includedTypes;
+    private final BufferPoolManager bpm;
+    private final Path file;
+    private final boolean flushOnWrite;
+    private final NodeLatches latches = new NodeLatches();
+    /** Наибольшая длина записи со списком TID; 0 — списки не ведутся (индекс с INCLUDE). */
+    private final int postingLimit;
+
+    public BPlusTreeIndexImpl(String indexName,
+                              String columnName,
+                              KeyType keyType,
+                              BufferPoolManager bpm,
+                              Path file,
+                              boolean flushOnWrite) {
+        this(indexName, List.of(columnName), List.of(keyType), List.of(), List.of(), bpm, file, flushOnWrite);
+    }
 
-    public BPlusTreeIndexImpl(String indexName, String columnName, int order, PageFileManager pageManager) {
-        this.indexName = indexName;
-        this.columnName = columnName;
-        this.order = order;
-        this.pageManager = pageManager;
+    /**
+     * @param columnNames колонки ключа в порядке сравнения, keyTypes — их типы
+     */
+    public BPlusTreeIndexImpl(String indexName,
+                              List<String> columnNames,
+                              List<KeyType> keyTypes,
+                              List<String> includedColumns,
+                              List<KeyType> includedTypes,
+                              BufferPoolManager bpm,
+                              Path file,
+                              boolean flushOnWrite) {
+        this.indexName = Objects.requireNonNull(indexName, "indexName");
+        this.columnNames = List.copyOf(columnNames);
+        this.keyTypes = List.copyOf(keyTypes);
+        if (this.columnNames.isEmpty() || this.columnNames.size() != this.keyTypes.size()) {
+            throw new IllegalArgumentException("key columns and types differ: " + columnNames + " / " + keyTypes);
+        }
+        this.maxKeyWidth = this.keyTypes.stream().mapToInt(KeyType::maxWidth).sum();
+        this.includedColumns = List.copyOf(includedColumns);
+        this.includedTypes = List.copyOf(includedTypes);
+        if (this.includedColumns.size() != this.includedTypes.size()) {
+            throw new IllegalArgumentException("INCLUDE columns and types differ in size: "
+                    + includedColumns.size() + " != " + includedTypes.size());
+        }
+        this.bpm = Objects.requireNonNull(bpm, "bpm");
+        this.file = Objects.requireNonNull(file, "file");
+        this.flushOnWrite = flushOnWrite;
+        // значения INCLUDE у каждой строки свои, слить их в одну запись нельзя
+        this.postingLimit = this.includedTypes.isEmpty()
+                ? Math.min((bpm.getPageSize() - BTreePage.HEADER_SIZE) / 8, MAX_ENTRY_WIDTH)
+                : 0;
+    }
 
-        BPlusTreeNode root = new BPlusTreeNode();
-        root.pageId = allocatePage();
-        root.isLeaf = true;
-        root.keys = new Comparable[2 * order];
-        root.pointers = new Object[2 * order];
-        root.numKeys = 0;
+    @Override
+    public Path file() {
+        return file;
+    }
 
-        nodes.put(root.pageId, root);
-        rootPageId = root.pageId;
-        height = 1;
+    @Override
+    public List<String> includedColumns() {
+        return includedColumns;
     }
 
     @Override
     public void insert(Comparable key, TID tid) {
+        insert(key, tid, List.of());
+    }
+
+    @Override
+    public void insert(Comparable key, TID tid, List<?> included) {
         if (key == null) throw new IllegalArgumentException("key is null");
         if (tid == null) throw new IllegalArgumentException("tid is null");
-
-        BPlusTreeNode leaf = findLeaf(key);
-        insertIntoLeaf(leaf, key, tid);
-
-        if (leaf.numKeys >= 2 * order) {
-            split(leaf);
+        Comparable<?> k = normalizeKey(key);
+
+        byte[] entry = leafEntry(k, tid, payload(included));
+        SearchKey sk = searchKey(k, tid);
+        BTreePage[] pages = new BTreePage[NodeLatches.MAX_HEIGHT];
+        long[] stamps = new long[NodeLatches.MAX_HEIGHT];
+        int[] positions = new int[NodeLatches.MAX_HEIGHT];
+        while (!tryInsert(sk, tid, entry, pages, stamps, positions)) {
+            Thread.onSpinWait();
         }
     }
 
-    private void insertIntoLeaf(BPlusTreeNode leaf, Comparable key, TID tid) {
-        int i = 0;
-        while (i < leaf.numKeys && cmp(leaf.keys[i], key) < 0) {
-            i++;
+    @Override
+    public boolean delete(Comparable key, TID tid) {
+        if (key == null) throw new IllegalArgumentException("key is null");
+        if (tid == null) throw new IllegalArgumentException("tid is null");
+        SearchKey k = searchKey(normalizeKey(key), tid);
+
+        BTreePage[] pages = new BTreePage[NodeLatches.MAX_HEIGHT];
+        long[] stamps = new long[NodeLatches.MAX_HEIGHT];
+        int[] positions = new int[NodeLatches.MAX_HEIGHT];
+        while (true) {
+            int depth = descend(sep -> compare(sep, Integer.BYTES, k) <= 0, pages, stamps, positions);
+            if (depth >= 0) {
+                BTreePage leaf = pages[depth];
+                int pos = lowerBound(leaf, k);
+                if (pos >= leaf.size() || compare(leaf.read(pos), 0, k) != 0) {
+                    // TID может быть не первым в списке предыдущей записи
+                    if (pos == 0 || !contains(leaf.read(pos - 1), k, tid)) {
+                        return false;
+                    }
+                    pos--;
+                }
+                StampedLock latch = latches.of(leaf.getPageId());
+                long ws = latch.tryConvertToWriteLock(stamps[depth]);
+                if (ws != 0) {
+                    try {
+                        BTreePage copy = leaf.copy();
+                        byte[] e = leaf.read(pos);
+                        if (!isPosting(e)) {
+                            copy.delete(pos);
+                        } else {
+                            long[] tids = tidsOf(e);
+                            long[] rest = new long[tids.length - 1];
+                            int at = Arrays.binarySearch(tids, pack(tid));
+                            System.arraycopy(tids, 0, rest, 0, at);
+                            System.arraycopy(tids, at + 1, rest, at, rest.length - at);
+                            copy.set(pos, posting(e, rest, 0, rest.length));
+                        }
+                        save(copy);
+                    } finally {
+                        latch.unlockWrite(ws);
+                    }
+                    return true;
+                }
+            }
+            Thread.onSpinWait();
         }
+    }
 
-        for (int j = leaf.numKeys; j > i; j--) {
-            leaf.keys[j] = leaf.keys[j - 1];
-            leaf.pointers[j] = leaf.pointers[j - 1];
-        }
+    /**
+     * Границы задаются парами (ключ, крайний TID): исключённая нижняя граница
+     * начинается после всех TID ключа, включённая — до них, так что
+     * исключение ключа не требует отдельной проверки записей.
+     */
+    @Override
+    public IndexCursor cursor(Comparable from, boolean includeFrom, Comparable to, boolean includeTo,
+                              boolean backward) {
+        Comparable<?> lo = from == null ? null : normalizeKey(from);
+        Comparable<?> hi = to == null ? null : normalizeKey(to);
+        return new Cursor(lo == null ? null : searchKey(lo, includeFrom ? MIN_TID : MAX_TID),
+                hi == null ? null : searchKey(hi, includeTo ? MAX_TID : MIN_TID), backward);
+    }
 
-        leaf.keys[i] = key;
-        leaf.pointers[i] = tid;
-        leaf.numKeys++;
+    /**
+     * Очищает индекс (перестроение после CLUSTER): корень снова пустой лист,
+     * старые страницы файла перезапишутся по мере роста дерева.
+     */
+    @Override
+    public void truncate() {
+        BTreePage root = newNode(ROOT, true);
+        root.setPageCount(1);
+        save(root);
     }
 
     @Override
-    public List<TID> search(Comparable key) {
-        if (key == null) throw new IllegalArgumentException("key is null");
+    public IndexBuilder builder(int fillFactor) {
+        return new Builder(fillFactor);
+    }
 
-        List<TID> result = new ArrayList<>();
-        BPlusTreeNode leaf = findLeaf(key);
+    @Override
+    public String getName() {
+        return indexName;
+    }
 
-        for (int i = 0; i < leaf.numKeys; i++) {
-            if (cmp(leaf.keys[i], key) == 0) {
-                result.add((TID) leaf.pointers[i]);
-            }
-        }
-        return result;
+    @Override
+    public String getColumnName() {
+        return columnNames.get(0);
     }
 
     @Override
-    public List<TID> rangeSearch(Comparable from, Comparable to, boolean inclusive) {
-        List<TID> result = new ArrayList<>();
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
 
-        if (from != null && to != null && cmp(from, to) > 0) {
-            return result;
+    @Override
+    public IndexType getType() {
+        return IndexType.BTREE;
+    }
+
+    /**
+     * Число уровней дерева: спуск по крайним левым потомкам.
+     */
+    @Override
+    public int getHeight() {
+        int height = 1;
+        BTreePage n = root();
+        while (!n.isLeaf()) {
+            n = node(n.leftmostChild());
+            height++;
         }
+        return height;
+    }
 
-        BPlusTreeNode node = (from == null) ? leftmostLeaf() : findLeaf(from);
+    /**
+     * Наибольшее число потомков внутреннего узла при ключах максимальной ширины:
+     * сколько записей [потомок][ключ][TID] помещается в страницу.
+     */
+    @Override
+    public int getOrder() {
+        int entry = BTreePage.entrySize(Integer.BYTES + maxKeyWidth + TID_BYTES);
+        return (bpm.getPageSize() - BTreePage.HEADER_SIZE) / entry + 1;
+    }
 
-        while (node != null) {
-            for (int i = 0; i < node.numKeys; i++) {
-                Comparable k = node.keys[i];
+    // ======= NODES =======
 
-                if (from != null) {
-                    int cFrom = cmp(k, from);
-                    if (cFrom < 0 || (!inclusive && cFrom == 0)) {
-                        continue;
-                    }
-                }
+    private BTreePage root() {
+        Page p = bpm.getPage(file, ROOT).getPage();
+        return p instanceof BTreePage b ? b : createRoot();
+    }
 
-                if (to != null) {
-                    int cTo = cmp(k, to);
-                    if (cTo > 0 || (!inclusive && cTo == 0)) {
-                        return result;
-                    }
-                }
+    /**
+     * Пустой файл: дерево из одного листа.
+     */
+    private synchronized BTreePage createRoot() {
+        Page p = bpm.getPage(file, ROOT).getPage();
+        if (p instanceof BTreePage b) return b;
+        BTreePage root = newNode(ROOT, true);
+        root.setPageCount(1);
+        save(root);
+        return root;
+    }
 
-                result.add((TID) node.pointers[i]);
-            }
-            node = node.rightSiblingPageId == -1 ? null : readNode(node.rightSiblingPageId);
+    private BTreePage node(int pageId) {
+        Page p = bpm.getPage(file, pageId).getPage();
+        if (!(p instanceof BTreePage b)) {
+            throw new IllegalStateException("not a b-tree page: " + file + " #" + pageId);
         }
+        return b;
+    }
 
-        return result;
+    /**
+     * Новая страница; root — изменяемая копия корня под защёлкой.
+     */
+    private BTreePage allocate(BTreePage root, boolean leaf) {
+        int pageId = root.pageCount();
+        root.setPageCount(pageId + 1);
+        return newNode(pageId, leaf);
     }
 
-    @Override
-    public List<TID> searchGreaterThan(Comparable value, boolean inclusive) {
-        if (value == null) throw new IllegalArgumentException("value is null");
+    /**
+     * Пустой узел; при строковой ведущей колонке узлы хранят общее начало
+     * строк один раз ({@link BTreePage#setPrefixField}).
+     */
+    private BTreePage newNode(int pageId, boolean leaf) {
+        BTreePage n = new BTreePage(pageId, bpm.getPageSize(), leaf);
+        compressPrefix(n);
+        return n;
+    }
 
-        List<TID> result = new ArrayList<>();
-        BPlusTreeNode node = findLeaf(value);
+    private void compressPrefix(BTreePage n) {
+        if (keyTypes.get(0) == KeyType.VARCHAR) {
+            n.setPrefixField(n.isLeaf() ? 0 : Integer.BYTES);
+        }
+    }
 
-        while (node != null) {
-            for (int i = 0; i < node.numKeys; i++) {
-                Comparable k = node.keys[i];
-                int c = cmp(k, value);
+    private void save(BTreePage p) {
+        bpm.updatePage(file, p.getPageId(), p);
+        if (flushOnWrite) {
+            bpm.flushPage(file, p.getPageId());
+        }
+    }
 
-                if (c > 0 || (inclusive && c == 0)) {
-                    result.add((TID) node.pointers[i]);
-                }
+    // ======= SEARCH =======
+
+    /**
+     * Ключ поиска в записи разделителя: [значения ведущих колонок][TID].
+     * Колонок меньше, чем в ключе индекса, только у границ диапазона.
+     */
+    private record SearchKey(byte[] bytes, int columns) { }
+
+    private SearchKey searchKey(Comparable<?> key, TID tid) {
+        byte[] k = key instanceof CompositeKey c && c.size() < keyTypes.size()
+                ? encodeAll(keyTypes.subList(0, c.size()), c.parts())
+                : encodeKey(key);
+        byte[] out = Arrays.copyOf(k, k.length + TID_BYTES);
+        ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(k.length, tid.pageId())
+                .putShort(k.length + Integer.BYTES, tid.slotId());
+        int columns = key instanceof CompositeKey c ? c.size() : 1;
+        return new SearchKey(out, columns);
+    }
+
+    /**
+     * Первая позиция листа, где запись не меньше key.
+     */
+    private int lowerBound(BTreePage leaf, SearchKey key) {
+        int lo = 0;
+        int hi = leaf.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(leaf.read(mid), 0, key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
             }
-            node = node.rightSiblingPageId == -1 ? null : readNode(node.rightSiblingPageId);
         }
+        return lo;
+    }
 
-        return result;
+    /**
+     * Сравнивает запись [ключ][TID] с позиции off с ключом поиска по байтам,
+     * не декодируя значения (см. {@link KeyType#compare}).
+     */
+    private int compare(byte[] entry, int off, SearchKey key) {
+        int c = compareKey(entry, off, key);
+        if (c != 0) return c;
+        int t = off + keyWidth(entry, off);
+        int kt = key.bytes().length - TID_BYTES;
+        c = Integer.compare(intAt(entry, t), intAt(key.bytes(), kt));
+        return c != 0 ? c : Short.compare(shortAt(entry, t + Integer.BYTES), shortAt(key.bytes(), kt + Integer.BYTES));
     }
 
-    @Override
-    public List<TID> searchLessThan(Comparable value, boolean inclusive) {
-        if (value == null) throw new IllegalArgumentException("value is null");
+    /**
+     * Сравнивает только колонки ключа поиска: более короткий ключ равен
+     * всем ключам, которые он начинает, как {@link CompositeKey}.
+     */
+    private int compareKey(byte[] entry, int off, SearchKey key) {
+        byte[] k = key.bytes();
+        int koff = 0;
+        for (int i = 0; i < key.columns(); i++) {
+            KeyType t = keyTypes.get(i);
+            int c = t.compare(entry, off, k, koff);
+            if (c != 0) return c;
+            off += t.width(entry, off);
+            koff += t.width(k, koff);
+        }
+        return 0;
+    }
 
-        List<TID> result = new ArrayList<>();
-        BPlusTreeNode node = leftmostLeaf();
+    /**
+     * Спуск к листу с проверкой версий (см. {@link Int64BPlusTreeIndex}): в
+     * каждом узле — потомок правее всех разделителей, для которых goRight
+     * истинно (предикат монотонен по порядку разделителей). Заполняет от
+     * корня pages, stamps и positions; возвращает глубину листа или -1, если
+     * узел на пути сменился.
+     */
+    private int descend(Predicate<byte[]> goRight, BTreePage[] pages, long[] stamps, int[] positions) {
+        StampedLock latch = latches.of(ROOT);
+        long s = latch.tryOptimisticRead();
+        if (s == 0) return -1;
+        BTreePage n = root();
+        for (int depth = 0; depth < NodeLatches.MAX_HEIGHT; depth++) {
+            pages[depth] = n;
+            stamps[depth] = s;
+            if (n.isLeaf()) {
+                return latch.validate(s) ? depth : -1;
+            }
+            int lo = 0;
+            int hi = n.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (goRight.test(n.read(mid))) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            positions[depth] = lo;
+            int childId = lo == 0 ? n.leftmostChild() : childOf(n.read(lo - 1));
+            StampedLock childLatch = latches.of(childId);
+            long cs = childLatch.tryOptimisticRead();
+            if (cs == 0 || !latch.validate(s)) return -1;
+            n = node(childId);
+            latch = childLatch;
+            s = cs;
+        }
+        throw new IllegalStateException("b-tree is too deep: " + file);
+    }
 
-        while (node != null) {
-            for (int i = 0; i < node.numKeys; i++) {
-                Comparable k = node.keys[i];
-                int c = cmp(k, value);
+    /**
+     * Обход листов вперёд по правым ссылкам от снимка листа — записи,
+     * перенесённые разделением правее, встретятся дальше — или назад: левый
+     * сосед находится спуском к последней записи меньше нижней границы
+     * текущего листа.
+     */
+    private final class Cursor implements IndexCursor {
+        private final SearchKey from;
+        private final SearchKey to;
+        private final boolean backward;
+
+        private final BTreePage[] pages = new BTreePage[NodeLatches.MAX_HEIGHT];
+        private final long[] stamps = new long[NodeLatches.MAX_HEIGHT];
+        private final int[] positions = new int[NodeLatches.MAX_HEIGHT];
+
+        private BTreePage leaf;
+        private byte[] lowFence;
+        private int pos;
+        private Comparable<?> key;
+        private byte[] entry;
+        /** TID списка текущей записи, ещё не выданные: позиции [postingAt, postingEnd). */
+        private long[] posting;
+        private int postingAt;
+        private int postingEnd;
+
+        Cursor(SearchKey from, SearchKey to, boolean backward) {
+            this.from = from;
+            this.to = to;
+            this.backward = backward;
+
+            if (backward) {
+                enter(sep -> to == null || compare(sep, Integer.BYTES, to) < 0);
+                pos = (to == null ? leaf.size() : lowerBound(leaf, to)) - 1;
+            } else {
+                enter(sep -> from != null && compare(sep, Integer.BYTES, from) < 0);
+                pos = from == null ? 0 : lowerBound(leaf, from);
+            }
+        }
 
-                if (c < 0 || (inclusive && c == 0)) {
-                    result.add((TID) node.pointers[i]);
-                } else {
-                    return result;
+        @Override
+        public TID next() {
+            if (postingAt < postingEnd) {
+                return unpack(posting[backward ? --postingEnd : postingAt++]);
+            }
+            while (leaf != null) {
+                if (!backward && pos < leaf.size()) {
+                    return emit(leaf.read(pos++), to, 1);
+                }
+                if (backward && pos >= 0) {
+                    return emit(leaf.read(pos--), from, -1);
                 }
+                step();
             }
-            node = node.rightSiblingPageId == -1 ? null : readNode(node.rightSiblingPageId);
+            return null;
         }
 
-        return result;
-    }
+        @Override
+        public Comparable<?> key() {
+            return key;
+        }
 
-    @Override
-    public List<TID> scanAll() {
-        List<TID> result = new ArrayList<>();
-        BPlusTreeNode node = leftmostLeaf();
+        @Override
+        public List<Object> included() {
+            return entry == null ? List.of() : includedOf(entry);
+        }
 
-        while (node != null) {
-            for (int i = 0; i < node.numKeys; i++) {
-                result.add((TID) node.pointers[i]);
+        /**
+         * Запись, если она не вышла за границу bound по направлению sign.
+         */
+        private TID emit(byte[] e, SearchKey bound, int sign) {
+            if (bound != null && Integer.signum(compare(e, 0, bound)) == sign) {
+                leaf = null;
+                return null;
             }
-            node = node.rightSiblingPageId == -1 ? null : readNode(node.rightSiblingPageId);
+            key = decodeKey(e, 0);
+            entry = e;
+            if (!isPosting(e)) {
+                return tidOf(e, keyWidth(e, 0));
+            }
+            posting = tidsOf(e);
+            postingAt = 0;
+            postingEnd = posting.length;
+            return unpack(posting[backward ? --postingEnd : postingAt++]);
         }
 
-        return result;
-    }
+        private void step() {
+            if (!backward) {
+                leaf = leaf.rightLink() == BTreePage.NO_PAGE ? null : node(leaf.rightLink());
+                pos = 0;
+                return;
+            }
+            if (lowFence == null) {
+                leaf = null;
+                return;
+            }
+            SearchKey fence = new SearchKey(lowFence, keyTypes.size());
+            enter(sep -> compare(sep, Integer.BYTES, fence) < 0);
+            pos = leaf.size() - 1;
+        }
 
-    private void split(BPlusTreeNode node) {
-        if (node.isLeaf) splitLeaf(node);
-        else splitInternal(node);
+        /**
+         * Спуск до проверенного листа и его нижняя граница — ближайший
+         * разделитель слева на пути ({@code null} у самого левого листа).
+         */
+        private void enter(Predicate<byte[]> goRight) {
+            int depth;
+            while ((depth = descend(goRight, pages, stamps, positions)) < 0) {
+                Thread.onSpinWait();
+            }
+            lowFence = null;
+            for (int l = depth - 1; l >= 0 && lowFence == null; l--) {
+                if (positions[l] > 0) {
+                    lowFence = separatorOf(pages[l].read(positions[l] - 1));
+                }
+            }
+            leaf = pages[depth];
+        }
     }
 
-    private void splitLeaf(BPlusTreeNode leaf) {
-        int mid = order;
+    // ======= INSERT =======
+
+    /**
+     * Одна попытка вставки, как {@code Int64BPlusTreeIndex.tryInsert}: защёлки
+     * снизу вверх из меток спуска, страницы выделяются под защёлкой корня,
+     * копии публикуются до снятия защёлок. Предок захватывается, если
+     * разделитель наибольшей ширины в нём может не поместиться.
+     */
+    private boolean tryInsert(SearchKey key, TID tid, byte[] entry,
+                              BTreePage[] pages, long[] stamps, int[] positions) {
+        int depth = descend(sep -> compare(sep, Integer.BYTES, key) <= 0, pages, stamps, positions);
+        if (depth < 0) return false;
+        BTreePage leaf = pages[depth];
+        int pos = lowerBound(leaf, key);
+        if (pos < leaf.size() && compare(leaf.read(pos), 0, key) == 0) {
+            return true;
+        }
+        LeafChange change = leafChange(leaf, pos, entry, tid);
+        if (change == null) {
+            return true;
+        }
+        // со сжатием префикса место под запись зависит от соседей, так что лист меняется сразу в копии
+        BTreePage changed = leaf.copy();
+        change.apply(changed);
+
+        int maxSeparator = Integer.BYTES + maxKeyWidth + TID_BYTES;
+        boolean splits = changed.overflows();
+        long[] locks = new long[depth + 1];
+        int top = depth;
+        while (true) {
+            locks[top] = latches.of(pages[top].getPageId()).tryConvertToWriteLock(stamps[top]);
+            if (locks[top] == 0) {
+                unlock(pages, locks, top + 1, depth);
+                return false;
+            }
+            boolean full = top == depth ? splits : pages[top].freeSpace() < pages[top].insertReserve(maxSeparator);
+            if (top == 0 || !full) break;
+            top--;
+        }
+        long rootLock = splits && top > 0 ? latches.of(ROOT).writeLock() : 0;
+        try {
+            BTreePage[] copies = new BTreePage[depth + 1];
+            for (int l = top; l < depth; l++) {
+                copies[l] = pages[l].copy();
+            }
+            copies[depth] = changed;
+            BTreePage meta = top == 0 ? copies[0] : rootLock != 0 ? root().copy() : null;
+            List<BTreePage> created = new ArrayList<>(2);
+
+            for (int l = depth; copies[l].overflows(); l--) {
+                if (l == 0) {
+                    splitRoot(copies[0], created);
+                    break;
+                }
+                BTreePage n = copies[l];
+                BTreePage right = allocate(meta, n.isLeaf());
+                byte[] separator = moveUpperHalf(n, right);
+                if (n.isLeaf()) {
+                    right.setRightLink(n.rightLink());
+                    n.setRightLink(right.getPageId());
+                }
+                created.add(right);
 
-        BPlusTreeNode right = new BPlusTreeNode();
-        right.pageId = allocatePage();
-        right.isLeaf = true;
-        right.keys = new Comparable[2 * order];
-        right.pointers = new Object[2 * order];
+                BTreePage parent = copies[l - 1];
+                SearchKey sepKey = new SearchKey(separator, keyTypes.size());
+                int at = 0;
+                while (at < parent.size() && compare(parent.read(at), Integer.BYTES, sepKey) < 0) {
+                    at++;
+                }
+                parent.insert(at, internalEntry(right.getPageId(), separator));
+            }
 
-        for (int i = mid; i < leaf.numKeys; i++) {
-            right.keys[i - mid] = leaf.keys[i];
-            right.pointers[i - mid] = leaf.pointers[i];
-            leaf.keys[i] = null;
-            leaf.pointers[i] = null;
+            for (BTreePage p : created) {
+                save(p);
+            }
+            for (int l = depth; l >= top; l--) {
+                save(copies[l]);
+            }
+            if (meta != null && top > 0) {
+                save(meta);
+            }
+        } finally {
+            unlock(pages, locks, top, depth);
+            if (rootLock != 0) {
+                latches.of(ROOT).unlockWrite(rootLock);
+            }
         }
+        return true;
+    }
 
-        right.numKeys = leaf.numKeys - mid;
-        leaf.numKeys = mid;
+    /**
+     * Изменение листа при вставке: записи entries встают на место replaced
+     * записей начиная с позиции at.
+     */
+    private record LeafChange(int at, int replaced, byte[]... entries) {
+        void apply(BTreePage leaf) {
+            for (int i = 0; i < replaced; i++) {
+                leaf.delete(at);
+            }
+            for (int i = 0; i < entries.length; i++) {
+                leaf.insert(at + i, entries[i]);
+            }
+        }
+    }
 
-        right.rightSiblingPageId = leaf.rightSiblingPageId;
-        right.leftSiblingPageId = leaf.pageId;
-        leaf.rightSiblingPageId = right.pageId;
+    /**
+     * Куда ляжет новая запись entry с TID tid перед позицией pos: в список
+     * предыдущей записи того же ключа (её TID меньше), в список следующей
+     * или отдельной записью. {@code null} — TID уже есть в списке.
+     */
+    private LeafChange leafChange(BTreePage leaf, int pos, byte[] entry, TID tid) {
+        if (postingLimit == 0) {
+            return new LeafChange(pos, 0, entry);
+        }
+        long packed = pack(tid);
+        if (pos > 0 && sameKey(leaf.read(pos - 1), entry)) {
+            byte[] prev = leaf.read(pos - 1);
+            long[] tids = tidsOf(prev);
+            int at = Arrays.binarySearch(tids, packed);
+            if (at >= 0) return null;
+            at = -at - 1;
+            long[] merged = new long[tids.length + 1];
+            System.arraycopy(tids, 0, merged, 0, at);
+            merged[at] = packed;
+            System.arraycopy(tids, at, merged, at + 1, tids.length - at);
+            byte[] whole = posting(prev, merged, 0, merged.length);
+            if (whole.length <= postingLimit) {
+                return new LeafChange(pos - 1, 1, whole);
+            }
+            if (at == tids.length) {
+                // TID больше всех в полном списке — с него начинается новый
+                return new LeafChange(pos, 0, entry);
+            }
+            int half = merged.length / 2;
+            return new LeafChange(pos - 1, 1, posting(prev, merged, 0, half),
+                    posting(prev, merged, half, merged.length));
+        }
+        if (pos < leaf.size() && sameKey(leaf.read(pos), entry)) {
+            byte[] next = leaf.read(pos);
+            long[] tids = tidsOf(next);
+            int at = Arrays.binarySearch(tids, packed);
+            if (at >= 0) return null;
+            at = -at - 1;
+            long[] merged = new long[tids.length + 1];
+            System.arraycopy(tids, 0, merged, 0, at);
+            merged[at] = packed;
+            System.arraycopy(tids, at, merged, at + 1, tids.length - at);
+            byte[] whole = posting(next, merged, 0, merged.length);
+            if (whole.length <= postingLimit) {
+                return new LeafChange(pos, 1, whole);
+            }
+        }
+        return new LeafChange(pos, 0, entry);
+    }
 
-        if (right.rightSiblingPageId != -1) {
-            BPlusTreeNode oldRight = readNode(right.rightSiblingPageId);
-            if (oldRight != null) oldRight.leftSiblingPageId = right.pageId;
+    private void unlock(BTreePage[] pages, long[] locks, int from, int to) {
+        for (int l = from; l <= to; l++) {
+            latches.of(pages[l].getPageId()).unlockWrite(locks[l]);
         }
+    }
 
-        nodes.put(right.pageId, right);
+    private void splitRoot(BTreePage root, List<BTreePage> created) {
+        BTreePage left = allocate(root, root.isLeaf());
+        BTreePage right = allocate(root, root.isLeaf());
 
-        Comparable separator = right.keys[0];
+        left.setLeftmostChild(root.leftmostChild());
+        byte[] separator = moveUpperHalf(root, right);
+        for (byte[] e : root.truncate(0)) {
+            left.write(e);
+        }
+        if (root.isLeaf()) {
+            left.setRightLink(right.getPageId());
+        }
 
-        if (leaf.parentPageId == -1) {
-            BPlusTreeNode root = new BPlusTreeNode();
-            root.pageId = allocatePage();
-            root.isLeaf = false;
-            root.keys = new Comparable[2 * order];
-            root.pointers = new Object[2 * order + 1];
+        root.reset(false);
+        compressPrefix(root);
+        root.setLeftmostChild(left.getPageId());
+        root.write(internalEntry(right.getPageId(), separator));
 
-            root.keys[0] = separator;
-            root.pointers[0] = leaf.pageId;
-            root.pointers[1] = right.pageId;
-            root.numKeys = 1;
+        created.add(left);
+        created.add(right);
+    }
 
-            leaf.parentPageId = root.pageId;
-            right.parentPageId = root.pageId;
+    /**
+     * Переносит верхнюю половину записей n (по занятому месту, см.
+     * {@link BTreePage#splitPoint}) в пустой узел right и возвращает
+     * разделитель [ключ][TID]. У листьев разделитель укорочен
+     * ({@link #separatorBetween}); во внутреннем узле средняя запись уходит
+     * наверх: её потомок становится крайним левым в right.
+     */
+    private byte[] moveUpperHalf(BTreePage n, BTreePage right) {
+        List<byte[]> upper = n.truncate(n.splitPoint());
+        if (n.isLeaf()) {
+            for (byte[] e : upper) {
+                right.write(e);
+            }
+            return separatorBetween(n.read(n.size() - 1), upper.get(0));
+        }
 
-            nodes.put(root.pageId, root);
-            rootPageId = root.pageId;
-            height++;
-        } else {
-            right.parentPageId = leaf.parentPageId;
-            BPlusTreeNode parent = readNode(leaf.parentPageId);
-            insertIntoInternal(parent, separator, right.pageId);
+        byte[] middle = upper.get(0);
+        right.setLeftmostChild(childOf(middle));
+        for (int i = 1; i < upper.size(); i++) {
+            right.write(upper.get(i));
         }
+        return separatorOf(middle);
     }
 
-    private void splitInternal(BPlusTreeNode node) {
-        int mid = order;
+    // ======= BULK BUILD =======
 
-        Comparable promote = node.keys[mid];
+    private record Entry(Comparable<?> key, TID tid, byte[] payload) { }
 
-        BPlusTreeNode right = new BPlusTreeNode();
-        right.pageId = allocatePage();
-        right.isLeaf = false;
-        right.keys = new Comparable[2 * order];
-        right.pointers = new Object[2 * order + 1];
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static final Comparator<Entry> ENTRY_ORDER = (a, b) -> {
+        int c = ((Comparable) a.key()).compareTo(b.key());
+        if (c != 0) return c;
+        c = Integer.compare(a.tid().pageId(), b.tid().pageId());
+        return c != 0 ? c : Short.compare(a.tid().slotId(), b.tid().slotId());
+    };
+
+    /** Порция хранит записи в формате листа: [длина (short)][ключ][TID][значения INCLUDE]. */
+    private final ExternalSorter.Codec<Entry> entryCodec = new ExternalSorter.Codec<>() {
+        @Override
+        public void write(DataOutput out, Entry e) throws IOException {
+            byte[] b = leafEntry(e.key(), e.tid(), e.payload());
+            out.writeShort(b.length);
+            out.write(b);
+        }
 
-        int rightKeys = 0;
-        for (int i = mid + 1; i < node.numKeys; i++) {
-            right.keys[rightKeys++] = node.keys[i];
-            node.keys[i] = null;
+        @Override
+        public Entry read(DataInput in) throws IOException {
+            byte[] b = new byte[in.readUnsignedShort()];
+            in.readFully(b);
+            int keyWidth = keyWidth(b, 0);
+            return new Entry(decodeKey(b, 0), tidOf(b, keyWidth),
+                    Arrays.copyOfRange(b, keyWidth + TID_BYTES, b.length));
         }
 
-        int rightPtrs = 0;
-        for (int i = mid + 1; i <= node.numKeys; i++) {
-            right.pointers[rightPtrs++] = node.pointers[i];
-            node.pointers[i] = null;
+        @Override
+        public int size(Entry e) {
+            return maxKeyWidth + TID_BYTES + e.payload().length;
+        }
+    };
+
+    /**
+     * Сборка снизу вверх из отсортированных записей, как в
+     * {@link Int64BPlusTreeIndex}: на каждом уровне открыт один узел,
+     * заполненный до своей доли байт узел получает следующий номер страницы и
+     * отдаёт родителю нижнюю границу, лист пишется после следующего за ним,
+     * верхний открытый узел становится корнем на странице 0.
+     */
+    private final class Builder implements IndexBuilder {
+        private final ExternalSorter<Entry> sorter;
+        private final int leafBudget;
+        private final int internalBudget;
+
+        private final List<BTreePage> open = new ArrayList<>();
+        private final List<byte[]> lows = new ArrayList<>();
+        private BTreePage lastLeaf;
+        private int pageCount = 1;
+
+        Builder(int fillFactor) {
+            if (fillFactor < 10 || fillFactor > 100) {
+                throw new IllegalArgumentException("fillfactor must be between 10 and 100: " + fillFactor);
+            }
+            int usable = bpm.getPageSize() - BTreePage.HEADER_SIZE;
+            this.sorter = new ExternalSorter<>(ENTRY_ORDER, entryCodec, file, ExternalSorter.DEFAULT_MEMORY);
+            this.leafBudget = BTreePage.HEADER_SIZE + usable * fillFactor / 100;
+            this.internalBudget = BTreePage.HEADER_SIZE + usable * NONLEAF_FILLFACTOR / 100;
         }
 
-        right.numKeys = rightKeys;
-        node.numKeys = mid;
+        @Override
+        public void add(Comparable key, TID tid) {
+            add(key, tid, List.of());
+        }
 
-        for (int i = 0; i <= right.numKeys; i++) {
-            Object ptr = right.pointers[i];
-            if (ptr instanceof Integer pid) {
-                BPlusTreeNode child = readNode(pid);
-                if (child != null) child.parentPageId = right.pageId;
+        @Override
+        public void add(Comparable key, TID tid, List<?> included) {
+            if (key == null) throw new IllegalArgumentException("key is null");
+            if (tid == null) throw new IllegalArgumentException("tid is null");
+            sorter.add(new Entry(normalizeKey(key), tid, payload(included)));
+        }
+
+        @Override
+        public void finish() {
+            Entry prev = null;
+            byte[] run = null;
+            long[] tids = new long[16];
+            int count = 0;
+            for (Iterator<Entry> it = sorter.sorted(); it.hasNext(); ) {
+                Entry e = it.next();
+                if (prev != null && ENTRY_ORDER.compare(prev, e) == 0) continue;
+                prev = e;
+                byte[] entry = leafEntry(e.key(), e.tid(), e.payload());
+                if (postingLimit == 0) {
+                    push(0, entry, BTreePage.NO_PAGE);
+                    continue;
+                }
+                // подряд идущие TID одного ключа собираются в списки не длиннее postingLimit
+                if (run != null && sameKey(run, entry)) {
+                    if (count == tids.length) tids = Arrays.copyOf(tids, count * 2);
+                    tids[count++] = pack(e.tid());
+                    if (posting(run, tids, 0, count).length <= postingLimit) continue;
+                    count--;
+                }
+                if (run != null) {
+                    push(0, posting(run, tids, 0, count), BTreePage.NO_PAGE);
+                }
+                run = entry;
+                tids[0] = pack(e.tid());
+                count = 1;
+            }
+            if (run != null) {
+                push(0, posting(run, tids, 0, count), BTreePage.NO_PAGE);
+            }
+            for (int level = 0; level < open.size() - 1; level++) {
+                close(level);
             }
+            if (lastLeaf != null) {
+                save(lastLeaf);
+            }
+            BTreePage root = open.isEmpty()
+                    ? newNode(ROOT, true)
+                    : copy(open.get(open.size() - 1), ROOT);
+            root.setPageCount(pageCount);
+            save(root);
         }
 
-        nodes.put(right.pageId, right);
+        @Override
+        public void close() {
+            sorter.close();
+        }
 
-        if (node.parentPageId == -1) {
-            BPlusTreeNode root = new BPlusTreeNode();
-            root.pageId = allocatePage();
-            root.isLeaf = false;
-            root.keys = new Comparable[2 * order];
-            root.pointers = new Object[2 * order + 1];
+        /**
+         * Добавляет в открытый узел уровня level запись листа или, во
+         * внутренний узел, разделитель separator потомка child; первый потомок
+         * становится крайним левым.
+         */
+        private void push(int level, byte[] separator, int child) {
+            byte[] low = level == 0 ? leafSeparator(separator) : separator;
+            if (level == open.size()) {
+                open.add(newNode(ROOT, level == 0));
+                lows.add(low);
+            }
+            BTreePage n = open.get(level);
+            byte[] entry = n.isLeaf() ? separator : internalEntry(child, separator);
+            int size = n.insertCost(entry);
+            int used = bpm.getPageSize() - n.freeSpace();
+            if (n.size() > 0 && (used + size > (n.isLeaf() ? leafBudget : internalBudget) || size > n.freeSpace())) {
+                if (n.isLeaf()) {
+                    low = separatorBetween(n.read(n.size() - 1), separator);
+                }
+                close(level);
+                lows.set(level, low);
+            }
+            if (!n.isLeaf() && n.leftmostChild() == BTreePage.NO_PAGE) {
+                n.setLeftmostChild(child);
+            } else {
+                n.write(entry);
+            }
+        }
 
-            root.keys[0] = promote;
-            root.pointers[0] = node.pageId;
-            root.pointers[1] = right.pageId;
-            root.numKeys = 1;
+        private void close(int level) {
+            BTreePage n = open.get(level);
+            BTreePage page = copy(n, pageCount++);
+            if (page.isLeaf()) {
+                if (lastLeaf != null) {
+                    lastLeaf.setRightLink(page.getPageId());
+                    save(lastLeaf);
+                }
+                lastLeaf = page;
+            } else {
+                save(page);
+            }
+            n.reset(n.isLeaf());
+            push(level + 1, lows.get(level), page.getPageId());
+        }
 
-            node.parentPageId = root.pageId;
-            right.parentPageId = root.pageId;
+        private BTreePage copy(BTreePage n, int pageId) {
+            BTreePage page = newNode(pageId, n.isLeaf());
+            page.setLeftmostChild(n.leftmostChild());
+            for (byte[] e : n.truncate(0)) {
+                page.write(e);
+            }
+            return page;
+        }
+    }
 
-            nodes.put(root.pageId, root);
-            rootPageId = root.pageId;
-            height++;
-        } else {
-            right.parentPageId = node.parentPageId;
-            BPlusTreeNode parent = readNode(node.parentPageId);
-            insertIntoInternal(parent, promote, right.pageId);
+    // ======= KEYS =======
+
+    /**
+     * Ключ в типах колонок. Одиночное значение для составного индекса —
+     * ключ из одной ведущей колонки; короче полного бывают только границы диапазона.
+     */
+    private Comparable<?> normalizeKey(Comparable<?> key) {
+        if (keyTypes.size() == 1) return keyTypes.get(0).normalize(key);
+        CompositeKey k = key instanceof CompositeKey c ? c : new CompositeKey(List.of(key));
+        if (k.size() > keyTypes.size()) {
+            throw new IllegalArgumentException("index " + indexName + " has " + keyTypes.size()
+                    + " key columns, got: " + k);
+        }
+        List<Comparable<?>> parts = new ArrayList<>(k.size());
+        for (int i = 0; i < k.size(); i++) {
+            parts.add(keyTypes.get(i).normalize(k.get(i)));
         }
+        return new CompositeKey(parts);
     }
 
-    private void insertIntoInternal(BPlusTreeNode parent, Comparable key, int rightPageId) {
-        int i = 0;
-        while (i < parent.numKeys && cmp(parent.keys[i], key) < 0) {
-            i++;
+    private byte[] encodeKey(Comparable<?> key) {
+        if (keyTypes.size() == 1) return keyTypes.get(0).encode(key);
+        if (!(key instanceof CompositeKey k) || k.size() != keyTypes.size()) {
+            throw new IllegalArgumentException("index " + indexName + " needs values of all key columns "
+                    + columnNames + ", got: " + key);
         }
+        return encodeAll(keyTypes, k.parts());
+    }
 
-        for (int j = parent.numKeys; j > i; j--) {
-            parent.keys[j] = parent.keys[j - 1];
+    private Comparable<?> decodeKey(byte[] buf, int off) {
+        if (keyTypes.size() == 1) return keyTypes.get(0).decode(buf, off);
+        List<Comparable<?>> parts = new ArrayList<>(keyTypes.size());
+        for (KeyType t : keyTypes) {
+            parts.add(t.decode(buf, off));
+            off += t.width(buf, off);
         }
-        for (int j = parent.numKeys + 1; j > i + 1; j--) {
-            parent.pointers[j] = parent.pointers[j - 1];
+        return new CompositeKey(parts);
+    }
+
+    private int keyWidth(byte[] buf, int off) {
+        int width = 0;
+        for (KeyType t : keyTypes) {
+            width += t.width(buf, off + width);
         }
+        return width;
+    }
 
-        parent.keys[i] = key;
-        parent.pointers[i + 1] = rightPageId;
-        parent.numKeys++;
+    // ======= ENTRIES =======
 
-        BPlusTreeNode rightChild = readNode(rightPageId);
-        if (rightChild != null) rightChild.parentPageId = parent.pageId;
+    private byte[] leafEntry(Comparable<?> key, TID tid, byte[] payload) {
+        byte[] k = encodeKey(key);
+        ByteBuffer bb = ByteBuffer.allocate(k.length + TID_BYTES + payload.length).order(ByteOrder.LITTLE_ENDIAN);
+        bb.put(k);
+        bb.putInt(tid.pageId());
+        bb.putShort(tid.slotId());
+        bb.put(payload);
+        return bb.array();
+    }
 
-        if (parent.numKeys >= 2 * order) {
-            split(parent);
+    /**
+     * Значения INCLUDE подряд, каждое в записи своего типа.
+     */
+    private byte[] payload(List<?> included) {
+        if (included.size() != includedTypes.size()) {
+            throw new IllegalArgumentException("index " + indexName + " expects " + includedTypes.size()
+                    + " INCLUDE values, got " + included.size());
+        }
+        if (included.isEmpty()) return NO_PAYLOAD;
+        for (int i = 0; i < included.size(); i++) {
+            if (!(included.get(i) instanceof Comparable<?>)) {
+                throw new IllegalArgumentException("INCLUDE value is not Comparable for column: " + includedColumns.get(i));
+            }
         }
+        return encodeAll(includedTypes, included);
     }
 
-    private BPlusTreeNode findLeaf(Comparable key) {
-        BPlusTreeNode node = readNode(rootPageId);
-        while (!node.isLeaf) {
-            int i = 0;
-            while (i < node.numKeys && cmp(key, node.keys[i]) >= 0) {
-                i++;
-            }
-            node = readNode((int) node.pointers[i]);
+    private static byte[] encodeAll(List<KeyType> types, List<?> values) {
+        byte[][] parts = new byte[values.size()][];
+        int total = 0;
+        for (int i = 0; i < parts.length; i++) {
+            KeyType t = types.get(i);
+            parts[i] = t.encode(t.normalize((Comparable<?>) values.get(i)));
+            total += parts[i].length;
+        }
+        byte[] out = new byte[total];
+        int off = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, out, off, part.length);
+            off += part.length;
         }
-        return node;
+        return out;
     }
 
-    private BPlusTreeNode leftmostLeaf() {
-        BPlusTreeNode node = readNode(rootPageId);
-        while (!node.isLeaf) {
-            node = readNode((int) node.pointers[0]);
+    private List<Object> includedOf(byte[] leafEntry) {
+        if (includedTypes.isEmpty()) return List.of();
+        List<Object> out = new ArrayList<>(includedTypes.size());
+        int off = keyWidth(leafEntry, 0) + TID_BYTES;
+        for (KeyType t : includedTypes) {
+            out.add(t.decode(leafEntry, off));
+            off += t.width(leafEntry, off);
         }
-        return node;
+        return out;
     }
 
-    private int allocatePage() {
-        return nextPageId++;
+    /**
+     * Разделитель из записи листа — без значений INCLUDE и списка TID.
+     */
+    private byte[] leafSeparator(byte[] leafEntry) {
+        int width = keyWidth(leafEntry, 0) + TID_BYTES;
+        return leafEntry.length == width ? leafEntry : Arrays.copyOf(leafEntry, width);
     }
 
-    private BPlusTreeNode readNode(int pageId) {
-        return nodes.get(pageId);
+    /**
+     * Кратчайший разделитель s записей листа соседних узлов: left &lt; s &lt;= right.
+     * Колонки до первой различающейся берутся из right, различающаяся —
+     * укорачивается ({@link KeyType#between}), следующие — наименьшие значения
+     * типа, TID — меньше любого. При равных ключах разделитель — ключ и TID right.
+     */
+    private byte[] separatorBetween(byte[] left, byte[] right) {
+        int lOff = 0;
+        int rOff = 0;
+        int i = 0;
+        while (i < keyTypes.size() && keyTypes.get(i).compare(left, lOff, right, rOff) == 0) {
+            lOff += keyTypes.get(i).width(left, lOff);
+            rOff += keyTypes.get(i).width(right, rOff);
+            i++;
+        }
+        if (i == keyTypes.size()) return leafSeparator(right);
+        byte[][] parts = new byte[keyTypes.size() + 1][];
+        parts[0] = Arrays.copyOf(right, rOff);
+        parts[1] = keyTypes.get(i).between(left, lOff, right, rOff);
+        for (int j = i + 1; j < keyTypes.size(); j++) {
+            parts[j - i + 1] = keyTypes.get(j).lowest();
+        }
+        int total = TID_BYTES;
+        for (int j = 0; j < keyTypes.size() - i + 1; j++) {
+            total += parts[j].length;
+        }
+        byte[] out = new byte[total];
+        int off = 0;
+        for (int j = 0; j < keyTypes.size() - i + 1; j++) {
+            System.arraycopy(parts[j], 0, out, off, parts[j].length);
+            off += parts[j].length;
+        }
+        ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(off, MIN_TID.pageId())
+                .putShort(off + Integer.BYTES, MIN_TID.slotId());
+        return out;
     }
 
-    @Override
-    public String getName() {
-        return indexName;
+    // ======= POSTING LISTS =======
+
+    /**
+     * TID в long с тем же порядком, что в {@link #compare}: pageId в старших
+     * битах, slotId в младших 16 со сброшенным знаком — отрицательные слоты
+     * (LSM) идут раньше положительных, как в Short.compare.
+     */
+    private static long pack(TID tid) {
+        return (long) tid.pageId() << 16 | ((tid.slotId() ^ 0x8000) & 0xFFFF);
     }
 
-    @Override
-    public String getColumnName() {
-        return columnName;
+    private static TID unpack(long packed) {
+        return new TID((int) (packed >> 16), (short) (packed ^ 0x8000));
     }
 
-    @Override
-    public IndexType getType() {
-        return IndexType.BTREE;
+    /**
+     * Запись листа хранит больше одного TID.
+     */
+    private boolean isPosting(byte[] e) {
+        return postingLimit > 0 && e.length > keyWidth(e, 0) + TID_BYTES;
     }
 
-    @Override
-    public int getHeight() {
-        return height;
+    /**
+     * Ключи записей листа a и b совпадают: кодировка ключа однозначна, так
+     * что достаточно сравнить байты.
+     */
+    private boolean sameKey(byte[] a, byte[] b) {
+        int width = keyWidth(a, 0);
+        return width == keyWidth(b, 0) && Arrays.equals(a, 0, width, b, 0, width);
     }
 
-    @Override
-    public int getOrder() {
-        return order;
+    /**
+     * Есть ли (key, tid) в списке записи листа e.
+     */
+    private boolean contains(byte[] e, SearchKey key, TID tid) {
+        return isPosting(e) && compareKey(e, 0, key) == 0 && Arrays.binarySearch(tidsOf(e), pack(tid)) >= 0;
     }
 
-    @SuppressWarnings({ "rawtypes", "unchecked" })
-    private static int cmp(Comparable a, Comparable b) {
-        if (a == null && b == null) return 0;
-        if (a == null) return -1;
-        if (b == null) return 1;
-        return a.compareTo(b);
-    }
-
-    private static class BPlusTreeNode {
-        int pageId;
-        int parentPageId = -1;
-        boolean isLeaf;
-        int numKeys;
-        Comparable[] keys;
-        Object[] pointers;
-        int leftSiblingPageId = -1;
-        int rightSiblingPageId = -1;
-    }
-}
\ No newline at end of file
+    /**
+     * TID записи листа по возрастанию: первый и, если есть, остальные из списка.
+     */
+    private long[] tidsOf(byte[] e) {
+        int off = keyWidth(e, 0);
+        long first = pack(tidOf(e, off));
+        off += TID_BYTES;
+        if (off == e.length) return new long[] { first };
+        long[] out = new long[8];
+        out[0] = first;
+        int n = 1;
+        long prev = first;
+        while (off < e.length) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = e[off++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            prev += delta;
+            if (n == out.length) out = Arrays.copyOf(out, n * 2);
+            out[n++] = prev;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Запись листа с ключом записи keySource и TID tids[from, to) по возрастанию.
+     */
+    private byte[] posting(byte[] keySource, long[] tids, int from, int to) {
+        int width = keyWidth(keySource, 0);
+        byte[] out = new byte[width + TID_BYTES + 10 * (to - from - 1)];
+        System.arraycopy(keySource, 0, out, 0, width);
+        TID first = unpack(tids[from]);
+        ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(width, first.pageId())
+                .putShort(width + Integer.BYTES, first.slotId());
+        int off = width + TID_BYTES;
+        for (int i = from + 1; i < to; i++) {
+            long delta = tids[i] - tids[i - 1];
+            while ((delta & ~0x7FL) != 0) {
+                out[off++] = (byte) (delta & 0x7F | 0x80);
+                delta >>>= 7;
+            }
+            out[off++] = (byte) delta;
+        }
+        return off == out.length ? out : Arrays.copyOf(out, off);
+    }
+
+    private static byte[] internalEntry(int child, byte[] separator) {
+        ByteBuffer bb = ByteBuffer.allocate(Integer.BYTES + separator.length).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(child);
+        bb.put(separator);
+        return bb.array();
+    }
+
+    private static byte[] separatorOf(byte[] internalEntry) {
+        byte[] sep = new byte[internalEntry.length - Integer.BYTES];
+        System.arraycopy(internalEntry, Integer.BYTES, sep, 0, sep.length);
+        return sep;
+    }
+
+    private static int childOf(byte[] entry) {
+        return ByteBuffer.wrap(entry).order(ByteOrder.LITTLE_ENDIAN).getInt(0);
+    }
+
+    private static int intAt(byte[] b, int off) {
+        return b[off] & 0xFF | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16 | b[off + 3] << 24;
+    }
+
+    private static short shortAt(byte[] b, int off) {
+        return (short) (b[off] & 0xFF | b[off + 1] << 8);
+    }
+
+    private static TID tidOf(byte[] entry, int off) {
+        ByteBuffer bb = ByteBuffer.wrap(entry).order(ByteOrder.LITTLE_ENDIAN);
+        return new TID(bb.getInt(off), bb.getShort(off + Integer.BYTES));
+    }
+}
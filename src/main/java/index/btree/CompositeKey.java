@@ -0,0 +1,68 @@
+package index.btree;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Ключ составного индекса: значения колонок в порядке ключа, сравнение
+ * лексикографическое. Более короткий ключ равен всем ключам, которые он
+ * начинает, — так задаются границы по ведущим колонкам: (5) от (5, 0) до
+ * (5, ∞). Поэтому порядок не согласован с {@link #equals}, как у BigDecimal.
+ */
+public final class CompositeKey implements Comparable<CompositeKey> {
+
+    private final Comparable<?>[] parts;
+
+    public CompositeKey(List<? extends Comparable<?>> parts) {
+        Objects.requireNonNull(parts, "parts");
+        if (parts.isEmpty()) throw new IllegalArgumentException("composite key has no parts");
+        this.parts = parts.toArray(new Comparable<?>[0]);
+        for (Comparable<?> p : this.parts) {
+            if (p == null) throw new IllegalArgumentException("composite key part is null");
+        }
+    }
+
+    public int size() {
+        return parts.length;
+    }
+
+    public Comparable<?> get(int i) {
+        return parts[i];
+    }
+
+    public List<Comparable<?>> parts() {
+        return List.of(parts);
+    }
+
+    @Override
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public int compareTo(CompositeKey o) {
+        int n = Math.min(parts.length, o.parts.length);
+        for (int i = 0; i < n; i++) {
+            int c = ((Comparable) parts[i]).compareTo(o.parts[i]);
+            if (c != 0) return c;
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompositeKey k && Arrays.equals(parts, k.parts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(parts);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(parts[i]);
+        }
+        return sb.append(")").toString();
+    }
+}
@@ -0,0 +1,213 @@
+package index.btree;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Внешняя сортировка записей индекса. Записи копятся в памяти до бюджета,
+ * отсортированная порция сбрасывается в файл рядом с индексом, в конце
+ * порции сливаются по {@link #MERGE_ORDER} за проход. Файлы пишутся и
+ * читаются только последовательно; если всё поместилось в память, их нет.
+ */
+final class ExternalSorter<T> implements AutoCloseable {
+
+    /** Бюджет памяти на порцию. */
+    static final long DEFAULT_MEMORY = 64L << 20;
+
+    /** Сколько порций сливается за один проход. */
+    static final int MERGE_ORDER = 64;
+
+    /** Грубая оценка заголовков объектов одной записи в куче. */
+    private static final int RECORD_OVERHEAD = 48;
+
+    private static final int IO_BUFFER = 1 << 16;
+
+    /** Запись порции: размер в памяти оценивается по длине на диске. */
+    interface Codec<T> {
+        void write(DataOutput out, T record) throws IOException;
+
+        T read(DataInput in) throws IOException;
+
+        int size(T record);
+    }
+
+    private record Run(Path file, long count) { }
+
+    private final Comparator<? super T> order;
+    private final Codec<T> codec;
+    private final Path base;
+    private final long memory;
+
+    private final List<T> buffer = new ArrayList<>();
+    private long buffered;
+    private List<Run> runs = new ArrayList<>();
+    private final List<DataInputStream> readers = new ArrayList<>();
+    private int nextRun;
+
+    /**
+     * @param base файл, рядом с которым лежат порции ({@code base.sortN})
+     */
+    ExternalSorter(Comparator<? super T> order, Codec<T> codec, Path base, long memory) {
+        this.order = Objects.requireNonNull(order, "order");
+        this.codec = Objects.requireNonNull(codec, "codec");
+        this.base = Objects.requireNonNull(base, "base");
+        if (memory <= 0) throw new IllegalArgumentException("memory must be positive: " + memory);
+        this.memory = memory;
+    }
+
+    void add(T record) {
+        buffer.add(record);
+        buffered += codec.size(record) + RECORD_OVERHEAD;
+        if (buffered >= memory) {
+            spill();
+        }
+    }
+
+    /**
+     * Все записи по порядку. Вызывается один раз, после последнего {@link #add}.
+     */
+    Iterator<T> sorted() {
+        buffer.sort(order);
+        if (runs.isEmpty()) {
+            return buffer.iterator();
+        }
+        if (!buffer.isEmpty()) {
+            spill();
+        }
+        while (runs.size() > MERGE_ORDER) {
+            List<Run> merged = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += MERGE_ORDER) {
+                List<Run> group = runs.subList(i, Math.min(i + MERGE_ORDER, runs.size()));
+                merged.add(write(merge(group)));
+                closeReaders();
+                for (Run r : group) {
+                    delete(r.file());
+                }
+            }
+            runs = merged;
+        }
+        return merge(runs);
+    }
+
+    @Override
+    public void close() {
+        closeReaders();
+        for (Run r : runs) {
+            delete(r.file());
+        }
+        runs = new ArrayList<>();
+        buffer.clear();
+    }
+
+    private void spill() {
+        buffer.sort(order);
+        runs.add(write(buffer.iterator()));
+        buffer.clear();
+        buffered = 0;
+    }
+
+    private Run write(Iterator<T> records) {
+        Path file = base.resolveSibling(base.getFileName() + ".sort" + nextRun++);
+        long count = 0;
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER))) {
+            while (records.hasNext()) {
+                codec.write(out, records.next());
+                count++;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot write sort run: " + file, e);
+        }
+        return new Run(file, count);
+    }
+
+    /**
+     * Слияние порций: в очереди по одной текущей записи от каждой.
+     */
+    private Iterator<T> merge(List<Run> group) {
+        final class Head {
+            final DataInputStream in;
+            long left;
+            T value;
+
+            Head(DataInputStream in, long left) {
+                this.in = in;
+                this.left = left;
+            }
+
+            boolean advance() {
+                if (left == 0) return false;
+                left--;
+                try {
+                    value = codec.read(in);
+                } catch (IOException e) {
+                    throw new IllegalStateException("cannot read sort run", e);
+                }
+                return true;
+            }
+        }
+
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, group.size()),
+                (a, b) -> order.compare(a.value, b.value));
+        for (Run r : group) {
+            DataInputStream in;
+            try {
+                in = new DataInputStream(new BufferedInputStream(Files.newInputStream(r.file()), IO_BUFFER));
+            } catch (IOException e) {
+                throw new IllegalStateException("cannot open sort run: " + r.file(), e);
+            }
+            readers.add(in);
+            Head h = new Head(in, r.count());
+            if (h.advance()) heads.add(h);
+        }
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Head h = heads.poll();
+                if (h == null) throw new NoSuchElementException();
+                T value = h.value;
+                if (h.advance()) heads.add(h);
+                return value;
+            }
+        };
+    }
+
+    private void closeReaders() {
+        for (DataInputStream in : readers) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // порция удаляется следом
+            }
+        }
+        readers.clear();
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot remove sort run: " + file, e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package index.btree;
+
+import index.TID;
+
+import java.util.List;
+
+/**
+ * Построение B+-дерева с нуля: записи принимаются в любом порядке,
+ * {@link #finish()} сортирует их и заменяет ими содержимое индекса.
+ * {@link #close()} удаляет временные файлы сортировки, даже если построение
+ * прервано.
+ */
+public interface IndexBuilder extends AutoCloseable {
+
+    void add(Comparable key, TID tid);
+
+    /**
+     * Запись покрывающего индекса со значениями колонок INCLUDE.
+     */
+    default void add(Comparable key, TID tid, List<?> included) {
+        if (!included.isEmpty()) {
+            throw new IllegalArgumentException("index has no INCLUDE columns");
+        }
+        add(key, tid);
+    }
+
+    void finish();
+
+    @Override
+    void close();
+}
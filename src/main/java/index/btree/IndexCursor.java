@@ -0,0 +1,28 @@
+package index.btree;
+
+import index.TID;
+
+import java.util.List;
+
+/**
+ * Ленивый обход записей индекса по цепочке листов: страницы читаются по мере
+ * продвижения, так что остановленный на полпути обход не трогает остальные.
+ */
+public interface IndexCursor {
+    /**
+     * Следующий TID в порядке обхода или {@code null}, если записи в границах кончились.
+     */
+    TID next();
+
+    /**
+     * Ключ записи, которую вернул последний {@link #next()}.
+     */
+    Comparable<?> key();
+
+    /**
+     * Значения колонок INCLUDE той же записи; пусто у непокрывающего индекса.
+     */
+    default List<Object> included() {
+        return List.of();
+    }
+}
@@ -0,0 +1,652 @@
+package index.btree;
+
+import index.IndexType;
+import index.TID;
+import memory.buffer.BufferPoolManager;
+import memory.page.Int64BTreePage;
+import memory.page.Page;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongPredicate;
+
+/**
+ * B+-дерево для колонок INT64 на страницах {@link Int64BTreePage}: ключи и
+ * упакованные TID лежат в long[], сравнение — на примитивах, поиск в узле —
+ * бинарный без ветвлений. Спуск и обход листов не создают объектов; TID
+ * собираются только при выдаче результата через общий интерфейс
+ * ({@link #scan} отдаёт их упакованными).
+ * <p>
+ * Устройство файла то же, что у {@link BPlusTreeIndexImpl}: корень на
+ * странице 0 хранит число страниц, листы связаны вправо, узлы при удалении
+ * не сливаются. Узлы делятся пополам по числу записей — записи одной ширины.
+ * <p>
+ * Дерево рассчитано на одновременные вставки и чтения ({@link NodeLatches}):
+ * читатели спускаются без защёлок, проверяя версии узлов, писатель
+ * захватывает только лист и тех предков, которые получат разделитель.
+ * Разделённый узел отдаёт верхнюю половину правому соседу, поэтому читатель
+ * со старым снимком листа находит перенесённые записи по правой ссылке
+ * (B-link). Построение ({@link #builder}) и {@link #truncate()} — DDL и
+ * идут без параллельных изменений.
+ */
+public class Int64BPlusTreeIndex implements BPlusTreeIndex {
+
+    static final int ROOT = 0;
+
+    /**
+     * Меньше и больше любого упакованного TID: граница перед первым или после
+     * последнего TID ключа, так что исключённый ключ отсекается самим поиском.
+     */
+    private static final long MIN_TID = Long.MIN_VALUE;
+    private static final long MAX_TID = Long.MAX_VALUE;
+
+    private final String indexName;
+    private final String columnName;
+    private final BufferPoolManager bpm;
+    private final Path file;
+    private final boolean flushOnWrite;
+    private final NodeLatches latches = new NodeLatches();
+
+    public Int64BPlusTreeIndex(String indexName,
+                               String columnName,
+                               BufferPoolManager bpm,
+                               Path file,
+                               boolean flushOnWrite) {
+        this.indexName = Objects.requireNonNull(indexName, "indexName");
+        this.columnName = Objects.requireNonNull(columnName, "columnName");
+        this.bpm = Objects.requireNonNull(bpm, "bpm");
+        this.file = Objects.requireNonNull(file, "file");
+        this.flushOnWrite = flushOnWrite;
+    }
+
+    @Override
+    public Path file() {
+        return file;
+    }
+
+    @Override
+    public void insert(Comparable key, TID tid) {
+        if (key == null) throw new IllegalArgumentException("key is null");
+        if (tid == null) throw new IllegalArgumentException("tid is null");
+        insert(toLong(key), Int64BTreePage.packTid(tid.pageId(), tid.slotId()));
+    }
+
+    public void insert(long key, long tid) {
+        Int64BTreePage[] pages = new Int64BTreePage[NodeLatches.MAX_HEIGHT];
+        long[] stamps = new long[NodeLatches.MAX_HEIGHT];
+        int[] positions = new int[NodeLatches.MAX_HEIGHT];
+        while (!tryInsert(key, tid, pages, stamps, positions)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public boolean delete(Comparable key, TID tid) {
+        if (key == null) throw new IllegalArgumentException("key is null");
+        if (tid == null) throw new IllegalArgumentException("tid is null");
+        return delete(toLong(key), Int64BTreePage.packTid(tid.pageId(), tid.slotId()));
+    }
+
+    public boolean delete(long key, long tid) {
+        Int64BTreePage[] pages = new Int64BTreePage[NodeLatches.MAX_HEIGHT];
+        long[] stamps = new long[NodeLatches.MAX_HEIGHT];
+        int[] positions = new int[NodeLatches.MAX_HEIGHT];
+        while (true) {
+            int depth = descend(key, tid, true, pages, stamps, positions);
+            if (depth >= 0) {
+                Int64BTreePage leaf = pages[depth];
+                int pos = leaf.lowerBound(key, tid);
+                if (pos >= leaf.size() || leaf.key(pos) != key || leaf.tid(pos) != tid) {
+                    return false;
+                }
+                StampedLock latch = latches.of(leaf.getPageId());
+                long ws = latch.tryConvertToWriteLock(stamps[depth]);
+                if (ws != 0) {
+                    try {
+                        Int64BTreePage copy = leaf.copy();
+                        copy.delete(pos);
+                        save(copy);
+                    } finally {
+                        latch.unlockWrite(ws);
+                    }
+                    return true;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public IndexCursor cursor(Comparable from, boolean includeFrom, Comparable to, boolean includeTo,
+                              boolean backward) {
+        return new Cursor(from == null ? Long.MIN_VALUE : toLong(from), from == null || includeFrom,
+                to == null ? Long.MAX_VALUE : toLong(to), to == null || includeTo, backward);
+    }
+
+    /**
+     * Обходит упакованные TID записей с ключом между from и to по возрастанию
+     * (ключ, TID); visitor возвращает false, чтобы остановиться.
+     */
+    public void scan(long from, boolean includeFrom, long to, boolean includeTo, LongPredicate visitor) {
+        long fromTid = includeFrom ? MIN_TID : MAX_TID;
+        long toTid = includeTo ? MAX_TID : MIN_TID;
+        Int64BTreePage[] pages = new Int64BTreePage[NodeLatches.MAX_HEIGHT];
+        Int64BTreePage n = pages[read(from, fromTid, pages, new long[pages.length], new int[pages.length])];
+        int i = n.lowerBound(from, fromTid);
+
+        while (true) {
+            for (; i < n.size(); i++) {
+                long k = n.key(i);
+                if (k > to || (k == to && n.tid(i) > toTid)) return;
+                if (!visitor.test(n.tid(i))) return;
+            }
+            if (n.rightLink() == Int64BTreePage.NO_PAGE) return;
+            n = node(n.rightLink());
+            i = 0;
+        }
+    }
+
+    @Override
+    public void truncate() {
+        Int64BTreePage root = new Int64BTreePage(ROOT, bpm.getPageSize(), true);
+        root.setPageCount(1);
+        save(root);
+    }
+
+    @Override
+    public IndexBuilder builder(int fillFactor) {
+        return new Builder(fillFactor);
+    }
+
+    @Override
+    public String getName() {
+        return indexName;
+    }
+
+    @Override
+    public String getColumnName() {
+        return columnName;
+    }
+
+    @Override
+    public IndexType getType() {
+        return IndexType.BTREE;
+    }
+
+    @Override
+    public int getHeight() {
+        int height = 1;
+        Int64BTreePage n = root();
+        while (!n.isLeaf()) {
+            n = node(n.leftmostChild());
+            height++;
+        }
+        return height;
+    }
+
+    /**
+     * Число потомков полного внутреннего узла.
+     */
+    @Override
+    public int getOrder() {
+        return Int64BTreePage.capacity(bpm.getPageSize(), false) + 1;
+    }
+
+    private static long toLong(Comparable<?> key) {
+        if (!(key instanceof Number n)) {
+            throw new IllegalArgumentException("expected INT64 index key, got: " + key);
+        }
+        return n.longValue();
+    }
+
+    // ======= NODES =======
+
+    private Int64BTreePage root() {
+        Page p = bpm.getPage(file, ROOT).getPage();
+        return p instanceof Int64BTreePage b ? b : createRoot();
+    }
+
+    /**
+     * Пустой файл: дерево из одного листа.
+     */
+    private synchronized Int64BTreePage createRoot() {
+        Page p = bpm.getPage(file, ROOT).getPage();
+        if (p instanceof Int64BTreePage b) return b;
+        Int64BTreePage root = new Int64BTreePage(ROOT, bpm.getPageSize(), true);
+        root.setPageCount(1);
+        save(root);
+        return root;
+    }
+
+    private Int64BTreePage node(int pageId) {
+        Page p = bpm.getPage(file, pageId).getPage();
+        if (!(p instanceof Int64BTreePage b)) {
+            throw new IllegalStateException("not an int64 b-tree page: " + file + " #" + pageId);
+        }
+        return b;
+    }
+
+    /**
+     * Новая страница; root — изменяемая копия корня под защёлкой, в ней
+     * ведётся число страниц файла.
+     */
+    private Int64BTreePage allocate(Int64BTreePage root, boolean leaf) {
+        int pageId = root.pageCount();
+        root.setPageCount(pageId + 1);
+        return new Int64BTreePage(pageId, bpm.getPageSize(), leaf);
+    }
+
+    private void save(Int64BTreePage p) {
+        bpm.updatePage(file, p.getPageId(), p);
+        if (flushOnWrite) {
+            bpm.flushPage(file, p.getPageId());
+        }
+    }
+
+    // ======= DESCENT =======
+
+    /**
+     * Спуск к листу с проверкой версий: метка потомка берётся до проверки
+     * родителя, так что ссылка на потомка была верна, когда его прочитали.
+     * В узле — потомок правее разделителей меньше (key, tid), при upper — не
+     * больше. Заполняет от корня pages, stamps и positions (позицию потомка в
+     * узле); возвращает глубину листа или -1, если узел на пути сменился.
+     */
+    private int descend(long key, long tid, boolean upper, Int64BTreePage[] pages, long[] stamps, int[] positions) {
+        StampedLock latch = latches.of(ROOT);
+        long s = latch.tryOptimisticRead();
+        if (s == 0) return -1;
+        Int64BTreePage n = root();
+        for (int depth = 0; depth < NodeLatches.MAX_HEIGHT; depth++) {
+            pages[depth] = n;
+            stamps[depth] = s;
+            if (n.isLeaf()) {
+                return latch.validate(s) ? depth : -1;
+            }
+            int pos = upper ? n.upperBound(key, tid) : n.lowerBound(key, tid);
+            positions[depth] = pos;
+            int childId = pos == 0 ? n.leftmostChild() : n.child(pos - 1);
+            StampedLock childLatch = latches.of(childId);
+            long cs = childLatch.tryOptimisticRead();
+            if (cs == 0 || !latch.validate(s)) return -1;
+            n = node(childId);
+            latch = childLatch;
+            s = cs;
+        }
+        throw new IllegalStateException("b-tree is too deep: " + file);
+    }
+
+    /**
+     * Спуск читателя: повторяется, пока не пройдёт проверку.
+     */
+    private int read(long key, long tid, Int64BTreePage[] pages, long[] stamps, int[] positions) {
+        int depth;
+        while ((depth = descend(key, tid, false, pages, stamps, positions)) < 0) {
+            Thread.onSpinWait();
+        }
+        return depth;
+    }
+
+    /**
+     * Границы — пары (ключ, крайний TID), поэтому ни одна запись им не равна.
+     * Вперёд курсор идёт по правым ссылкам от снимка листа: записи, которые
+     * разделение перенесло правее, встретятся дальше. Назад — спуском к листу
+     * с последней записью меньше нижней границы текущего: левых ссылок нет.
+     */
+    private final class Cursor implements IndexCursor {
+        private final long from;
+        private final long fromTid;
+        private final long to;
+        private final long toTid;
+        private final boolean backward;
+
+        private final Int64BTreePage[] pages = new Int64BTreePage[NodeLatches.MAX_HEIGHT];
+        private final long[] stamps = new long[NodeLatches.MAX_HEIGHT];
+        private final int[] positions = new int[NodeLatches.MAX_HEIGHT];
+
+        private Int64BTreePage leaf;
+        private int pos;
+        private long key;
+        private long lowKey;
+        private long lowTid;
+        private boolean hasLow;
+
+        Cursor(long from, boolean includeFrom, long to, boolean includeTo, boolean backward) {
+            this.from = from;
+            this.fromTid = includeFrom ? MIN_TID : MAX_TID;
+            this.to = to;
+            this.toTid = includeTo ? MAX_TID : MIN_TID;
+            this.backward = backward;
+            if (backward) {
+                enter(to, toTid);
+                pos = leaf.lowerBound(to, toTid) - 1;
+            } else {
+                leaf = pages[read(from, fromTid, pages, stamps, positions)];
+                pos = leaf.lowerBound(from, fromTid);
+            }
+        }
+
+        @Override
+        public TID next() {
+            while (leaf != null) {
+                if (!backward && pos < leaf.size()) {
+                    long k = leaf.key(pos);
+                    long t = leaf.tid(pos++);
+                    if (k > to || (k == to && t > toTid)) break;
+                    return emit(k, t);
+                }
+                if (backward && pos >= 0) {
+                    long k = leaf.key(pos);
+                    long t = leaf.tid(pos--);
+                    if (k < from || (k == from && t < fromTid)) break;
+                    return emit(k, t);
+                }
+                if (!backward) {
+                    leaf = leaf.rightLink() == Int64BTreePage.NO_PAGE ? null : node(leaf.rightLink());
+                    pos = 0;
+                } else if (!hasLow) {
+                    leaf = null;
+                } else {
+                    enter(lowKey, lowTid);
+                    pos = leaf.size() - 1;
+                }
+            }
+            leaf = null;
+            return null;
+        }
+
+        @Override
+        public Comparable<?> key() {
+            return key;
+        }
+
+        private TID emit(long k, long tid) {
+            key = k;
+            return new TID(Int64BTreePage.tidPage(tid), Int64BTreePage.tidSlot(tid));
+        }
+
+        /**
+         * Спуск к листу с запоминанием его нижней границы — ближайшего
+         * разделителя слева на пути.
+         */
+        private void enter(long key, long tid) {
+            int depth = read(key, tid, pages, stamps, positions);
+            hasLow = false;
+            for (int l = depth - 1; l >= 0 && !hasLow; l--) {
+                if (positions[l] > 0) {
+                    lowKey = pages[l].key(positions[l] - 1);
+                    lowTid = pages[l].tid(positions[l] - 1);
+                    hasLow = true;
+                }
+            }
+            leaf = pages[depth];
+        }
+    }
+
+    // ======= INSERT =======
+
+    private record Separator(long key, long tid) { }
+
+    /**
+     * Одна попытка вставки; false — узел на пути сменился, спуск повторяется.
+     * Защёлки берутся снизу вверх из меток спуска: лист и каждый полный
+     * предок, пока разделение поднимается. Страницы для разделения выделяются
+     * в копии корня — под его защёлкой, взятой последней, поэтому держатель
+     * защёлки корня ничего не ждёт и взаимоблокировок нет. Изменения пишутся
+     * в копии и публикуются до снятия защёлок: сначала новые страницы, потом
+     * узлы снизу вверх.
+     */
+    private boolean tryInsert(long key, long tid, Int64BTreePage[] pages, long[] stamps, int[] positions) {
+        int depth = descend(key, tid, true, pages, stamps, positions);
+        if (depth < 0) return false;
+        Int64BTreePage leaf = pages[depth];
+        int pos = leaf.lowerBound(key, tid);
+        if (pos < leaf.size() && leaf.key(pos) == key && leaf.tid(pos) == tid) {
+            return true;
+        }
+
+        long[] locks = new long[depth + 1];
+        int top = depth;
+        while (true) {
+            locks[top] = latches.of(pages[top].getPageId()).tryConvertToWriteLock(stamps[top]);
+            if (locks[top] == 0) {
+                unlock(pages, locks, top + 1, depth);
+                return false;
+            }
+            if (top == 0 || pages[top].size() < pages[top].capacity()) break;
+            top--;
+        }
+        boolean splits = leaf.size() == leaf.capacity();
+        long rootLock = splits && top > 0 ? latches.of(ROOT).writeLock() : 0;
+        try {
+            Int64BTreePage[] copies = new Int64BTreePage[depth + 1];
+            for (int l = top; l <= depth; l++) {
+                copies[l] = pages[l].copy();
+            }
+            Int64BTreePage meta = top == 0 ? copies[0] : rootLock != 0 ? root().copy() : null;
+            List<Int64BTreePage> created = new ArrayList<>(2);
+
+            copies[depth].insert(pos, key, tid, 0);
+            for (int l = depth; copies[l].overflows(); l--) {
+                if (l == 0) {
+                    splitRoot(copies[0], created);
+                    break;
+                }
+                Int64BTreePage n = copies[l];
+                Int64BTreePage right = allocate(meta, n.isLeaf());
+                Separator sep = moveUpperHalf(n, right);
+                if (n.isLeaf()) {
+                    right.setRightLink(n.rightLink());
+                    n.setRightLink(right.getPageId());
+                }
+                created.add(right);
+                Int64BTreePage parent = copies[l - 1];
+                parent.insert(parent.upperBound(sep.key(), sep.tid()), sep.key(), sep.tid(), right.getPageId());
+            }
+
+            for (Int64BTreePage p : created) {
+                save(p);
+            }
+            for (int l = depth; l >= top; l--) {
+                save(copies[l]);
+            }
+            if (meta != null && top > 0) {
+                save(meta);
+            }
+        } finally {
+            unlock(pages, locks, top, depth);
+            if (rootLock != 0) {
+                latches.of(ROOT).unlockWrite(rootLock);
+            }
+        }
+        return true;
+    }
+
+    private void unlock(Int64BTreePage[] pages, long[] locks, int from, int to) {
+        for (int l = from; l <= to; l++) {
+            latches.of(pages[l].getPageId()).unlockWrite(locks[l]);
+        }
+    }
+
+    /**
+     * Корень остаётся на странице 0: его записи расходятся по двум новым
+     * узлам, а сам он становится внутренним узлом над ними.
+     */
+    private void splitRoot(Int64BTreePage root, List<Int64BTreePage> created) {
+        Int64BTreePage left = allocate(root, root.isLeaf());
+        Int64BTreePage right = allocate(root, root.isLeaf());
+
+        left.setLeftmostChild(root.leftmostChild());
+        Separator sep = moveUpperHalf(root, right);
+        root.moveTail(0, left);
+        if (root.isLeaf()) {
+            left.setRightLink(right.getPageId());
+        }
+
+        root.reset(false);
+        root.setLeftmostChild(left.getPageId());
+        root.insert(0, sep.key(), sep.tid(), right.getPageId());
+
+        created.add(left);
+        created.add(right);
+    }
+
+    /**
+     * Переносит верхнюю половину записей n в пустой узел right и возвращает
+     * разделитель. Во внутреннем узле средняя запись уходит наверх: её потомок
+     * становится крайним левым в right.
+     */
+    private static Separator moveUpperHalf(Int64BTreePage n, Int64BTreePage right) {
+        int mid = n.size() / 2;
+        Separator sep = new Separator(n.key(mid), n.tid(mid));
+        if (n.isLeaf()) {
+            n.moveTail(mid, right);
+            return sep;
+        }
+        right.setLeftmostChild(n.child(mid));
+        n.moveTail(mid + 1, right);
+        n.delete(mid);
+        return sep;
+    }
+
+    // ======= BULK BUILD =======
+
+    private record Entry(long key, long tid) { }
+
+    private static final Comparator<Entry> ENTRY_ORDER =
+            Comparator.comparingLong(Entry::key).thenComparingLong(Entry::tid);
+
+    private static final ExternalSorter.Codec<Entry> ENTRY_CODEC = new ExternalSorter.Codec<>() {
+        @Override
+        public void write(DataOutput out, Entry e) throws IOException {
+            out.writeLong(e.key());
+            out.writeLong(e.tid());
+        }
+
+        @Override
+        public Entry read(DataInput in) throws IOException {
+            return new Entry(in.readLong(), in.readLong());
+        }
+
+        @Override
+        public int size(Entry e) {
+            return Int64BTreePage.LEAF_ENTRY_SIZE;
+        }
+    };
+
+    /**
+     * Сборка снизу вверх из отсортированных записей. На каждом уровне открыт
+     * один узел; заполненный закрывается — получает следующий номер страницы и
+     * отдаёт родителю свою нижнюю границу. Лист пишется, когда закрыт
+     * следующий за ним: тогда известна его правая ссылка. Открытый узел
+     * верхнего уровня в конце становится корнем на странице 0.
+     */
+    private final class Builder implements IndexBuilder {
+        private final ExternalSorter<Entry> sorter;
+        private final int leafLimit;
+        private final int internalLimit;
+
+        private final List<Int64BTreePage> open = new ArrayList<>();
+        private final List<Separator> lows = new ArrayList<>();
+        private Int64BTreePage lastLeaf;
+        private int pageCount = 1;
+
+        Builder(int fillFactor) {
+            if (fillFactor < 10 || fillFactor > 100) {
+                throw new IllegalArgumentException("fillfactor must be between 10 and 100: " + fillFactor);
+            }
+            this.sorter = new ExternalSorter<>(ENTRY_ORDER, ENTRY_CODEC, file, ExternalSorter.DEFAULT_MEMORY);
+            this.leafLimit = Math.max(1, Int64BTreePage.capacity(bpm.getPageSize(), true) * fillFactor / 100);
+            this.internalLimit = Math.max(1,
+                    Int64BTreePage.capacity(bpm.getPageSize(), false) * NONLEAF_FILLFACTOR / 100);
+        }
+
+        @Override
+        public void add(Comparable key, TID tid) {
+            if (key == null) throw new IllegalArgumentException("key is null");
+            if (tid == null) throw new IllegalArgumentException("tid is null");
+            sorter.add(new Entry(toLong(key), Int64BTreePage.packTid(tid.pageId(), tid.slotId())));
+        }
+
+        @Override
+        public void finish() {
+            Entry prev = null;
+            for (Iterator<Entry> it = sorter.sorted(); it.hasNext(); ) {
+                Entry e = it.next();
+                if (!e.equals(prev)) {
+                    push(0, e.key(), e.tid(), 0);
+                }
+                prev = e;
+            }
+            for (int level = 0; level < open.size() - 1; level++) {
+                close(level);
+            }
+            if (lastLeaf != null) {
+                save(lastLeaf);
+            }
+            Int64BTreePage root = open.isEmpty()
+                    ? new Int64BTreePage(ROOT, bpm.getPageSize(), true)
+                    : copy(open.get(open.size() - 1), ROOT);
+            root.setPageCount(pageCount);
+            save(root);
+        }
+
+        @Override
+        public void close() {
+            sorter.close();
+        }
+
+        /**
+         * Добавляет запись в открытый узел уровня level; во внутренний узел —
+         * нижнюю границу потомка child, первый потомок становится крайним левым.
+         */
+        private void push(int level, long key, long tid, int child) {
+            if (level == open.size()) {
+                open.add(new Int64BTreePage(ROOT, bpm.getPageSize(), level == 0));
+                lows.add(new Separator(key, tid));
+            }
+            Int64BTreePage n = open.get(level);
+            if (n.size() >= (n.isLeaf() ? leafLimit : internalLimit)) {
+                close(level);
+                lows.set(level, new Separator(key, tid));
+            }
+            if (!n.isLeaf() && n.leftmostChild() == Int64BTreePage.NO_PAGE) {
+                n.setLeftmostChild(child);
+            } else {
+                n.insert(n.size(), key, tid, child);
+            }
+        }
+
+        private void close(int level) {
+            Int64BTreePage n = open.get(level);
+            Int64BTreePage page = copy(n, pageCount++);
+            if (page.isLeaf()) {
+                if (lastLeaf != null) {
+                    lastLeaf.setRightLink(page.getPageId());
+                    save(lastLeaf);
+                }
+                lastLeaf = page;
+            } else {
+                save(page);
+            }
+            n.reset(n.isLeaf());
+            Separator low = lows.get(level);
+            push(level + 1, low.key(), low.tid(), page.getPageId());
+        }
+
+        private Int64BTreePage copy(Int64BTreePage n, int pageId) {
+            Int64BTreePage page = new Int64BTreePage(pageId, bpm.getPageSize(), n.isLeaf());
+            page.setLeftmostChild(n.leftmostChild());
+            n.moveTail(0, page);
+            return page;
+        }
+    }
+}
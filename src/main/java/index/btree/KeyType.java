@@ -0,0 +1,138 @@
+package index.btree;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Тип ключа страничного индекса (B+-дерева или хеш-индекса) и его запись на странице.
+ * <p>
+ * INT64 — 8 байт LE, VARCHAR — длина (1 байт) + UTF-8. Колонки со словарём
+ * индексируются как VARCHAR: коды словаря не сохраняют порядок строк.
+ */
+public enum KeyType {
+    INT64(8),
+    VARCHAR(1 + 255);
+
+    /** Наибольшая ширина ключа в байтах — по ней считается порядок дерева. */
+    private final int maxWidth;
+
+    KeyType(int maxWidth) {
+        this.maxWidth = maxWidth;
+    }
+
+    public int maxWidth() {
+        return maxWidth;
+    }
+
+    /**
+     * Тип ключа по имени типа колонки из каталога.
+     */
+    public static KeyType of(String typeName, boolean dictionaryEncoded) {
+        if (dictionaryEncoded || typeName.startsWith("VARCHAR")) return VARCHAR;
+        if ("INT64".equalsIgnoreCase(typeName)) return INT64;
+        throw new IllegalArgumentException("unsupported index key type: " + typeName);
+    }
+
+    public byte[] encode(Comparable<?> key) {
+        if (this == INT64) {
+            if (!(key instanceof Number n)) {
+                throw new IllegalArgumentException("expected INT64 index key, got: " + key);
+            }
+            return ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(n.longValue()).array();
+        }
+        if (!(key instanceof String s)) {
+            throw new IllegalArgumentException("expected VARCHAR index key, got: " + key);
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        if (b.length > 255) throw new IllegalArgumentException("VARCHAR too long (>255 bytes)");
+        byte[] out = new byte[1 + b.length];
+        out[0] = (byte) b.length;
+        System.arraycopy(b, 0, out, 1, b.length);
+        return out;
+    }
+
+    public Comparable<?> decode(byte[] buf, int off) {
+        if (this == INT64) {
+            return getLong(buf, off);
+        }
+        return new String(buf, off + 1, buf[off] & 0xFF, StandardCharsets.UTF_8);
+    }
+
+    public int width(byte[] buf, int off) {
+        return this == INT64 ? 8 : 1 + (buf[off] & 0xFF);
+    }
+
+    /**
+     * Сравнивает записанные значения без декодирования, в порядке compareTo
+     * значений. Строки сравниваются по байтам UTF-8; они расходятся с
+     * порядком String (по UTF-16) только на символах вне BMP против
+     * U+E000..U+FFFF, этот случай разбирается по ведущему байту.
+     */
+    public int compare(byte[] a, int aOff, byte[] b, int bOff) {
+        if (this == INT64) {
+            return Long.compare(getLong(a, aOff), getLong(b, bOff));
+        }
+        int aLen = a[aOff] & 0xFF;
+        int bLen = b[bOff] & 0xFF;
+        int i = Arrays.mismatch(a, aOff + 1, aOff + 1 + aLen, b, bOff + 1, bOff + 1 + bLen);
+        if (i < 0) return 0;
+        if (i == aLen || i == bLen) return Integer.compare(aLen, bLen);
+        int x = a[aOff + 1 + i] & 0xFF;
+        int y = b[bOff + 1 + i] & 0xFF;
+        if (x >= 0xEE && y >= 0xEE && (x >= 0xF0) != (y >= 0xF0)) {
+            // суррогатная пара (вне BMP) в UTF-16 меньше U+E000..U+FFFF
+            return x >= 0xF0 ? -1 : 1;
+        }
+        return Integer.compare(x, y);
+    }
+
+    /**
+     * Кратчайшее значение s, для которого lo &lt; s &lt;= hi (значения записаны
+     * с lOff и hOff, lo &lt; hi): у строки — начало hi на символ длиннее
+     * общего с lo, у числа — само hi. Так разделитель узла не несёт лишний хвост ключа.
+     */
+    public byte[] between(byte[] lo, int lOff, byte[] hi, int hOff) {
+        if (this == INT64) {
+            return Arrays.copyOfRange(hi, hOff, hOff + 8);
+        }
+        int loLen = lo[lOff] & 0xFF;
+        int hiLen = hi[hOff] & 0xFF;
+        int n = Arrays.mismatch(lo, lOff + 1, lOff + 1 + loLen, hi, hOff + 1, hOff + 1 + hiLen);
+        if (n < 0 || n >= hiLen) return Arrays.copyOfRange(hi, hOff, hOff + 1 + hiLen);
+        n++;
+        while (n < hiLen && (hi[hOff + 1 + n] & 0xC0) == 0x80) {
+            n++;
+        }
+        byte[] out = new byte[1 + n];
+        out[0] = (byte) n;
+        System.arraycopy(hi, hOff + 1, out, 1, n);
+        return out;
+    }
+
+    /**
+     * Запись наименьшего значения типа.
+     */
+    public byte[] lowest() {
+        return this == INT64 ? encode(Long.MIN_VALUE) : new byte[] { 0 };
+    }
+
+    private static long getLong(byte[] buf, int off) {
+        long v = 0;
+        for (int i = 7; i >= 0; i--) {
+            v = v << 8 | (buf[off + i] & 0xFF);
+        }
+        return v;
+    }
+
+    /**
+     * Ключ поиска в типе колонки: константы запроса могут прийти как Integer.
+     */
+    public Comparable<?> normalize(Comparable<?> key) {
+        if (this == INT64 && key instanceof Number n && !(key instanceof Long)) {
+            return n.longValue();
+        }
+        return key;
+    }
+}
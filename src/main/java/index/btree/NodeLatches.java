@@ -0,0 +1,44 @@
+package index.btree;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Защёлки узлов B+-дерева по номеру страницы для оптимистичного спуска
+ * (optimistic lock coupling). Читатель берёт метку узла, читает узел и
+ * проверяет, что версия не сменилась, — сам он ничего не захватывает.
+ * Писатель превращает метку в исключительную защёлку, только если узел не
+ * менялся с тех пор, как его прочитали; иначе спуск повторяется.
+ * <p>
+ * Опубликованные страницы не меняются на месте: писатель правит копию и
+ * кладёт её в буферный пул под защёлкой, поэтому прочитанный узел — всегда
+ * целый снимок, а проверка метки говорит, актуален ли он.
+ */
+final class NodeLatches {
+
+    /** Больше уровней в дереве со страницей от 4 КБ не бывает. */
+    static final int MAX_HEIGHT = 32;
+
+    private volatile StampedLock[] latches = new StampedLock[64];
+
+    StampedLock of(int pageId) {
+        StampedLock[] a = latches;
+        if (pageId < a.length) {
+            StampedLock latch = a[pageId];
+            if (latch != null) return latch;
+        }
+        return create(pageId);
+    }
+
+    private synchronized StampedLock create(int pageId) {
+        StampedLock[] a = latches;
+        if (pageId >= a.length) {
+            a = Arrays.copyOf(a, Math.max(a.length * 2, pageId + 1));
+        }
+        if (a[pageId] == null) {
+            a[pageId] = new StampedLock();
+        }
+        latches = a;
+        return a[pageId];
+    }
+}
@@ -0,0 +1,554 @@
+package index.hash;
+
+import index.Index;
+import index.IndexType;
+import index.TID;
+import index.btree.KeyType;
+import memory.buffer.BufferPoolManager;
+import memory.page.HashPage;
+import memory.page.Page;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Хеш-индекс с линейным хешированием в собственном файле: поиск по равенству
+ * читает одну корзину (и её страницы переполнения, если они есть) вместо
+ * спуска по дереву. Диапазонов и порядка нет.
+ * <p>
+ * Корзин вначале одна; когда записи в среднем заполняют корзины больше чем на
+ * {@link #FILL_PERCENT} процентов, делится одна корзина — следующая по
+ * порядку, а не переполненная, — и её записи расходятся между ней и новой.
+ * Остальные корзины не перехешируются. Адрес корзины — младшие биты хеша:
+ * highMask, а для ещё не разделённых корзин — lowMask.
+ * <p>
+ * Страница 0 — метастраница. Корзины выделяются группами по степеням двойки
+ * (как в PostgreSQL): группа g резервирует страницы сразу за уже выделенными,
+ * а spares[g] — сколько страниц переполнения выделено до неё, так что номер
+ * страницы корзины вычисляется без каталога. Освободившиеся при разделении
+ * страницы переполнения уходят в список свободных.
+ * <p>
+ * Запись — [хеш (int)][ключ][TID]. На странице записи лежат по возрастанию
+ * хеша, и поиск находит свои двоичным поиском, а ключ сравнивает только у
+ * записей с тем же хешем. Чтения идут
+ * одновременно, изменения — по одному и на копиях страниц, чтобы фоновая
+ * запись грязных страниц не видела страницу на середине изменения.
+ */
+public class HashIndex implements Index {
+
+    /** Средняя заполненность корзин в процентах, после которой делится следующая. */
+    public static final int FILL_PERCENT = 75;
+
+    static final int META = 0;
+    private static final int MAX_GROUPS = 32;
+
+    /** pageId (int) + slotId (short). */
+    private static final int TID_BYTES = Integer.BYTES + Short.BYTES;
+
+    private static final Comparator<byte[]> BY_HASH = Comparator.comparingInt(HashIndex::hashOf);
+
+    private final String indexName;
+    private final String columnName;
+    private final KeyType keyType;
+    private final BufferPoolManager bpm;
+    private final Path file;
+    private final boolean flushOnWrite;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /** Страницы, сброс которых отложен до конца заполнения ({@link Loader}); иначе {@code null}. */
+    private Set<Integer> deferred;
+    /** Метастраница в разобранном виде; меняется только под защёлкой на запись. */
+    private volatile Meta cached;
+
+    public HashIndex(String indexName,
+                     String columnName,
+                     KeyType keyType,
+                     BufferPoolManager bpm,
+                     Path file,
+                     boolean flushOnWrite) {
+        this.indexName = Objects.requireNonNull(indexName, "indexName");
+        this.columnName = Objects.requireNonNull(columnName, "columnName");
+        this.keyType = Objects.requireNonNull(keyType, "keyType");
+        this.bpm = Objects.requireNonNull(bpm, "bpm");
+        this.file = Objects.requireNonNull(file, "file");
+        this.flushOnWrite = flushOnWrite;
+    }
+
+    /** Файл индекса. */
+    public Path file() {
+        return file;
+    }
+
+    @Override
+    public String getName() {
+        return indexName;
+    }
+
+    @Override
+    public IndexType getType() {
+        return IndexType.HASH;
+    }
+
+    @Override
+    public String getColumnName() {
+        return columnName;
+    }
+
+    @Override
+    public void insert(Comparable key, TID tid) {
+        if (key == null) throw new IllegalArgumentException("key is null");
+        if (tid == null) throw new IllegalArgumentException("tid is null");
+        Comparable<?> k = keyType.normalize(key);
+        int hash = hash(k);
+        byte[] entry = entry(hash, k, tid);
+
+        lock.writeLock().lock();
+        try {
+            Meta meta = meta();
+            insert(meta, hash, entry);
+            saveMeta(meta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Заполнение после {@link #truncate()} или в новом файле: индекс захвачен
+     * на запись до {@link Loader#close()}, метастраница и изменённые страницы
+     * сбрасываются на диск один раз в конце, а не после каждой вставки.
+     */
+    public Loader loader() {
+        lock.writeLock().lock();
+        deferred = new HashSet<>();
+        return new Loader(meta());
+    }
+
+    public final class Loader implements AutoCloseable {
+        private final Meta meta;
+
+        private Loader(Meta meta) {
+            this.meta = meta;
+        }
+
+        public void add(Comparable key, TID tid) {
+            if (key == null) throw new IllegalArgumentException("key is null");
+            if (tid == null) throw new IllegalArgumentException("tid is null");
+            Comparable<?> k = keyType.normalize(key);
+            int hash = hash(k);
+            insert(meta, hash, entry(hash, k, tid));
+        }
+
+        @Override
+        public void close() {
+            try {
+                saveMeta(meta);
+                for (int pageId : deferred) {
+                    bpm.flushPage(file, pageId);
+                }
+            } finally {
+                deferred = null;
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean delete(Comparable key, TID tid) {
+        if (key == null) throw new IllegalArgumentException("key is null");
+        if (tid == null) throw new IllegalArgumentException("tid is null");
+        Comparable<?> k = keyType.normalize(key);
+        byte[] entry = entry(hash(k), k, tid);
+
+        lock.writeLock().lock();
+        try {
+            Meta meta = meta();
+            int hash = hash(k);
+            for (int pageId = meta.bucketPage(meta.bucketOf(hash)); pageId != HashPage.NO_PAGE; ) {
+                HashPage page = page(pageId);
+                for (int i = lowerBound(page, hash); i < page.size() && hashOf(page.read(i)) == hash; i++) {
+                    if (Arrays.equals(page.read(i), entry)) {
+                        HashPage copy = page.copy();
+                        copy.delete(i);
+                        save(copy);
+                        meta.entries--;
+                        meta.bytes -= HashPage.entrySize(entry.length);
+                        saveMeta(meta);
+                        return true;
+                    }
+                }
+                pageId = page.next();
+            }
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * TID строк с данным ключом: чтение одной корзины.
+     */
+    public List<TID> search(Comparable key) {
+        if (key == null) throw new IllegalArgumentException("key is null");
+        Comparable<?> k = keyType.normalize(key);
+        int hash = hash(k);
+
+        lock.readLock().lock();
+        try {
+            Meta meta = readMeta();
+            List<TID> out = new ArrayList<>();
+            for (int pageId = meta.bucketPage(meta.bucketOf(hash)); pageId != HashPage.NO_PAGE; ) {
+                HashPage page = page(pageId);
+                for (int i = lowerBound(page, hash); i < page.size(); i++) {
+                    byte[] e = page.read(i);
+                    if (hashOf(e) != hash) break;
+                    if (keyType.decode(e, Integer.BYTES).equals(k)) {
+                        out.add(tidOf(e));
+                    }
+                }
+                pageId = page.next();
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Очищает индекс перед перестроением: одна пустая корзина.
+     */
+    public void truncate() {
+        lock.writeLock().lock();
+        try {
+            Meta meta = new Meta();
+            save(new HashPage(meta.bucketPage(0), bpm.getPageSize()));
+            saveMeta(meta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Число корзин. */
+    public int getBucketCount() {
+        lock.readLock().lock();
+        try {
+            return readMeta().buckets();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ======= BUCKETS =======
+
+    private void insert(Meta meta, int hash, byte[] entry) {
+        append(meta, meta.bucketPage(meta.bucketOf(hash)), entry);
+        meta.entries++;
+        meta.bytes += HashPage.entrySize(entry.length);
+        if (meta.bytes * 100 > (long) meta.buckets() * capacity() * FILL_PERCENT) {
+            split(meta);
+        }
+    }
+
+    /**
+     * Дописывает запись в первую страницу цепочки, где есть место, или в новую
+     * страницу переполнения в конце цепочки.
+     */
+    private void append(Meta meta, int bucketPage, byte[] entry) {
+        HashPage page = page(bucketPage);
+        while (!page.fits(entry.length) && page.next() != HashPage.NO_PAGE) {
+            page = page(page.next());
+        }
+        page = page.copy();
+        if (!page.fits(entry.length)) {
+            HashPage overflow = allocate(meta);
+            page.setNext(overflow.getPageId());
+            save(page);
+            page = overflow;
+        }
+        page.insert(lowerBound(page, hashOf(entry)), entry);
+        save(page);
+    }
+
+    /**
+     * Делит следующую по порядку корзину: записи, адрес которых при новых
+     * масках — новая корзина, переезжают в неё, остальные переписываются в
+     * начало своей цепочки.
+     */
+    private void split(Meta meta) {
+        int newBucket = meta.maxBucket + 1;
+        int oldBucket = newBucket & meta.lowMask;
+        int group = group(newBucket);
+        if (group >= MAX_GROUPS) return;
+        if (group > group(meta.maxBucket)) {
+            // новая группа корзин резервирует страницы за уже выделенными
+            meta.spares[group] = meta.overflowPages;
+            meta.pageCount += groupSize(group);
+        }
+        meta.maxBucket = newBucket;
+        if (newBucket > meta.highMask) {
+            meta.lowMask = meta.highMask;
+            meta.highMask = newBucket | meta.lowMask;
+        }
+
+        List<HashPage> chain = new ArrayList<>();
+        List<byte[]> stay = new ArrayList<>();
+        List<byte[]> move = new ArrayList<>();
+        for (int pageId = meta.bucketPage(oldBucket); pageId != HashPage.NO_PAGE; ) {
+            HashPage page = page(pageId).copy();
+            chain.add(page);
+            for (int i = 0; i < page.size(); i++) {
+                byte[] e = page.read(i);
+                (meta.bucketOf(hashOf(e)) == newBucket ? move : stay).add(e);
+            }
+            pageId = page.next();
+        }
+
+        stay.sort(BY_HASH);
+        int used = rewrite(chain, stay);
+        for (int i = used; i < chain.size(); i++) {
+            free(meta, chain.get(i));
+        }
+        if (used < chain.size()) {
+            chain.get(used - 1).setNext(HashPage.NO_PAGE);
+            save(chain.get(used - 1));
+        }
+
+        HashPage fresh = new HashPage(meta.bucketPage(newBucket), bpm.getPageSize());
+        save(fresh);
+        for (byte[] e : move) {
+            append(meta, fresh.getPageId(), e);
+        }
+    }
+
+    /**
+     * Раскладывает упорядоченные записи по страницам цепочки подряд; возвращает, сколько
+     * страниц понадобилось (не меньше одной — страницы корзины).
+     */
+    private int rewrite(List<HashPage> chain, List<byte[]> entries) {
+        int at = 0;
+        chain.get(0).clear();
+        for (byte[] e : entries) {
+            if (!chain.get(at).fits(e.length)) {
+                at++;
+                chain.get(at).clear();
+            }
+            chain.get(at).write(e);
+        }
+        for (int i = 0; i <= at; i++) {
+            save(chain.get(i));
+        }
+        return at + 1;
+    }
+
+    private HashPage allocate(Meta meta) {
+        int pageId;
+        if (meta.freeHead != HashPage.NO_PAGE) {
+            pageId = meta.freeHead;
+            meta.freeHead = page(pageId).next();
+        } else {
+            pageId = meta.pageCount++;
+            meta.overflowPages++;
+        }
+        return new HashPage(pageId, bpm.getPageSize());
+    }
+
+    private void free(Meta meta, HashPage page) {
+        page.clear();
+        page.setNext(meta.freeHead);
+        meta.freeHead = page.getPageId();
+        save(page);
+    }
+
+    /** Место под записи на одной странице. */
+    private int capacity() {
+        return bpm.getPageSize() - HashPage.HEADER_SIZE;
+    }
+
+    /** Группа корзины: 0 — корзина 0, g — корзины [2^(g-1), 2^g). */
+    private static int group(int bucket) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(bucket);
+    }
+
+    private static int groupSize(int group) {
+        return group == 0 ? 1 : 1 << (group - 1);
+    }
+
+    // ======= PAGES =======
+
+    /**
+     * Страница цепочки; зарезервированная группой, но ещё не записанная
+     * корзина читается как пустая.
+     */
+    private HashPage page(int pageId) {
+        Page p = bpm.getPage(file, pageId).getPage();
+        return p instanceof HashPage h ? h : new HashPage(pageId, bpm.getPageSize());
+    }
+
+    private void save(HashPage p) {
+        bpm.updatePage(file, p.getPageId(), p);
+        if (!flushOnWrite) return;
+        if (deferred != null) {
+            deferred.add(p.getPageId());
+        } else {
+            bpm.flushPage(file, p.getPageId());
+        }
+    }
+
+    /**
+     * Копия метастраницы для изменения; чтения берут {@link #cached} без копии.
+     */
+    private Meta meta() {
+        return readMeta().copy();
+    }
+
+    private Meta readMeta() {
+        Meta m = cached;
+        if (m != null) return m;
+        Page p = bpm.getPage(file, META).getPage();
+        // пустой файл: одна корзина на странице 1
+        m = p instanceof HashPage h && h.size() == 1 ? Meta.decode(h.read(0)) : new Meta();
+        cached = m;
+        return m;
+    }
+
+    private void saveMeta(Meta meta) {
+        HashPage p = new HashPage(META, bpm.getPageSize());
+        p.write(meta.encode());
+        save(p);
+        cached = meta;
+    }
+
+    // ======= ENTRIES =======
+
+    /**
+     * Хеш ключа не зависит от запуска: String и Long определяют hashCode
+     * явно, а перемешивание (финал MurmurHash3) даёт младшим битам, по
+     * которым выбирается корзина, зависеть от всего значения.
+     */
+    private static int hash(Comparable<?> key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private byte[] entry(int hash, Comparable<?> key, TID tid) {
+        byte[] k = keyType.encode(key);
+        ByteBuffer bb = ByteBuffer.allocate(Integer.BYTES + k.length + TID_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(hash);
+        bb.put(k);
+        bb.putInt(tid.pageId());
+        bb.putShort(tid.slotId());
+        return bb.array();
+    }
+
+    /**
+     * Первая позиция страницы, где хеш записи не меньше hash.
+     */
+    private static int lowerBound(HashPage page, int hash) {
+        int lo = 0;
+        int hi = page.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (hashOf(page.read(mid)) < hash) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int hashOf(byte[] e) {
+        return (e[0] & 0xFF) | (e[1] & 0xFF) << 8 | (e[2] & 0xFF) << 16 | e[3] << 24;
+    }
+
+    private static TID tidOf(byte[] entry) {
+        ByteBuffer bb = ByteBuffer.wrap(entry).order(ByteOrder.LITTLE_ENDIAN);
+        int off = entry.length - TID_BYTES;
+        return new TID(bb.getInt(off), bb.getShort(off + Integer.BYTES));
+    }
+
+    /**
+     * Состояние метастраницы.
+     */
+    private static final class Meta {
+        int maxBucket = 0;
+        int lowMask = 0;
+        int highMask = 1;
+        /** Страница 0 — мета, 1 — корзина 0. */
+        int pageCount = 2;
+        int overflowPages = 0;
+        int freeHead = HashPage.NO_PAGE;
+        long entries;
+        /** Байты записей вместе с префиксами длины — по ним считается заполненность. */
+        long bytes;
+        final int[] spares = new int[MAX_GROUPS];
+
+        Meta copy() {
+            Meta m = new Meta();
+            m.maxBucket = maxBucket;
+            m.lowMask = lowMask;
+            m.highMask = highMask;
+            m.pageCount = pageCount;
+            m.overflowPages = overflowPages;
+            m.freeHead = freeHead;
+            m.entries = entries;
+            m.bytes = bytes;
+            System.arraycopy(spares, 0, m.spares, 0, MAX_GROUPS);
+            return m;
+        }
+
+        int buckets() {
+            return maxBucket + 1;
+        }
+
+        int bucketOf(int hash) {
+            int bucket = hash & highMask;
+            return bucket > maxBucket ? hash & lowMask : bucket;
+        }
+
+        int bucketPage(int bucket) {
+            return 1 + bucket + spares[group(bucket)];
+        }
+
+        byte[] encode() {
+            ByteBuffer bb = ByteBuffer.allocate(6 * Integer.BYTES + 2 * Long.BYTES + MAX_GROUPS * Integer.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            bb.putInt(maxBucket).putInt(lowMask).putInt(highMask)
+                    .putInt(pageCount).putInt(overflowPages).putInt(freeHead)
+                    .putLong(entries).putLong(bytes);
+            for (int s : spares) {
+                bb.putInt(s);
+            }
+            return bb.array();
+        }
+
+        static Meta decode(byte[] b) {
+            ByteBuffer bb = ByteBuffer.wrap(b).order(ByteOrder.LITTLE_ENDIAN);
+            Meta m = new Meta();
+            m.maxBucket = bb.getInt();
+            m.lowMask = bb.getInt();
+            m.highMask = bb.getInt();
+            m.pageCount = bb.getInt();
+            m.overflowPages = bb.getInt();
+            m.freeHead = bb.getInt();
+            m.entries = bb.getLong();
+            m.bytes = bb.getLong();
+            for (int i = 0; i < MAX_GROUPS; i++) {
+                m.spares[i] = bb.getInt();
+            }
+            return m;
+        }
+    }
+}
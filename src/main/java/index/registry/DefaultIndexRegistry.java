@@ -1,55 +1,147 @@
 package index.registry;
 
 import catalog.model.ColumnDefinition;
+import index.Index;
 import index.TID;
+import index.art.ArtIndex;
+import index.brin.BrinIndex;
 import index.btree.BPlusTreeIndex;
+import index.btree.CompositeKey;
+import index.hash.HashIndex;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
+/**
+ * Индексы таблицы по списку колонок ключа: (a) и (a, b) — разные индексы,
+ * а индекс того же типа на тех же колонках заменяет прежний.
+ */
 public class DefaultIndexRegistry implements IndexRegistry {
 
-    private final Map<String, Map<String, BPlusTreeIndex>> byTable = new HashMap<>();
+    private final Map<String, Map<String, List<Index>>> byTable = new HashMap<>();
 
     @Override
     public BPlusTreeIndex get(String tableName, String columnName) {
-        if (tableName == null || columnName == null) return null;
-        Map<String, BPlusTreeIndex> m = byTable.get(norm(tableName));
-        if (m == null) return null;
-        return m.get(norm(columnName));
+        return columnName == null ? null : find(tableName, List.of(columnName), BPlusTreeIndex.class);
+    }
+
+    @Override
+    public BPlusTreeIndex get(String tableName, List<String> columnNames) {
+        return find(tableName, columnNames, BPlusTreeIndex.class);
+    }
+
+    @Override
+    public BrinIndex getBrin(String tableName, String columnName) {
+        return columnName == null ? null : find(tableName, List.of(columnName), BrinIndex.class);
+    }
+
+    @Override
+    public HashIndex getHash(String tableName, String columnName) {
+        return columnName == null ? null : find(tableName, List.of(columnName), HashIndex.class);
     }
 
     @Override
-    public void register(String tableName, String columnName, BPlusTreeIndex index) {
-        if (tableName == null || columnName == null || index == null) {
+    public ArtIndex getArt(String tableName, String columnName) {
+        return columnName == null ? null : find(tableName, List.of(columnName), ArtIndex.class);
+    }
+
+    @Override
+    public void register(String tableName, Index index) {
+        if (tableName == null || index == null) {
             throw new IllegalArgumentException("bad args");
         }
-        byTable.computeIfAbsent(norm(tableName), k -> new HashMap<>())
-                .put(norm(columnName), index);
+        List<Index> onColumns = byTable.computeIfAbsent(norm(tableName), k -> new HashMap<>())
+                .computeIfAbsent(columnsKey(index.getColumnNames()), k -> new ArrayList<>());
+        onColumns.removeIf(i -> i.getType() == index.getType());
+        onColumns.add(index);
+    }
+
+    @Override
+    public List<Index> indexesOf(String tableName) {
+        if (tableName == null) return List.of();
+        Map<String, List<Index>> m = byTable.get(norm(tableName));
+        if (m == null) return List.of();
+        List<Index> out = new ArrayList<>();
+        for (List<Index> onColumns : m.values()) {
+            out.addAll(onColumns);
+        }
+        return out;
     }
 
     @Override
     public void onInsert(String tableName, List<ColumnDefinition> columns, List<Object> values, TID tid) {
         if (tableName == null || columns == null || values == null || tid == null) return;
-        Map<String, BPlusTreeIndex> m = byTable.get(norm(tableName));
-        if (m == null || m.isEmpty()) return;
+        for (Index idx : indexesOf(tableName)) {
+            Comparable key = keyOf(idx, columns, values);
+            if (key == null) {
+                throw new IllegalArgumentException("index key is not Comparable for columns: " + idx.getColumnNames());
+            }
+            if (idx instanceof BPlusTreeIndex tree && !tree.includedColumns().isEmpty()) {
+                tree.insert(key, tid, valuesOf(tree.includedColumns(), columns, values));
+            } else {
+                idx.insert(key, tid);
+            }
+        }
+    }
 
-        for (int i = 0; i < columns.size() && i < values.size(); i++) {
-            ColumnDefinition c = columns.get(i);
-            BPlusTreeIndex idx = m.get(norm(c.name()));
-            if (idx == null) continue;
+    @Override
+    public void onDelete(String tableName, List<ColumnDefinition> columns, List<Object> values, TID tid) {
+        if (tableName == null || columns == null || values == null || tid == null) return;
+        for (Index idx : indexesOf(tableName)) {
+            Comparable key = keyOf(idx, columns, values);
+            if (key != null) {
+                idx.delete(key, tid);
+            }
+        }
+    }
 
-            Object v = values.get(i);
-            if (!(v instanceof Comparable cmp)) {
-                throw new IllegalArgumentException("index key is not Comparable for column: " + c.name());
+    /**
+     * Ключ индекса из строки: значение колонки или {@link CompositeKey} из
+     * значений всех колонок ключа; {@code null}, если значение не Comparable.
+     */
+    private static Comparable keyOf(Index idx, List<ColumnDefinition> columns, List<Object> values) {
+        List<Object> parts = valuesOf(idx.getColumnNames(), columns, values);
+        List<Comparable<?>> key = new ArrayList<>(parts.size());
+        for (Object v : parts) {
+            if (!(v instanceof Comparable<?> cmp)) return null;
+            key.add(cmp);
+        }
+        return key.size() == 1 ? key.get(0) : new CompositeKey(key);
+    }
+
+    private static List<Object> valuesOf(List<String> names, List<ColumnDefinition> columns, List<Object> values) {
+        List<Object> out = new ArrayList<>(names.size());
+        for (String name : names) {
+            int i = 0;
+            while (i < columns.size() && !columns.get(i).name().equalsIgnoreCase(name)) i++;
+            if (i == columns.size() || i >= values.size()) {
+                throw new IllegalArgumentException("index column not found in row: " + name);
             }
-            idx.insert(cmp, tid);
+            out.add(values.get(i));
+        }
+        return out;
+    }
+
+    private <T extends Index> T find(String tableName, List<String> columnNames, Class<T> type) {
+        if (tableName == null || columnNames == null || columnNames.isEmpty()) return null;
+        Map<String, List<Index>> m = byTable.get(norm(tableName));
+        if (m == null) return null;
+        List<Index> onColumns = m.get(columnsKey(columnNames));
+        if (onColumns == null) return null;
+        for (Index idx : onColumns) {
+            if (type.isInstance(idx)) return type.cast(idx);
         }
+        return null;
+    }
+
+    private static String columnsKey(List<String> columnNames) {
+        return norm(String.join(",", columnNames));
     }
 
     private static String norm(String s) {
         return s.toLowerCase(Locale.ROOT);
     }
-}
\ No newline at end of file
+}
@@ -1,13 +1,25 @@
 package index.registry;
 
 import catalog.model.ColumnDefinition;
+import index.Index;
 import index.TID;
+import index.brin.BrinIndex;
 import index.btree.BPlusTreeIndex;
+import index.art.ArtIndex;
+import index.hash.HashIndex;
 
 import java.util.List;
 
 public interface IndexRegistry {
     BPlusTreeIndex get(String tableName, String columnName);
-    void register(String tableName, String columnName, BPlusTreeIndex index);
+    /** B+-дерево с ровно этими колонками ключа в этом порядке. */
+    BPlusTreeIndex get(String tableName, List<String> columnNames);
+    BrinIndex getBrin(String tableName, String columnName);
+    HashIndex getHash(String tableName, String columnName);
+    ArtIndex getArt(String tableName, String columnName);
+    /** Заменяет индекс того же типа на тех же колонках, если он был. */
+    void register(String tableName, Index index);
+    List<Index> indexesOf(String tableName);
     void onInsert(String tableName, List<ColumnDefinition> columns, List<Object> values, TID tid);
-}
\ No newline at end of file
+    void onDelete(String tableName, List<ColumnDefinition> columns, List<Object> values, TID tid);
+}
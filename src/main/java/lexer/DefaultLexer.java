@@ -47,12 +47,32 @@ public class DefaultLexer implements Lexer {
 
                     case "CREATE" -> TokenType.CREATE;
                     case "TABLE"  -> TokenType.TABLE;
+                    case "TEMP", "TEMPORARY" -> TokenType.TEMP;
+                    case "UNLOGGED" -> TokenType.UNLOGGED;
                     case "INSERT" -> TokenType.INSERT;
                     case "INTO"   -> TokenType.INTO;
                     case "VALUES" -> TokenType.VALUES;
+                    case "DELETE" -> TokenType.DELETE;
+                    case "UPDATE" -> TokenType.UPDATE;
+                    case "SET"    -> TokenType.SET;
 
                     case "INDEX"  -> TokenType.INDEX;
                     case "ON"     -> TokenType.ON;
+                    case "IN"     -> TokenType.IN;
+
+                    case "ENCODING" -> TokenType.ENCODING;
+                    case "WITH"   -> TokenType.WITH;
+                    case "USING"  -> TokenType.USING;
+                    case "PRIMARY" -> TokenType.PRIMARY;
+                    case "CLUSTER" -> TokenType.CLUSTER;
+                    case "KEY"    -> TokenType.KEY;
+                    case "PARTITION" -> TokenType.PARTITION;
+                    case "OF"     -> TokenType.OF;
+                    case "BY"     -> TokenType.BY;
+                    case "FOR"    -> TokenType.FOR;
+                    case "TO"     -> TokenType.TO;
+                    case "TABLESAMPLE" -> TokenType.TABLESAMPLE;
+                    case "REPEATABLE" -> TokenType.REPEATABLE;
 
                     default       -> TokenType.IDENT;
                 };
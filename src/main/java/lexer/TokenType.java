@@ -12,11 +12,30 @@ public enum TokenType {
 
     CREATE,
     TABLE,
+    TEMP,
+    UNLOGGED,
     INSERT,
     INTO,
     VALUES,
+    DELETE,
+    UPDATE,
+    SET,
     INDEX,
     ON,
+    IN,
+    ENCODING,
+    WITH,
+    USING,
+    PRIMARY,
+    CLUSTER,
+    KEY,
+    PARTITION,
+    OF,
+    BY,
+    FOR,
+    TO,
+    TABLESAMPLE,
+    REPEATABLE,
 
     // идентификаторы/имена
     IDENT,
@@ -3,13 +3,15 @@ package memory.buffer;
 import memory.model.BufferSlot;
 import memory.page.Page;
 
+import java.nio.file.Path;
 import java.util.List;
 
 public interface BufferPoolManager {
-    BufferSlot getPage(int pageId);
-    void updatePage(int pageId, Page page);
-    void pinPage(int pageId);
-    void flushPage(int pageId);
+    int getPageSize();
+    BufferSlot getPage(Path file, int pageId);
+    void updatePage(Path file, int pageId, Page page);
+    void pinPage(Path file, int pageId);
+    void flushPage(Path file, int pageId);
     void flushAllPages();
     List<BufferSlot> getDirtyPages();
 }
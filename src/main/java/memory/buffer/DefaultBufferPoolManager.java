@@ -2,6 +2,7 @@ package memory.buffer;
 
 import memory.manager.PageFileManager;
 import memory.model.BufferSlot;
+import memory.model.BufferTag;
 import memory.page.Page;
 import memory.replacer.Replacer;
 
@@ -14,15 +15,14 @@ public class DefaultBufferPoolManager implements BufferPoolManager {
     private final int poolSize;
     private final PageFileManager io;
     private final Replacer replacer;
-    private final Map<Integer, BufferSlot> table;
-    private final Path dbPath = Path.of("data", "heap_database.dat").toAbsolutePath(); //storage layer'а нет((
+    private final Map<BufferTag, BufferSlot> table;
 
     public DefaultBufferPoolManager(int poolSize, PageFileManager io, Replacer replacer) {
         if (poolSize <= 0) {
             throw new IllegalArgumentException("pool size must be > 0");
         }
         if (io == null || replacer == null) {
-            throw new IllegalArgumentException("memory/io/replacer/dbPath must be non-null");
+            throw new IllegalArgumentException("memory/io/replacer must be non-null");
         }
         this.poolSize = poolSize;
         this.io = io;
@@ -30,6 +30,11 @@ public class DefaultBufferPoolManager implements BufferPoolManager {
         this.table = new HashMap<>();
     }
 
+    @Override
+    public int getPageSize() {
+        return io.getPageSize();
+    }
+
     private void ensureFrame() {
         if (table.size() < poolSize) return;
 
@@ -39,24 +44,25 @@ public class DefaultBufferPoolManager implements BufferPoolManager {
         }
 
         if (victim.isDirty()) {
-            io.write(victim.getPage(), dbPath);
+            io.write(victim.getPage(), victim.getFile());
             victim.setDirty(false);
         }
 
-        replacer.delete(victim.getPageId());
-        table.remove(victim.getPageId());
+        replacer.delete(victim.getTag());
+        table.remove(victim.getTag());
     }
 
     private void refreshIfUnpinned(BufferSlot slot) {
         if (!slot.isPinned()) {
-            replacer.delete(slot.getPageId());
+            replacer.delete(slot.getTag());
             replacer.push(slot);
         }
     }
 
     @Override
-    public BufferSlot getPage(int pageId) {
-        BufferSlot hit = table.get(pageId);
+    public synchronized BufferSlot getPage(Path file, int pageId) {
+        BufferTag tag = new BufferTag(file, pageId);
+        BufferSlot hit = table.get(tag);
         if (hit != null) {
             hit.incrementUsage();
             refreshIfUnpinned(hit);
@@ -65,28 +71,29 @@ public class DefaultBufferPoolManager implements BufferPoolManager {
 
         ensureFrame();
 
-        Page page = io.read(pageId, dbPath);
-        BufferSlot slot = new BufferSlot(pageId, page);
+        Page page = io.read(pageId, tag.file());
+        BufferSlot slot = new BufferSlot(tag, page);
         slot.setPinned(false);
         slot.setDirty(false);
         slot.incrementUsage();
 
-        table.put(pageId, slot);
+        table.put(tag, slot);
         replacer.push(slot);
         return slot;
     }
 
     @Override
-    synchronized public void updatePage(int pageId, Page page) {
-        BufferSlot slot = table.get(pageId);
+    synchronized public void updatePage(Path file, int pageId, Page page) {
+        BufferTag tag = new BufferTag(file, pageId);
+        BufferSlot slot = table.get(tag);
         if (slot == null) {
             ensureFrame();
-            slot = new BufferSlot(pageId, page);
+            slot = new BufferSlot(tag, page);
             slot.setPinned(false);
             slot.setDirty(true);
             slot.incrementUsage();
 
-            table.put(pageId, slot);
+            table.put(tag, slot);
             replacer.push(slot);
         } else {
             slot.setPage(page);
@@ -97,23 +104,24 @@ public class DefaultBufferPoolManager implements BufferPoolManager {
     }
 
     @Override
-    public void pinPage(int pageId) {
-        BufferSlot slot = table.get(pageId);
+    public synchronized void pinPage(Path file, int pageId) {
+        BufferTag tag = new BufferTag(file, pageId);
+        BufferSlot slot = table.get(tag);
         if (slot == null) {
-            throw new IllegalArgumentException("no such page: " + pageId);
+            throw new IllegalArgumentException("no such page: " + tag);
         }
         if (!slot.isPinned()) {
             slot.setPinned(true);
-            replacer.delete(pageId);
+            replacer.delete(tag);
         }
     }
 
     @Override
-    public synchronized void flushPage(int pageId) {
-        BufferSlot slot = table.get(pageId);
+    public synchronized void flushPage(Path file, int pageId) {
+        BufferSlot slot = table.get(new BufferTag(file, pageId));
         if (slot == null) return;
         if (slot.isDirty()) {
-            io.write(slot.getPage(), dbPath);
+            io.write(slot.getPage(), slot.getFile());
             slot.setDirty(false);
         }
     }
@@ -122,7 +130,7 @@ public class DefaultBufferPoolManager implements BufferPoolManager {
     public synchronized void flushAllPages() {
         for (BufferSlot s : table.values()) {
             if (s.isDirty()) {
-                io.write(s.getPage(), dbPath);
+                io.write(s.getPage(), s.getFile());
                 s.setDirty(false);
             }
         }
@@ -130,9 +138,9 @@ public class DefaultBufferPoolManager implements BufferPoolManager {
 
 
     @Override
-    public List<BufferSlot> getDirtyPages() {
+    public synchronized List<BufferSlot> getDirtyPages() {
         return table.values().stream()
                 .filter(BufferSlot::isDirty)
                 .toList();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,162 @@
+package memory.compression;
+
+import java.util.Arrays;
+
+/**
+ * Быстрый LZ77-кодек в формате, близком к LZ4 block.
+ * <p>
+ * Последовательность: token (старшие 4 бита — число литералов, младшие — длина
+ * совпадения минус 4; значение 15 означает продолжение байтами по 255),
+ * литералы, 2-байтовое смещение (LE), доп. байты длины совпадения.
+ * Последняя последовательность содержит только литералы.
+ */
+public final class LzCodec {
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MAX_OFFSET = 0xFFFF;
+    private static final int HASH_BITS = 12;
+
+    private LzCodec() { }
+
+    public static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    public static byte[] compress(byte[] src) {
+        if (src == null) throw new IllegalArgumentException("src is null");
+
+        int n = src.length;
+        byte[] out = new byte[maxCompressedLength(n)];
+        int[] table = new int[1 << HASH_BITS];
+        Arrays.fill(table, -1);
+
+        int op = 0;
+        int anchor = 0;
+        int ip = 0;
+        int matchLimit = n - LAST_LITERALS;
+
+        while (ip + MIN_MATCH <= matchLimit) {
+            int seq = readInt(src, ip);
+            int h = hash(seq);
+            int ref = table[h];
+            table[h] = ip;
+
+            if (ref < 0 || ip - ref > MAX_OFFSET || readInt(src, ref) != seq) {
+                ip++;
+                continue;
+            }
+
+            int len = MIN_MATCH;
+            while (ip + len < matchLimit && src[ref + len] == src[ip + len]) {
+                len++;
+            }
+
+            op = writeSequence(out, op, src, anchor, ip - anchor, ip - ref, len);
+            ip += len;
+            anchor = ip;
+        }
+
+        op = writeLastLiterals(out, op, src, anchor, n - anchor);
+        return Arrays.copyOf(out, op);
+    }
+
+    public static byte[] decompress(byte[] src, int originalLength) {
+        if (src == null) throw new IllegalArgumentException("src is null");
+
+        byte[] dst = new byte[originalLength];
+        int ip = 0;
+        int op = 0;
+
+        while (ip < src.length) {
+            int token = src[ip++] & 0xFF;
+
+            int lit = token >>> 4;
+            if (lit == 15) {
+                int b;
+                do {
+                    b = src[ip++] & 0xFF;
+                    lit += b;
+                } while (b == 255);
+            }
+            if (ip + lit > src.length || op + lit > originalLength) {
+                throw new IllegalStateException("corrupted LZ block: literal run out of bounds");
+            }
+            System.arraycopy(src, ip, dst, op, lit);
+            ip += lit;
+            op += lit;
+
+            if (ip >= src.length) break;
+
+            int offset = (src[ip] & 0xFF) | ((src[ip + 1] & 0xFF) << 8);
+            ip += 2;
+
+            int len = token & 0x0F;
+            if (len == 15) {
+                int b;
+                do {
+                    b = src[ip++] & 0xFF;
+                    len += b;
+                } while (b == 255);
+            }
+            len += MIN_MATCH;
+
+            int ref = op - offset;
+            if (offset == 0 || ref < 0 || op + len > originalLength) {
+                throw new IllegalStateException("corrupted LZ block: bad match at " + op);
+            }
+            // совпадение может перекрываться с собой (offset < len), копируем побайтно
+            for (int i = 0; i < len; i++) {
+                dst[op++] = dst[ref++];
+            }
+        }
+
+        if (op != originalLength) {
+            throw new IllegalStateException("corrupted LZ block: expected " + originalLength + " bytes, got " + op);
+        }
+        return dst;
+    }
+
+    private static int writeSequence(byte[] out, int op, byte[] src, int litStart, int litLen, int offset, int matchLen) {
+        int ml = matchLen - MIN_MATCH;
+        out[op++] = (byte) ((Math.min(litLen, 15) << 4) | Math.min(ml, 15));
+        if (litLen >= 15) op = writeLength(out, op, litLen - 15);
+
+        System.arraycopy(src, litStart, out, op, litLen);
+        op += litLen;
+
+        out[op++] = (byte) (offset & 0xFF);
+        out[op++] = (byte) ((offset >>> 8) & 0xFF);
+
+        if (ml >= 15) op = writeLength(out, op, ml - 15);
+        return op;
+    }
+
+    private static int writeLastLiterals(byte[] out, int op, byte[] src, int litStart, int litLen) {
+        out[op++] = (byte) (Math.min(litLen, 15) << 4);
+        if (litLen >= 15) op = writeLength(out, op, litLen - 15);
+
+        System.arraycopy(src, litStart, out, op, litLen);
+        return op + litLen;
+    }
+
+    private static int writeLength(byte[] out, int op, int rest) {
+        while (rest >= 255) {
+            out[op++] = (byte) 255;
+            rest -= 255;
+        }
+        out[op++] = (byte) rest;
+        return op;
+    }
+
+    private static int readInt(byte[] a, int off) {
+        return (a[off] & 0xFF)
+                | ((a[off + 1] & 0xFF) << 8)
+                | ((a[off + 2] & 0xFF) << 16)
+                | ((a[off + 3] & 0xFF) << 24);
+    }
+
+    private static int hash(int seq) {
+        return (seq * -1640531535) >>> (32 - HASH_BITS);
+    }
+}
@@ -0,0 +1,155 @@
+package memory.control;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Управляющий файл базы данных.
+ * <p>
+ * Хранит параметры, фиксируемые при создании базы (сейчас — размер страницы),
+ * и состояние кластера: по нему при запуске видно, была ли остановка штатной.
+ * Все компоненты — страницы, файловые менеджеры, каталог и индексы — берут
+ * размер страницы отсюда, поэтому сменить его у существующей базы нельзя.
+ */
+public final class ControlFile {
+
+    public static final String FILE_NAME = "pg_control";
+
+    public static final int MIN_PAGE_SIZE = 4 * 1024;
+    public static final int MAX_PAGE_SIZE = 64 * 1024;
+    public static final int DEFAULT_PAGE_SIZE = 8 * 1024;
+
+    private static final int MAGIC = 0x00DBC001;
+    private static final int VERSION = 2;
+    private static final int SIZE = 16;
+    // версия 1 не хранила состояние
+    private static final int V1_SIZE = 12;
+
+    public enum State {
+        SHUT_DOWN,
+        IN_PRODUCTION
+    }
+
+    private final Path file;
+    private final int pageSize;
+    private State state;
+
+    private ControlFile(Path file, int pageSize, State state) {
+        this.file = file;
+        this.pageSize = pageSize;
+        this.state = state;
+    }
+
+    public int pageSize() {
+        return pageSize;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Записывает новое состояние; при запуске — {@link State#IN_PRODUCTION},
+     * при штатной остановке — {@link State#SHUT_DOWN}.
+     */
+    public synchronized void setState(State newState) {
+        if (newState == null) throw new IllegalArgumentException("state is null");
+        try {
+            write(file, pageSize, newState);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error on control file " + file, e);
+        }
+        this.state = newState;
+    }
+
+    /**
+     * Читает управляющий файл из каталога базы или создаёт его для новой базы.
+     *
+     * @param requestedPageSize размер страницы, запрошенный при запуске; {@code null} — по умолчанию
+     *                          для новой базы и "как записано" для существующей
+     */
+    public static ControlFile openOrCreate(Path dbRoot, Integer requestedPageSize) {
+        if (dbRoot == null) throw new IllegalArgumentException("dbRoot is null");
+        if (requestedPageSize != null) validatePageSize(requestedPageSize);
+
+        Path file = dbRoot.resolve(FILE_NAME);
+        try {
+            if (Files.exists(file)) {
+                ControlFile cf = read(file);
+                if (requestedPageSize != null && requestedPageSize != cf.pageSize) {
+                    throw new IllegalStateException("database was created with page size " + cf.pageSize
+                            + ", requested " + requestedPageSize);
+                }
+                return cf;
+            }
+
+            // база, созданная до появления управляющего файла, всегда имела страницы по 8 КБ
+            boolean legacy = isNonEmptyDirectory(dbRoot);
+            if (legacy && requestedPageSize != null && requestedPageSize != DEFAULT_PAGE_SIZE) {
+                throw new IllegalStateException("existing database uses page size " + DEFAULT_PAGE_SIZE
+                        + ", requested " + requestedPageSize);
+            }
+
+            ControlFile cf = new ControlFile(file,
+                    requestedPageSize == null ? DEFAULT_PAGE_SIZE : requestedPageSize, State.SHUT_DOWN);
+            Files.createDirectories(dbRoot);
+            write(file, cf.pageSize, cf.state);
+            return cf;
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error on control file " + file, e);
+        }
+    }
+
+    public static void validatePageSize(int pageSize) {
+        if (pageSize < MIN_PAGE_SIZE || pageSize > MAX_PAGE_SIZE || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("page size must be a power of two between "
+                    + MIN_PAGE_SIZE + " and " + MAX_PAGE_SIZE + ": " + pageSize);
+        }
+    }
+
+    private static boolean isNonEmptyDirectory(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return false;
+        try (var entries = Files.list(dir)) {
+            return entries.findAny().isPresent();
+        }
+    }
+
+    private static void write(Path file, int pageSize, State state) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate(SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(MAGIC);
+        bb.putInt(VERSION);
+        bb.putInt(pageSize);
+        bb.putInt(state.ordinal());
+        Files.write(file, bb.array());
+    }
+
+    private static ControlFile read(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length != SIZE && bytes.length != V1_SIZE) {
+            throw new IllegalStateException("corrupted control file (size " + bytes.length + "): " + file);
+        }
+        ByteBuffer bb = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bb.getInt() != MAGIC) {
+            throw new IllegalStateException("invalid control file magic: " + file);
+        }
+        int version = bb.getInt();
+        if (version != VERSION && !(version == 1 && bytes.length == V1_SIZE)) {
+            throw new IllegalStateException("unsupported control file version " + version);
+        }
+        int pageSize = bb.getInt();
+        validatePageSize(pageSize);
+
+        State state = State.SHUT_DOWN;
+        if (version == VERSION) {
+            int s = bb.getInt();
+            if (s < 0 || s >= State.values().length) {
+                throw new IllegalStateException("invalid cluster state " + s + " in control file: " + file);
+            }
+            state = State.values()[s];
+        }
+        return new ControlFile(file, pageSize, state);
+    }
+}
@@ -0,0 +1,43 @@
+package memory.control;
+
+import memory.model.Persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Приведение файлов отношений в порядок при запуске и остановке.
+ */
+public final class Recovery {
+
+    private Recovery() { }
+
+    /**
+     * Удаляет файлы временных отношений: они принадлежат завершившейся сессии.
+     */
+    public static void removeTempRelations(Path tablesRoot) {
+        clearDirectory(tablesRoot.resolve(Persistence.TEMP.directory()));
+    }
+
+    /**
+     * Обнуляет нелогируемые отношения после аварийной остановки: их страницы
+     * сбрасывались на диск не синхронно, поэтому содержимое файлов не согласовано.
+     */
+    public static void resetUnloggedRelations(Path tablesRoot) {
+        clearDirectory(tablesRoot.resolve(Persistence.UNLOGGED.directory()));
+    }
+
+    private static void clearDirectory(Path dir) {
+        if (!Files.isDirectory(dir)) return;
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                if (!p.equals(dir)) Files.delete(p);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot clear directory: " + dir, e);
+        }
+    }
+}
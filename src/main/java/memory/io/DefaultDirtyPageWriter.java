@@ -2,6 +2,7 @@ package memory.io;
 
 import memory.buffer.BufferPoolManager;
 import memory.model.BufferSlot;
+import memory.model.Persistence;
 
 import java.util.List;
 import java.util.Objects;
@@ -69,7 +70,7 @@ public class DefaultDirtyPageWriter implements DirtyPageWriter {
             int flushed = 0;
             for (BufferSlot s : dirty) {
                 if (flushed >= batchSize) break;
-                bpm.flushPage(s.getPageId());
+                bpm.flushPage(s.getFile(), s.getPageId());
                 flushed++;
             }
         } catch (Throwable t) {
@@ -77,10 +78,18 @@ public class DefaultDirtyPageWriter implements DirtyPageWriter {
         }
     }
 
+    /**
+     * Нелогируемые и временные отношения checkpointer не трогает: их страницы
+     * попадают на диск только при вытеснении и штатной остановке.
+     */
     void runCheckPointerSafe() {
         try {
             if (!cpRunning.get()) return;
-            bpm.flushAllPages();
+            for (BufferSlot s : bpm.getDirtyPages()) {
+                if (Persistence.ofFile(s.getFile()) == Persistence.PERMANENT) {
+                    bpm.flushPage(s.getFile(), s.getPageId());
+                }
+            }
         } catch (Throwable t) {
             System.err.println("[DirtyPageWriter] checkpointer failed: " + t);
         }
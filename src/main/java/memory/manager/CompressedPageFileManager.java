@@ -0,0 +1,277 @@
+package memory.manager;
+
+import memory.compression.LzCodec;
+import memory.page.HeapPage;
+import memory.page.Page;
+import memory.page.Pages;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Менеджер файлов со сжатием страниц для "холодных" отношений.
+ * <p>
+ * Файлы с расширением {@link #FILE_SUFFIX} хранятся сжатыми {@link LzCodec},
+ * остальные пути прозрачно передаются обычному менеджеру. Рядом со сжатым
+ * файлом лежит карта страниц ({@code <file>.map}) — по 16 байт на страницу:
+ * смещение (long), длина сжатых данных (int), выделенная ёмкость (int).
+ * <p>
+ * Новая версия страницы всегда пишется в другой участок файла, и только потом
+ * карта переключается на неё: при сбое карта указывает на целую старую версию.
+ * Освобождённые участки переиспользуются (первый подходящий), иначе запись
+ * идёт в конец файла. Список свободных участков не хранится — он
+ * восстанавливается по карте при первом обращении к файлу. Несжимаемые
+ * страницы хранятся как есть (длина == PAGE_SIZE). В буферном пуле страницы
+ * всегда несжатые.
+ */
+public class CompressedPageFileManager implements PageFileManager {
+
+    public static final String OPTION = "compression";
+    public static final String CODEC_LZ = "lz";
+    public static final String FILE_SUFFIX = ".cdat";
+    public static final String MAP_SUFFIX = ".map";
+
+    private static final int MAP_ENTRY_SIZE = 16;
+    // запас под рост страницы, чтобы не переносить её при каждом сбросе
+    private static final int CAPACITY_ALIGN = 512;
+
+    private final PageFileManager plain;
+    private final int PAGE_SIZE;
+    /** Свободные участки сжатых файлов; доступ под монитором менеджера. */
+    private final Map<Path, Extents> extents = new HashMap<>();
+
+    public CompressedPageFileManager(PageFileManager plain) {
+        if (plain == null) throw new IllegalArgumentException("plain page file manager is null");
+        this.plain = plain;
+        this.PAGE_SIZE = plain.getPageSize();
+    }
+
+    @Override
+    public int getPageSize() {
+        return PAGE_SIZE;
+    }
+
+    public static boolean isCompressed(Path path) {
+        return path.getFileName().toString().endsWith(FILE_SUFFIX);
+    }
+
+    @Override
+    public void write(Page page, Path path) {
+        if (!isCompressed(path)) {
+            plain.write(page, path);
+            return;
+        }
+        if (page == null) {
+            throw new IllegalArgumentException("page is null");
+        }
+        if (page.getPageId() < 0) {
+            throw new IllegalArgumentException("compressed relation requires explicit page id");
+        }
+
+        byte[] arr = page.bytes();
+        if (arr == null || arr.length != PAGE_SIZE) {
+            throw new IllegalArgumentException("invalid page bytes size");
+        }
+
+        byte[] stored = LzCodec.compress(arr);
+        if (stored.length >= PAGE_SIZE) {
+            stored = arr;
+        }
+
+        try {
+            Path parent = path.getParent();
+            if (parent != null) Files.createDirectories(parent);
+
+            synchronized (this) {
+                try (FileChannel data = FileChannel.open(path,
+                             StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                     FileChannel map = FileChannel.open(mapPath(path),
+                             StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+                    Extents free = extentsOf(path, data, map);
+                    MapEntry entry = readEntry(map, page.getPageId());
+                    int capacity = Math.min(PAGE_SIZE, align(stored.length));
+                    long offset = free.allocate(capacity);
+
+                    writeFully(data, ByteBuffer.wrap(stored), offset);
+                    writeEntry(map, page.getPageId(), new MapEntry(offset, stored.length, capacity));
+                    // прежний участок свободен только после переключения карты
+                    if (entry != null) {
+                        free.release(entry.offset, entry.capacity);
+                    }
+                    free.fileSize = data.size();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error while writing compressed page", e);
+        }
+    }
+
+    @Override
+    public Page read(int pageId, Path path) {
+        if (!isCompressed(path)) {
+            return plain.read(pageId, path);
+        }
+        if (pageId < 0) throw new IllegalArgumentException("invalid page id");
+
+        Path mapPath = mapPath(path);
+        if (!Files.exists(path) || !Files.exists(mapPath)) {
+            return new HeapPage(pageId, PAGE_SIZE);
+        }
+
+        // под монитором: участок, прочитанный из карты, не отдадут другой странице до чтения
+        synchronized (this) {
+            return readCompressed(pageId, path, mapPath);
+        }
+    }
+
+    private Page readCompressed(int pageId, Path path, Path mapPath) {
+        try (FileChannel data = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel map = FileChannel.open(mapPath, StandardOpenOption.READ)) {
+
+            MapEntry entry = readEntry(map, pageId);
+            if (entry == null) {
+                return new HeapPage(pageId, PAGE_SIZE);
+            }
+
+            ByteBuffer buf = ByteBuffer.allocate(entry.length);
+            readFully(data, buf, entry.offset);
+            byte[] stored = buf.array();
+
+            byte[] bytes = entry.length == PAGE_SIZE ? stored : LzCodec.decompress(stored, PAGE_SIZE);
+            return Pages.fromBytes(pageId, bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error while reading compressed page", e);
+        }
+    }
+
+    /**
+     * Свободные участки файла path. Если файл с тех пор пересоздан или изменён
+     * в обход менеджера (размер не совпадает), список строится заново по карте:
+     * свободно всё, что не занято ни одной страницей.
+     */
+    private Extents extentsOf(Path path, FileChannel data, FileChannel map) throws IOException {
+        Extents free = extents.get(path);
+        if (free != null && free.fileSize == data.size()) {
+            return free;
+        }
+        TreeMap<Long, Integer> used = new TreeMap<>();
+        for (int pageId = 0; (long) (pageId + 1) * MAP_ENTRY_SIZE <= map.size(); pageId++) {
+            MapEntry entry = readEntry(map, pageId);
+            if (entry != null) used.put(entry.offset, entry.capacity);
+        }
+        // ёмкость последнего участка может выходить за конец файла
+        long end = data.size();
+        for (Map.Entry<Long, Integer> e : used.entrySet()) {
+            end = Math.max(end, e.getKey() + e.getValue());
+        }
+        free = new Extents(end);
+        long pos = 0;
+        for (Map.Entry<Long, Integer> e : used.entrySet()) {
+            if (e.getKey() > pos) free.release(pos, (int) (e.getKey() - pos));
+            pos = Math.max(pos, e.getKey() + e.getValue());
+        }
+        if (end > pos) free.release(pos, (int) (end - pos));
+        extents.put(path, free);
+        return free;
+    }
+
+    private static Path mapPath(Path path) {
+        return path.resolveSibling(path.getFileName().toString() + MAP_SUFFIX);
+    }
+
+    private static int align(int length) {
+        return (length + CAPACITY_ALIGN - 1) / CAPACITY_ALIGN * CAPACITY_ALIGN;
+    }
+
+    private static MapEntry readEntry(FileChannel map, int pageId) throws IOException {
+        long pos = (long) pageId * MAP_ENTRY_SIZE;
+        if (pos + MAP_ENTRY_SIZE > map.size()) return null;
+
+        ByteBuffer bb = ByteBuffer.allocate(MAP_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(map, bb, pos);
+        bb.flip();
+        long offset = bb.getLong();
+        int length = bb.getInt();
+        int capacity = bb.getInt();
+        // нулевая ёмкость — дырка в карте (страница ещё не записывалась)
+        return capacity == 0 ? null : new MapEntry(offset, length, capacity);
+    }
+
+    private static void writeEntry(FileChannel map, int pageId, MapEntry entry) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate(MAP_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putLong(entry.offset);
+        bb.putInt(entry.length);
+        bb.putInt(entry.capacity);
+        bb.flip();
+        writeFully(map, bb, (long) pageId * MAP_ENTRY_SIZE);
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.write(buf, pos);
+            if (n <= 0) throw new IllegalStateException("short write");
+            pos += n;
+        }
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos);
+            if (n < 0) throw new IllegalStateException("unexpected end of compressed file");
+            pos += n;
+        }
+    }
+
+    private record MapEntry(long offset, int length, int capacity) { }
+
+    /**
+     * Свободные участки одного файла по смещению; соседние сливаются.
+     * end — конец последнего участка: за ним место выделяется всегда;
+     * fileSize — размер файла после последней записи менеджера.
+     */
+    private static final class Extents {
+        private final TreeMap<Long, Integer> free = new TreeMap<>();
+        private long end;
+        private long fileSize = -1;
+
+        Extents(long end) {
+            this.end = end;
+        }
+
+        long allocate(int length) {
+            for (Map.Entry<Long, Integer> e : free.entrySet()) {
+                if (e.getValue() < length) continue;
+                long offset = e.getKey();
+                free.remove(offset);
+                if (e.getValue() > length) free.put(offset + length, e.getValue() - length);
+                return offset;
+            }
+            long offset = end;
+            end += length;
+            return offset;
+        }
+
+        void release(long offset, int length) {
+            Map.Entry<Long, Integer> next = free.ceilingEntry(offset);
+            if (next != null && next.getKey() == offset + length) {
+                free.remove(next.getKey());
+                length += next.getValue();
+            }
+            Map.Entry<Long, Integer> prev = free.floorEntry(offset);
+            if (prev != null && prev.getKey() + prev.getValue() == offset) {
+                offset = prev.getKey();
+                length += prev.getValue();
+            }
+            free.put(offset, length);
+        }
+    }
+}
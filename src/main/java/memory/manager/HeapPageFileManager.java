@@ -1,7 +1,9 @@
 package memory.manager;
 
+import memory.control.ControlFile;
 import memory.page.HeapPage;
 import memory.page.Page;
+import memory.page.Pages;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -11,7 +13,17 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 
 public class HeapPageFileManager implements PageFileManager {
-    private final int PAGE_SIZE = 8192;
+    private final int PAGE_SIZE;
+
+    public HeapPageFileManager(int pageSize) {
+        ControlFile.validatePageSize(pageSize);
+        this.PAGE_SIZE = pageSize;
+    }
+
+    @Override
+    public int getPageSize() {
+        return PAGE_SIZE;
+    }
 
     @Override
     public void write(Page page, Path path) {
@@ -61,23 +73,23 @@ public class HeapPageFileManager implements PageFileManager {
                 Path parent = path.getParent();
                 if (parent != null) Files.createDirectories(parent);
                 Files.createFile(path);
-                return new HeapPage(pageId);
+                return new HeapPage(pageId, PAGE_SIZE);
             }
 
             try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
                 long pos = (long) pageId * PAGE_SIZE;
                 if (pos + PAGE_SIZE > ch.size()) {
-                    return new HeapPage(pageId);
+                    return new HeapPage(pageId, PAGE_SIZE);
                 }
 
                 ByteBuffer buf = ByteBuffer.allocate(PAGE_SIZE);
                 int total = 0;
                 while (total < PAGE_SIZE) {
                     int n = ch.read(buf, pos + total);
-                    if (n < 0) return new HeapPage(pageId);
+                    if (n < 0) return new HeapPage(pageId, PAGE_SIZE);
                     total += n;
                 }
-                return new HeapPage(pageId, buf.array());
+                return Pages.fromBytes(pageId, buf.array());
             }
         } catch (IOException e) {
             throw new IllegalStateException("I/O error while reading page", e);
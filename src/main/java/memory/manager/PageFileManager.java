@@ -5,6 +5,8 @@ import memory.page.Page;
 import java.nio.file.Path;
 
 public interface PageFileManager {
+    int getPageSize();
+
     void write(Page page, Path path);
 
     Page read(int pageId, Path path);
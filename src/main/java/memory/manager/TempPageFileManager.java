@@ -0,0 +1,93 @@
+package memory.manager;
+
+import memory.model.Persistence;
+import memory.page.HeapPage;
+import memory.page.Page;
+import memory.page.Pages;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Менеджер файлов временных отношений.
+ * <p>
+ * Страницы файлов из каталога {@link Persistence#TEMP} хранятся в памяти процесса,
+ * пока их не больше {@code maxPages}; страницы сверх лимита уходят в обычный
+ * менеджер (на диск). Остальные пути прозрачно передаются обычному менеджеру.
+ */
+public class TempPageFileManager implements PageFileManager {
+
+    private final PageFileManager disk;
+    private final int PAGE_SIZE;
+    private final int maxPages;
+
+    private final Map<Path, Map<Integer, byte[]>> pages = new HashMap<>();
+    private int resident;
+
+    public TempPageFileManager(PageFileManager disk, int maxPages) {
+        if (disk == null) throw new IllegalArgumentException("disk page file manager is null");
+        if (maxPages < 0) throw new IllegalArgumentException("maxPages must be >= 0");
+        this.disk = disk;
+        this.PAGE_SIZE = disk.getPageSize();
+        this.maxPages = maxPages;
+    }
+
+    @Override
+    public int getPageSize() {
+        return PAGE_SIZE;
+    }
+
+    @Override
+    public synchronized void write(Page page, Path path) {
+        if (Persistence.ofFile(path) != Persistence.TEMP) {
+            disk.write(page, path);
+            return;
+        }
+        if (page == null) {
+            throw new IllegalArgumentException("page is null");
+        }
+        if (page.getPageId() < 0) {
+            throw new IllegalArgumentException("temp relation requires explicit page id");
+        }
+
+        Map<Integer, byte[]> file = pages.computeIfAbsent(key(path), k -> new HashMap<>());
+        if (file.containsKey(page.getPageId()) || resident < maxPages) {
+            if (file.put(page.getPageId(), page.bytes()) == null) {
+                resident++;
+            }
+            return;
+        }
+        disk.write(page, path);
+    }
+
+    @Override
+    public synchronized Page read(int pageId, Path path) {
+        if (Persistence.ofFile(path) != Persistence.TEMP) {
+            return disk.read(pageId, path);
+        }
+        if (pageId < 0) throw new IllegalArgumentException("invalid page id");
+
+        Map<Integer, byte[]> file = pages.get(key(path));
+        byte[] bytes = file == null ? null : file.get(pageId);
+        if (bytes != null) {
+            return Pages.fromBytes(pageId, bytes);
+        }
+        if (Files.exists(path)) {
+            return disk.read(pageId, path);
+        }
+        return new HeapPage(pageId, PAGE_SIZE);
+    }
+
+    /**
+     * Число страниц временных отношений, хранящихся в памяти.
+     */
+    public synchronized int residentPages() {
+        return resident;
+    }
+
+    private static Path key(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
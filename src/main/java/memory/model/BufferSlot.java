@@ -2,22 +2,26 @@ package memory.model;
 
 import memory.page.Page;
 
+import java.nio.file.Path;
+
 public class BufferSlot {
-    private final int pageId;
+    private final BufferTag tag;
     private Page page;
     private boolean dirty;
     private boolean pinned;
     private int usageCount;
 
-    public BufferSlot(int pageId, Page page) {
-        this.pageId = pageId;
+    public BufferSlot(BufferTag tag, Page page) {
+        this.tag = tag;
         this.page = page;
         this.dirty = false;
         this.pinned = false;
         this.usageCount = 0;
     }
 
-    public int getPageId() { return pageId; }
+    public BufferTag getTag() { return tag; }
+    public Path getFile() { return tag.file(); }
+    public int getPageId() { return tag.pageId(); }
     public Page getPage() { return page; }
     public void setPage(Page page) { this.page = page; }
     public boolean isDirty() { return dirty; }
@@ -30,7 +34,7 @@ public class BufferSlot {
     @Override
     public String toString() {
         return "BufferSlot{" +
-                "pageId=" + pageId +
+                "tag=" + tag +
                 ", dirty=" + dirty +
                 ", pinned=" + pinned +
                 ", usageCount=" + usageCount +
@@ -0,0 +1,19 @@
+package memory.model;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Адрес страницы в buffer pool: файл отношения + номер страницы в этом файле.
+ * Номера страниц у разных файлов независимы, поэтому ключом служит пара.
+ */
+public record BufferTag(Path file, int pageId) {
+    public BufferTag {
+        file = Objects.requireNonNull(file, "file").toAbsolutePath().normalize();
+    }
+
+    @Override
+    public String toString() {
+        return file.getFileName() + "#" + pageId;
+    }
+}
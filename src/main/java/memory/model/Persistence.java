@@ -0,0 +1,72 @@
+package memory.model;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Режим хранения отношения.
+ * <p>
+ * Нелогируемые и временные отношения лежат в отдельных подкаталогах каталога
+ * таблиц: по пути файла их узнают файловый менеджер, checkpointer и очистка при старте.
+ */
+public enum Persistence {
+    /** Каждое изменение сразу сбрасывается на диск. */
+    PERMANENT("permanent", null),
+    /** Пишется на диск только при вытеснении и штатной остановке, после падения обнуляется. */
+    UNLOGGED("unlogged", "unlogged"),
+    /** Живёт в памяти до конца сессии, на диск попадает только при нехватке памяти. */
+    TEMP("temp", "temp");
+
+    /** Ключ параметра таблицы (CREATE TEMP | UNLOGGED TABLE). */
+    public static final String OPTION = "persistence";
+
+    private final String keyword;
+    private final String directory;
+
+    Persistence(String keyword, String directory) {
+        this.keyword = keyword;
+        this.directory = directory;
+    }
+
+    public String keyword() {
+        return keyword;
+    }
+
+    /**
+     * Подкаталог файлов отношения относительно каталога таблиц или {@code null}.
+     */
+    public String directory() {
+        return directory;
+    }
+
+    /**
+     * Нужно ли сбрасывать страницу на диск сразу после изменения.
+     */
+    public boolean flushOnWrite() {
+        return this == PERMANENT;
+    }
+
+    public static Persistence fromKeyword(String keyword) {
+        String k = keyword.toLowerCase(Locale.ROOT);
+        for (Persistence p : values()) {
+            if (p.keyword.equals(k)) return p;
+        }
+        throw new IllegalArgumentException("unknown persistence: " + keyword);
+    }
+
+    public static Persistence of(Map<String, String> options) {
+        String v = options.get(OPTION);
+        return v == null ? PERMANENT : fromKeyword(v);
+    }
+
+    public static Persistence ofFile(Path file) {
+        Path parent = file.getParent();
+        if (parent == null || parent.getFileName() == null) return PERMANENT;
+        String dir = parent.getFileName().toString();
+        for (Persistence p : values()) {
+            if (dir.equals(p.directory)) return p;
+        }
+        return PERMANENT;
+    }
+}
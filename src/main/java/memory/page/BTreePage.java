@@ -0,0 +1,435 @@
+package memory.page;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Узел страничного B+-дерева: упорядоченный список записей с префиксом длины.
+ * <p>
+ * Порядок записей задаёт владелец дерева — страница только хранит их и
+ * вставляет по позиции. В листе запись — кортеж целиком, во внутреннем узле —
+ * номер дочерней страницы и ключ-разделитель. Поля заголовка:
+ * признак листа, правый сосед (для листов), крайний левый потомок (для
+ * внутренних узлов) и число страниц файла (ведётся только в корне).
+ * <p>
+ * В памяти записи могут временно не помещаться в страницу ({@link #overflows()}):
+ * дерево обязано разделить узел до того, как страница уйдёт на диск.
+ * <p>
+ * Владелец может включить сжатие префикса ({@link #setPrefixField}): если в
+ * каждой записи по одному смещению лежит строка с байтом длины, общее для
+ * всех записей узла начало строки хранится один раз после заголовка, а
+ * записи на диске — без него. В памяти записи всегда полные, сжатие
+ * сказывается только на занятом месте.
+ */
+public class BTreePage implements Page {
+    public static final int MAGIC = 0x00DBDB03;
+
+    private static final int MAGIC_OFF     = 0;  // int
+    private static final int FLAGS_OFF     = 4;  // byte
+    private static final int PREFIX_OFF    = 5;  // byte: смещение строки + 1, 0 — без сжатия
+    private static final int COUNT_OFF     = 6;  // short
+    private static final int RIGHT_OFF     = 8;  // int
+    private static final int LEFTMOST_OFF  = 12; // int
+    private static final int PAGECOUNT_OFF = 16; // int
+    public static final int HEADER_SIZE    = 20;
+
+    private static final int ENTRY_OVERHEAD = 2;
+    private static final byte FLAG_LEAF = 1;
+
+    public static final int NO_PAGE = -1;
+
+    private final int pageId;
+    private final int pageSize;
+
+    private boolean leaf;
+    private int rightLink = NO_PAGE;
+    private int leftmostChild = NO_PAGE;
+    private int pageCount;
+    private final List<byte[]> entries = new ArrayList<>();
+    /** Заголовок и записи без учёта сжатия. */
+    private int used = HEADER_SIZE;
+    /** Смещение байта длины сжимаемой строки в записи, -1 — без сжатия. */
+    private int prefixField = -1;
+    /** Общее начало строк всех записей, байт: не больше настоящего. */
+    private int prefixLength;
+
+    public BTreePage(int pageId, int pageSize, boolean leaf) {
+        if (pageSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Invalid page size");
+        }
+        this.pageId = pageId;
+        this.pageSize = pageSize;
+        this.leaf = leaf;
+    }
+
+    public BTreePage(int pageId, byte[] bytes) {
+        if (bytes == null || bytes.length <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Invalid page size");
+        }
+        this.pageId = pageId;
+        this.pageSize = bytes.length;
+
+        ByteBuffer bb = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bb.getInt(MAGIC_OFF) != MAGIC) {
+            throw new IllegalStateException("invalid magic");
+        }
+        this.leaf = (bb.get(FLAGS_OFF) & FLAG_LEAF) != 0;
+        this.rightLink = bb.getInt(RIGHT_OFF);
+        this.leftmostChild = bb.getInt(LEFTMOST_OFF);
+        this.pageCount = bb.getInt(PAGECOUNT_OFF);
+        this.prefixField = (bb.get(PREFIX_OFF) & 0xFF) - 1;
+
+        int count = bb.getShort(COUNT_OFF) & 0xFFFF;
+        int off = HEADER_SIZE;
+        byte[] prefix = new byte[0];
+        if (prefixField >= 0) {
+            prefixLength = bb.getShort(off) & 0xFFFF;
+            off += Short.BYTES;
+            if (off + prefixLength > pageSize) {
+                throw new IllegalStateException("corrupted b-tree page " + pageId);
+            }
+            prefix = Arrays.copyOfRange(bytes, off, off + prefixLength);
+            off += prefixLength;
+        }
+        for (int i = 0; i < count; i++) {
+            if (off + ENTRY_OVERHEAD > pageSize) {
+                throw new IllegalStateException("corrupted b-tree page " + pageId);
+            }
+            int len = bb.getShort(off) & 0xFFFF;
+            off += ENTRY_OVERHEAD;
+            if (off + len > pageSize || prefixField >= 0 && len <= prefixField) {
+                throw new IllegalStateException("corrupted b-tree page " + pageId);
+            }
+            byte[] e = new byte[len + prefix.length];
+            int head = prefixField + 1;
+            System.arraycopy(bytes, off, e, 0, head);
+            System.arraycopy(prefix, 0, e, head, prefix.length);
+            System.arraycopy(bytes, off + head, e, head + prefix.length, len - head);
+            entries.add(e);
+            used += ENTRY_OVERHEAD + e.length;
+            off += len;
+        }
+    }
+
+    public boolean isLeaf() {
+        return leaf;
+    }
+
+    public int rightLink() {
+        return rightLink;
+    }
+
+    public void setRightLink(int pageId) {
+        this.rightLink = pageId;
+    }
+
+    public int leftmostChild() {
+        return leftmostChild;
+    }
+
+    public void setLeftmostChild(int pageId) {
+        this.leftmostChild = pageId;
+    }
+
+    public int pageCount() {
+        return pageCount;
+    }
+
+    public void setPageCount(int pageCount) {
+        this.pageCount = pageCount;
+    }
+
+    /**
+     * Копия узла для изменения. Записи — общие массивы: страница их не
+     * меняет, а заменяет целиком.
+     */
+    public BTreePage copy() {
+        BTreePage c = new BTreePage(pageId, pageSize, leaf);
+        c.rightLink = rightLink;
+        c.leftmostChild = leftmostChild;
+        c.pageCount = pageCount;
+        c.entries.addAll(entries);
+        c.used = used;
+        c.prefixField = prefixField;
+        c.prefixLength = prefixLength;
+        return c;
+    }
+
+    /**
+     * Включает сжатие префикса строки, байт длины которой лежит в каждой
+     * записи по смещению offset (-1 — выключает).
+     */
+    public void setPrefixField(int offset) {
+        if (offset < -1 || offset > 0xFE) {
+            throw new IllegalArgumentException("invalid prefix field offset: " + offset);
+        }
+        this.prefixField = offset;
+        this.prefixLength = commonPrefix();
+    }
+
+    public int prefixLength() {
+        return prefixLength;
+    }
+
+    /**
+     * Вставляет запись на позицию index, сдвигая последующие.
+     */
+    public void insert(int index, byte[] entry) {
+        if (index < 0 || index > entries.size()) {
+            throw new IndexOutOfBoundsException("index " + index + " of " + entries.size());
+        }
+        checkEntry(entry);
+        prefixLength = prefixAfter(entry, entries.isEmpty() ? null : entries.get(0));
+        entries.add(index, entry.clone());
+        used += ENTRY_OVERHEAD + entry.length;
+    }
+
+    public void set(int index, byte[] entry) {
+        checkIndex(index);
+        checkEntry(entry);
+        prefixLength = prefixAfter(entry, entries.size() == 1 ? null : entries.get(index == 0 ? 1 : 0));
+        byte[] old = entries.set(index, entry.clone());
+        used += entry.length - old.length;
+    }
+
+    /**
+     * На сколько вырастет занятое место, если добавить запись (позиция на
+     * общий префикс не влияет).
+     */
+    public int insertCost(byte[] entry) {
+        int after = prefixAfter(entry, entries.isEmpty() ? null : entries.get(0));
+        return occupied(used + ENTRY_OVERHEAD + entry.length, entries.size() + 1, after) - occupied();
+    }
+
+    /**
+     * Сколько места может занять запись данной длины, не зная её: в худшем
+     * случае она не разделяет общий префикс и он возвращается каждой записи.
+     */
+    public int insertReserve(int length) {
+        return entrySize(length) + prefixLength * entries.size();
+    }
+
+    /**
+     * Позиция разделения узла (1..size-1), при которой больший из двух узлов
+     * занимает меньше всего места: у каждой части свой общий префикс.
+     */
+    public int splitPoint() {
+        int n = entries.size();
+        if (n < 2) throw new IllegalStateException("b-tree page " + pageId + " has too few entries to split");
+        int[] leftPrefix = new int[n];
+        int[] rightPrefix = new int[n + 1];
+        long[] raw = new long[n + 1];
+        for (int i = 0; i < n; i++) {
+            raw[i + 1] = raw[i] + ENTRY_OVERHEAD + entries.get(i).length;
+        }
+        for (int i = 1; i < n; i++) {
+            leftPrefix[i] = i == 1 ? stringLength(entries.get(0))
+                    : Math.min(leftPrefix[i - 1], common(entries.get(0), entries.get(i - 1)));
+        }
+        for (int i = n - 1; i >= 1; i--) {
+            rightPrefix[i] = i == n - 1 ? stringLength(entries.get(n - 1))
+                    : Math.min(rightPrefix[i + 1], common(entries.get(n - 1), entries.get(i)));
+        }
+        int best = 1;
+        long bestSize = Long.MAX_VALUE;
+        for (int mid = 1; mid < n; mid++) {
+            long left = occupied(HEADER_SIZE + raw[mid], mid, leftPrefix[mid]);
+            long right = occupied(HEADER_SIZE + raw[n] - raw[mid], n - mid, rightPrefix[mid]);
+            long size = Math.max(left, right);
+            if (size < bestSize) {
+                bestSize = size;
+                best = mid;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Отрезает записи начиная с from и возвращает их (для разделения узла).
+     */
+    public List<byte[]> truncate(int from) {
+        if (from < 0 || from > entries.size()) {
+            throw new IndexOutOfBoundsException("index " + from + " of " + entries.size());
+        }
+        List<byte[]> tail = new ArrayList<>(entries.subList(from, entries.size()));
+        entries.subList(from, entries.size()).clear();
+        for (byte[] e : tail) {
+            used -= ENTRY_OVERHEAD + e.length;
+        }
+        prefixLength = commonPrefix();
+        return tail;
+    }
+
+    /**
+     * Превращает узел в пустой лист или внутренний узел (при разделении корня).
+     */
+    public void reset(boolean leaf) {
+        truncate(0);
+        this.leaf = leaf;
+        this.rightLink = NO_PAGE;
+        this.leftmostChild = NO_PAGE;
+    }
+
+    public boolean overflows() {
+        return occupied() > pageSize;
+    }
+
+    /**
+     * Байты, которые займёт запись данной длины вместе с префиксом.
+     */
+    public static int entrySize(int length) {
+        return ENTRY_OVERHEAD + length;
+    }
+
+    @Override
+    public byte[] bytes() {
+        if (overflows()) {
+            throw new IllegalStateException("b-tree page " + pageId + " overflows: " + occupied() + " > " + pageSize);
+        }
+        byte[] out = new byte[pageSize];
+        ByteBuffer bb = ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(MAGIC_OFF, MAGIC);
+        bb.put(FLAGS_OFF, leaf ? FLAG_LEAF : 0);
+        bb.put(PREFIX_OFF, (byte) (prefixField + 1));
+        bb.putShort(COUNT_OFF, (short) entries.size());
+        bb.putInt(RIGHT_OFF, rightLink);
+        bb.putInt(LEFTMOST_OFF, leftmostChild);
+        bb.putInt(PAGECOUNT_OFF, pageCount);
+
+        int off = HEADER_SIZE;
+        int head = prefixField + 1;
+        if (prefixField >= 0) {
+            bb.putShort(off, (short) prefixLength);
+            off += Short.BYTES;
+            if (prefixLength > 0) {
+                System.arraycopy(entries.get(0), head, out, off, prefixLength);
+            }
+            off += prefixLength;
+        }
+        for (byte[] e : entries) {
+            bb.putShort(off, (short) (e.length - prefixLength));
+            off += ENTRY_OVERHEAD;
+            System.arraycopy(e, 0, out, off, head);
+            System.arraycopy(e, head + prefixLength, out, off + head, e.length - head - prefixLength);
+            off += e.length - prefixLength;
+        }
+        return out;
+    }
+
+    @Override
+    public int getPageId() {
+        return pageId;
+    }
+
+    @Override
+    public int pageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public boolean isValid() {
+        return true;
+    }
+
+    @Override
+    public byte[] read(int index) {
+        checkIndex(index);
+        return entries.get(index);
+    }
+
+    /**
+     * Дописывает запись в конец узла; вызывающий отвечает за порядок.
+     */
+    @Override
+    public int write(byte[] data) {
+        insert(entries.size(), data);
+        return entries.size() - 1;
+    }
+
+    @Override
+    public void delete(int index) {
+        checkIndex(index);
+        byte[] old = entries.remove(index);
+        used -= ENTRY_OVERHEAD + old.length;
+        if (entries.isEmpty()) prefixLength = 0;
+    }
+
+    @Override
+    public int freeSpace() {
+        return pageSize - occupied();
+    }
+
+    @Override
+    public void compact() {
+        // записи и так лежат плотно
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= entries.size()) {
+            throw new IndexOutOfBoundsException("index " + index + " of " + entries.size());
+        }
+    }
+
+    private int occupied() {
+        return occupied(used, entries.size(), prefixLength);
+    }
+
+    /**
+     * Место узла с count записями общей длины raw (с заголовком) при общем префиксе prefix.
+     */
+    private int occupied(long raw, int count, int prefix) {
+        if (prefixField < 0) return (int) raw;
+        return (int) (raw - (long) count * prefix + Short.BYTES + prefix);
+    }
+
+    /**
+     * Общий префикс после добавления entry к записям, среди которых есть
+     * other ({@code null} — записей нет).
+     */
+    private int prefixAfter(byte[] entry, byte[] other) {
+        if (prefixField < 0) return 0;
+        if (entry.length <= prefixField || entry.length < prefixField + 1 + (entry[prefixField] & 0xFF)) {
+            throw new IllegalArgumentException("entry has no string at offset " + prefixField);
+        }
+        if (other == null) return stringLength(entry);
+        return Math.min(prefixLength, common(other, entry));
+    }
+
+    private int commonPrefix() {
+        if (prefixField < 0 || entries.isEmpty()) return 0;
+        int p = stringLength(entries.get(0));
+        for (int i = 1; i < entries.size() && p > 0; i++) {
+            p = Math.min(p, common(entries.get(0), entries.get(i)));
+        }
+        return p;
+    }
+
+    private int stringLength(byte[] e) {
+        return prefixField < 0 ? 0 : e[prefixField] & 0xFF;
+    }
+
+    /**
+     * Длина общего начала строк двух записей.
+     */
+    private int common(byte[] a, byte[] b) {
+        if (prefixField < 0) return 0;
+        int from = prefixField + 1;
+        int aLen = a[prefixField] & 0xFF;
+        int bLen = b[prefixField] & 0xFF;
+        int i = Arrays.mismatch(a, from, from + aLen, b, from, from + bLen);
+        return i < 0 ? aLen : i;
+    }
+
+    private static void checkEntry(byte[] entry) {
+        if (entry == null) throw new IllegalArgumentException("entry is null");
+        if (entry.length > 0xFFFF) throw new IllegalArgumentException("entry too large: " + entry.length);
+    }
+}
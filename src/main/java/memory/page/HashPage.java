@@ -0,0 +1,203 @@
+package memory.page;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Страница хеш-индекса: корзина или её страница переполнения. Записи с
+ * префиксом длины вставляются по позиции — порядок (по хешу) задаёт индекс,
+ * страницы цепочки корзины связаны ссылкой next. Метастраница индекса —
+ * такая же страница с одной записью.
+ */
+public class HashPage implements Page {
+    public static final int MAGIC = 0x00DBDB05;
+
+    private static final int MAGIC_OFF = 0; // int
+    private static final int COUNT_OFF = 4; // short
+    private static final int NEXT_OFF  = 8; // int
+    public static final int HEADER_SIZE = 12;
+
+    private static final int ENTRY_OVERHEAD = 2;
+
+    public static final int NO_PAGE = -1;
+
+    private final int pageId;
+    private final int pageSize;
+
+    private int next = NO_PAGE;
+    private final List<byte[]> entries = new ArrayList<>();
+    private int used = HEADER_SIZE;
+
+    public HashPage(int pageId, int pageSize) {
+        if (pageSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Invalid page size");
+        }
+        this.pageId = pageId;
+        this.pageSize = pageSize;
+    }
+
+    public HashPage(int pageId, byte[] bytes) {
+        if (bytes == null || bytes.length <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Invalid page size");
+        }
+        this.pageId = pageId;
+        this.pageSize = bytes.length;
+
+        ByteBuffer bb = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bb.getInt(MAGIC_OFF) != MAGIC) {
+            throw new IllegalStateException("invalid magic");
+        }
+        this.next = bb.getInt(NEXT_OFF);
+
+        int count = bb.getShort(COUNT_OFF) & 0xFFFF;
+        int off = HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            if (off + ENTRY_OVERHEAD > pageSize) {
+                throw new IllegalStateException("corrupted hash page " + pageId);
+            }
+            int len = bb.getShort(off) & 0xFFFF;
+            off += ENTRY_OVERHEAD;
+            if (off + len > pageSize) {
+                throw new IllegalStateException("corrupted hash page " + pageId);
+            }
+            entries.add(Arrays.copyOfRange(bytes, off, off + len));
+            off += len;
+        }
+        this.used = off;
+    }
+
+    public int next() {
+        return next;
+    }
+
+    public void setNext(int pageId) {
+        this.next = pageId;
+    }
+
+    /**
+     * Копия страницы для изменения; записи — общие массивы, страница их не меняет.
+     */
+    public HashPage copy() {
+        HashPage c = new HashPage(pageId, pageSize);
+        c.next = next;
+        c.entries.addAll(entries);
+        c.used = used;
+        return c;
+    }
+
+    /**
+     * Помещается ли ещё запись данной длины.
+     */
+    public boolean fits(int length) {
+        return used + entrySize(length) <= pageSize;
+    }
+
+    /**
+     * Убирает все записи (при разделении корзины), ссылку next не трогает.
+     */
+    public void clear() {
+        entries.clear();
+        used = HEADER_SIZE;
+    }
+
+    /**
+     * Байты, которые займёт запись данной длины вместе с префиксом.
+     */
+    public static int entrySize(int length) {
+        return ENTRY_OVERHEAD + length;
+    }
+
+    @Override
+    public byte[] bytes() {
+        byte[] out = new byte[pageSize];
+        ByteBuffer bb = ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(MAGIC_OFF, MAGIC);
+        bb.putShort(COUNT_OFF, (short) entries.size());
+        bb.putInt(NEXT_OFF, next);
+
+        int off = HEADER_SIZE;
+        for (byte[] e : entries) {
+            bb.putShort(off, (short) e.length);
+            off += ENTRY_OVERHEAD;
+            System.arraycopy(e, 0, out, off, e.length);
+            off += e.length;
+        }
+        return out;
+    }
+
+    @Override
+    public int getPageId() {
+        return pageId;
+    }
+
+    @Override
+    public int pageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public boolean isValid() {
+        return true;
+    }
+
+    @Override
+    public byte[] read(int index) {
+        checkIndex(index);
+        return entries.get(index);
+    }
+
+    /**
+     * Вставляет запись на позицию index, сдвигая последующие.
+     */
+    public void insert(int index, byte[] entry) {
+        if (index < 0 || index > entries.size()) {
+            throw new IndexOutOfBoundsException("index " + index + " of " + entries.size());
+        }
+        if (entry == null) throw new IllegalArgumentException("entry is null");
+        if (!fits(entry.length)) {
+            throw new IllegalStateException("hash page " + pageId + " is full");
+        }
+        entries.add(index, entry);
+        used += ENTRY_OVERHEAD + entry.length;
+    }
+
+    /**
+     * Дописывает запись в конец; вызывающий отвечает за порядок.
+     */
+    @Override
+    public int write(byte[] data) {
+        insert(entries.size(), data);
+        return entries.size() - 1;
+    }
+
+    @Override
+    public void delete(int index) {
+        checkIndex(index);
+        byte[] old = entries.remove(index);
+        used -= ENTRY_OVERHEAD + old.length;
+    }
+
+    @Override
+    public int freeSpace() {
+        return pageSize - used;
+    }
+
+    @Override
+    public void compact() {
+        // записи и так лежат плотно
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= entries.size()) {
+            throw new IndexOutOfBoundsException("index " + index + " of " + entries.size());
+        }
+    }
+}
@@ -4,8 +4,25 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
 
+/**
+ * Слотированная страница кучи.
+ * <p>
+ * Указатель слота (offset, length) кроме обычного кортежа может быть в одном из
+ * служебных состояний — они кодируются смещением меньше размера заголовка:
+ * <ul>
+ *   <li>{@link #LP_UNUSED} — слот свободен и может быть занят новым кортежем;</li>
+ *   <li>{@link #LP_DEAD} — кортеж удалён, место ещё не освобождено уплотнением
+ *       (индексы чистятся при удалении, поэтому слот можно занимать сразу);</li>
+ *   <li>{@link #LP_REDIRECT} — слот перенаправляет на другой слот страницы (length = номер слота).</li>
+ * </ul>
+ * Уплотнение ({@link #compact()}) сдвигает живые кортежи, не меняя номеров слотов.
+ */
 public class HeapPage implements Page {
-    private static final int PAGE_SIZE   = 8192;
+    public static final int LP_UNUSED   = 0;
+    public static final int LP_DEAD     = 1;
+    public static final int LP_REDIRECT = 2;
+    public static final int LP_NORMAL   = 3;
+
     private static final int HEADER_SIZE = 10;
     private static final int SLOT_SIZE   = 4;
     private static final int MAGIC       = 0x00DBDB01;
@@ -16,36 +33,44 @@ public class HeapPage implements Page {
     private static final int UPPER_OFF     = 8; // short
 
     private final int pageId;
+    private final int pageSize;
     private final byte[] buffer;
     private final ByteBuffer byteBuffer;
 
-    public HeapPage(int pageId) {
+    public HeapPage(int pageId, int pageSize) {
+        checkPageSize(pageSize);
         this.pageId = pageId;
-        this.buffer = new byte[PAGE_SIZE];
+        this.pageSize = pageSize;
+        this.buffer = new byte[pageSize];
         this.byteBuffer = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
 
         byteBuffer.putInt(MAGIC_OFF, MAGIC);
         byteBuffer.putShort(SLOTCOUNT_OFF, (short) 0);
         byteBuffer.putShort(LOWER_OFF, (short) HEADER_SIZE);
-        byteBuffer.putShort(UPPER_OFF, (short) PAGE_SIZE);
+        setUpper(pageSize);
     }
 
+    /**
+     * Размер страницы берётся из длины массива.
+     */
     public HeapPage(int pageId, byte[] bytes) {
-        if (bytes == null || bytes.length != PAGE_SIZE) {
+        if (bytes == null) {
             throw new IllegalArgumentException("Invalid page size");
         }
+        checkPageSize(bytes.length);
         this.pageId = pageId;
-        this.buffer = Arrays.copyOf(bytes, PAGE_SIZE);
+        this.pageSize = bytes.length;
+        this.buffer = Arrays.copyOf(bytes, pageSize);
         this.byteBuffer = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
 
         if (!isValid()) {
             throw new IllegalStateException("invalid magic");
         }
-        short slotCount = sc();
-        short lower = lo();
-        short upper = up();
+        int slotCount = sc();
+        int lower = lo();
+        int upper = up();
 
-        if (lower < HEADER_SIZE || lower > upper || upper > PAGE_SIZE) {
+        if (lower < HEADER_SIZE || lower > upper || upper > pageSize) {
             throw new IllegalStateException("invalid bounds");
         }
         if (lower != HEADER_SIZE + slotCount * SLOT_SIZE) {
@@ -53,21 +78,44 @@ public class HeapPage implements Page {
         }
     }
 
-    private short sc() { return byteBuffer.getShort(SLOTCOUNT_OFF); }
-    private short lo() { return byteBuffer.getShort(LOWER_OFF); }
-    private short up() { return byteBuffer.getShort(UPPER_OFF); }
+    private static void checkPageSize(int pageSize) {
+        // смещения в заголовке и слотах 16-битные, поэтому максимум — 64 КБ
+        if (pageSize < 1024 || pageSize > 0x10000 || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("Invalid page size: " + pageSize);
+        }
+    }
+
+    private int sc() { return byteBuffer.getShort(SLOTCOUNT_OFF) & 0xFFFF; }
+    private int lo() { return byteBuffer.getShort(LOWER_OFF) & 0xFFFF; }
+    // upper == 0 кодирует конец 64-КБ страницы (65536 не помещается в short)
+    private int up() {
+        int upper = byteBuffer.getShort(UPPER_OFF) & 0xFFFF;
+        return upper == 0 ? pageSize : upper;
+    }
+    private void setUpper(int upper) { byteBuffer.putShort(UPPER_OFF, (short) upper); }
 
     private int slotPos(int i) { return HEADER_SIZE + i * SLOT_SIZE; }
-    private short slotOff(int i) { return byteBuffer.getShort(slotPos(i)); }
-    private short slotLen(int i) { return byteBuffer.getShort(slotPos(i) + 2); }
-    private void writeSlot(int i, short off, short len) {
-        byteBuffer.putShort(slotPos(i), off);
-        byteBuffer.putShort(slotPos(i) + 2, len);
+    private int slotOff(int i) { return byteBuffer.getShort(slotPos(i)) & 0xFFFF; }
+    private int slotLen(int i) { return byteBuffer.getShort(slotPos(i) + 2) & 0xFFFF; }
+    private void writeSlot(int i, int off, int len) {
+        byteBuffer.putShort(slotPos(i), (short) off);
+        byteBuffer.putShort(slotPos(i) + 2, (short) len);
+    }
+
+    private int state(int i) {
+        int off = slotOff(i);
+        return off < HEADER_SIZE ? off : LP_NORMAL;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= sc()) {
+            throw new IllegalArgumentException("bad slot index");
+        }
     }
 
     @Override
     public byte[] bytes() {
-        return Arrays.copyOf(buffer, PAGE_SIZE);
+        return Arrays.copyOf(buffer, pageSize);
     }
 
     @Override
@@ -75,9 +123,14 @@ public class HeapPage implements Page {
         return this.pageId;
     }
 
+    @Override
+    public int pageSize() {
+        return pageSize;
+    }
+
     @Override
     public int size() {
-        return sc() & 0xFFFF;
+        return sc();
     }
 
     @Override
@@ -85,17 +138,21 @@ public class HeapPage implements Page {
         return byteBuffer.getInt(MAGIC_OFF) == MAGIC;
     }
 
+    /**
+     * Возвращает кортеж слота или {@code null}, если слот не хранит кортеж
+     * (свободен, удалён или перенаправлен).
+     */
     @Override
     public byte[] read(int index) {
-        int count = sc() & 0xFFFF;
-        if (index < 0 || index >= count) {
-            throw new IllegalArgumentException("bad slot index");
+        checkIndex(index);
+        if (state(index) != LP_NORMAL) {
+            return null;
         }
 
-        int off = slotOff(index) & 0xFFFF;
-        int len = slotLen(index) & 0xFFFF;
+        int off = slotOff(index);
+        int len = slotLen(index);
 
-        if (off + len > PAGE_SIZE) {
+        if (off + len > pageSize) {
             throw new IllegalArgumentException("slot range out of page");
         }
 
@@ -104,29 +161,141 @@ public class HeapPage implements Page {
         return out;
     }
 
+    /**
+     * Записывает кортеж и возвращает номер слота. Сначала переиспользуется свободный
+     * слот, при нехватке непрерывного места страница уплотняется.
+     */
     @Override
-    public void write(byte[] data) {
+    public int write(byte[] data) {
         if (data == null) {
             throw new IllegalArgumentException("invalid data");
         }
-
-        int lower = lo() & 0xFFFF;
-        int upper = up() & 0xFFFF;
-        int need  = SLOT_SIZE + data.length;
-        int free  = upper - lower;
-
-        if (free < need) {
+        // пустой кортеж на 64-КБ странице получил бы смещение 65536
+        if (data.length == 0) {
+            throw new IllegalArgumentException("empty tuple");
+        }
+        if (data.length > freeSpace()) {
             throw new IllegalArgumentException("not enough space");
         }
 
-        int newUpper = upper - data.length;
+        int idx = findUnusedSlot();
+        int need = data.length + (idx < 0 ? SLOT_SIZE : 0);
+        if (up() - lo() < need) {
+            compact();
+            idx = findUnusedSlot();
+        }
+
+        int lower = lo();
+        int newUpper = up() - data.length;
         System.arraycopy(data, 0, buffer, newUpper, data.length);
 
-        int idx = sc() & 0xFFFF;
-        writeSlot(idx, (short) newUpper, (short) data.length);
+        if (idx < 0) {
+            idx = sc();
+            byteBuffer.putShort(SLOTCOUNT_OFF, (short) (idx + 1));
+            byteBuffer.putShort(LOWER_OFF, (short) (lower + SLOT_SIZE));
+        }
+        writeSlot(idx, newUpper, data.length);
+        setUpper(newUpper);
+        return idx;
+    }
 
-        byteBuffer.putShort(SLOTCOUNT_OFF, (short) (idx + 1));
-        byteBuffer.putShort(LOWER_OFF, (short) (lower + SLOT_SIZE));
-        byteBuffer.putShort(UPPER_OFF, (short) newUpper);
+    @Override
+    public void delete(int index) {
+        checkIndex(index);
+        int st = state(index);
+        if (st != LP_NORMAL && st != LP_REDIRECT) {
+            throw new IllegalArgumentException("slot " + index + " holds no tuple");
+        }
+        writeSlot(index, LP_DEAD, 0);
+    }
+
+    /**
+     * Превращает слот {@code index} в перенаправление на слот {@code target}
+     * с кортежем. Место, занятое прежним кортежем, освобождается при уплотнении.
+     */
+    public void redirect(int index, int target) {
+        checkIndex(index);
+        checkIndex(target);
+        if (index == target) {
+            throw new IllegalArgumentException("slot cannot redirect to itself");
+        }
+        if (state(target) != LP_NORMAL) {
+            throw new IllegalArgumentException("redirect target " + target + " holds no tuple");
+        }
+        writeSlot(index, LP_REDIRECT, target);
+    }
+
+    public int slotState(int index) {
+        checkIndex(index);
+        return state(index);
+    }
+
+    /**
+     * Номер слота, на который перенаправляет {@code index}, или -1, если слот не перенаправлен.
+     */
+    public int redirectTarget(int index) {
+        checkIndex(index);
+        return state(index) == LP_REDIRECT ? slotLen(index) : -1;
+    }
+
+    /**
+     * Место под новый кортеж (без учёта слота) с учётом того, что вернёт уплотнение.
+     */
+    @Override
+    public int freeSpace() {
+        boolean reusableSlot = findUnusedSlot() >= 0;
+        int free = pageSize - lo() - usedBytes() - (reusableSlot ? 0 : SLOT_SIZE);
+        return Math.max(0, free);
+    }
+
+    private int usedBytes() {
+        int used = 0;
+        for (int i = 0; i < sc(); i++) {
+            if (state(i) == LP_NORMAL) used += slotLen(i);
+        }
+        return used;
+    }
+
+    /**
+     * Дефрагментирует область кортежей: живые кортежи прижимаются к концу страницы
+     * с сохранением номеров слотов, удалённые слоты и перенаправления на них
+     * становятся свободными, свободные слоты в хвосте каталога отбрасываются.
+     */
+    @Override
+    public void compact() {
+        int count = sc();
+        byte[] copy = Arrays.copyOf(buffer, pageSize);
+        ByteBuffer src = ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN);
+
+        int upper = pageSize;
+        for (int i = 0; i < count; i++) {
+            int st = state(i);
+            if (st == LP_DEAD || (st == LP_REDIRECT && state(slotLen(i)) != LP_NORMAL)) {
+                writeSlot(i, LP_UNUSED, 0);
+            } else if (st == LP_NORMAL) {
+                int off = src.getShort(slotPos(i)) & 0xFFFF;
+                int len = src.getShort(slotPos(i) + 2) & 0xFFFF;
+                upper -= len;
+                System.arraycopy(copy, off, buffer, upper, len);
+                writeSlot(i, upper, len);
+            }
+        }
+
+        while (count > 0 && state(count - 1) == LP_UNUSED) {
+            count--;
+        }
+        Arrays.fill(buffer, HEADER_SIZE + count * SLOT_SIZE, upper, (byte) 0);
+
+        byteBuffer.putShort(SLOTCOUNT_OFF, (short) count);
+        byteBuffer.putShort(LOWER_OFF, (short) (HEADER_SIZE + count * SLOT_SIZE));
+        setUpper(upper);
+    }
+
+    private int findUnusedSlot() {
+        for (int i = 0; i < sc(); i++) {
+            int st = state(i);
+            if (st == LP_UNUSED || st == LP_DEAD) return i;
+        }
+        return -1;
     }
 }
@@ -0,0 +1,368 @@
+package memory.page;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Узел B+-дерева с ключами INT64: записи фиксированной ширины в примитивных
+ * массивах, без byte[] на запись и без упаковки ключей.
+ * <p>
+ * Запись — ключ и TID, упакованный в long ({@link #packTid}); пара
+ * (ключ, TID) задаёт порядок. Во внутреннем узле у записи i ещё есть потомок
+ * справа от неё, крайний левый потомок — в заголовке. Заголовок тот же, что у
+ * {@link BTreePage}; на диске за ним идут ключи, затем TID, затем потомки.
+ * <p>
+ * Массивы рассчитаны на одну лишнюю запись: узел, получивший её, переполнен
+ * ({@link #overflows()}) и должен быть разделён до записи на диск.
+ */
+public class Int64BTreePage implements Page {
+    public static final int MAGIC = 0x00DBDB04;
+
+    private static final int MAGIC_OFF     = 0;  // int
+    private static final int FLAGS_OFF     = 4;  // byte
+    private static final int COUNT_OFF     = 6;  // short
+    private static final int RIGHT_OFF     = 8;  // int
+    private static final int LEFTMOST_OFF  = 12; // int
+    private static final int PAGECOUNT_OFF = 16; // int
+    public static final int HEADER_SIZE    = 20;
+
+    public static final int LEAF_ENTRY_SIZE = 2 * Long.BYTES;
+    public static final int INTERNAL_ENTRY_SIZE = 2 * Long.BYTES + Integer.BYTES;
+
+    private static final byte FLAG_LEAF = 1;
+
+    public static final int NO_PAGE = -1;
+
+    private final int pageId;
+    private final int pageSize;
+
+    private boolean leaf;
+    private int rightLink = NO_PAGE;
+    private int leftmostChild = NO_PAGE;
+    private int pageCount;
+
+    private int count;
+    private long[] keys;
+    private long[] tids;
+    private int[] children;
+
+    public Int64BTreePage(int pageId, int pageSize, boolean leaf) {
+        if (pageSize <= HEADER_SIZE + 3 * INTERNAL_ENTRY_SIZE) {
+            throw new IllegalArgumentException("Invalid page size");
+        }
+        this.pageId = pageId;
+        this.pageSize = pageSize;
+        allocate(leaf);
+    }
+
+    public Int64BTreePage(int pageId, byte[] bytes) {
+        if (bytes == null || bytes.length <= HEADER_SIZE + 3 * INTERNAL_ENTRY_SIZE) {
+            throw new IllegalArgumentException("Invalid page size");
+        }
+        this.pageId = pageId;
+        this.pageSize = bytes.length;
+
+        ByteBuffer bb = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bb.getInt(MAGIC_OFF) != MAGIC) {
+            throw new IllegalStateException("invalid magic");
+        }
+        allocate((bb.get(FLAGS_OFF) & FLAG_LEAF) != 0);
+        this.rightLink = bb.getInt(RIGHT_OFF);
+        this.leftmostChild = bb.getInt(LEFTMOST_OFF);
+        this.pageCount = bb.getInt(PAGECOUNT_OFF);
+
+        this.count = bb.getShort(COUNT_OFF) & 0xFFFF;
+        if (count > capacity()) {
+            throw new IllegalStateException("corrupted b-tree page " + pageId);
+        }
+        bb.position(HEADER_SIZE);
+        bb.asLongBuffer().get(keys, 0, count);
+        bb.position(HEADER_SIZE + count * Long.BYTES);
+        bb.asLongBuffer().get(tids, 0, count);
+        if (!leaf) {
+            bb.position(HEADER_SIZE + 2 * count * Long.BYTES);
+            bb.asIntBuffer().get(children, 0, count);
+        }
+    }
+
+    private Int64BTreePage(Int64BTreePage src) {
+        this.pageId = src.pageId;
+        this.pageSize = src.pageSize;
+        this.leaf = src.leaf;
+        this.rightLink = src.rightLink;
+        this.leftmostChild = src.leftmostChild;
+        this.pageCount = src.pageCount;
+        this.count = src.count;
+        this.keys = src.keys.clone();
+        this.tids = src.tids.clone();
+        this.children = src.children == null ? null : src.children.clone();
+    }
+
+    /**
+     * Копия узла для изменения: опубликованную страницу дерево не правит на
+     * месте, чтобы читатели без защёлки видели целый снимок.
+     */
+    public Int64BTreePage copy() {
+        return new Int64BTreePage(this);
+    }
+
+    private void allocate(boolean leaf) {
+        this.leaf = leaf;
+        int capacity = capacity();
+        this.count = 0;
+        this.keys = new long[capacity + 1];
+        this.tids = new long[capacity + 1];
+        this.children = leaf ? null : new int[capacity + 1];
+    }
+
+    /**
+     * Сколько записей помещается в страницу: fan-out узла.
+     */
+    public int capacity() {
+        return (pageSize - HEADER_SIZE) / (leaf ? LEAF_ENTRY_SIZE : INTERNAL_ENTRY_SIZE);
+    }
+
+    public static int capacity(int pageSize, boolean leaf) {
+        return (pageSize - HEADER_SIZE) / (leaf ? LEAF_ENTRY_SIZE : INTERNAL_ENTRY_SIZE);
+    }
+
+    public static long packTid(int pageId, short slotId) {
+        return ((long) pageId << 16) | (slotId & 0xFFFF);
+    }
+
+    public static int tidPage(long packed) {
+        return (int) (packed >>> 16);
+    }
+
+    public static short tidSlot(long packed) {
+        return (short) packed;
+    }
+
+    public boolean isLeaf() {
+        return leaf;
+    }
+
+    public int rightLink() {
+        return rightLink;
+    }
+
+    public void setRightLink(int pageId) {
+        this.rightLink = pageId;
+    }
+
+    public int leftmostChild() {
+        return leftmostChild;
+    }
+
+    public void setLeftmostChild(int pageId) {
+        this.leftmostChild = pageId;
+    }
+
+    public int pageCount() {
+        return pageCount;
+    }
+
+    public void setPageCount(int pageCount) {
+        this.pageCount = pageCount;
+    }
+
+    public long key(int i) {
+        return keys[i];
+    }
+
+    public long tid(int i) {
+        return tids[i];
+    }
+
+    /**
+     * Потомок справа от записи i во внутреннем узле.
+     */
+    public int child(int i) {
+        return children[i];
+    }
+
+    /**
+     * Первая позиция, где (ключ, TID) не меньше (key, tid). Бинарный поиск без
+     * ветвлений по результату сравнения: шаг выбирается условным присваиванием,
+     * которое JIT сводит к cmov.
+     */
+    public int lowerBound(long key, long tid) {
+        int base = 0;
+        int n = count;
+        while (n > 0) {
+            int half = n >>> 1;
+            int mid = base + half;
+            long k = keys[mid];
+            boolean less = k < key | (k == key & tids[mid] < tid);
+            base = less ? mid + 1 : base;
+            n = less ? n - half - 1 : half;
+        }
+        return base;
+    }
+
+    /**
+     * Первая позиция, где (ключ, TID) больше (key, tid): правее неё спускаться
+     * во внутреннем узле не нужно.
+     */
+    public int upperBound(long key, long tid) {
+        int base = 0;
+        int n = count;
+        while (n > 0) {
+            int half = n >>> 1;
+            int mid = base + half;
+            long k = keys[mid];
+            boolean notGreater = k < key | (k == key & tids[mid] <= tid);
+            base = notGreater ? mid + 1 : base;
+            n = notGreater ? n - half - 1 : half;
+        }
+        return base;
+    }
+
+    /**
+     * Вставляет запись на позицию index, сдвигая последующие; child — только
+     * для внутренних узлов.
+     */
+    public void insert(int index, long key, long tid, int child) {
+        if (index < 0 || index > count) {
+            throw new IndexOutOfBoundsException("index " + index + " of " + count);
+        }
+        if (count == keys.length) {
+            throw new IllegalStateException("b-tree page " + pageId + " is full");
+        }
+        int tail = count - index;
+        System.arraycopy(keys, index, keys, index + 1, tail);
+        System.arraycopy(tids, index, tids, index + 1, tail);
+        keys[index] = key;
+        tids[index] = tid;
+        if (!leaf) {
+            System.arraycopy(children, index, children, index + 1, tail);
+            children[index] = child;
+        }
+        count++;
+    }
+
+    /**
+     * Переносит записи начиная с from в конец узла dst того же вида.
+     */
+    public void moveTail(int from, Int64BTreePage dst) {
+        if (from < 0 || from > count) {
+            throw new IndexOutOfBoundsException("index " + from + " of " + count);
+        }
+        for (int i = from; i < count; i++) {
+            dst.insert(dst.count, keys[i], tids[i], leaf ? 0 : children[i]);
+        }
+        count = from;
+    }
+
+    /**
+     * Превращает узел в пустой лист или внутренний узел (при разделении корня).
+     */
+    public void reset(boolean leaf) {
+        allocate(leaf);
+        this.rightLink = NO_PAGE;
+        this.leftmostChild = NO_PAGE;
+    }
+
+    public boolean overflows() {
+        return count > capacity();
+    }
+
+    @Override
+    public byte[] bytes() {
+        if (overflows()) {
+            throw new IllegalStateException("b-tree page " + pageId + " overflows: " + count + " > " + capacity());
+        }
+        byte[] out = new byte[pageSize];
+        ByteBuffer bb = ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(MAGIC_OFF, MAGIC);
+        bb.put(FLAGS_OFF, leaf ? FLAG_LEAF : 0);
+        bb.putShort(COUNT_OFF, (short) count);
+        bb.putInt(RIGHT_OFF, rightLink);
+        bb.putInt(LEFTMOST_OFF, leftmostChild);
+        bb.putInt(PAGECOUNT_OFF, pageCount);
+
+        bb.position(HEADER_SIZE);
+        bb.asLongBuffer().put(keys, 0, count);
+        bb.position(HEADER_SIZE + count * Long.BYTES);
+        bb.asLongBuffer().put(tids, 0, count);
+        if (!leaf) {
+            bb.position(HEADER_SIZE + 2 * count * Long.BYTES);
+            bb.asIntBuffer().put(children, 0, count);
+        }
+        return out;
+    }
+
+    @Override
+    public int getPageId() {
+        return pageId;
+    }
+
+    @Override
+    public int pageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean isValid() {
+        return true;
+    }
+
+    /**
+     * Запись как байты [ключ (long)][TID (long)] — для общего интерфейса страниц.
+     */
+    @Override
+    public byte[] read(int index) {
+        checkIndex(index);
+        return ByteBuffer.allocate(LEAF_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putLong(keys[index])
+                .putLong(tids[index])
+                .array();
+    }
+
+    /**
+     * Дописывает запись листа [ключ][TID] в конец; вызывающий отвечает за порядок.
+     */
+    @Override
+    public int write(byte[] data) {
+        if (!leaf) throw new IllegalStateException("write into internal b-tree page " + pageId);
+        if (data == null || data.length != LEAF_ENTRY_SIZE) {
+            throw new IllegalArgumentException("expected " + LEAF_ENTRY_SIZE + "-byte entry");
+        }
+        ByteBuffer bb = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        insert(count, bb.getLong(0), bb.getLong(Long.BYTES), 0);
+        return count - 1;
+    }
+
+    @Override
+    public void delete(int index) {
+        checkIndex(index);
+        int tail = count - index - 1;
+        System.arraycopy(keys, index + 1, keys, index, tail);
+        System.arraycopy(tids, index + 1, tids, index, tail);
+        if (!leaf) {
+            System.arraycopy(children, index + 1, children, index, tail);
+        }
+        count--;
+    }
+
+    @Override
+    public int freeSpace() {
+        return (capacity() - count) * (leaf ? LEAF_ENTRY_SIZE : INTERNAL_ENTRY_SIZE);
+    }
+
+    @Override
+    public void compact() {
+        // записи и так лежат плотно
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("index " + index + " of " + count);
+        }
+    }
+}
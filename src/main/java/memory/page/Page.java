@@ -5,11 +5,19 @@ public interface Page {
 
     int getPageId();
 
+    int pageSize();
+
     int size();
 
     boolean isValid();
 
     byte[] read(int index);
 
-    void write(byte[] data);
+    int write(byte[] data);
+
+    void delete(int index);
+
+    int freeSpace();
+
+    void compact();
 }
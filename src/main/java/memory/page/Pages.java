@@ -0,0 +1,32 @@
+package memory.page;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Восстановление страницы из байтов: формат определяется по magic в заголовке.
+ */
+public final class Pages {
+
+    private Pages() { }
+
+    public static Page fromBytes(int pageId, byte[] bytes) {
+        if (bytes == null || bytes.length < 4) {
+            throw new IllegalArgumentException("Invalid page size");
+        }
+        int magic = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getInt(0);
+        if (magic == PaxPage.MAGIC) {
+            return new PaxPage(pageId, bytes);
+        }
+        if (magic == BTreePage.MAGIC) {
+            return new BTreePage(pageId, bytes);
+        }
+        if (magic == Int64BTreePage.MAGIC) {
+            return new Int64BTreePage(pageId, bytes);
+        }
+        if (magic == HashPage.MAGIC) {
+            return new HashPage(pageId, bytes);
+        }
+        return new HeapPage(pageId, bytes);
+    }
+}
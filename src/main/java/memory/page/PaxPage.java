@@ -0,0 +1,371 @@
+package memory.page;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Страница в формате PAX: значения каждой колонки лежат в своей "министранице".
+ * <p>
+ * Формат самоописывающий: в заголовке для каждой колонки хранится ширина поля
+ * (0 — переменная длина с 1-байтовым префиксом), начало, ёмкость и занятый
+ * объём министраницы. Последняя министраница — байт состояния строки
+ * (0 — живая, 1 — удалена). Номер строки на странице — её слот в TID.
+ * <p>
+ * {@link #write(byte[])} и {@link #read(int)} работают со строкой целиком в том же
+ * формате, что и {@link HeapPage} (конкатенация полей), а {@link #readColumn(int)}
+ * позволяет читать одну колонку, не трогая остальные. Когда министраница
+ * переполняется, а на странице ещё есть место, ёмкости перераспределяются.
+ */
+public class PaxPage implements Page {
+    public static final int MAGIC = 0x00DBDB02;
+
+    private static final int MAGIC_OFF    = 0; // int
+    private static final int COLCOUNT_OFF = 4; // short
+    private static final int ROWCOUNT_OFF = 6; // short
+    private static final int HEADER_SIZE  = 8;
+
+    private static final int DESC_SIZE      = 14;
+    private static final int DESC_WIDTH     = 0;  // short
+    private static final int DESC_START     = 2;  // int
+    private static final int DESC_CAPACITY  = 6;  // int
+    private static final int DESC_USED      = 10; // int
+
+    // оценка средней ширины поля переменной длины для начальной разметки
+    private static final int VARLEN_ESTIMATE = 16;
+
+    private static final byte ROW_LIVE    = 0;
+    private static final byte ROW_DELETED = 1;
+
+    private final int pageId;
+    private final int pageSize;
+    private final byte[] buffer;
+    private final ByteBuffer byteBuffer;
+
+    /**
+     * @param widths ширины полей колонок; 0 — поле переменной длины
+     */
+    public PaxPage(int pageId, int pageSize, int[] widths) {
+        if (widths == null || widths.length == 0) {
+            throw new IllegalArgumentException("PAX page needs at least one column");
+        }
+        this.pageId = pageId;
+        this.pageSize = pageSize;
+        this.buffer = new byte[pageSize];
+        this.byteBuffer = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+
+        byteBuffer.putInt(MAGIC_OFF, MAGIC);
+        byteBuffer.putShort(COLCOUNT_OFF, (short) widths.length);
+        byteBuffer.putShort(ROWCOUNT_OFF, (short) 0);
+
+        int minis = widths.length + 1;
+        if (dataStart(minis) >= pageSize) {
+            throw new IllegalArgumentException("too many columns for PAX page");
+        }
+        int[] weights = new int[minis];
+        for (int i = 0; i < widths.length; i++) {
+            if (widths[i] < 0) throw new IllegalArgumentException("negative column width");
+            byteBuffer.putShort(desc(i) + DESC_WIDTH, (short) widths[i]);
+            weights[i] = widths[i] == 0 ? VARLEN_ESTIMATE : widths[i];
+        }
+        byteBuffer.putShort(desc(widths.length) + DESC_WIDTH, (short) 1);
+        weights[widths.length] = 1;
+
+        layout(weights);
+    }
+
+    public PaxPage(int pageId, byte[] bytes) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("Invalid page size");
+        }
+        this.pageId = pageId;
+        this.pageSize = bytes.length;
+        this.buffer = Arrays.copyOf(bytes, pageSize);
+        this.byteBuffer = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+
+        if (!isValid()) {
+            throw new IllegalStateException("invalid magic");
+        }
+        int prevEnd = dataStart(minis());
+        for (int i = 0; i < minis(); i++) {
+            int start = start(i);
+            if (start < prevEnd || used(i) > capacity(i) || start + capacity(i) > pageSize) {
+                throw new IllegalStateException("invalid minipage bounds");
+            }
+            prevEnd = start + capacity(i);
+        }
+    }
+
+    private int desc(int mini) { return HEADER_SIZE + mini * DESC_SIZE; }
+    private static int dataStart(int minis) { return HEADER_SIZE + minis * DESC_SIZE; }
+
+    private int columns() { return byteBuffer.getShort(COLCOUNT_OFF) & 0xFFFF; }
+    private int minis() { return columns() + 1; }
+    private int stateMini() { return columns(); }
+    private int rows() { return byteBuffer.getShort(ROWCOUNT_OFF) & 0xFFFF; }
+
+    private int width(int mini) { return byteBuffer.getShort(desc(mini) + DESC_WIDTH) & 0xFFFF; }
+    private int start(int mini) { return byteBuffer.getInt(desc(mini) + DESC_START); }
+    private int capacity(int mini) { return byteBuffer.getInt(desc(mini) + DESC_CAPACITY); }
+    private int used(int mini) { return byteBuffer.getInt(desc(mini) + DESC_USED); }
+
+    public int columnCount() {
+        return columns();
+    }
+
+    public int columnWidth(int column) {
+        checkColumn(column);
+        return width(column);
+    }
+
+    @Override
+    public byte[] bytes() {
+        return Arrays.copyOf(buffer, pageSize);
+    }
+
+    @Override
+    public int getPageId() {
+        return pageId;
+    }
+
+    @Override
+    public int pageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public int size() {
+        return rows();
+    }
+
+    @Override
+    public boolean isValid() {
+        return byteBuffer.getInt(MAGIC_OFF) == MAGIC;
+    }
+
+    public boolean isDeleted(int row) {
+        checkRow(row);
+        return buffer[start(stateMini()) + row] == ROW_DELETED;
+    }
+
+    /**
+     * Строка целиком (поля подряд) или {@code null}, если строка удалена.
+     */
+    @Override
+    public byte[] read(int index) {
+        checkRow(index);
+        if (isDeleted(index)) {
+            return null;
+        }
+
+        byte[][] fields = new byte[columns()][];
+        int total = 0;
+        for (int c = 0; c < columns(); c++) {
+            int off = fieldOffset(c, index);
+            int len = fieldLength(c, off);
+            fields[c] = Arrays.copyOfRange(buffer, off, off + len);
+            total += len;
+        }
+
+        byte[] out = new byte[total];
+        int pos = 0;
+        for (byte[] f : fields) {
+            System.arraycopy(f, 0, out, pos, f.length);
+            pos += f.length;
+        }
+        return out;
+    }
+
+    /**
+     * Поля одной колонки для всех строк страницы (включая удалённые — см. {@link #isDeleted(int)}).
+     */
+    public List<byte[]> readColumn(int column) {
+        checkColumn(column);
+        int n = rows();
+        List<byte[]> out = new ArrayList<>(n);
+        int off = start(column);
+        for (int r = 0; r < n; r++) {
+            int len = fieldLength(column, off);
+            out.add(Arrays.copyOfRange(buffer, off, off + len));
+            off += len;
+        }
+        return out;
+    }
+
+    @Override
+    public int write(byte[] data) {
+        if (data == null) {
+            throw new IllegalArgumentException("invalid data");
+        }
+        if (rows() == 0xFFFF) {
+            throw new IllegalArgumentException("not enough space");
+        }
+
+        int cols = columns();
+        int[] fieldOff = new int[cols];
+        int[] fieldLen = new int[cols];
+        int pos = 0;
+        for (int c = 0; c < cols; c++) {
+            if (pos >= data.length) {
+                throw new IllegalArgumentException("row does not match page layout");
+            }
+            fieldOff[c] = pos;
+            fieldLen[c] = width(c) != 0 ? width(c) : 1 + (data[pos] & 0xFF);
+            pos += fieldLen[c];
+        }
+        if (pos != data.length) {
+            throw new IllegalArgumentException("row does not match page layout");
+        }
+        if (data.length > freeSpace()) {
+            throw new IllegalArgumentException("not enough space");
+        }
+
+        int[] need = new int[minis()];
+        System.arraycopy(fieldLen, 0, need, 0, cols);
+        need[stateMini()] = 1;
+
+        for (int m = 0; m < minis(); m++) {
+            if (used(m) + need[m] > capacity(m)) {
+                rebalance(need);
+                break;
+            }
+        }
+
+        for (int c = 0; c < cols; c++) {
+            append(c, data, fieldOff[c], fieldLen[c]);
+        }
+        append(stateMini(), new byte[] { ROW_LIVE }, 0, 1);
+
+        int row = rows();
+        byteBuffer.putShort(ROWCOUNT_OFF, (short) (row + 1));
+        return row;
+    }
+
+    @Override
+    public void delete(int index) {
+        checkRow(index);
+        if (isDeleted(index)) {
+            throw new IllegalArgumentException("row " + index + " is already deleted");
+        }
+        buffer[start(stateMini()) + index] = ROW_DELETED;
+    }
+
+    /**
+     * Место под новую строку (без байта состояния) с учётом перераспределения министраниц.
+     */
+    @Override
+    public int freeSpace() {
+        int used = 0;
+        for (int m = 0; m < minis(); m++) used += used(m);
+        return Math.max(0, pageSize - dataStart(minis()) - used - 1);
+    }
+
+    /**
+     * Равномерно перераспределяет свободное место между министраницами.
+     * Удалённые строки не вычищаются: номера строк — это TID, на них ссылаются индексы.
+     */
+    @Override
+    public void compact() {
+        rebalance(new int[minis()]);
+    }
+
+    private void append(int mini, byte[] src, int off, int len) {
+        System.arraycopy(src, off, buffer, start(mini) + used(mini), len);
+        byteBuffer.putInt(desc(mini) + DESC_USED, used(mini) + len);
+    }
+
+    /**
+     * Новая разметка: каждой министранице — занятое + {@code extra}, остаток
+     * свободного места делится пропорционально этим объёмам.
+     */
+    private void rebalance(int[] extra) {
+        int minis = minis();
+        int[] weights = new int[minis];
+        for (int m = 0; m < minis; m++) {
+            weights[m] = used(m) + extra[m];
+        }
+
+        byte[] old = Arrays.copyOf(buffer, pageSize);
+        int[] oldStart = new int[minis];
+        int[] oldUsed = new int[minis];
+        for (int m = 0; m < minis; m++) {
+            oldStart[m] = start(m);
+            oldUsed[m] = used(m);
+        }
+
+        layoutWithReserve(weights);
+
+        Arrays.fill(buffer, dataStart(minis), pageSize, (byte) 0);
+        for (int m = 0; m < minis; m++) {
+            System.arraycopy(old, oldStart[m], buffer, start(m), oldUsed[m]);
+            byteBuffer.putInt(desc(m) + DESC_USED, oldUsed[m]);
+        }
+    }
+
+    private void layout(int[] weights) {
+        int minis = weights.length;
+        int total = pageSize - dataStart(minis);
+        long sum = 0;
+        for (int w : weights) sum += w;
+
+        int pos = dataStart(minis);
+        for (int m = 0; m < minis; m++) {
+            int cap = (m == minis - 1) ? pageSize - pos : (int) (total * (long) weights[m] / sum);
+            byteBuffer.putInt(desc(m) + DESC_START, pos);
+            byteBuffer.putInt(desc(m) + DESC_CAPACITY, cap);
+            byteBuffer.putInt(desc(m) + DESC_USED, 0);
+            pos += cap;
+        }
+    }
+
+    private void layoutWithReserve(int[] required) {
+        int minis = required.length;
+        int total = pageSize - dataStart(minis);
+        long sum = 0;
+        for (int r : required) sum += r;
+        long free = total - sum;
+        if (free < 0) {
+            throw new IllegalArgumentException("not enough space");
+        }
+
+        int pos = dataStart(minis);
+        for (int m = 0; m < minis; m++) {
+            int share = sum == 0 ? (int) (free / minis) : (int) (free * required[m] / sum);
+            int cap = (m == minis - 1) ? pageSize - pos : required[m] + share;
+            byteBuffer.putInt(desc(m) + DESC_START, pos);
+            byteBuffer.putInt(desc(m) + DESC_CAPACITY, cap);
+            pos += cap;
+        }
+    }
+
+    private int fieldOffset(int column, int row) {
+        int w = width(column);
+        if (w != 0) {
+            return start(column) + row * w;
+        }
+        int off = start(column);
+        for (int r = 0; r < row; r++) {
+            off += 1 + (buffer[off] & 0xFF);
+        }
+        return off;
+    }
+
+    private int fieldLength(int column, int off) {
+        int w = width(column);
+        return w != 0 ? w : 1 + (buffer[off] & 0xFF);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rows()) {
+            throw new IllegalArgumentException("bad row index");
+        }
+    }
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= columns()) {
+            throw new IllegalArgumentException("bad column index");
+        }
+    }
+}
@@ -2,6 +2,7 @@ package memory.replacer;
 
 import memory.Pair;
 import memory.model.BufferSlot;
+import memory.model.BufferTag;
 
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -9,13 +10,13 @@ import java.util.Map;
 
 public class ClockReplacer implements Replacer {
     private static final int MAX_USAGE = 5;
-    private final LinkedHashMap<Integer, Pair<Integer, BufferSlot>> slots = new LinkedHashMap<>();
+    private final LinkedHashMap<BufferTag, Pair<Integer, BufferSlot>> slots = new LinkedHashMap<>();
 
     @Override
     public synchronized void push(BufferSlot bufferSlot) {
         if (bufferSlot.isPinned()) return;
 
-        int id = bufferSlot.getPageId();
+        BufferTag id = bufferSlot.getTag();
         Pair<Integer, BufferSlot> pair = slots.get(id);
 
         if (pair != null) {
@@ -29,20 +30,20 @@ public class ClockReplacer implements Replacer {
     }
 
     @Override
-    public synchronized void delete(int pageId) {
-        slots.remove(pageId);
+    public synchronized void delete(BufferTag tag) {
+        slots.remove(tag);
     }
 
     @Override
     public synchronized BufferSlot pickVictim() {
         if (slots.isEmpty()) return null;
 
-        Iterator<Map.Entry<Integer, Pair<Integer, BufferSlot>>> it;
+        Iterator<Map.Entry<BufferTag, Pair<Integer, BufferSlot>>> it;
 
         while (true) {
             it = slots.entrySet().iterator();
             while (it.hasNext()) {
-                Map.Entry<Integer, Pair<Integer, BufferSlot>> entry = it.next();
+                Map.Entry<BufferTag, Pair<Integer, BufferSlot>> entry = it.next();
                 Pair<Integer, BufferSlot> pair = entry.getValue();
                 BufferSlot slot = pair.second;
 
@@ -62,8 +63,8 @@ public class ClockReplacer implements Replacer {
         }
     }
 
-    public synchronized void update(int slotId) {
-        Pair<Integer, BufferSlot> pair = slots.get(slotId);
+    public synchronized void update(BufferTag tag) {
+        Pair<Integer, BufferSlot> pair = slots.get(tag);
         if (pair == null) return;
         if (pair.second.isPinned()) return;
 
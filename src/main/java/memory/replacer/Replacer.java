@@ -1,9 +1,10 @@
 package memory.replacer;
 
 import memory.model.BufferSlot;
+import memory.model.BufferTag;
 
 public interface Replacer {
     void push(BufferSlot bufferSlot);
-    void delete(int pageId);
+    void delete(BufferTag tag);
     BufferSlot pickVictim();
 }
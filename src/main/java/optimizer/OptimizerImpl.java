@@ -1,17 +1,32 @@
 package optimizer;
 
+import access.TableAccessMethod;
+import access.TableSample;
+import access.heap.HeapAccessMethod;
+import access.iot.IndexOrganizedAccessMethod;
 import catalog.manager.CatalogManager;
 import catalog.model.TableDefinition;
+import catalog.operation.DictionaryFilter;
+import catalog.partition.PartitionBound;
+import catalog.partition.Partitioning;
+import index.Index;
+import index.brin.BrinIndex;
 import index.btree.BPlusTreeIndex;
+import index.btree.CompositeKey;
+import index.art.ArtIndex;
+import index.hash.HashIndex;
 import index.registry.IndexRegistry;
 import optimizer.node.*;
 import planner.node.*;
 import semantic.QueryTree;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.Set;
 
 public class OptimizerImpl implements Optimizer {
 
@@ -43,27 +58,50 @@ public class OptimizerImpl implements Optimizer {
             return new PhysicalInsertNode(ln.getTableDefinition(), ln.getValues());
         }
 
+        if (logicalPlan instanceof DeleteNode ln) {
+            return new PhysicalDeleteNode(ln.getTableDefinition(), optimize(ln.getInput()));
+        }
+
+        if (logicalPlan instanceof UpdateNode ln) {
+            return new PhysicalUpdateNode(
+                    ln.getTableDefinition(),
+                    ln.getColumns(),
+                    ln.getValues(),
+                    optimize(ln.getInput())
+            );
+        }
+
         if (logicalPlan instanceof LogicalCreateIndexNode ci) {
-            return new PhysicalCreateIndexNode(ci.indexName(), ci.tableName(), ci.columnName());
+            return new PhysicalCreateIndexNode(ci.indexName(), ci.tableName(), ci.columnNames(),
+                    ci.indexType(), ci.options());
+        }
+
+        if (logicalPlan instanceof LogicalClusterNode cl) {
+            return new PhysicalClusterNode(cl.tableName(), cl.indexName());
         }
 
         if (logicalPlan instanceof ScanNode ln) {
-            return new PhysicalSeqScanNode(ln.getTable());
+            if (Partitioning.isPartitioned(ln.getTable())) {
+                return appendPartitions(ln.getTable(), null, ln.getSample(), null);
+            }
+            return new PhysicalSeqScanNode(ln.getTable(), List.of("*"), List.of(), null, ln.getSample());
         }
 
         if (logicalPlan instanceof FilterNode ln) {
-            return optimizeFilter(ln);
+            return optimizeFilter(ln, null);
         }
 
         if (logicalPlan instanceof ProjectNode p) {
-            PhysicalPlanNode child = optimize(p.getInput());
-
             var targets = p.getTargets();
+            PhysicalPlanNode child = p.getInput() instanceof FilterNode f
+                    ? optimizeFilter(f, targetColumns(targets))
+                    : optimize(p.getInput());
+
             if (targets.size() == 1 && targets.get(0) instanceof QueryTree.QTStar) {
                 return child;
             }
 
-            return new PhysicalProjectNode(child, targets);
+            return new PhysicalProjectNode(pushDownColumns(child, targets), targets);
         }
 
         throw new UnsupportedOperationException(
@@ -71,7 +109,11 @@ public class OptimizerImpl implements Optimizer {
         );
     }
 
-    private PhysicalPlanNode optimizeFilter(FilterNode ln) {
+    /**
+     * @param needed колонки, которые читают узлы над фильтром, или {@code null},
+     *               если нужна строка целиком (ей пользуются DELETE и UPDATE)
+     */
+    private PhysicalPlanNode optimizeFilter(FilterNode ln, Set<String> needed) {
         LogicalPlanNode in = ln.getInput();
 
         if (!(in instanceof ScanNode sn)) {
@@ -83,10 +125,133 @@ public class OptimizerImpl implements Optimizer {
         TableDefinition table = catalog.getTable(sn.getTable().getName());
         QueryTree.QTExpr predicate = ln.getPredicate();
 
+        if (Partitioning.isPartitioned(table)) {
+            return appendPartitions(table, predicate, sn.getSample(), needed);
+        }
+        return scanWithFilter(table, predicate, sn.getSample(), needed);
+    }
+
+    /**
+     * Секции, которые предикат не исключает, каждая со своим лучшим путём
+     * доступа (у секций свои индексы и статистика). Отсечение по границам
+     * делается при планировании: в запросах нет параметров, так что все
+     * значения ключа известны уже здесь.
+     */
+    private PhysicalPlanNode appendPartitions(TableDefinition parent, QueryTree.QTExpr predicate, TableSample sample,
+                                              Set<String> needed) {
+        List<TableDefinition> all = Partitioning.partitionsOf(catalog, parent);
+        String key = Partitioning.key(parent);
+        List<QueryTree.QTExpr> conjuncts = predicate == null ? List.of() : splitAnd(predicate);
+
+        List<String> names = new ArrayList<>();
+        List<PhysicalPlanNode> inputs = new ArrayList<>();
+        for (TableDefinition p : all) {
+            if (!partitionMayMatch(Partitioning.bound(catalog, p), key, conjuncts)) continue;
+            names.add(p.getName());
+            inputs.add(predicate == null
+                    ? new PhysicalSeqScanNode(p, List.of("*"), List.of(), null, sample)
+                    : scanWithFilter(p, predicate, sample, needed));
+        }
+        return new PhysicalAppendNode(parent, names, inputs, all.size());
+    }
+
+    /**
+     * false — условия на ключ разбиения исключают все значения границы секции:
+     * диапазон из сравнений с константами или список key = a OR key = b (IN).
+     */
+    private static boolean partitionMayMatch(PartitionBound bound, String key, List<QueryTree.QTExpr> conjuncts) {
+        KeyRange range = columnRange(conjuncts, key);
+        if (range != null && !bound.mayContain(range.from, range.to, range.includeFrom, range.includeTo)) {
+            return false;
+        }
+        for (QueryTree.QTExpr c : conjuncts) {
+            List<QueryTree.QTExpr> arms = splitOr(c);
+            if (arms.size() < 2) continue;
+
+            List<Comparable<?>> points = new ArrayList<>();
+            for (QueryTree.QTExpr arm : arms) {
+                Side s = columnConst(arm);
+                if (s == null || !"=".equals(s.op) || !key.equals(s.column.column.name())
+                        || !(s.constant.value instanceof Comparable<?> v)) {
+                    points = null;
+                    break;
+                }
+                points.add(v);
+            }
+            if (points != null && points.stream().noneMatch(v -> bound.mayContain(v, v, true, true))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Выборка TABLESAMPLE делается только SeqScan: индексный путь вернул бы
+     * строки не из выбранных страниц. Если индекс покрывает needed и
+     * предикат, таблица не читается вовсе (IndexOnlyScan). Запасной путь для
+     * индексного скана — SeqScan или, если дешевле, BitmapHeapScan по всем
+     * индексируемым условиям сразу.
+     */
+    private PhysicalPlanNode scanWithFilter(TableDefinition table, QueryTree.QTExpr predicate, TableSample sample,
+                                            Set<String> needed) {
+        if (sample != null) {
+            return seqScanWithFilter(table, predicate, sample);
+        }
+        // диапазон по ключу в индексно-организованной таблице читает часть тех же
+        // листов, что и полный скан, поэтому он не дороже SeqScan
+        PhysicalPlanNode keyScan = primaryKeyPath(table, predicate);
+        if (keyScan != null) {
+            return keyScan;
+        }
+
         IndexChoice choice = chooseIndexPath(table, predicate);
+        BitmapPath bitmap = bitmapPath(table, predicate);
+        if (choice == null && bitmap == null) {
+            return seqScanWithFilter(table, predicate, null);
+        }
+        double seqCost = estimateSeqScanCost(table);
+        double bitmapCost = bitmap == null ? Double.POSITIVE_INFINITY : estimateBitmapHeapScanCost(table, bitmap);
+        double fallbackCost = Math.min(seqCost, bitmapCost);
         if (choice == null) {
-            PhysicalPlanNode scan = new PhysicalSeqScanNode(table);
-            return new PhysicalFilterNode(scan, predicate);
+            return fallback(table, predicate, bitmap, bitmapCost, seqCost);
+        }
+
+        if (choice.art != null) {
+            PhysicalPlanNode scan = new PhysicalArtIndexScanNode(table, choice.columnName, choice.art,
+                    choice.from, choice.to, choice.includeFrom, choice.includeTo);
+            if (choice.residual != null) {
+                scan = new PhysicalFilterNode(scan, choice.residual);
+            }
+            // узлы в памяти: страниц индекса не читается, остаются чтения таблицы
+            double cost = estimateIndexScanCost(table, choice.columnName, 1, choice.estimatedSelectivity);
+            return cost <= fallbackCost ? scan : fallback(table, predicate, bitmap, bitmapCost, seqCost);
+        }
+
+        if (choice.hash != null) {
+            PhysicalPlanNode scan = new PhysicalHashIndexScanNode(table, choice.columnName, choice.hash, choice.from);
+            if (choice.residual != null) {
+                scan = new PhysicalFilterNode(scan, choice.residual);
+            }
+            double cost = estimateIndexScanCost(table, choice.columnName, 1, choice.estimatedSelectivity);
+            return cost <= fallbackCost ? scan : fallback(table, predicate, bitmap, bitmapCost, seqCost);
+        }
+
+        if (covers(choice, needed, predicate)) {
+            PhysicalPlanNode scan = new PhysicalIndexOnlyScanNode(
+                    table,
+                    choice.columnName,
+                    choice.index,
+                    choice.from,
+                    choice.to,
+                    choice.includeFrom,
+                    choice.includeTo
+            );
+            if (choice.residual != null) {
+                scan = new PhysicalFilterNode(scan, choice.residual);
+            }
+            if (estimateIndexOnlyScanCost(table, choice.index, choice.estimatedSelectivity) <= fallbackCost) {
+                return scan;
+            }
         }
 
         PhysicalPlanNode scan = new PhysicalIndexScanNode(
@@ -103,17 +268,250 @@ public class OptimizerImpl implements Optimizer {
             scan = new PhysicalFilterNode(scan, choice.residual);
         }
 
-        double seqCost = estimateSeqScanCost(table);
-        double idxCost = estimateIndexScanCost(table, choice.index, choice.estimatedSelectivity);
+        double idxCost = estimateIndexScanCost(table, choice.columnName, choice.index.getHeight(),
+                choice.estimatedSelectivity);
 
-        if (idxCost <= seqCost) {
+        if (idxCost <= fallbackCost) {
             return scan;
         }
 
-        System.out.println("COST seq=" + seqCost + " idx=" + idxCost + " sel=" + choice.estimatedSelectivity);
+        return fallback(table, predicate, bitmap, bitmapCost, seqCost);
+    }
+
+    private PhysicalPlanNode fallback(TableDefinition table, QueryTree.QTExpr predicate,
+                                      BitmapPath bitmap, double bitmapCost, double seqCost) {
+        if (bitmap != null && bitmapCost < seqCost) {
+            return new PhysicalFilterNode(new PhysicalBitmapHeapScanNode(table, bitmap.node), predicate);
+        }
+        return seqScanWithFilter(table, predicate, null);
+    }
+
+    // ======= BITMAP =======
+
+    /** Дерево битовых карт по части предиката, доля строк под ним и цена чтения индексов. */
+    private record BitmapPath(PhysicalPlanNode node, double selectivity, double indexCost) { }
+
+    /**
+     * Карта для конъюнкции: конъюнкты, у которых она есть, пересекаются
+     * (самый избирательный первым), остальные проверит Filter над сканом.
+     * Границы одной колонки B+-дерева (a >= 10 AND a < 70) сводятся в один
+     * диапазон — одно чтение индекса вместо пересечения двух полуоткрытых.
+     */
+    private BitmapPath bitmapPath(TableDefinition table, QueryTree.QTExpr expr) {
+        if (indexRegistry == null) return null;
+
+        List<QueryTree.QTExpr> conjuncts = splitAnd(expr);
+        Set<String> ranged = new HashSet<>();
+        List<BitmapPath> parts = new ArrayList<>();
+        for (QueryTree.QTExpr c : conjuncts) {
+            IndexChoice choice = trySargable(table, c);
+            if (choice != null && choice.hash == null) {
+                if (!ranged.add(choice.columnName)) continue;
+                KeyRange r = columnRange(conjuncts, choice.columnName);
+                if (r != null && r.used > 1) {
+                    choice.from = r.from;
+                    choice.to = r.to;
+                    choice.includeFrom = r.includeFrom;
+                    choice.includeTo = r.includeTo;
+                    boolean point = r.from != null && r.to != null && KeyRange.cmp(r.from, r.to) == 0;
+                    choice.estimatedSelectivity = point ? 1.0 / estimateRows(table) : DEFAULT_RANGE_SELECTIVITY;
+                }
+                parts.add(indexBitmap(table, choice));
+                continue;
+            }
+            BitmapPath p = conjunctBitmap(table, c);
+            if (p != null) parts.add(p);
+        }
+        if (parts.size() < 2) return parts.isEmpty() ? null : parts.get(0);
+        parts.sort((a, b) -> Double.compare(a.selectivity, b.selectivity));
+
+        double sel = 1.0;
+        double cost = 0;
+        List<PhysicalPlanNode> nodes = new ArrayList<>();
+        for (BitmapPath p : parts) {
+            sel *= p.selectivity;
+            cost += p.indexCost;
+            nodes.add(p.node);
+        }
+        return new BitmapPath(new PhysicalBitmapOpNode(PhysicalBitmapOpNode.Op.AND, nodes), sel, cost);
+    }
+
+    /**
+     * Карта для одного конъюнкта: условие на колонку с индексом или
+     * дизъюнкция, у каждой ветви которой есть своя карта, — иначе строки
+     * ветви без индекса пришлось бы искать полным сканом.
+     */
+    private BitmapPath conjunctBitmap(TableDefinition table, QueryTree.QTExpr c) {
+        List<QueryTree.QTExpr> arms = splitOr(c);
+        if (arms.size() == 1) {
+            IndexChoice choice = trySargable(table, c);
+            return choice == null ? null : indexBitmap(table, choice);
+        }
+
+        double miss = 1.0;
+        double cost = 0;
+        List<PhysicalPlanNode> nodes = new ArrayList<>();
+        for (QueryTree.QTExpr arm : arms) {
+            BitmapPath p = bitmapPath(table, arm);
+            if (p == null) return null;
+            miss *= 1 - clamp01(p.selectivity);
+            cost += p.indexCost;
+            nodes.add(p.node);
+        }
+        return new BitmapPath(new PhysicalBitmapOpNode(PhysicalBitmapOpNode.Op.OR, nodes), 1 - miss, cost);
+    }
+
+    private PhysicalPlanNode seqScanWithFilter(TableDefinition table, QueryTree.QTExpr predicate, TableSample sample) {
+        List<DictionaryFilter> dict = extractDictionaryFilters(predicate);
+        PhysicalPlanNode scan = new PhysicalSeqScanNode(table, List.of("*"), dict, brinKey(table, predicate), sample);
+        return new PhysicalFilterNode(scan, predicate);
+    }
+
+    /**
+     * Диапазон по колонке с BRIN-индексом, если предикат его задаёт. Индекс
+     * отсекает только целые диапазоны страниц, поэтому Filter над сканом
+     * остаётся с полным предикатом. Из нескольких подходящих колонок берётся
+     * та, на которую приходится больше условий.
+     */
+    private PhysicalSeqScanNode.BrinKey brinKey(TableDefinition table, QueryTree.QTExpr predicate) {
+        if (indexRegistry == null) return null;
+
+        List<QueryTree.QTExpr> conjuncts = splitAnd(predicate);
+        PhysicalSeqScanNode.BrinKey best = null;
+        int bestUsed = 0;
+        for (QueryTree.QTExpr c : conjuncts) {
+            Side s = columnConst(c);
+            if (s == null) continue;
+            String column = s.column.column.name();
+            BrinIndex brin = indexRegistry.getBrin(table.getName(), column);
+            if (brin == null) continue;
+
+            KeyRange range = columnRange(conjuncts, column);
+            if (range != null && range.used > bestUsed) {
+                best = new PhysicalSeqScanNode.BrinKey(brin, range.from, range.to, range.includeFrom, range.includeTo);
+                bestUsed = range.used;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Сужает список колонок SeqScan (в т.ч. под Filter) до тех, что нужны
+     * проекции и предикату: колоночный метод доступа тогда не декодирует остальные.
+     */
+    private static PhysicalPlanNode pushDownColumns(PhysicalPlanNode child, List<QueryTree.QTExpr> targets) {
+        Set<String> cols = new LinkedHashSet<>();
+        for (QueryTree.QTExpr t : targets) {
+            if (!collectColumns(t, cols)) return child;
+        }
+
+        if (child instanceof PhysicalSeqScanNode scan) {
+            return withColumns(scan, cols);
+        }
+        if (child instanceof PhysicalAppendNode append) {
+            List<PhysicalPlanNode> inputs = append.getInputs().stream()
+                    .map(in -> pushDownColumns(in, targets))
+                    .toList();
+            return new PhysicalAppendNode(append.getTable(), append.getPartitions(), inputs, append.getTotalPartitions());
+        }
+        if (child instanceof PhysicalFilterNode f && f.getInput() instanceof PhysicalSeqScanNode scan) {
+            if (!collectColumns(f.getPredicate(), cols)) return child;
+            return new PhysicalFilterNode(withColumns(scan, cols), f.getPredicate());
+        }
+        return child;
+    }
+
+    private static PhysicalSeqScanNode withColumns(PhysicalSeqScanNode scan, Set<String> cols) {
+        if (cols.isEmpty()) return scan;
+        return new PhysicalSeqScanNode(scan.getTable(), new ArrayList<>(cols), scan.getDictionaryFilters(),
+                scan.getBrin(), scan.getSample());
+    }
+
+    /**
+     * Колонки целей проекции или {@code null}, если среди них '*'.
+     */
+    private static Set<String> targetColumns(List<QueryTree.QTExpr> targets) {
+        Set<String> cols = new LinkedHashSet<>();
+        for (QueryTree.QTExpr t : targets) {
+            if (!collectColumns(t, cols)) return null;
+        }
+        return cols;
+    }
+
+    /**
+     * Есть ли в листьях индекса всё, что читают предикат и узлы выше.
+     */
+    private static boolean covers(IndexChoice choice, Set<String> needed, QueryTree.QTExpr predicate) {
+        if (needed == null || choice.index == null) return false;
+        if (choice.index.includedColumns().isEmpty() && choice.index.getColumnNames().size() == 1) return false;
+        Set<String> cols = new LinkedHashSet<>(needed);
+        if (!collectColumns(predicate, cols)) return false;
+
+        Set<String> stored = new HashSet<>();
+        for (String c : choice.index.getColumnNames()) {
+            stored.add(c.toLowerCase(Locale.ROOT));
+        }
+        for (String c : choice.index.includedColumns()) {
+            stored.add(c.toLowerCase(Locale.ROOT));
+        }
+        for (String c : cols) {
+            if (!stored.contains(c.toLowerCase(Locale.ROOT))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Собирает имена колонок выражения; false, если встретилась '*'.
+     */
+    private static boolean collectColumns(QueryTree.QTExpr e, Set<String> out) {
+        if (e instanceof QueryTree.QTStar) return false;
+        if (e instanceof QueryTree.QTColumn c) {
+            out.add(c.column.name());
+        } else if (e instanceof QueryTree.QTAExpr a) {
+            return collectColumns(a.left, out) && collectColumns(a.right, out);
+        } else if (e instanceof QueryTree.QTBoolExpr b) {
+            for (QueryTree.QTExpr arg : b.args) {
+                if (!collectColumns(arg, out)) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Конъюнкты вида dictCol = 'x' и dictCol = 'x' OR dictCol = 'y' (IN)
+     * проверяются в скане по кодам словаря. Полный предикат всё равно
+     * остаётся в Filter, так что здесь достаточно отбросить заведомо лишние строки.
+     */
+    private static List<DictionaryFilter> extractDictionaryFilters(QueryTree.QTExpr predicate) {
+        List<DictionaryFilter> out = new ArrayList<>();
+        for (QueryTree.QTExpr c : splitAnd(predicate)) {
+            List<QueryTree.QTExpr> alternatives = splitOr(c);
+            String column = null;
+            Set<String> values = new LinkedHashSet<>();
+
+            for (QueryTree.QTExpr alt : alternatives) {
+                if (!(alt instanceof QueryTree.QTAExpr a) || !"=".equals(a.op)) {
+                    column = null;
+                    break;
+                }
+                Side s = extractColumnConst(a.left, a.right);
+                if (s == null) s = extractColumnConst(a.right, a.left);
+                if (s == null
+                        || !s.column.column.isDictionaryEncoded()
+                        || !(s.constant.value instanceof String v)
+                        || (column != null && !column.equals(s.column.column.name()))) {
+                    column = null;
+                    break;
+                }
+                column = s.column.column.name();
+                values.add(v);
+            }
 
-        PhysicalPlanNode fallback = new PhysicalSeqScanNode(table);
-        return new PhysicalFilterNode(fallback, predicate);
+            if (column != null) {
+                out.add(new DictionaryFilter(column, values));
+            }
+        }
+        return out;
     }
 
     private int estimateRows(TableDefinition table) {
@@ -127,12 +525,91 @@ public class OptimizerImpl implements Optimizer {
         return pages * SEQ_PAGE_COST + rows * CPU_TUPLE_COST;
     }
 
-    private double estimateIndexScanCost(TableDefinition table, BPlusTreeIndex index, double selectivity) {
-        int rows = estimateRows(table);
+    /**
+     * Как в PostgreSQL: число чтений страниц интерполируется между случайным
+     * чтением на каждую строку (корреляция 0) и последовательным чтением доли
+     * страниц (корреляция 1) с весом correlation^2.
+     */
+    /**
+     * @param probes страницы индекса до первого TID: высота дерева или одна корзина хеш-индекса
+     */
+    private double estimateIndexScanCost(TableDefinition table, String columnName,
+                                         int probes, double selectivity) {
+        int pages = Math.max(1, table.pagesCount());
+        double tuples = estimateRows(table) * clamp01(selectivity);
+
+        double maxIo = tuples * RANDOM_PAGE_COST;
+        double minIo = Math.max(1, Math.ceil(pages * clamp01(selectivity))) * SEQ_PAGE_COST;
+        double c = correlation(table, columnName);
+        double io = maxIo + c * c * (minIo - maxIo);
+
+        double traversal = Math.max(1, probes) * CPU_OPERATOR_COST;
+        return traversal + io + tuples * CPU_TUPLE_COST;
+    }
 
+    /**
+     * Корреляция физического порядка строк с колонкой. Известна только после
+     * CLUSTER: упорядоченными считаются страницы, записанные им, а всё, что
+     * дописано позже, — нет.
+     */
+    private static double correlation(TableDefinition table, String columnName) {
+        if (!columnName.equalsIgnoreCase(table.option(HeapAccessMethod.CLUSTER_ON_OPTION, ""))) {
+            return 0.0;
+        }
+        int clustered = Integer.parseInt(table.option(HeapAccessMethod.CLUSTERED_PAGES_OPTION, "0"));
+        return clamp01((double) clustered / Math.max(1, table.pagesCount()));
+    }
+
+    /**
+     * Без обращений к таблице: спуск и последовательное чтение доли листьев.
+     * Записей в листе считается столько же, сколько потомков у внутреннего узла.
+     */
+    private double estimateIndexOnlyScanCost(TableDefinition table, BPlusTreeIndex index, double selectivity) {
+        double tuples = estimateRows(table) * clamp01(selectivity);
+        double leaves = Math.max(1, Math.ceil(tuples / Math.max(1, index.getOrder())));
         double traversal = Math.max(1, index.getHeight()) * CPU_OPERATOR_COST;
-        double fetch = (rows * clamp01(selectivity)) * (RANDOM_PAGE_COST + CPU_TUPLE_COST);
-        return traversal + fetch;
+        return traversal + leaves * SEQ_PAGE_COST + tuples * CPU_TUPLE_COST;
+    }
+
+    private BitmapPath indexBitmap(TableDefinition table, IndexChoice choice) {
+        Index index = choice.art != null ? choice.art : choice.hash != null ? choice.hash : choice.index;
+        PhysicalPlanNode node = new PhysicalBitmapIndexScanNode(table, choice.columnName, index,
+                choice.from, choice.to, choice.includeFrom, choice.includeTo);
+        return new BitmapPath(node, choice.estimatedSelectivity, estimateBitmapIndexCost(table, choice));
+    }
+
+    /**
+     * Чтение индекса в карту: спуск (у хеш-индекса — одна корзина),
+     * последовательное чтение листьев с TID и по операции на каждый TID.
+     */
+    private double estimateBitmapIndexCost(TableDefinition table, IndexChoice choice) {
+        double tuples = estimateRows(table) * clamp01(choice.estimatedSelectivity);
+        if (choice.hash != null) {
+            return SEQ_PAGE_COST + tuples * CPU_OPERATOR_COST;
+        }
+        if (choice.art != null) {
+            return CPU_OPERATOR_COST + tuples * CPU_OPERATOR_COST;
+        }
+        double leaves = Math.max(1, Math.ceil(tuples / Math.max(1, choice.index.getOrder())));
+        double traversal = Math.max(1, choice.index.getHeight()) * CPU_OPERATOR_COST;
+        return traversal + leaves * SEQ_PAGE_COST + tuples * CPU_OPERATOR_COST;
+    }
+
+    /**
+     * Как в PostgreSQL: число читаемых страниц таблицы — оценка Маккерта —
+     * Лохмана для tuples строк на pages страницах, цена страницы падает от
+     * случайного чтения к последовательному с ростом доли читаемых страниц
+     * (каждая читается один раз и по порядку).
+     */
+    private double estimateBitmapHeapScanCost(TableDefinition table, BitmapPath bitmap) {
+        int pages = Math.max(1, table.pagesCount());
+        double tuples = estimateRows(table) * clamp01(bitmap.selectivity);
+
+        double fetched = Math.max(1, Math.ceil(Math.min(pages, 2.0 * pages * tuples / (2.0 * pages + tuples))));
+        double perPage = fetched >= 2
+                ? RANDOM_PAGE_COST - (RANDOM_PAGE_COST - SEQ_PAGE_COST) * Math.sqrt(fetched / pages)
+                : RANDOM_PAGE_COST;
+        return bitmap.indexCost + fetched * perPage + tuples * (CPU_TUPLE_COST + CPU_OPERATOR_COST);
     }
 
     private static double clamp01(double x) {
@@ -141,6 +618,73 @@ public class OptimizerImpl implements Optimizer {
         return x;
     }
 
+    /**
+     * Все конъюнкты вида pk0 op const по ведущей колонке первичного ключа
+     * сужаются в один диапазон [from, to].
+     */
+    private PhysicalPlanNode primaryKeyPath(TableDefinition table, QueryTree.QTExpr predicate) {
+        if (!TableAccessMethod.INDEX_ORGANIZED.equals(table.option(TableAccessMethod.OPTION, TableAccessMethod.HEAP))) {
+            return null;
+        }
+        String leading = IndexOrganizedAccessMethod.primaryKey(table).get(0);
+
+        List<QueryTree.QTExpr> conjuncts = splitAnd(predicate);
+        KeyRange range = columnRange(conjuncts, leading);
+        if (range == null) return null;
+
+        PhysicalPlanNode scan = new PhysicalPrimaryKeyScanNode(
+                table, leading, range.from, range.to, range.includeFrom, range.includeTo);
+        return range.used == conjuncts.size() ? scan : new PhysicalFilterNode(scan, predicate);
+    }
+
+    /**
+     * Сужает все конъюнкты вида column op const в один диапазон;
+     * {@code null}, если ни один не подошёл.
+     */
+    private static KeyRange columnRange(List<QueryTree.QTExpr> conjuncts, String column) {
+        KeyRange range = new KeyRange();
+        for (QueryTree.QTExpr c : conjuncts) {
+            Side s = columnConst(c);
+            if (s == null || !column.equals(s.column.column.name())) continue;
+
+            Object v = s.constant.value;
+            boolean typeMatches = "INT64".equals(s.column.type) ? v instanceof Long : v instanceof String;
+            if (!typeMatches || !range.narrow(s.op, (Comparable<?>) v)) continue;
+            range.used++;
+        }
+        return range.used == 0 ? null : range;
+    }
+
+    /**
+     * Сравнение колонки с константой в любом порядке операндов; оператор
+     * приводится к виду column op const.
+     */
+    private static Side columnConst(QueryTree.QTExpr c) {
+        if (!(c instanceof QueryTree.QTAExpr a)) return null;
+
+        String op = a.op.toUpperCase(Locale.ROOT);
+        Side s = extractColumnConst(a.left, a.right);
+        if (s == null) {
+            s = extractColumnConst(a.right, a.left);
+            op = flip(op);
+        }
+        if (s != null) s.op = op;
+        return s;
+    }
+
+    /**
+     * Оператор сравнения после перестановки операндов: 5 < id — то же, что id > 5.
+     */
+    private static String flip(String op) {
+        return switch (op) {
+            case "<" -> ">";
+            case "<=" -> ">=";
+            case ">" -> "<";
+            case ">=" -> "<=";
+            default -> op;
+        };
+    }
+
     private IndexChoice chooseIndexPath(TableDefinition table, QueryTree.QTExpr predicate) {
         if (indexRegistry == null) return null;
 
@@ -158,9 +702,72 @@ public class OptimizerImpl implements Optimizer {
             }
         }
 
+        for (Index idx : indexRegistry.indexesOf(table.getName())) {
+            if (!(idx instanceof BPlusTreeIndex tree) || tree.getColumnNames().size() < 2) continue;
+            IndexChoice choice = tryComposite(table, tree, conjuncts, predicate);
+            if (choice == null) continue;
+
+            if (best == null || choice.estimatedSelectivity < best.estimatedSelectivity) {
+                best = choice;
+            }
+        }
+
         return best;
     }
 
+    /**
+     * Составной индекс годится, если предикат задаёт его ведущие колонки:
+     * равенства на префиксе ключа и, за ними, диапазон по следующей колонке.
+     * Границы — префиксные {@link CompositeKey}: (a) совпадает со всеми (a, b, ...).
+     */
+    private IndexChoice tryComposite(TableDefinition table, BPlusTreeIndex index,
+                                     List<QueryTree.QTExpr> conjuncts, QueryTree.QTExpr predicate) {
+        List<Comparable<?>> equal = new ArrayList<>();
+        KeyRange range = null;
+        int used = 0;
+        for (String column : index.getColumnNames()) {
+            KeyRange r = columnRange(conjuncts, column);
+            if (r == null) break;
+            used += r.used;
+            if (r.from != null && r.to != null && r.includeFrom && r.includeTo && KeyRange.cmp(r.from, r.to) == 0) {
+                equal.add(r.from);
+                continue;
+            }
+            range = r;
+            break;
+        }
+        if (equal.isEmpty() && range == null) return null;
+
+        IndexChoice out = new IndexChoice();
+        out.table = table;
+        out.columnName = index.getColumnName();
+        out.index = index;
+        out.from = prefixBound(equal, range == null ? null : range.from);
+        out.to = prefixBound(equal, range == null ? null : range.to);
+        out.includeFrom = range == null || range.from == null || range.includeFrom;
+        out.includeTo = range == null || range.to == null || range.includeTo;
+        if (equal.isEmpty()) {
+            out.estimatedSelectivity = DEFAULT_RANGE_SELECTIVITY;
+        } else {
+            out.estimatedSelectivity = 1.0 / estimateRows(table) * (range == null ? 1.0 : DEFAULT_RANGE_SELECTIVITY);
+        }
+        out.residual = used == conjuncts.size() ? null : predicate;
+        return out;
+    }
+
+    /**
+     * Граница префикса: равенства и, если есть, граница диапазона следующей
+     * колонки; {@code null} — граница открыта.
+     */
+    private static Comparable<?> prefixBound(List<Comparable<?>> equal, Comparable<?> next) {
+        if (next == null) {
+            return equal.isEmpty() ? null : new CompositeKey(equal);
+        }
+        List<Comparable<?>> parts = new ArrayList<>(equal);
+        parts.add(next);
+        return new CompositeKey(parts);
+    }
+
     private IndexChoice trySargable(TableDefinition table, QueryTree.QTExpr expr) {
         if (!(expr instanceof QueryTree.QTAExpr a)) return null;
 
@@ -171,12 +778,31 @@ public class OptimizerImpl implements Optimizer {
         if (s == null) return null;
 
         String columnName = s.column.column.name();
-        BPlusTreeIndex index = indexRegistry.get(table.getName(), columnName);
-        if (index == null) return null;
-
         Object v = s.constant.value;
         if (!(v instanceof Comparable<?> cmp)) return null;
 
+        boolean typeMatches = "INT64".equals(s.column.type) ? v instanceof Long : v instanceof String;
+        // ART в памяти обходится без чтения страниц индекса — он вперёд и хеш-индекса, и дерева
+        ArtIndex art = typeMatches ? indexRegistry.getArt(table.getName(), columnName) : null;
+
+        // равенство по хеш-индексу — одна корзина вместо спуска по дереву
+        HashIndex hash = indexRegistry.getHash(table.getName(), columnName);
+        if ("=".equals(op) && hash != null && typeMatches && art == null) {
+            IndexChoice out = new IndexChoice();
+            out.table = table;
+            out.columnName = columnName;
+            out.hash = hash;
+            out.from = cmp;
+            out.to = cmp;
+            out.includeFrom = true;
+            out.includeTo = true;
+            out.estimatedSelectivity = 1.0 / estimateRows(table);
+            return out;
+        }
+
+        BPlusTreeIndex index = art == null ? indexRegistry.get(table.getName(), columnName) : null;
+        if (index == null && art == null) return null;
+
         Comparable<?> from;
         Comparable<?> to;
         boolean includeFrom;
@@ -228,6 +854,7 @@ public class OptimizerImpl implements Optimizer {
         out.table = table;
         out.columnName = columnName;
         out.index = index;
+        out.art = art;
         out.from = from;
         out.to = to;
         out.includeFrom = includeFrom;
@@ -252,6 +879,20 @@ public class OptimizerImpl implements Optimizer {
         return out;
     }
 
+    private static List<QueryTree.QTExpr> splitOr(QueryTree.QTExpr e) {
+        List<QueryTree.QTExpr> out = new ArrayList<>();
+        collectOr(e, out);
+        return out;
+    }
+
+    private static void collectOr(QueryTree.QTExpr e, List<QueryTree.QTExpr> out) {
+        if (e instanceof QueryTree.QTBoolExpr b && "OR".equalsIgnoreCase(b.boolop)) {
+            for (QueryTree.QTExpr a : b.args) collectOr(a, out);
+        } else {
+            out.add(e);
+        }
+    }
+
     private static void collectAnd(QueryTree.QTExpr e, List<QueryTree.QTExpr> out) {
         if (e instanceof QueryTree.QTBoolExpr b && "AND".equalsIgnoreCase(b.boolop)) {
             for (QueryTree.QTExpr a : b.args) collectAnd(a, out);
@@ -263,12 +904,67 @@ public class OptimizerImpl implements Optimizer {
     private static final class Side {
         QueryTree.QTColumn column;
         QueryTree.QTConst constant;
+        String op;
+    }
+
+    private static final class KeyRange {
+        Comparable<?> from;
+        Comparable<?> to;
+        boolean includeFrom = true;
+        boolean includeTo = true;
+        /** Сколько условий вошло в диапазон. */
+        int used;
+
+        /**
+         * Сужает диапазон условием; false — оператор не диапазонный.
+         */
+        boolean narrow(String op, Comparable<?> v) {
+            switch (op) {
+                case "=" -> {
+                    lower(v, true);
+                    upper(v, true);
+                }
+                case ">" -> lower(v, false);
+                case ">=" -> lower(v, true);
+                case "<" -> upper(v, false);
+                case "<=" -> upper(v, true);
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void lower(Comparable<?> v, boolean inclusive) {
+            int c = from == null ? 1 : cmp(v, from);
+            if (c > 0 || (c == 0 && !inclusive)) {
+                from = v;
+                includeFrom = inclusive;
+            }
+        }
+
+        private void upper(Comparable<?> v, boolean inclusive) {
+            int c = to == null ? -1 : cmp(v, to);
+            if (c < 0 || (c == 0 && !inclusive)) {
+                to = v;
+                includeTo = inclusive;
+            }
+        }
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        static int cmp(Comparable a, Comparable b) {
+            return a.compareTo(b);
+        }
     }
 
     private static final class IndexChoice {
         TableDefinition table;
         String columnName;
         BPlusTreeIndex index;
+        /** Равенство по хеш-индексу; тогда index не задан, а ключ — from. */
+        HashIndex hash;
+        /** Равенство или диапазон по ART; тогда index не задан. */
+        ArtIndex art;
 
         Comparable<?> from;
         Comparable<?> to;
@@ -0,0 +1,53 @@
+package optimizer.node;
+
+import catalog.model.TableDefinition;
+
+import java.util.List;
+
+/**
+ * Скан секционированной таблицы: планы секций, оставшихся после отсечения,
+ * выполняются друг за другом.
+ */
+public class PhysicalAppendNode extends PhysicalPlanNode {
+
+    private final TableDefinition table;
+    private final List<String> partitions;
+    private final List<PhysicalPlanNode> inputs;
+    private final int totalPartitions;
+
+    public PhysicalAppendNode(TableDefinition table, List<String> partitions, List<PhysicalPlanNode> inputs,
+                              int totalPartitions) {
+        super("PhysicalAppend");
+        this.table = table;
+        this.partitions = partitions;
+        this.inputs = inputs;
+        this.totalPartitions = totalPartitions;
+    }
+
+    public TableDefinition getTable() {
+        return table;
+    }
+
+    /** Имена секций, параллельно {@link #getInputs()}. */
+    public List<String> getPartitions() {
+        return partitions;
+    }
+
+    public List<PhysicalPlanNode> getInputs() {
+        return inputs;
+    }
+
+    public int getTotalPartitions() {
+        return totalPartitions;
+    }
+
+    @Override
+    public String prettyPrint(String indent) {
+        StringBuilder sb = new StringBuilder(indent + "PhysicalAppend(" + table.getName()
+                + ", partitions=" + inputs.size() + "/" + totalPartitions + ")\n");
+        for (PhysicalPlanNode in : inputs) {
+            sb.append(in.prettyPrint(indent + "  "));
+        }
+        return sb.toString();
+    }
+}
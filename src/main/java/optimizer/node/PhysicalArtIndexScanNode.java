@@ -0,0 +1,70 @@
+package optimizer.node;
+
+import catalog.model.TableDefinition;
+import index.art.ArtIndex;
+
+public class PhysicalArtIndexScanNode extends PhysicalPlanNode {
+
+    private final TableDefinition table;
+    private final String columnName;
+    private final ArtIndex index;
+
+    private final Comparable from;
+    private final Comparable to;
+    private final boolean includeFrom;
+    private final boolean includeTo;
+
+    public PhysicalArtIndexScanNode(TableDefinition table,
+                                    String columnName,
+                                    ArtIndex index,
+                                    Comparable from,
+                                    Comparable to,
+                                    boolean includeFrom,
+                                    boolean includeTo) {
+        super("PhysicalArtIndexScan");
+        this.table = table;
+        this.columnName = columnName;
+        this.index = index;
+        this.from = from;
+        this.to = to;
+        this.includeFrom = includeFrom;
+        this.includeTo = includeTo;
+    }
+
+    public TableDefinition getTable() {
+        return table;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public ArtIndex getIndex() {
+        return index;
+    }
+
+    public Comparable getFrom() {
+        return from;
+    }
+
+    public Comparable getTo() {
+        return to;
+    }
+
+    public boolean isIncludeFrom() {
+        return includeFrom;
+    }
+
+    public boolean isIncludeTo() {
+        return includeTo;
+    }
+
+    @Override
+    public String prettyPrint(String indent) {
+        return indent + "PhysicalArtIndexScan(" + table.getName() +
+                ", index=" + index.getName() +
+                ", col=" + columnName +
+                ", range=" + (includeFrom ? "[" : "(") + from + ", " + to + (includeTo ? "]" : ")") +
+                ")\n";
+    }
+}
@@ -0,0 +1,34 @@
+package optimizer.node;
+
+import catalog.model.TableDefinition;
+
+/**
+ * Строки таблицы по битовой карте TID: страницы читаются по одному разу в
+ * физическом порядке. Над узлом всегда стоит Filter с полным предикатом —
+ * карта отбирает строки только по индексируемым условиям.
+ */
+public class PhysicalBitmapHeapScanNode extends PhysicalPlanNode {
+
+    private final TableDefinition table;
+    private final PhysicalPlanNode bitmap;
+
+    public PhysicalBitmapHeapScanNode(TableDefinition table, PhysicalPlanNode bitmap) {
+        super("PhysicalBitmapHeapScan");
+        this.table = table;
+        this.bitmap = bitmap;
+    }
+
+    public TableDefinition getTable() {
+        return table;
+    }
+
+    public PhysicalPlanNode getBitmap() {
+        return bitmap;
+    }
+
+    @Override
+    public String prettyPrint(String indent) {
+        return indent + "PhysicalBitmapHeapScan(" + table.getName() + ")\n"
+                + bitmap.prettyPrint(indent + "  ");
+    }
+}
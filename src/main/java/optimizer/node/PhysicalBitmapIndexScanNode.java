@@ -0,0 +1,82 @@
+package optimizer.node;
+
+import catalog.model.TableDefinition;
+import index.Index;
+import index.art.ArtIndex;
+import index.btree.BPlusTreeIndex;
+import index.hash.HashIndex;
+
+/**
+ * TID строк, подходящих под условие на одну колонку, собранные из индекса
+ * в битовую карту: B+-дерево и ART читают диапазон [from, to], хеш-индекс —
+ * корзину ключа from. Строк узел не отдаёт, его читает
+ * {@link PhysicalBitmapHeapScanNode} или {@link PhysicalBitmapOpNode}.
+ */
+public class PhysicalBitmapIndexScanNode extends PhysicalPlanNode {
+
+    private final TableDefinition table;
+    private final String columnName;
+    private final Index index;
+
+    private final Comparable from;
+    private final Comparable to;
+    private final boolean includeFrom;
+    private final boolean includeTo;
+
+    public PhysicalBitmapIndexScanNode(TableDefinition table,
+                                       String columnName,
+                                       Index index,
+                                       Comparable from,
+                                       Comparable to,
+                                       boolean includeFrom,
+                                       boolean includeTo) {
+        super("PhysicalBitmapIndexScan");
+        if (!(index instanceof BPlusTreeIndex) && !(index instanceof HashIndex) && !(index instanceof ArtIndex)) {
+            throw new IllegalArgumentException("bitmap index scan needs a b-tree, hash or ART index, got: " + index);
+        }
+        this.table = table;
+        this.columnName = columnName;
+        this.index = index;
+        this.from = from;
+        this.to = to;
+        this.includeFrom = includeFrom;
+        this.includeTo = includeTo;
+    }
+
+    public TableDefinition getTable() {
+        return table;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public Index getIndex() {
+        return index;
+    }
+
+    public Comparable getFrom() {
+        return from;
+    }
+
+    public Comparable getTo() {
+        return to;
+    }
+
+    public boolean isIncludeFrom() {
+        return includeFrom;
+    }
+
+    public boolean isIncludeTo() {
+        return includeTo;
+    }
+
+    @Override
+    public String prettyPrint(String indent) {
+        return indent + "PhysicalBitmapIndexScan(" + table.getName() +
+                ", index=" + index.getName() +
+                ", col=" + columnName +
+                ", range=" + (includeFrom ? "[" : "(") + from + ", " + to + (includeTo ? "]" : ")") +
+                ")\n";
+    }
+}
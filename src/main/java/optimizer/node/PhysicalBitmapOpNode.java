@@ -0,0 +1,40 @@
+package optimizer.node;
+
+import java.util.List;
+
+/**
+ * Пересечение (AND) или объединение (OR) битовых карт входов.
+ */
+public class PhysicalBitmapOpNode extends PhysicalPlanNode {
+
+    public enum Op { AND, OR }
+
+    private final Op op;
+    private final List<PhysicalPlanNode> inputs;
+
+    public PhysicalBitmapOpNode(Op op, List<PhysicalPlanNode> inputs) {
+        super(op == Op.AND ? "PhysicalBitmapAnd" : "PhysicalBitmapOr");
+        if (inputs.size() < 2) {
+            throw new IllegalArgumentException("bitmap " + op + " needs at least two inputs");
+        }
+        this.op = op;
+        this.inputs = List.copyOf(inputs);
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    public List<PhysicalPlanNode> getInputs() {
+        return inputs;
+    }
+
+    @Override
+    public String prettyPrint(String indent) {
+        StringBuilder sb = new StringBuilder(indent + getNodeType() + "\n");
+        for (PhysicalPlanNode in : inputs) {
+            sb.append(in.prettyPrint(indent + "  "));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,20 @@
+package optimizer.node;
+
+public class PhysicalClusterNode extends PhysicalPlanNode {
+    private final String tableName;
+    private final String indexName;
+
+    public PhysicalClusterNode(String tableName, String indexName) {
+        super("PhysicalCluster");
+        this.tableName = tableName;
+        this.indexName = indexName;
+    }
+
+    public String tableName() { return tableName; }
+    public String indexName() { return indexName; }
+
+    @Override
+    public String prettyPrint(String indent) {
+        return indent + "PhysicalCluster(" + tableName + " USING " + indexName + ")\n";
+    }
+}
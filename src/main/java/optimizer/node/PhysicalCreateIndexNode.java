@@ -1,23 +1,36 @@
 package optimizer.node;
 
+import index.IndexType;
+
+import java.util.List;
+import java.util.Map;
+
 public class PhysicalCreateIndexNode extends PhysicalPlanNode {
     private final String indexName;
     private final String tableName;
-    private final String columnName;
+    private final List<String> columnNames;
+    private final IndexType indexType;
+    private final Map<String, String> options;
 
-    public PhysicalCreateIndexNode(String indexName, String tableName, String columnName) {
+    public PhysicalCreateIndexNode(String indexName, String tableName, List<String> columnNames,
+                                   IndexType indexType, Map<String, String> options) {
         super("PhysicalCreateIndex");
         this.indexName = indexName;
         this.tableName = tableName;
-        this.columnName = columnName;
+        this.columnNames = columnNames;
+        this.indexType = indexType;
+        this.options = options;
     }
 
     public String indexName() { return indexName; }
     public String tableName() { return tableName; }
-    public String columnName() { return columnName; }
+    public List<String> columnNames() { return columnNames; }
+    public IndexType indexType() { return indexType; }
+    public Map<String, String> options() { return options; }
 
     @Override
     public String prettyPrint(String indent) {
-        return indent + "PhysicalCreateIndex(" + indexName + " ON " + tableName + "(" + columnName + "))\n";
+        return indent + "PhysicalCreateIndex(" + indexName + " ON " + tableName + " USING " + indexType
+                + "(" + String.join(", ", columnNames) + ")" + (options.isEmpty() ? "" : " WITH " + options) + ")\n";
     }
-}
\ No newline at end of file
+}
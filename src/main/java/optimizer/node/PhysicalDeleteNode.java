@@ -0,0 +1,33 @@
+package optimizer.node;
+
+import catalog.model.TableDefinition;
+
+/**
+ * Физический узел DELETE FROM table [WHERE ...].
+ * Входной узел поставляет удаляемые строки (скан + фильтр).
+ */
+public class PhysicalDeleteNode extends PhysicalPlanNode {
+
+    private final TableDefinition tableDefinition;
+    private final PhysicalPlanNode input;
+
+    public PhysicalDeleteNode(TableDefinition tableDefinition, PhysicalPlanNode input) {
+        super("PhysicalDelete");
+        this.tableDefinition = tableDefinition;
+        this.input = input;
+    }
+
+    public TableDefinition getTableDefinition() {
+        return tableDefinition;
+    }
+
+    public PhysicalPlanNode getInput() {
+        return input;
+    }
+
+    @Override
+    public String prettyPrint(String indent) {
+        return indent + "PhysicalDelete(" + tableDefinition.getName() + ")\n"
+                + input.prettyPrint(indent + "  ");
+    }
+}
@@ -0,0 +1,48 @@
+package optimizer.node;
+
+import catalog.model.TableDefinition;
+import index.hash.HashIndex;
+
+public class PhysicalHashIndexScanNode extends PhysicalPlanNode {
+
+    private final TableDefinition table;
+    private final String columnName;
+    private final HashIndex index;
+    private final Comparable key;
+
+    public PhysicalHashIndexScanNode(TableDefinition table,
+                                     String columnName,
+                                     HashIndex index,
+                                     Comparable key) {
+        super("PhysicalHashIndexScan");
+        this.table = table;
+        this.columnName = columnName;
+        this.index = index;
+        this.key = key;
+    }
+
+    public TableDefinition getTable() {
+        return table;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public HashIndex getIndex() {
+        return index;
+    }
+
+    public Comparable getKey() {
+        return key;
+    }
+
+    @Override
+    public String prettyPrint(String indent) {
+        return indent + "PhysicalHashIndexScan(" + table.getName() +
+                ", index=" + index.getName() +
+                ", col=" + columnName +
+                ", key=" + key +
+                ")\n";
+    }
+}
@@ -62,7 +62,7 @@ public class PhysicalIndexScanNode extends PhysicalPlanNode {
     @Override
     public String prettyPrint(String indent) {
         return indent + "PhysicalIndexScan(" + table.getName() +
-                ", col=" + columnName +
+                ", cols=" + String.join(", ", index.getColumnNames()) +
                 ", from=" + from +
                 ", to=" + to +
                 ", incFrom=" + includeFrom +
@@ -0,0 +1,68 @@
+package optimizer.node;
+
+import catalog.model.TableDefinition;
+
+/**
+ * Диапазон по ведущей колонке первичного ключа индексно-организованной таблицы:
+ * строки читаются прямо из листов её B+-дерева.
+ */
+public class PhysicalPrimaryKeyScanNode extends PhysicalPlanNode {
+
+    private final TableDefinition table;
+    private final String columnName;
+
+    private final Comparable from;
+    private final Comparable to;
+    private final boolean includeFrom;
+    private final boolean includeTo;
+
+    public PhysicalPrimaryKeyScanNode(TableDefinition table,
+                                      String columnName,
+                                      Comparable from,
+                                      Comparable to,
+                                      boolean includeFrom,
+                                      boolean includeTo) {
+        super("PhysicalPrimaryKeyScan");
+        this.table = table;
+        this.columnName = columnName;
+        this.from = from;
+        this.to = to;
+        this.includeFrom = includeFrom;
+        this.includeTo = includeTo;
+    }
+
+    public TableDefinition getTable() {
+        return table;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public Comparable getFrom() {
+        return from;
+    }
+
+    public Comparable getTo() {
+        return to;
+    }
+
+    public boolean isIncludeFrom() {
+        return includeFrom;
+    }
+
+    public boolean isIncludeTo() {
+        return includeTo;
+    }
+
+    @Override
+    public String prettyPrint(String indent) {
+        return indent + "PhysicalPrimaryKeyScan(" + table.getName() +
+                ", col=" + columnName +
+                ", from=" + from +
+                ", to=" + to +
+                ", incFrom=" + includeFrom +
+                ", incTo=" + includeTo +
+                ")\n";
+    }
+}
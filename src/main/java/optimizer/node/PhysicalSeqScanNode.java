@@ -1,6 +1,9 @@
 package optimizer.node;
 
+import access.TableSample;
 import catalog.model.TableDefinition;
+import catalog.operation.DictionaryFilter;
+import index.brin.BrinIndex;
 
 import java.util.List;
 
@@ -8,15 +11,48 @@ public class PhysicalSeqScanNode extends PhysicalPlanNode {
 
     private final TableDefinition table;
     private final List<String> columns;
+    private final List<DictionaryFilter> dictionaryFilters;
+    private final BrinKey brin;
+    private final TableSample sample;
+
+    /**
+     * Интервал значений колонки BRIN-индекса: скан читает только страницы
+     * диапазонов, чья сводка с ним пересекается.
+     */
+    public record BrinKey(BrinIndex index, Comparable<?> from, Comparable<?> to,
+                          boolean includeFrom, boolean includeTo) {
+        @Override
+        public String toString() {
+            return index.getName() + ":" + (from == null ? "(-inf" : (includeFrom ? "[" : "(") + from)
+                    + ", " + (to == null ? "+inf)" : to + (includeTo ? "]" : ")"));
+        }
+    }
 
     public PhysicalSeqScanNode(TableDefinition table) {
         this(table, List.of("*"));
     }
 
     public PhysicalSeqScanNode(TableDefinition table, List<String> columns) {
+        this(table, columns, List.of());
+    }
+
+    public PhysicalSeqScanNode(TableDefinition table, List<String> columns, List<DictionaryFilter> dictionaryFilters) {
+        this(table, columns, dictionaryFilters, null);
+    }
+
+    public PhysicalSeqScanNode(TableDefinition table, List<String> columns, List<DictionaryFilter> dictionaryFilters,
+                               BrinKey brin) {
+        this(table, columns, dictionaryFilters, brin, null);
+    }
+
+    public PhysicalSeqScanNode(TableDefinition table, List<String> columns, List<DictionaryFilter> dictionaryFilters,
+                               BrinKey brin, TableSample sample) {
         super("PhysicalSeqScan");
         this.table = table;
         this.columns = columns;
+        this.dictionaryFilters = dictionaryFilters;
+        this.brin = brin;
+        this.sample = sample;
     }
 
     public TableDefinition getTable() {
@@ -27,8 +63,23 @@ public class PhysicalSeqScanNode extends PhysicalPlanNode {
         return columns;
     }
 
+    public List<DictionaryFilter> getDictionaryFilters() {
+        return dictionaryFilters;
+    }
+
+    public BrinKey getBrin() {
+        return brin;
+    }
+
+    public TableSample getSample() {
+        return sample;
+    }
+
     @Override
     public String prettyPrint(String indent) {
-        return indent + "PhysicalSeqScan(" + table.getName() + ", cols=" + columns + ")\n";
+        String dict = dictionaryFilters.isEmpty() ? "" : ", dict=" + dictionaryFilters;
+        String pages = brin == null ? "" : ", brin=" + brin;
+        String sampled = sample == null ? "" : ", sample=" + sample;
+        return indent + "PhysicalSeqScan(" + table.getName() + ", cols=" + columns + dict + pages + sampled + ")\n";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package optimizer.node;
+
+import catalog.model.ColumnDefinition;
+import catalog.model.TableDefinition;
+import semantic.QueryTree;
+
+import java.util.List;
+
+/**
+ * Физический узел UPDATE table SET col = expr, ... [WHERE ...].
+ * Входной узел поставляет изменяемые строки (скан + фильтр).
+ */
+public class PhysicalUpdateNode extends PhysicalPlanNode {
+
+    private final TableDefinition tableDefinition;
+    private final List<ColumnDefinition> columns;
+    private final List<QueryTree.QTExpr> values;
+    private final PhysicalPlanNode input;
+
+    public PhysicalUpdateNode(TableDefinition tableDefinition,
+                      List<ColumnDefinition> columns,
+                      List<QueryTree.QTExpr> values,
+                      PhysicalPlanNode input) {
+        super("PhysicalUpdate");
+        this.tableDefinition = tableDefinition;
+        this.columns = columns;
+        this.values = values;
+        this.input = input;
+    }
+
+    public TableDefinition getTableDefinition() {
+        return tableDefinition;
+    }
+
+    public List<ColumnDefinition> getColumns() {
+        return columns;
+    }
+
+    public List<QueryTree.QTExpr> getValues() {
+        return values;
+    }
+
+    public PhysicalPlanNode getInput() {
+        return input;
+    }
+
+    @Override
+    public String prettyPrint(String indent) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(indent).append("PhysicalUpdate(").append(tableDefinition.getName()).append(", set=[");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(columns.get(i).name()).append("=").append(values.get(i));
+        }
+        sb.append("])\n");
+        sb.append(input.prettyPrint(indent + "  "));
+        return sb.toString();
+    }
+}
@@ -1,11 +1,19 @@
 package parser;
 
+import access.TableAccessMethod;
+import catalog.partition.PartitionBound;
+import catalog.partition.Partitioning;
+import index.btree.BPlusTreeIndex;
 import lexer.Token;
 import lexer.TokenType;
+import memory.model.Persistence;
 import parser.nodes.*;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 public class DefaultParser implements Parser {
     private List<Token> tokens;
@@ -26,6 +34,12 @@ public class DefaultParser implements Parser {
             stmt = parseCreate();
         } else if (check(TokenType.INSERT)) {
             stmt = parseInsert();
+        } else if (check(TokenType.DELETE)) {
+            stmt = parseDelete();
+        } else if (check(TokenType.UPDATE)) {
+            stmt = parseUpdate();
+        } else if (check(TokenType.CLUSTER)) {
+            stmt = parseCluster();
         } else {
             Token t = peek();
             throw new IllegalArgumentException("expected statement, got: " + t.getType() + " at pos " + t.getPosition());
@@ -44,14 +58,64 @@ public class DefaultParser implements Parser {
     private AstNode parseCreate() {
         expect(TokenType.CREATE, "expected CREATE");
 
+        Persistence persistence = Persistence.PERMANENT;
+        if (match(TokenType.TEMP)) {
+            persistence = Persistence.TEMP;
+        } else if (match(TokenType.UNLOGGED)) {
+            persistence = Persistence.UNLOGGED;
+        }
+        if (persistence != Persistence.PERMANENT && peek().getType() != TokenType.TABLE) {
+            throw new IllegalArgumentException("expected TABLE after " + persistence.keyword().toUpperCase(Locale.ROOT)
+                    + ", got: " + peek().getType() + " at pos " + peek().getPosition());
+        }
+
         if (match(TokenType.TABLE)) {
             String tableName = expect(TokenType.IDENT, "expected table name").getLexeme();
 
-            expect(TokenType.LPAREN, "expected '(' after table name");
-            List<ColumnDef> cols = parseColumnDefList();
-            expect(TokenType.RPAREN, "expected ')'");
-
-            return new CreateTableStmt(tableName, cols);
+            List<ColumnDef> cols = new ArrayList<>();
+            List<String> primaryKey = new ArrayList<>();
+            Map<String, String> partitioning = new LinkedHashMap<>();
+            if (match(TokenType.PARTITION)) {
+                expect(TokenType.OF, "expected OF after PARTITION");
+                partitioning.put(Partitioning.OF_OPTION, expect(TokenType.IDENT, "expected parent table name").getLexeme());
+                parsePartitionBound(partitioning);
+            } else {
+                expect(TokenType.LPAREN, "expected '(' after table name");
+                parseTableElements(cols, primaryKey);
+                expect(TokenType.RPAREN, "expected ')'");
+            }
+
+            if (match(TokenType.PARTITION)) {
+                expect(TokenType.BY, "expected BY after PARTITION");
+                Token strategy = expect(TokenType.IDENT, "expected RANGE, LIST or HASH");
+                partitioning.put(Partitioning.BY_OPTION, strategy.getLexeme().toLowerCase(Locale.ROOT));
+                expect(TokenType.LPAREN, "expected '(' after partition strategy");
+                partitioning.put(Partitioning.KEY_OPTION, expect(TokenType.IDENT, "expected partition key column").getLexeme());
+                expect(TokenType.RPAREN, "expected ')'");
+            }
+
+            String accessMethod = null;
+            if (match(TokenType.USING)) {
+                accessMethod = expect(TokenType.IDENT, "expected access method name").getLexeme().toLowerCase(Locale.ROOT);
+            }
+
+            Map<String, String> options = new LinkedHashMap<>();
+            if (match(TokenType.WITH)) {
+                options = parseTableOptions();
+            }
+            if (accessMethod != null && options.put(TableAccessMethod.OPTION, accessMethod) != null) {
+                throw new IllegalArgumentException("access method given both in USING and WITH");
+            }
+            if (persistence != Persistence.PERMANENT && options.put(Persistence.OPTION, persistence.keyword()) != null) {
+                throw new IllegalArgumentException("persistence given both in CREATE and WITH");
+            }
+            for (Map.Entry<String, String> e : partitioning.entrySet()) {
+                if (options.put(e.getKey(), e.getValue()) != null) {
+                    throw new IllegalArgumentException("partitioning given both in PARTITION clause and WITH: " + e.getKey());
+                }
+            }
+
+            return new CreateTableStmt(tableName, cols, options, primaryKey);
         }
 
         if (match(TokenType.INDEX)) {
@@ -67,23 +131,168 @@ public class DefaultParser implements Parser {
 
         String tableName = expect(TokenType.IDENT, "expected table name").getLexeme();
 
+        String method = null;
+        if (match(TokenType.USING)) {
+            method = expect(TokenType.IDENT, "expected index method name").getLexeme().toLowerCase(Locale.ROOT);
+        }
+
         expect(TokenType.LPAREN, "expected '(' after table name");
-        String columnName = expect(TokenType.IDENT, "expected column name").getLexeme();
+        List<String> columnNames = new ArrayList<>();
+        do {
+            columnNames.add(expect(TokenType.IDENT, "expected column name").getLexeme());
+        } while (match(TokenType.COMMA));
         expect(TokenType.RPAREN, "expected ')'");
 
-        return new CreateIndexStmt(indexName, tableName, columnName);
+        // INCLUDE (a, b, ...) — колонки покрывающего индекса
+        List<String> included = new ArrayList<>();
+        if (check(TokenType.IDENT) && peek().getLexeme().equalsIgnoreCase("INCLUDE")) {
+            advance();
+            expect(TokenType.LPAREN, "expected '(' after INCLUDE");
+            do {
+                included.add(expect(TokenType.IDENT, "expected column name").getLexeme());
+            } while (match(TokenType.COMMA));
+            expect(TokenType.RPAREN, "expected ')'");
+        }
+
+        Map<String, String> options = new LinkedHashMap<>();
+        if (match(TokenType.WITH)) {
+            options = parseTableOptions();
+        }
+        if (!included.isEmpty() && options.put(BPlusTreeIndex.INCLUDE_OPTION, String.join(",", included)) != null) {
+            throw new IllegalArgumentException("INCLUDE columns given both in INCLUDE and WITH");
+        }
+
+        return new CreateIndexStmt(indexName, tableName, columnNames, method, options);
     }
 
-    private List<ColumnDef> parseColumnDefList() {
-        List<ColumnDef> list = new ArrayList<>();
-        do { list.add(parseColumnDef()); } while (match(TokenType.COMMA));
-        return list;
+    /**
+     * FOR VALUES FROM (a) TO (b) | IN (a, ...) | WITH (MODULUS m, REMAINDER r);
+     * значения записываются в параметры секции в виде {@link PartitionBound}.
+     */
+    private void parsePartitionBound(Map<String, String> out) {
+        expect(TokenType.FOR, "expected FOR VALUES");
+        expect(TokenType.VALUES, "expected VALUES after FOR");
+        if (match(TokenType.FROM)) {
+            expect(TokenType.LPAREN, "expected '(' after FROM");
+            out.put(Partitioning.FROM_OPTION, parseBoundValue(true));
+            expect(TokenType.RPAREN, "expected ')'");
+            expect(TokenType.TO, "expected TO");
+            expect(TokenType.LPAREN, "expected '(' after TO");
+            out.put(Partitioning.TO_OPTION, parseBoundValue(true));
+            expect(TokenType.RPAREN, "expected ')'");
+        } else if (match(TokenType.IN)) {
+            expect(TokenType.LPAREN, "expected '(' after IN");
+            List<String> values = new ArrayList<>();
+            do {
+                values.add(parseBoundValue(false));
+            } while (match(TokenType.COMMA));
+            expect(TokenType.RPAREN, "expected ')'");
+            out.put(Partitioning.IN_OPTION, String.join(",", values));
+        } else if (match(TokenType.WITH)) {
+            expect(TokenType.LPAREN, "expected '(' after WITH");
+            expectWord("MODULUS");
+            out.put(Partitioning.MODULUS_OPTION, expect(TokenType.NUMBER, "expected modulus").getLexeme());
+            expect(TokenType.COMMA, "expected ','");
+            expectWord("REMAINDER");
+            out.put(Partitioning.REMAINDER_OPTION, expect(TokenType.NUMBER, "expected remainder").getLexeme());
+            expect(TokenType.RPAREN, "expected ')'");
+        } else {
+            throw new IllegalArgumentException("expected FROM, IN or WITH after FOR VALUES, got: "
+                    + peek().getType() + " at pos " + peek().getPosition());
+        }
+    }
+
+    private String parseBoundValue(boolean allowUnbounded) {
+        Token t = advance();
+        if (t.getType() == TokenType.NUMBER) {
+            return t.getLexeme();
+        }
+        if (t.getType() == TokenType.MINUS && check(TokenType.NUMBER)) {
+            return "-" + advance().getLexeme();
+        }
+        if (t.getType() == TokenType.STRING) {
+            String s = t.getLexeme();
+            if (s.indexOf('\'') >= 0 || s.indexOf(',') >= 0 || s.indexOf(';') >= 0) {
+                throw new IllegalArgumentException("partition bound cannot contain quotes, ',' or ';': " + s);
+            }
+            return "'" + s + "'";
+        }
+        if (allowUnbounded && t.getType() == TokenType.IDENT
+                && (t.getLexeme().equalsIgnoreCase(PartitionBound.MINVALUE)
+                || t.getLexeme().equalsIgnoreCase(PartitionBound.MAXVALUE))) {
+            return t.getLexeme().toLowerCase(Locale.ROOT);
+        }
+        throw new IllegalArgumentException("expected partition bound value, got: " + t.getType() + " at pos " + t.getPosition());
+    }
+
+    private void expectWord(String word) {
+        Token t = expect(TokenType.IDENT, "expected " + word);
+        if (!t.getLexeme().equalsIgnoreCase(word)) {
+            throw new IllegalArgumentException("expected " + word + ", got: " + t.getLexeme() + " at pos " + t.getPosition());
+        }
+    }
+
+    private Map<String, String> parseTableOptions() {
+        Map<String, String> options = new LinkedHashMap<>();
+        expect(TokenType.LPAREN, "expected '(' after WITH");
+        do {
+            String key = expect(TokenType.IDENT, "expected option name").getLexeme().toLowerCase(Locale.ROOT);
+            expect(TokenType.EQ, "expected '=' after option name");
+            Token value = advance();
+            if (value.getType() != TokenType.IDENT
+                    && value.getType() != TokenType.TEMP
+                    && value.getType() != TokenType.UNLOGGED
+                    && value.getType() != TokenType.INDEX
+                    && value.getType() != TokenType.NUMBER
+                    && value.getType() != TokenType.STRING) {
+                throw new IllegalArgumentException("expected option value, got: " + value.getType() + " at pos " + value.getPosition());
+            }
+            if (options.put(key, value.getLexeme()) != null) {
+                throw new IllegalArgumentException("duplicate option: " + key);
+            }
+        } while (match(TokenType.COMMA));
+        expect(TokenType.RPAREN, "expected ')'");
+        return options;
+    }
+
+    /**
+     * Колонки и ограничение PRIMARY KEY: либо у колонки (id INT64 PRIMARY KEY),
+     * либо отдельным элементом (PRIMARY KEY (a, b)).
+     */
+    private void parseTableElements(List<ColumnDef> cols, List<String> primaryKey) {
+        do {
+            if (match(TokenType.PRIMARY)) {
+                expect(TokenType.KEY, "expected KEY after PRIMARY");
+                if (!primaryKey.isEmpty()) {
+                    throw new IllegalArgumentException("multiple primary keys are not allowed");
+                }
+                expect(TokenType.LPAREN, "expected '(' after PRIMARY KEY");
+                do {
+                    primaryKey.add(expect(TokenType.IDENT, "expected column name").getLexeme());
+                } while (match(TokenType.COMMA));
+                expect(TokenType.RPAREN, "expected ')'");
+            } else {
+                ColumnDef c = parseColumnDef();
+                cols.add(c);
+                if (match(TokenType.PRIMARY)) {
+                    expect(TokenType.KEY, "expected KEY after PRIMARY");
+                    if (!primaryKey.isEmpty()) {
+                        throw new IllegalArgumentException("multiple primary keys are not allowed");
+                    }
+                    primaryKey.add(c.name);
+                }
+            }
+        } while (match(TokenType.COMMA));
     }
 
     private ColumnDef parseColumnDef() {
         String colName = expect(TokenType.IDENT, "expected column name").getLexeme();
         String typeName = expect(TokenType.IDENT, "expected type name").getLexeme();
-        return new ColumnDef(colName, typeName);
+        String encoding = null;
+        if (match(TokenType.ENCODING)) {
+            encoding = expect(TokenType.IDENT, "expected encoding name").getLexeme();
+        }
+        return new ColumnDef(colName, typeName, encoding);
     }
 
     private AstNode parseInsert() {
@@ -101,6 +310,49 @@ public class DefaultParser implements Parser {
         return new InsertStmt(tableName, values);
     }
 
+    private AstNode parseDelete() {
+        expect(TokenType.DELETE, "expected DELETE");
+        expect(TokenType.FROM, "expected FROM");
+
+        String tableName = expect(TokenType.IDENT, "expected table name").getLexeme();
+
+        Expr where = null;
+        if (match(TokenType.WHERE)) {
+            where = parseExpr();
+        }
+        return new DeleteStmt(tableName, where);
+    }
+
+    private AstNode parseUpdate() {
+        expect(TokenType.UPDATE, "expected UPDATE");
+
+        String tableName = expect(TokenType.IDENT, "expected table name").getLexeme();
+
+        expect(TokenType.SET, "expected SET");
+        List<ResTarget> targets = new ArrayList<>();
+        do {
+            String column = expect(TokenType.IDENT, "expected column name").getLexeme();
+            expect(TokenType.EQ, "expected '=' after column name");
+            targets.add(new ResTarget(parseExpr(), column));
+        } while (match(TokenType.COMMA));
+
+        Expr where = null;
+        if (match(TokenType.WHERE)) {
+            where = parseExpr();
+        }
+        return new UpdateStmt(tableName, targets, where);
+    }
+
+    private AstNode parseCluster() {
+        expect(TokenType.CLUSTER, "expected CLUSTER");
+
+        String tableName = expect(TokenType.IDENT, "expected table name").getLexeme();
+        expect(TokenType.USING, "expected USING");
+        String indexName = expect(TokenType.IDENT, "expected index name").getLexeme();
+
+        return new ClusterStmt(tableName, indexName);
+    }
+
     private List<Expr> parseExprList() {
         List<Expr> list = new ArrayList<>();
         do { list.add(parseExpr()); } while (match(TokenType.COMMA));
@@ -135,7 +387,31 @@ public class DefaultParser implements Parser {
         } else if (check(TokenType.IDENT)) {
             alias = advance().getLexeme();
         }
-        return new RangeVar(null, name.getLexeme(), alias);
+        if (!match(TokenType.TABLESAMPLE)) {
+            return new RangeVar(null, name.getLexeme(), alias);
+        }
+
+        // TABLESAMPLE method (percent) [REPEATABLE (seed)]
+        String method = expect(TokenType.IDENT, "expected sampling method").getLexeme().toLowerCase(Locale.ROOT);
+        expect(TokenType.LPAREN, "expected '(' after sampling method");
+        String percent = expect(TokenType.NUMBER, "expected sample percentage").getLexeme();
+        if (match(TokenType.DOT)) {
+            percent += "." + expect(TokenType.NUMBER, "expected fraction digits").getLexeme();
+        }
+        expect(TokenType.RPAREN, "expected ')'");
+        Long seed = null;
+        if (match(TokenType.REPEATABLE)) {
+            expect(TokenType.LPAREN, "expected '(' after REPEATABLE");
+            boolean negative = match(TokenType.MINUS);
+            String digits = expect(TokenType.NUMBER, "expected seed").getLexeme();
+            try {
+                seed = Long.parseLong(negative ? "-" + digits : digits);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("seed out of range: " + digits);
+            }
+            expect(TokenType.RPAREN, "expected ')'");
+        }
+        return new RangeVar(null, name.getLexeme(), alias, method, Double.parseDouble(percent), seed);
     }
 
     private List<ResTarget> parseTargetList() {
@@ -202,11 +478,25 @@ public class DefaultParser implements Parser {
             if (match(TokenType.LE)) { left = new AExpr("<=", left, parseAddSub()); continue; }
             if (match(TokenType.GT)) { left = new AExpr(">",  left, parseAddSub()); continue; }
             if (match(TokenType.GE)) { left = new AExpr(">=", left, parseAddSub()); continue; }
+            if (match(TokenType.IN)) { left = parseInList(left); continue; }
             break;
         }
         return left;
     }
 
+    // x IN (a, b, c)  ->  x = a OR x = b OR x = c
+    private Expr parseInList(Expr left) {
+        expect(TokenType.LPAREN, "expected '(' after IN");
+        List<Expr> items = parseExprList();
+        expect(TokenType.RPAREN, "expected ')'");
+
+        Expr out = new AExpr("=", left, items.get(0));
+        for (int i = 1; i < items.size(); i++) {
+            out = new BoolExpr("OR", List.of(out, new AExpr("=", left, items.get(i))));
+        }
+        return out;
+    }
+
     private Expr parseAddSub() {
         Expr left = parseMulDiv();
         while (true) {
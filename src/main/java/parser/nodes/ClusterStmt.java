@@ -0,0 +1,16 @@
+package parser.nodes;
+
+public class ClusterStmt extends AstNode {
+    public final String tableName;
+    public final String indexName;
+
+    public ClusterStmt(String tableName, String indexName) {
+        this.tableName = tableName;
+        this.indexName = indexName;
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterStmt(table=" + tableName + ", index=" + indexName + ")";
+    }
+}
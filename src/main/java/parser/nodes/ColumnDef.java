@@ -3,14 +3,22 @@ package parser.nodes;
 public class ColumnDef extends AstNode {
     public final String name;
     public final String typeName;
+    public final String encoding;   // может быть null (PLAIN)
 
     public ColumnDef(String name, String typeName) {
+        this(name, typeName, null);
+    }
+
+    public ColumnDef(String name, String typeName, String encoding) {
         this.name = name;
         this.typeName = typeName;
+        this.encoding = encoding;
     }
 
     @Override
     public String toString() {
-        return "ColumnDef(" + name + " " + typeName + ")";
+        return (encoding == null)
+                ? "ColumnDef(" + name + " " + typeName + ")"
+                : "ColumnDef(" + name + " " + typeName + " ENCODING " + encoding + ")";
     }
 }
\ No newline at end of file
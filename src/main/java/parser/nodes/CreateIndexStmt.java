@@ -1,18 +1,34 @@
 package parser.nodes;
 
+import java.util.List;
+import java.util.Map;
+
 public class CreateIndexStmt extends AstNode {
     public final String indexName;
     public final String tableName;
-    public final String columnName;
+    /** Колонки ключа в порядке сравнения. */
+    public final List<String> columnNames;
+    /** Метод из USING или null (btree). */
+    public final String method;
+    public final Map<String, String> options;
 
     public CreateIndexStmt(String indexName, String tableName, String columnName) {
+        this(indexName, tableName, List.of(columnName), null, Map.of());
+    }
+
+    public CreateIndexStmt(String indexName, String tableName, List<String> columnNames,
+                           String method, Map<String, String> options) {
         this.indexName = indexName;
         this.tableName = tableName;
-        this.columnName = columnName;
+        this.columnNames = columnNames;
+        this.method = method;
+        this.options = options;
     }
 
     @Override
     public String toString() {
-        return "CreateIndexStmt(index=" + indexName + ", table=" + tableName + ", col=" + columnName + ")";
+        return "CreateIndexStmt(index=" + indexName + ", table=" + tableName + ", cols=" + columnNames
+                + (method == null ? "" : ", using=" + method)
+                + (options.isEmpty() ? "" : ", with=" + options) + ")";
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,35 @@
 package parser.nodes;
 
 import java.util.List;
+import java.util.Map;
 
 public class CreateTableStmt extends AstNode {
     public final String tableName;
     public final List<ColumnDef> columns;
+    public final Map<String, String> options;
+    /** Колонки PRIMARY KEY в порядке объявления; пустой список — ключа нет. */
+    public final List<String> primaryKey;
 
     public CreateTableStmt(String tableName, List<ColumnDef> columns) {
+        this(tableName, columns, Map.of());
+    }
+
+    public CreateTableStmt(String tableName, List<ColumnDef> columns, Map<String, String> options) {
+        this(tableName, columns, options, List.of());
+    }
+
+    public CreateTableStmt(String tableName, List<ColumnDef> columns, Map<String, String> options,
+                           List<String> primaryKey) {
         this.tableName = tableName;
         this.columns = columns;
+        this.options = options == null ? Map.of() : options;
+        this.primaryKey = primaryKey == null ? List.of() : primaryKey;
     }
 
     @Override
     public String toString() {
-        return "CreateTableStmt(table=" + tableName + ", cols=" + (columns == null ? 0 : columns.size()) + ")";
+        return "CreateTableStmt(table=" + tableName + ", cols=" + (columns == null ? 0 : columns.size())
+                + (primaryKey.isEmpty() ? "" : ", pk=" + primaryKey)
+                + (options.isEmpty() ? "" : ", with=" + options) + ")";
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package parser.nodes;
+
+public class DeleteStmt extends AstNode {
+    public final String tableName;
+    public final Expr whereClause;
+
+    public DeleteStmt(String tableName, Expr whereClause) {
+        this.tableName = tableName;
+        this.whereClause = whereClause;
+    }
+
+    @Override
+    public String toString() {
+        String w = (whereClause == null) ? "null" : whereClause.toString();
+        return "DeleteStmt(table=" + tableName + ", where=" + w + ")";
+    }
+}
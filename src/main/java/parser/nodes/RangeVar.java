@@ -4,11 +4,24 @@ public class RangeVar extends AstNode {
     public final String schemaname;
     public final String relname;
     public final String alias;
+    /** TABLESAMPLE: метод или null, если выборки нет. */
+    public final String sampleMethod;
+    public final double samplePercent;
+    /** REPEATABLE (seed) или null. */
+    public final Long sampleSeed;
 
     public RangeVar(String schemaname, String relname, String alias) {
+        this(schemaname, relname, alias, null, 0, null);
+    }
+
+    public RangeVar(String schemaname, String relname, String alias,
+                    String sampleMethod, double samplePercent, Long sampleSeed) {
         this.schemaname = schemaname;
         this.relname = relname;
         this.alias = alias;
+        this.sampleMethod = sampleMethod;
+        this.samplePercent = samplePercent;
+        this.sampleSeed = sampleSeed;
     }
 
     @Override
@@ -16,6 +29,10 @@ public class RangeVar extends AstNode {
         String base = (schemaname == null || schemaname.isBlank())
                 ? relname
                 : schemaname + "." + relname;
+        if (sampleMethod != null) {
+            base += " TABLESAMPLE " + sampleMethod + "(" + samplePercent + ")"
+                    + (sampleSeed == null ? "" : " REPEATABLE(" + sampleSeed + ")");
+        }
         return (alias == null || alias.isBlank())
                 ? "RangeVar(" + base + ")"
                 : "RangeVar(" + base + " AS " + alias + ")";
@@ -0,0 +1,23 @@
+package parser.nodes;
+
+import java.util.List;
+
+public class UpdateStmt extends AstNode {
+    public final String tableName;
+    /** SET col = expr: имя колонки в ResTarget.name, выражение в ResTarget.val. */
+    public final List<ResTarget> targetList;
+    public final Expr whereClause;
+
+    public UpdateStmt(String tableName, List<ResTarget> targetList, Expr whereClause) {
+        this.tableName = tableName;
+        this.targetList = targetList;
+        this.whereClause = whereClause;
+    }
+
+    @Override
+    public String toString() {
+        int t = targetList == null ? 0 : targetList.size();
+        String w = (whereClause == null) ? "null" : whereClause.toString();
+        return "UpdateStmt(table=" + tableName + ", set=" + t + ", where=" + w + ")";
+    }
+}
@@ -32,7 +32,10 @@ public class PlannerImpl implements Planner {
             case SELECT -> planSelect(queryTree);
             case CREATE_TABLE, CREATE -> planCreateTable(queryTree);
             case CREATE_INDEX -> planCreateIndex(queryTree);
+            case CLUSTER -> new LogicalClusterNode(queryTree.indexTableName, queryTree.indexName);
             case INSERT -> planInsert(queryTree);
+            case DELETE -> planDelete(queryTree);
+            case UPDATE -> planUpdate(queryTree);
         };
     }
 
@@ -46,7 +49,7 @@ public class PlannerImpl implements Planner {
 
         TableDefinition table = q.fromTables.get(0);
 
-        LogicalPlanNode scan = new ScanNode(table);
+        LogicalPlanNode scan = new ScanNode(table, q.sample);
 
         LogicalPlanNode upper = scan;
         if (q.filter != null) {
@@ -107,7 +110,8 @@ public class PlannerImpl implements Planner {
                     0,
                     type.getOid(),
                     col.column.name(),
-                    position++
+                    position++,
+                    col.column.encoding()
             ));
         }
 
@@ -116,7 +120,8 @@ public class PlannerImpl implements Planner {
                 proto.getName(),
                 "USER",
                 proto.getName(),
-                0
+                0,
+                proto.options()
         );
 
         tableDef.setColumns(columns);
@@ -131,11 +136,12 @@ public class PlannerImpl implements Planner {
         if (q.indexTableName == null || q.indexTableName.isBlank()) {
             throw new IllegalArgumentException("CREATE INDEX: empty table name");
         }
-        if (q.indexColumnName == null || q.indexColumnName.isBlank()) {
-            throw new IllegalArgumentException("CREATE INDEX: empty column name");
+        if (q.indexColumnNames == null || q.indexColumnNames.isEmpty()) {
+            throw new IllegalArgumentException("CREATE INDEX: empty column list");
         }
 
-        return new LogicalCreateIndexNode(q.indexName, q.indexTableName, q.indexColumnName);
+        return new LogicalCreateIndexNode(q.indexName, q.indexTableName, q.indexColumnNames,
+                q.indexType, q.indexOptions);
     }
 
     private LogicalPlanNode planInsert(QueryTree q) {
@@ -150,4 +156,30 @@ public class PlannerImpl implements Planner {
 
         return new InsertNode(table, values);
     }
-}
\ No newline at end of file
+
+    private LogicalPlanNode planDelete(QueryTree q) {
+        if (q.fromTables == null || q.fromTables.size() != 1) {
+            throw new IllegalArgumentException("DELETE requires exactly one target table");
+        }
+
+        TableDefinition table = q.fromTables.get(0);
+        return new DeleteNode(table, planModifyInput(table, q.filter));
+    }
+
+    private LogicalPlanNode planUpdate(QueryTree q) {
+        if (q.fromTables == null || q.fromTables.size() != 1) {
+            throw new IllegalArgumentException("UPDATE requires exactly one target table");
+        }
+        if (q.targetColumns == null || q.targetColumns.size() != q.targetList.size()) {
+            throw new IllegalArgumentException("UPDATE: SET columns and values mismatch");
+        }
+
+        TableDefinition table = q.fromTables.get(0);
+        return new UpdateNode(table, q.targetColumns, q.targetList, planModifyInput(table, q.filter));
+    }
+
+    private LogicalPlanNode planModifyInput(TableDefinition table, QueryTree.QTExpr filter) {
+        LogicalPlanNode scan = new ScanNode(table);
+        return filter == null ? scan : new FilterNode(scan, filter);
+    }
+}
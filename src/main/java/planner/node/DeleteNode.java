@@ -0,0 +1,36 @@
+package planner.node;
+
+import catalog.model.TableDefinition;
+
+import java.util.List;
+
+/**
+ * Логический узел DELETE FROM table [WHERE ...].
+ * Входной узел поставляет удаляемые строки (скан + фильтр).
+ */
+public class DeleteNode extends LogicalPlanNode {
+
+    private final TableDefinition tableDefinition;
+    private final LogicalPlanNode input;
+
+    public DeleteNode(TableDefinition tableDefinition, LogicalPlanNode input) {
+        super("Delete");
+        this.tableDefinition = tableDefinition;
+        this.input = input;
+        this.outputColumns = List.of();
+    }
+
+    public TableDefinition getTableDefinition() {
+        return tableDefinition;
+    }
+
+    public LogicalPlanNode getInput() {
+        return input;
+    }
+
+    @Override
+    public String prettyPrint(String indent) {
+        return indent + "Delete(" + tableDefinition.getName() + ")\n"
+                + input.prettyPrint(indent + "  ");
+    }
+}
@@ -0,0 +1,20 @@
+package planner.node;
+
+public class LogicalClusterNode extends LogicalPlanNode {
+    private final String tableName;
+    private final String indexName;
+
+    public LogicalClusterNode(String tableName, String indexName) {
+        super("Cluster");
+        this.tableName = tableName;
+        this.indexName = indexName;
+    }
+
+    public String tableName() { return tableName; }
+    public String indexName() { return indexName; }
+
+    @Override
+    public String prettyPrint(String indent) {
+        return indent + "Cluster(" + tableName + " USING " + indexName + ")\n";
+    }
+}
@@ -1,5 +1,6 @@
 package planner.node;
 
+import access.TableSample;
 import catalog.model.TableDefinition;
 
 import java.util.List;
@@ -7,10 +8,16 @@ import java.util.List;
 public class ScanNode extends LogicalPlanNode {
 
     private final TableDefinition table;
+    private final TableSample sample;
 
     public ScanNode(TableDefinition table) {
+        this(table, null);
+    }
+
+    public ScanNode(TableDefinition table, TableSample sample) {
         super("SeqScan");
         this.table = table;
+        this.sample = sample;
         this.outputColumns = List.of("*");
     }
 
@@ -18,8 +25,13 @@ public class ScanNode extends LogicalPlanNode {
         return table;
     }
 
+    /** TABLESAMPLE или null. */
+    public TableSample getSample() {
+        return sample;
+    }
+
     @Override
     public String prettyPrint(String indent) {
-        return indent + "SeqScan(" + table.getName() + ")\n";
+        return indent + "SeqScan(" + table.getName() + (sample == null ? "" : " TABLESAMPLE " + sample) + ")\n";
     }
-}
\ No newline at end of file
+}
@@ -2,7 +2,23 @@ package semantic;
 
 import catalog.manager.CatalogManager;
 import catalog.model.ColumnDefinition;
+import catalog.model.ColumnEncoding;
 import catalog.model.TableDefinition;
+import access.TableAccessMethod;
+import access.TableSample;
+import access.iot.IndexOrganizedAccessMethod;
+import access.heap.HeapAccessMethod;
+import access.lsm.LsmAccessMethod;
+import catalog.operation.OperationManager;
+import catalog.partition.PartitionBound;
+import catalog.partition.PartitionStrategy;
+import catalog.partition.Partitioning;
+import index.IndexType;
+import index.brin.BrinIndex;
+import index.btree.BPlusTreeIndex;
+import index.btree.KeyType;
+import memory.manager.CompressedPageFileManager;
+import memory.model.Persistence;
 import parser.nodes.*;
 
 import java.util.*;
@@ -27,30 +43,41 @@ public class DefaultSemanticAnalyzer implements SemanticAnalyzer {
                 }
             }
 
-            return QueryTree.select(fromCtx.tables, targets, filter);
+            return QueryTree.select(fromCtx.tables, targets, filter, resolveSample(select, fromCtx, catalog));
         }
 
         if (ast instanceof CreateTableStmt ct) {
             if (ct.tableName == null || ct.tableName.isBlank()) {
                 throw new SemanticException("CREATE TABLE: empty table name");
             }
-            if (ct.columns == null || ct.columns.isEmpty()) {
+            boolean partition = ct.options.containsKey(Partitioning.OF_OPTION);
+            if (!partition && (ct.columns == null || ct.columns.isEmpty())) {
                 throw new SemanticException("CREATE TABLE requires columns");
             }
 
+            Map<String, String> options = validateTableOptions(ct.options);
+            validatePrimaryKey(ct, options);
+
             var proto = new catalog.model.TableDefinition(
                     0,
                     ct.tableName,
                     "USER",
                     ct.tableName,
-                    0
+                    0,
+                    options
             );
 
             List<QueryTree.QTExpr> cols = new ArrayList<>();
+            if (partition) {
+                cols.addAll(partitionColumns(catalog, proto, ct));
+            }
             for (ColumnDef c : ct.columns) {
                 if (c.name == null || c.name.isBlank()) {
                     throw new SemanticException("CREATE TABLE: empty column name");
                 }
+                if (OperationManager.CTID.equalsIgnoreCase(c.name) || OperationManager.RELNAME.equalsIgnoreCase(c.name)) {
+                    throw new SemanticException("column name " + c.name + " is reserved");
+                }
                 if (c.typeName == null || c.typeName.isBlank()) {
                     throw new SemanticException("CREATE TABLE: empty type for column " + c.name);
                 }
@@ -60,17 +87,25 @@ public class DefaultSemanticAnalyzer implements SemanticAnalyzer {
                     throw new SemanticException("Unknown type: " + c.typeName);
                 }
 
+                ColumnEncoding encoding = resolveEncoding(c, mapTypeName(catalog, type.getOid()));
+
                 var cd = new catalog.model.ColumnDefinition(
                         0,
                         0,
                         type.getOid(),
                         c.name,
-                        0
+                        0,
+                        encoding
                 );
 
                 cols.add(new QueryTree.QTColumn(cd, proto, mapTypeName(catalog, cd.typeOid())));
             }
 
+            if (TableAccessMethod.LSM.equals(proto.option(TableAccessMethod.OPTION, TableAccessMethod.HEAP))) {
+                validateLsmTable(proto, (QueryTree.QTColumn) cols.get(0));
+            }
+            validatePartitioning(catalog, ct, proto, cols);
+
             return QueryTree.create(List.of(proto), cols);
         }
 
@@ -95,6 +130,43 @@ public class DefaultSemanticAnalyzer implements SemanticAnalyzer {
             return QueryTree.insert(List.of(td), values);
         }
 
+        if (ast instanceof DeleteStmt del) {
+            TableDefinition td = requireTable(catalog, del.tableName, "DELETE");
+            FromContext fromCtx = new FromContext(Map.of(td.getName(), td), List.of(td));
+
+            return QueryTree.delete(td, resolveWhere(del.whereClause, fromCtx, catalog));
+        }
+
+        if (ast instanceof UpdateStmt upd) {
+            TableDefinition td = requireTable(catalog, upd.tableName, "UPDATE");
+            FromContext fromCtx = new FromContext(Map.of(td.getName(), td), List.of(td));
+
+            if (upd.targetList == null || upd.targetList.isEmpty()) {
+                throw new SemanticException("UPDATE requires SET");
+            }
+
+            List<ColumnDefinition> columns = new ArrayList<>();
+            List<QueryTree.QTExpr> values = new ArrayList<>();
+            Set<String> seen = new HashSet<>();
+            for (ResTarget rt : upd.targetList) {
+                ColumnDefinition cd = findColumnInTable(catalog, td, rt.name);
+                if (!seen.add(cd.name())) {
+                    throw new SemanticException("column " + cd.name() + " specified more than once");
+                }
+                QueryTree.QTExpr value = resolveExpr(rt.val, fromCtx, catalog);
+                String columnType = mapTypeName(catalog, cd.typeOid());
+                String valueType = typeOf(value);
+                boolean compatible = isNumeric(columnType) ? isNumeric(valueType) : sameOrCompatibleTypes(columnType, valueType);
+                if (!compatible) {
+                    throw new SemanticException("type mismatch in SET " + cd.name() + ": " + columnType + " = " + valueType);
+                }
+                columns.add(cd);
+                values.add(value);
+            }
+
+            return QueryTree.update(td, columns, values, resolveWhere(upd.whereClause, fromCtx, catalog));
+        }
+
         if (ast instanceof CreateIndexStmt ci) {
             if (ci.indexName == null || ci.indexName.isBlank()) {
                 throw new SemanticException("CREATE INDEX: empty index name");
@@ -102,8 +174,8 @@ public class DefaultSemanticAnalyzer implements SemanticAnalyzer {
             if (ci.tableName == null || ci.tableName.isBlank()) {
                 throw new SemanticException("CREATE INDEX: empty table name");
             }
-            if (ci.columnName == null || ci.columnName.isBlank()) {
-                throw new SemanticException("CREATE INDEX: empty column name");
+            if (ci.columnNames == null || ci.columnNames.isEmpty()) {
+                throw new SemanticException("CREATE INDEX: empty column list");
             }
 
             TableDefinition td = catalog.getTable(ci.tableName);
@@ -111,14 +183,78 @@ public class DefaultSemanticAnalyzer implements SemanticAnalyzer {
                 throw new SemanticException("Unknown table: " + ci.tableName);
             }
 
-            ColumnDefinition cd = findColumnInTable(catalog, td, ci.columnName);
+            List<ColumnDefinition> columns = new ArrayList<>();
+            for (String name : ci.columnNames) {
+                ColumnDefinition cd = findColumnInTable(catalog, td, name);
+                if (columns.stream().anyMatch(c -> c.name().equals(cd.name()))) {
+                    throw new SemanticException("column " + cd.name() + " appears more than once in index key");
+                }
+                columns.add(cd);
+            }
+            String accessMethod = td.option(TableAccessMethod.OPTION, TableAccessMethod.HEAP);
+            if (TableAccessMethod.INDEX_ORGANIZED.equals(accessMethod)) {
+                throw new SemanticException("secondary indexes on index-organized tables are not supported: " + td.getName());
+            }
 
-            return QueryTree.createIndex(ci.indexName, td, cd);
+            IndexType type = indexType(ci.method);
+            if (type != IndexType.BTREE && columns.size() > 1) {
+                throw new SemanticException(type + " indexes have a single key column");
+            }
+            // индекс на секционированной таблице строится в каждой секции
+            List<TableDefinition> targets = Partitioning.isPartitioned(td) ? Partitioning.partitionsOf(catalog, td) : List.of(td);
+            for (TableDefinition t : targets) {
+                String am = t.option(TableAccessMethod.OPTION, TableAccessMethod.HEAP);
+                if (TableAccessMethod.INDEX_ORGANIZED.equals(am)) {
+                    throw new SemanticException("secondary indexes on index-organized tables are not supported: " + t.getName());
+                }
+                if (type == IndexType.BRIN && !TableAccessMethod.HEAP.equals(am) && !TableAccessMethod.COLUMNAR.equals(am)) {
+                    throw new SemanticException("BRIN indexes need a paged table, not " + am + ": " + t.getName());
+                }
+            }
+
+            if (type != IndexType.BRIN) {
+                checkEntryWidth(catalog, td, columns, ci.options.get(BPlusTreeIndex.INCLUDE_OPTION));
+            }
+            return QueryTree.createIndex(ci.indexName, td, columns, type, validateIndexOptions(type, ci.options, catalog, td, columns));
+        }
+
+        if (ast instanceof ClusterStmt cl) {
+            TableDefinition td = requireTable(catalog, cl.tableName, "CLUSTER");
+            if (cl.indexName == null || cl.indexName.isBlank()) {
+                throw new SemanticException("CLUSTER: empty index name");
+            }
+            if (!TableAccessMethod.HEAP.equals(td.option(TableAccessMethod.OPTION, TableAccessMethod.HEAP))) {
+                throw new SemanticException("CLUSTER is supported only for heap tables: " + td.getName());
+            }
+            if (Partitioning.isPartitioned(td)) {
+                throw new SemanticException("CLUSTER is not supported for partitioned tables, cluster each partition: " + td.getName());
+            }
+            return QueryTree.cluster(td, cl.indexName);
         }
 
         throw new SemanticException("unsupported statement: " + ast.getClass().getSimpleName());
     }
 
+    private TableDefinition requireTable(CatalogManager catalog, String tableName, String stmt) {
+        if (tableName == null || tableName.isBlank()) {
+            throw new SemanticException(stmt + ": empty table name");
+        }
+        TableDefinition td = catalog.getTable(tableName);
+        if (td == null) {
+            throw new SemanticException("Unknown table: " + tableName);
+        }
+        return td;
+    }
+
+    private QueryTree.QTExpr resolveWhere(Expr where, FromContext fromCtx, CatalogManager catalog) {
+        if (where == null) return null;
+        QueryTree.QTExpr filter = resolveExpr(where, fromCtx, catalog);
+        if (!isBooleanLike(filter)) {
+            throw new SemanticException("WHERE clause is not boolean");
+        }
+        return filter;
+    }
+
     private FromContext resolveFrom(SelectStmt select, CatalogManager catalog) {
         if (select.fromClause == null || select.fromClause.isEmpty()) {
             throw new SemanticException("SELECT must have FROM clause");
@@ -144,6 +280,38 @@ public class DefaultSemanticAnalyzer implements SemanticAnalyzer {
         return new FromContext(aliasToTable, tables);
     }
 
+    /**
+     * SYSTEM пропускает страницы, поэтому нужен страничный метод доступа
+     * (у секционированной таблицы — у каждой секции).
+     */
+    private TableSample resolveSample(SelectStmt select, FromContext fromCtx, CatalogManager catalog) {
+        TableSample sample = null;
+        for (int i = 0; i < select.fromClause.size(); i++) {
+            RangeVar rv = select.fromClause.get(i);
+            if (rv.sampleMethod == null) continue;
+            if (select.fromClause.size() > 1) {
+                throw new SemanticException("TABLESAMPLE is supported only for single-table SELECT");
+            }
+            try {
+                sample = new TableSample(TableSample.methodOf(rv.sampleMethod), rv.samplePercent, rv.sampleSeed);
+            } catch (IllegalArgumentException ex) {
+                throw new SemanticException(ex.getMessage());
+            }
+            if (sample.method() == TableSample.Method.SYSTEM) {
+                TableDefinition td = fromCtx.tables.get(i);
+                List<TableDefinition> targets = Partitioning.isPartitioned(td)
+                        ? Partitioning.partitionsOf(catalog, td) : List.of(td);
+                for (TableDefinition t : targets) {
+                    String am = t.option(TableAccessMethod.OPTION, TableAccessMethod.HEAP);
+                    if (!TableAccessMethod.HEAP.equals(am) && !TableAccessMethod.COLUMNAR.equals(am)) {
+                        throw new SemanticException("TABLESAMPLE SYSTEM needs a paged table, not " + am + ": " + t.getName());
+                    }
+                }
+            }
+        }
+        return sample;
+    }
+
     private static class FromContext {
         final Map<String, TableDefinition> aliasToTable;
         final List<TableDefinition> tables;
@@ -254,6 +422,308 @@ public class DefaultSemanticAnalyzer implements SemanticAnalyzer {
         }
     }
 
+    private static IndexType indexType(String method) {
+        if (method == null) {
+            return IndexType.BTREE;
+        }
+        try {
+            return IndexType.valueOf(method.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new SemanticException("Unknown index method: " + method);
+        }
+    }
+
+    private Map<String, String> validateIndexOptions(IndexType type, Map<String, String> options,
+                                                     CatalogManager catalog, TableDefinition td, List<ColumnDefinition> keyColumns) {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (Map.Entry<String, String> e : options.entrySet()) {
+            String key = e.getKey();
+            if (BPlusTreeIndex.INCLUDE_OPTION.equals(key) && type == IndexType.BTREE) {
+                result.put(key, validateIncluded(catalog, td, keyColumns, e.getValue()));
+                continue;
+            }
+            if (BPlusTreeIndex.FILLFACTOR_OPTION.equals(key) && type == IndexType.BTREE) {
+                int fillfactor;
+                try {
+                    fillfactor = Integer.parseInt(e.getValue());
+                } catch (NumberFormatException ex) {
+                    throw new SemanticException("fillfactor must be an integer: " + e.getValue());
+                }
+                if (fillfactor < 10 || fillfactor > 100) {
+                    throw new SemanticException("fillfactor must be between 10 and 100: " + fillfactor);
+                }
+                result.put(key, Integer.toString(fillfactor));
+                continue;
+            }
+            if (!BrinIndex.PAGES_PER_RANGE_OPTION.equals(key) || type != IndexType.BRIN) {
+                throw new SemanticException("Unknown option for " + type + " index: " + key);
+            }
+            int pagesPerRange;
+            try {
+                pagesPerRange = Integer.parseInt(e.getValue());
+            } catch (NumberFormatException ex) {
+                throw new SemanticException("pages_per_range must be an integer: " + e.getValue());
+            }
+            if (pagesPerRange < 1) {
+                throw new SemanticException("pages_per_range must be positive: " + pagesPerRange);
+            }
+            result.put(key, Integer.toString(pagesPerRange));
+        }
+        return result;
+    }
+
+    /**
+     * Колонки INCLUDE: существуют, не повторяются и не входят в ключ. Имена
+     * приводятся к именам из каталога.
+     */
+    private String validateIncluded(CatalogManager catalog, TableDefinition td, List<ColumnDefinition> keyColumns,
+                                    String value) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : value.split(",")) {
+            ColumnDefinition cd = findColumnInTable(catalog, td, name.trim());
+            if (keyColumns.stream().anyMatch(k -> k.name().equals(cd.name()))) {
+                throw new SemanticException("INCLUDE column is part of the index key: " + cd.name());
+            }
+            if (!names.add(cd.name())) {
+                throw new SemanticException("INCLUDE column specified more than once: " + cd.name());
+            }
+        }
+        return String.join(",", names);
+    }
+
+    /**
+     * Ключ и значения INCLUDE наибольшей ширины должны поместиться в запись листа.
+     */
+    private void checkEntryWidth(CatalogManager catalog, TableDefinition td, List<ColumnDefinition> keyColumns,
+                                 String included) {
+        List<ColumnDefinition> all = new ArrayList<>(keyColumns);
+        if (included != null) {
+            for (String name : included.split(",")) {
+                all.add(findColumnInTable(catalog, td, name.trim()));
+            }
+        }
+        int width = 0;
+        for (ColumnDefinition cd : all) {
+            try {
+                width += KeyType.of(mapTypeName(catalog, cd.typeOid()), cd.isDictionaryEncoded()).maxWidth();
+            } catch (IllegalArgumentException ex) {
+                throw new SemanticException("cannot index column " + cd.name() + ": " + ex.getMessage());
+            }
+        }
+        if (width > BPlusTreeIndex.MAX_ENTRY_WIDTH) {
+            throw new SemanticException("index key and INCLUDE columns are too wide: up to " + width
+                    + " bytes, at most " + BPlusTreeIndex.MAX_ENTRY_WIDTH + " allowed");
+        }
+    }
+
+    private Map<String, String> validateTableOptions(Map<String, String> options) {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (Map.Entry<String, String> e : options.entrySet()) {
+            String key = e.getKey();
+            String value = e.getValue().toLowerCase(Locale.ROOT);
+            if (CompressedPageFileManager.OPTION.equals(key)) {
+                if (!CompressedPageFileManager.CODEC_LZ.equals(value) && !"none".equals(value)) {
+                    throw new SemanticException("Unknown compression: " + e.getValue());
+                }
+            } else if (Persistence.OPTION.equals(key)) {
+                try {
+                    value = Persistence.fromKeyword(value).keyword();
+                } catch (IllegalArgumentException ex) {
+                    throw new SemanticException("Unknown persistence: " + e.getValue());
+                }
+            } else if (TableAccessMethod.OPTION.equals(key)) {
+                if (!TableAccessMethod.BUILTIN.contains(value)) {
+                    throw new SemanticException("Unknown access method: " + e.getValue());
+                }
+            } else if (IndexOrganizedAccessMethod.ORGANIZATION_OPTION.equals(key)) {
+                // организация таблицы — другое имя для выбора метода доступа
+                key = TableAccessMethod.OPTION;
+                if (IndexOrganizedAccessMethod.ORGANIZATION_INDEX.equals(value)) {
+                    value = TableAccessMethod.INDEX_ORGANIZED;
+                } else if (IndexOrganizedAccessMethod.ORGANIZATION_HEAP.equals(value)) {
+                    value = TableAccessMethod.HEAP;
+                } else {
+                    throw new SemanticException("Unknown organization: " + e.getValue());
+                }
+            } else if (LsmAccessMethod.MEMTABLE_SIZE_OPTION.equals(key)) {
+                int kb;
+                try {
+                    kb = Integer.parseInt(value);
+                } catch (NumberFormatException ex) {
+                    throw new SemanticException("memtable_size must be an integer (KB): " + e.getValue());
+                }
+                if (kb < LsmAccessMethod.MIN_MEMTABLE_KB) {
+                    throw new SemanticException("memtable_size must be at least " + LsmAccessMethod.MIN_MEMTABLE_KB + " KB: " + kb);
+                }
+                value = Integer.toString(kb);
+            } else if (Partitioning.BY_OPTION.equals(key)) {
+                try {
+                    value = PartitionStrategy.fromKeyword(value).keyword();
+                } catch (IllegalArgumentException ex) {
+                    throw new SemanticException("Unknown partition strategy: " + e.getValue());
+                }
+            } else if (Partitioning.OPTIONS.contains(key)) {
+                // имена и строковые границы регистр сохраняют
+                value = e.getValue();
+            } else if (HeapAccessMethod.FILLFACTOR_OPTION.equals(key)) {
+                int fillfactor;
+                try {
+                    fillfactor = Integer.parseInt(value);
+                } catch (NumberFormatException ex) {
+                    throw new SemanticException("fillfactor must be an integer: " + e.getValue());
+                }
+                if (fillfactor < 10 || fillfactor > 100) {
+                    throw new SemanticException("fillfactor must be between 10 and 100: " + fillfactor);
+                }
+                value = Integer.toString(fillfactor);
+            } else {
+                throw new SemanticException("Unknown table option: " + key);
+            }
+            String previous = result.put(key, value);
+            if (previous != null && !previous.equals(value)) {
+                throw new SemanticException("Conflicting table options: " + key + " = " + previous + " and " + value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * PRIMARY KEY пока означает кластеризацию: он обязателен для
+     * индексно-организованной таблицы и допустим только у неё.
+     */
+    private void validatePrimaryKey(CreateTableStmt ct, Map<String, String> options) {
+        boolean iot = TableAccessMethod.INDEX_ORGANIZED.equals(options.get(TableAccessMethod.OPTION));
+        if (ct.primaryKey.isEmpty()) {
+            if (iot) {
+                throw new SemanticException("index-organized table requires PRIMARY KEY: " + ct.tableName);
+            }
+            return;
+        }
+        if (!iot) {
+            throw new SemanticException("PRIMARY KEY is supported only for index-organized tables (WITH (organization = index))");
+        }
+
+        Set<String> seen = new HashSet<>();
+        for (String name : ct.primaryKey) {
+            if (ct.columns.stream().noneMatch(c -> c.name.equals(name))) {
+                throw new SemanticException("PRIMARY KEY column not found: " + name);
+            }
+            if (!seen.add(name)) {
+                throw new SemanticException("PRIMARY KEY column repeated: " + name);
+            }
+        }
+        options.put(IndexOrganizedAccessMethod.PRIMARY_KEY_OPTION, String.join(",", ct.primaryKey));
+    }
+
+    /**
+     * Секция наследует колонки родителя; своих колонок у неё нет.
+     */
+    private List<QueryTree.QTColumn> partitionColumns(CatalogManager catalog, TableDefinition proto, CreateTableStmt ct) {
+        if (!ct.columns.isEmpty()) {
+            throw new SemanticException("partition " + ct.tableName + " inherits columns from its parent");
+        }
+        TableDefinition parent = catalog.getTable(ct.options.get(Partitioning.OF_OPTION));
+        if (parent == null) {
+            throw new SemanticException("Unknown table: " + ct.options.get(Partitioning.OF_OPTION));
+        }
+        if (!Partitioning.isPartitioned(parent)) {
+            throw new SemanticException("table is not partitioned: " + parent.getName());
+        }
+        List<QueryTree.QTColumn> cols = new ArrayList<>();
+        for (ColumnDefinition pc : catalog.listColumnsSorted(parent)) {
+            var cd = new ColumnDefinition(0, 0, pc.typeOid(), pc.name(), 0, pc.encoding());
+            cols.add(new QueryTree.QTColumn(cd, proto, mapTypeName(catalog, pc.typeOid())));
+        }
+        return cols;
+    }
+
+    /**
+     * Ключ родителя — колонка INT64 или VARCHAR. Граница секции должна
+     * соответствовать стратегии родителя и не пересекаться с другими секциями.
+     */
+    private void validatePartitioning(CatalogManager catalog, CreateTableStmt ct, TableDefinition proto,
+                                      List<QueryTree.QTExpr> cols) {
+        Map<String, String> options = proto.options();
+        boolean parent = options.containsKey(Partitioning.BY_OPTION);
+        boolean partition = options.containsKey(Partitioning.OF_OPTION);
+
+        if (parent) {
+            if (partition) {
+                throw new SemanticException("sub-partitioning is not supported: " + ct.tableName);
+            }
+            if (!ct.primaryKey.isEmpty()) {
+                throw new SemanticException("partitioned table cannot be index-organized: " + ct.tableName);
+            }
+            String key = options.get(Partitioning.KEY_OPTION);
+            QueryTree.QTColumn keyColumn = cols.stream()
+                    .map(c -> (QueryTree.QTColumn) c)
+                    .filter(c -> c.column.name().equals(key))
+                    .findFirst()
+                    .orElseThrow(() -> new SemanticException("partition key column not found: " + key));
+            if (!"INT64".equals(keyColumn.type) && !"VARCHAR".equals(keyColumn.type)) {
+                throw new SemanticException("partition key must be INT64 or VARCHAR: " + key);
+            }
+        } else if (options.containsKey(Partitioning.KEY_OPTION)) {
+            throw new SemanticException("partition key requires PARTITION BY");
+        }
+
+        Set<String> boundKeys = new HashSet<>(options.keySet());
+        boundKeys.retainAll(Partitioning.OPTIONS);
+        boundKeys.removeAll(Set.of(Partitioning.BY_OPTION, Partitioning.KEY_OPTION, Partitioning.OF_OPTION));
+        if (!partition) {
+            if (!boundKeys.isEmpty()) {
+                throw new SemanticException("partition bound requires PARTITION OF: " + boundKeys);
+            }
+            return;
+        }
+
+        TableDefinition parentTable = catalog.getTable(options.get(Partitioning.OF_OPTION));
+        PartitionStrategy strategy = Partitioning.strategy(parentTable);
+        Set<String> expected = switch (strategy) {
+            case RANGE -> Set.of(Partitioning.FROM_OPTION, Partitioning.TO_OPTION);
+            case LIST -> Set.of(Partitioning.IN_OPTION);
+            case HASH -> Set.of(Partitioning.MODULUS_OPTION, Partitioning.REMAINDER_OPTION);
+        };
+        if (!boundKeys.equals(expected)) {
+            throw new SemanticException("partition of " + parentTable.getName() + " needs a " + strategy + " bound");
+        }
+
+        PartitionBound bound;
+        try {
+            bound = PartitionBound.of(strategy, options, Partitioning.numericKey(catalog, parentTable));
+        } catch (IllegalArgumentException ex) {
+            throw new SemanticException(ex.getMessage());
+        }
+        for (TableDefinition sibling : Partitioning.partitionsOf(catalog, parentTable)) {
+            if (bound.overlaps(Partitioning.bound(catalog, sibling))) {
+                throw new SemanticException("partition " + ct.tableName + " would overlap partition " + sibling.getName());
+            }
+        }
+    }
+
+    private void validateLsmTable(catalog.model.TableDefinition proto, QueryTree.QTColumn key) {
+        if (!"INT64".equals(key.type) || key.column.isDictionaryEncoded()) {
+            throw new SemanticException("lsm table key (first column) must be INT64: " + key.column.name());
+        }
+        if (CompressedPageFileManager.CODEC_LZ.equals(proto.option(CompressedPageFileManager.OPTION, "none"))) {
+            throw new SemanticException("compression is not supported for lsm tables");
+        }
+    }
+
+    private ColumnEncoding resolveEncoding(ColumnDef c, String typeName) {
+        if (c.encoding == null) return ColumnEncoding.PLAIN;
+        ColumnEncoding encoding;
+        try {
+            encoding = ColumnEncoding.valueOf(c.encoding.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new SemanticException("Unknown encoding: " + c.encoding);
+        }
+        if (encoding == ColumnEncoding.DICTIONARY && !"VARCHAR".equals(typeName)) {
+            throw new SemanticException("DICTIONARY encoding is supported only for VARCHAR, column " + c.name);
+        }
+        return encoding;
+    }
+
     private QueryTree.QTExpr constToQT(AConst ac) {
         Object v = ac.value;
         if (v == null) return new QueryTree.QTConst(null, "NULL");
@@ -1,9 +1,12 @@
 package semantic;
 
+import access.TableSample;
 import catalog.model.ColumnDefinition;
 import catalog.model.TableDefinition;
+import index.IndexType;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.StringJoiner;
 
@@ -14,7 +17,10 @@ public class QueryTree {
         CREATE_TABLE,
         CREATE,
         INSERT,
-        CREATE_INDEX
+        CREATE_INDEX,
+        CLUSTER,
+        DELETE,
+        UPDATE
     }
 
     public final Kind kind;
@@ -25,8 +31,29 @@ public class QueryTree {
 
     public final String indexName;
     public final String indexTableName;
-    public final String indexColumnName;
-    public final ColumnDefinition indexColumn;
+    /** CREATE INDEX: колонки ключа в порядке сравнения. */
+    public final List<String> indexColumnNames;
+    public final List<ColumnDefinition> indexColumns;
+    public final IndexType indexType;
+    public final Map<String, String> indexOptions;
+
+    /** SELECT: TABLESAMPLE у таблицы из FROM или null. */
+    public final TableSample sample;
+
+    /** UPDATE: колонки из SET, параллельно выражениям в targetList. */
+    public final List<ColumnDefinition> targetColumns;
+
+    private QueryTree(Kind kind,
+                      List<TableDefinition> fromTables,
+                      List<QTExpr> targetList,
+                      QTExpr filter,
+                      String indexName,
+                      String indexTableName,
+                      List<String> indexColumnNames,
+                      List<ColumnDefinition> indexColumns) {
+        this(kind, fromTables, targetList, filter, indexName, indexTableName, indexColumnNames, indexColumns, List.of(),
+                null, Map.of(), null);
+    }
 
     private QueryTree(Kind kind,
                       List<TableDefinition> fromTables,
@@ -34,20 +61,34 @@ public class QueryTree {
                       QTExpr filter,
                       String indexName,
                       String indexTableName,
-                      String indexColumnName,
-                      ColumnDefinition indexColumn) {
+                      List<String> indexColumnNames,
+                      List<ColumnDefinition> indexColumns,
+                      List<ColumnDefinition> targetColumns,
+                      IndexType indexType,
+                      Map<String, String> indexOptions,
+                      TableSample sample) {
         this.kind = kind;
         this.fromTables = fromTables;
         this.targetList = targetList;
         this.filter = filter;
         this.indexName = indexName;
         this.indexTableName = indexTableName;
-        this.indexColumnName = indexColumnName;
-        this.indexColumn = indexColumn;
+        this.indexColumnNames = indexColumnNames;
+        this.indexColumns = indexColumns;
+        this.targetColumns = targetColumns;
+        this.indexType = indexType;
+        this.indexOptions = indexOptions;
+        this.sample = sample;
     }
 
     public static QueryTree select(List<TableDefinition> fromTables, List<QTExpr> targets, QTExpr filter) {
-        return new QueryTree(Kind.SELECT, fromTables, targets, filter, null, null, null, null);
+        return select(fromTables, targets, filter, null);
+    }
+
+    public static QueryTree select(List<TableDefinition> fromTables, List<QTExpr> targets, QTExpr filter,
+                                   TableSample sample) {
+        return new QueryTree(Kind.SELECT, fromTables, targets, filter, null, null, null, null, List.of(),
+                null, Map.of(), sample);
     }
 
     public static QueryTree create(List<TableDefinition> fromTables, List<QTExpr> cols) {
@@ -58,7 +99,17 @@ public class QueryTree {
         return new QueryTree(Kind.INSERT, fromTables, values, null, null, null, null, null);
     }
 
-    public static QueryTree createIndex(String indexName, TableDefinition table, ColumnDefinition column) {
+    public static QueryTree delete(TableDefinition table, QTExpr filter) {
+        return new QueryTree(Kind.DELETE, List.of(table), List.of(), filter, null, null, null, null);
+    }
+
+    public static QueryTree update(TableDefinition table, List<ColumnDefinition> columns, List<QTExpr> values, QTExpr filter) {
+        return new QueryTree(Kind.UPDATE, List.of(table), values, filter, null, null, null, null, columns,
+                null, Map.of(), null);
+    }
+
+    public static QueryTree createIndex(String indexName, TableDefinition table, List<ColumnDefinition> columns,
+                                        IndexType type, Map<String, String> options) {
         return new QueryTree(
                 Kind.CREATE_INDEX,
                 List.of(table),
@@ -66,11 +117,19 @@ public class QueryTree {
                 null,
                 indexName,
                 table.getName(),
-                column.name(),
-                column
+                columns.stream().map(ColumnDefinition::name).toList(),
+                columns,
+                List.of(),
+                type,
+                options,
+                null
         );
     }
 
+    public static QueryTree cluster(TableDefinition table, String indexName) {
+        return new QueryTree(Kind.CLUSTER, List.of(table), List.of(), null, indexName, table.getName(), null, null);
+    }
+
     public sealed interface QTExpr permits QTConst, QTColumn, QTStar, QTAExpr, QTBoolExpr { }
 
     public static final class QTConst implements QTExpr {
@@ -175,6 +234,9 @@ public class QueryTree {
                 sb.append(i2).append(t == null ? "null" : t.getName()).append("\n");
             }
         }
+        if (sample != null) {
+            sb.append(i1).append("tablesample: ").append(sample).append("\n");
+        }
 
         sb.append(i1).append("targetList:").append("\n");
         if (targetList == null || targetList.isEmpty()) {
@@ -192,10 +254,21 @@ public class QueryTree {
             appendExpr(sb, filter, i2);
         }
 
+        if (kind == Kind.UPDATE) {
+            sb.append(i1).append("targetColumns:").append("\n");
+            for (ColumnDefinition c : targetColumns) {
+                sb.append(i2).append(c.name()).append("\n");
+            }
+        }
+
         if (kind == Kind.CREATE_INDEX) {
             sb.append(i1).append("indexName: ").append(indexName).append("\n");
             sb.append(i1).append("indexTable: ").append(indexTableName).append("\n");
-            sb.append(i1).append("indexColumn: ").append(indexColumnName).append("\n");
+            sb.append(i1).append("indexColumns: ").append(indexColumnNames).append("\n");
+            sb.append(i1).append("indexType: ").append(indexType).append("\n");
+            if (!indexOptions.isEmpty()) {
+                sb.append(i1).append("indexOptions: ").append(indexOptions).append("\n");
+            }
         }
 
         return sb.toString();
@@ -0,0 +1,94 @@
+package access.heap;
+
+import catalog.manager.DefaultCatalogManager;
+import catalog.model.ColumnDefinition;
+import catalog.operation.DefaultOperationManager;
+import catalog.operation.OperationManager;
+import index.TID;
+import index.registry.DefaultIndexRegistry;
+import memory.buffer.DefaultBufferPoolManager;
+import memory.manager.HeapPageFileManager;
+import memory.replacer.ClockReplacer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeapHotUpdateTest {
+
+    private static final int ROW = 120;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * HOT-обновления последней строки заполненной страницы: новая версия
+     * ложится в дыру после уплотнения, хвостовой корневой слот перенаправляется
+     * на неё и не пропадает, индекс по id продолжает указывать на корень.
+     */
+    @Test
+    void hotUpdateChainsFromRootSlot() throws Exception {
+        DefaultBufferPoolManager bpm = new DefaultBufferPoolManager(16, new HeapPageFileManager(4096), new ClockReplacer());
+        DefaultCatalogManager catalog = new DefaultCatalogManager(dir.resolve("catalog"), bpm);
+        DefaultIndexRegistry registry = new DefaultIndexRegistry();
+        DefaultOperationManager op = new DefaultOperationManager(catalog, catalog, bpm, dir.resolve("tables"), registry);
+
+        catalog.createTable("t", List.of(
+                new ColumnDefinition(catalog.getTypeByName("INT64").getOid(), "id", 0),
+                new ColumnDefinition(catalog.getTypeByName("VARCHAR").getOid(), "v", 1)));
+        op.createIndex("t_id", "t", "id");
+
+        List<TID> page0 = new ArrayList<>();
+        for (long id = 0; ; id++) {
+            TID tid = op.insert("t", List.of(id, "x".repeat(ROW)));
+            if (tid.pageId() != 0) break;
+            page0.add(tid);
+        }
+        assertTrue(page0.size() > 4, "page holds several rows");
+
+        // свободное место есть только в дырах: уплотнение неизбежно
+        assertTrue(op.delete("t", page0.get(1)));
+        assertTrue(op.delete("t", page0.get(2)));
+        TID last = page0.get(page0.size() - 1);
+        long lastId = page0.size() - 1;
+
+        // каждое следующее обновление удаляет прежнюю heap-only версию
+        for (String v : List.of("a", "b", "c", "d")) {
+            String value = v.repeat(ROW);
+            TID updated = op.update("t", last, List.of(lastId, value));
+
+            assertEquals(last, updated, "HOT update keeps the TID");
+            Map<?, ?> row = (Map<?, ?>) op.selectByTid("t", last);
+            assertEquals(value, row.get("v"));
+            assertEquals(List.of(last), registry.get("t", "id").search(lastId));
+        }
+        // скан отдаёт одну версию строки, и под корневым TID
+        List<TID> onPage0 = new ArrayList<>();
+        List<TID> ofLast = new ArrayList<>();
+        for (Object r : op.select("t", List.of("id"))) {
+            Map<?, ?> row = (Map<?, ?>) r;
+            TID ctid = (TID) row.get(OperationManager.CTID);
+            if (ctid.pageId() == 0) onPage0.add(ctid);
+            if (row.get("id").equals(lastId)) ofLast.add(ctid);
+        }
+        assertEquals(page0.size() - 2, onPage0.size());
+        assertEquals(List.of(last), ofLast);
+        for (int i = 0; i < page0.size() - 1; i++) {
+            if (i == 1 || i == 2) continue;
+            Map<?, ?> other = (Map<?, ?>) op.selectByTid("t", page0.get(i));
+            assertEquals((long) i, other.get("id"));
+            assertEquals("x".repeat(ROW), other.get("v"));
+        }
+
+        assertTrue(op.delete("t", last));
+        assertNull(op.selectByTid("t", last));
+        assertEquals(List.of(), registry.get("t", "id").search(lastId));
+    }
+}
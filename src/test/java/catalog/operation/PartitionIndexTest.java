@@ -0,0 +1,62 @@
+package catalog.operation;
+
+import catalog.manager.DefaultCatalogManager;
+import catalog.model.ColumnDefinition;
+import catalog.partition.Partitioning;
+import index.TID;
+import index.registry.DefaultIndexRegistry;
+import memory.buffer.DefaultBufferPoolManager;
+import memory.manager.HeapPageFileManager;
+import memory.replacer.ClockReplacer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class PartitionIndexTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Индекс, созданный на родителе до появления секций, строится в каждой
+     * секции, созданной позже, в том числе после перезапуска.
+     */
+    @Test
+    void partitionCreatedAfterIndexGetsIt() throws Exception {
+        DefaultBufferPoolManager bpm = new DefaultBufferPoolManager(16, new HeapPageFileManager(4096), new ClockReplacer());
+        DefaultCatalogManager catalog = new DefaultCatalogManager(dir.resolve("catalog"), bpm);
+        DefaultOperationManager op = new DefaultOperationManager(catalog, catalog, bpm, dir.resolve("tables"),
+                new DefaultIndexRegistry());
+
+        List<ColumnDefinition> columns = List.of(
+                new ColumnDefinition(catalog.getTypeByName("INT64").getOid(), "ts", 0),
+                new ColumnDefinition(catalog.getTypeByName("VARCHAR").getOid(), "name", 1));
+        catalog.createTable("ev", columns, Map.of(Partitioning.BY_OPTION, "range", Partitioning.KEY_OPTION, "ts"));
+        op.createIndex("ev_ts", "ev", "ts");
+
+        op.createPartition("ev_low", columns, Map.of(Partitioning.OF_OPTION, "ev",
+                Partitioning.FROM_OPTION, "minvalue", Partitioning.TO_OPTION, "100"));
+        TID low = op.insert("ev", List.of(5L, "a"));
+
+        bpm.flushAllPages();
+        DefaultIndexRegistry registry = new DefaultIndexRegistry();
+        DefaultCatalogManager reopened = new DefaultCatalogManager(dir.resolve("catalog"), bpm);
+        op = new DefaultOperationManager(reopened, reopened, bpm, dir.resolve("tables"), registry);
+
+        op.createPartition("ev_high", columns, Map.of(Partitioning.OF_OPTION, "ev",
+                Partitioning.FROM_OPTION, "100", Partitioning.TO_OPTION, "maxvalue"));
+        TID high = op.insert("ev", List.of(150L, "b"));
+
+        assertNotNull(registry.get("ev_low", "ts"));
+        assertNotNull(registry.get("ev_high", "ts"));
+        assertEquals(List.of(low), registry.get("ev_low", "ts").search(5L));
+        assertEquals(List.of(high), registry.get("ev_high", "ts").search(150L));
+        assertEquals("ev_ts_ev_high", registry.get("ev_high", "ts").getName());
+    }
+}
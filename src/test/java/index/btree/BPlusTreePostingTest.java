@@ -0,0 +1,43 @@
+package index.btree;
+
+import index.TID;
+import memory.buffer.DefaultBufferPoolManager;
+import memory.manager.HeapPageFileManager;
+import memory.replacer.ClockReplacer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BPlusTreePostingTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Отрицательные слоты (строки LSM-таблиц) в списке TID одного ключа:
+     * порядок списка совпадает с порядком дерева, удаление находит TID.
+     */
+    @Test
+    void postingListKeepsNegativeSlotsInTreeOrder() {
+        DefaultBufferPoolManager bpm = new DefaultBufferPoolManager(16, new HeapPageFileManager(4096), new ClockReplacer());
+        BPlusTreeIndexImpl index = new BPlusTreeIndexImpl("t_v", "v", KeyType.VARCHAR, bpm, dir.resolve("t_v"), false);
+
+        TID positive = new TID(0, (short) 5);
+        TID negative = new TID(0, (short) -25536);
+        TID other = new TID(0, (short) -1);
+        index.insert("v", positive);
+        index.insert("v", negative);
+        index.insert("v", other);
+        assertEquals(List.of(negative, other, positive), index.search("v"));
+
+        assertTrue(index.delete("v", positive));
+        assertEquals(List.of(negative, other), index.search("v"));
+        assertTrue(index.delete("v", negative));
+        assertEquals(List.of(other), index.search("v"));
+    }
+}
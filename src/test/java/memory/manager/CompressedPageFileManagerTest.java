@@ -0,0 +1,83 @@
+package memory.manager;
+
+import memory.page.HeapPage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedPageFileManagerTest {
+
+    private static final int PAGE_SIZE = 4096;
+    private static final int PAGES = 16;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Страницы то сжимаются хорошо, то плохо и переезжают между участками:
+     * читается последняя версия, а освобождённые участки переиспользуются —
+     * файл не растёт с каждой перезаписью, в том числе после переоткрытия.
+     */
+    @Test
+    void rewrittenPagesReuseFreedExtents() throws Exception {
+        Path file = dir.resolve("1" + CompressedPageFileManager.FILE_SUFFIX);
+        Random random = new Random(7);
+        byte[][] expected = new byte[PAGES][];
+
+        for (int round = 0; round < 2; round++) {
+            // второй круг — новым менеджером: свободные участки восстанавливаются по карте
+            CompressedPageFileManager pfm = new CompressedPageFileManager(new HeapPageFileManager(PAGE_SIZE));
+            for (int i = 0; i < 50 * PAGES; i++) {
+                int pageId = random.nextInt(PAGES);
+                HeapPage page = new HeapPage(pageId, PAGE_SIZE);
+                byte[] tuple = new byte[1 + random.nextInt(PAGE_SIZE / 2)];
+                if (random.nextBoolean()) {
+                    random.nextBytes(tuple);
+                } else {
+                    Arrays.fill(tuple, (byte) pageId);
+                }
+                page.write(tuple);
+                pfm.write(page, file);
+                expected[pageId] = page.bytes();
+            }
+            for (int pageId = 0; pageId < PAGES; pageId++) {
+                if (expected[pageId] != null) {
+                    assertArrayEquals(expected[pageId], pfm.read(pageId, file).bytes(), "page " + pageId);
+                }
+            }
+            assertTrue(Files.size(file) <= 2L * PAGES * PAGE_SIZE, "file size " + Files.size(file));
+        }
+    }
+
+    /**
+     * Сбой после записи новой версии, но до обновления карты: старая карта
+     * должна указывать на нетронутую старую версию, даже если новая помещалась
+     * в её участок.
+     */
+    @Test
+    void oldVersionSurvivesRewriteWithoutMapUpdate() throws Exception {
+        Path file = dir.resolve("2" + CompressedPageFileManager.FILE_SUFFIX);
+        Path map = dir.resolve(file.getFileName() + CompressedPageFileManager.MAP_SUFFIX);
+        CompressedPageFileManager pfm = new CompressedPageFileManager(new HeapPageFileManager(PAGE_SIZE));
+
+        HeapPage v1 = new HeapPage(0, PAGE_SIZE);
+        v1.write(new byte[] { 1, 1, 1, 1 });
+        pfm.write(v1, file);
+        byte[] mapBefore = Files.readAllBytes(map);
+
+        HeapPage v2 = new HeapPage(0, PAGE_SIZE);
+        v2.write(new byte[] { 2, 2, 2, 2 });
+        pfm.write(v2, file);
+        Files.write(map, mapBefore);
+
+        CompressedPageFileManager reopened = new CompressedPageFileManager(new HeapPageFileManager(PAGE_SIZE));
+        assertArrayEquals(v1.bytes(), reopened.read(0, file).bytes());
+    }
+}